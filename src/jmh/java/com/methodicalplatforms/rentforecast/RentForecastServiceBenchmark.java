@@ -0,0 +1,52 @@
+package com.methodicalplatforms.rentforecast;
+
+import com.methodicalplatforms.rentforecast.benchmark.BenchmarkServices;
+import com.methodicalplatforms.rentforecast.benchmark.SyntheticPortfolio;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.response.RentResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end forecast of a synthetic portfolio, months and years for every unit plus all summaries
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RentForecastServiceBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int unitCount;
+
+    @Param({"12", "120", "360"})
+    private int horizonMonths;
+
+    @Param({"1", "10"})
+    private int unitTypeCount;
+
+    @Param({"BIG_DECIMAL", "PRIMITIVE"})
+    private ForecastEngine engine;
+
+    private RentForecastService rentForecastService;
+    private RentForecastRequest rentForecastRequest;
+
+    @Setup
+    public void setup() {
+        rentForecastService = BenchmarkServices.rentForecastService(engine);
+        rentForecastRequest = SyntheticPortfolio.generate(unitTypeCount, unitCount, horizonMonths);
+    }
+
+    @Benchmark
+    public RentResponse forecastRents() {
+        return rentForecastService.forecastRents(rentForecastRequest);
+    }
+}
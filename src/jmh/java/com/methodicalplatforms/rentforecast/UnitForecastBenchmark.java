@@ -0,0 +1,57 @@
+package com.methodicalplatforms.rentforecast;
+
+import com.methodicalplatforms.rentforecast.benchmark.BenchmarkServices;
+import com.methodicalplatforms.rentforecast.benchmark.SyntheticPortfolio;
+import com.methodicalplatforms.rentforecast.calendar.ForecastMonthIndex;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.RentForecastMonth;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * BigDecimal forecast of a single unit, the inner loop of the BIG_DECIMAL and PARITY engines
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UnitForecastBenchmark {
+
+    @Param({"12", "120", "360"})
+    private int horizonMonths;
+
+    private RentForecastService rentForecastService;
+    private UnitTypeForecast unitTypeForecast;
+    private List<ForecastMonth> sortedForecastMonths;
+    private ForecastMonthIndex monthIndex;
+    private UnitDetails unitDetails;
+
+    @Setup
+    public void setup() {
+        rentForecastService = BenchmarkServices.rentForecastService(ForecastEngine.BIG_DECIMAL);
+        unitTypeForecast = SyntheticPortfolio.generate(1, 1, horizonMonths).getUnitTypeForecastList().get(0);
+        sortedForecastMonths = unitTypeForecast.getForecastMonthData().stream()
+                .sorted(Comparator.comparingInt(ForecastMonth::getYear).thenComparingInt(ForecastMonth::getMonth))
+                .collect(Collectors.toList());
+        monthIndex = new ForecastMonthIndex(sortedForecastMonths, SyntheticPortfolio.CLOSING_DATE);
+        unitDetails = unitTypeForecast.getUnitDetails().values().iterator().next();
+    }
+
+    @Benchmark
+    public List<RentForecastMonth> forecastRentsByMonthForUnit() {
+        return rentForecastService.forecastRentsByMonthForUnit(sortedForecastMonths, unitTypeForecast.getExcessRentAdjustmentRate(), unitDetails, monthIndex);
+    }
+}
@@ -0,0 +1,45 @@
+package com.methodicalplatforms.rentforecast.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.config.RentForecastExecutorProperties;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Services wired the way the application wires them, without a Spring context
+ */
+public final class BenchmarkServices {
+
+    // one pool for every benchmark, like the application
+    private static final ForecastExecutor FORECAST_EXECUTOR = new ForecastExecutor(new RentForecastExecutorProperties(), new SimpleMeterRegistry());
+
+    private BenchmarkServices() {
+    }
+
+    /**
+     * Rent forecast service for an engine
+     *
+     * @param forecastEngine - engine to forecast with
+     * @return - a rent forecast service with the result cache disabled, so every invocation forecasts
+     */
+    public static RentForecastService rentForecastService(ForecastEngine forecastEngine) {
+        return RentForecastTestServices.builder()
+                .engine(forecastEngine)
+                .cacheEnabled(false)
+                .forecastExecutor(FORECAST_EXECUTOR)
+                .build();
+    }
+
+    /**
+     * Object mapper for reading and writing payloads
+     *
+     * @return - an object mapper with the Spring defaults, the same modules and features the application uses
+     */
+    public static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.methodicalplatforms.rentforecast.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson reading and writing the example payloads in src/main/resources. The response examples predate the
+ * current response classes, so they are read as a tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExamplePayloadBenchmark {
+
+    @Param({"request-example.json", "excel-example.json"})
+    private String requestPayload;
+
+    @Param({"response-monthly-example.json", "response-monthly-unit-summary-example.json", "response-yearly-example.json",
+            "response-yearly-unit-breakdown-example.json", "response-yearly-unit-summary-example.json"})
+    private String responsePayload;
+
+    private final ObjectMapper objectMapper = BenchmarkServices.objectMapper();
+    private byte[] requestBytes;
+    private byte[] responseBytes;
+    private RentForecastRequest rentForecastRequest;
+    private JsonNode response;
+
+    @Setup
+    public void setup() throws IOException {
+        requestBytes = readResource(requestPayload);
+        responseBytes = readResource(responsePayload);
+        rentForecastRequest = objectMapper.readValue(requestBytes, RentForecastRequest.class);
+        response = objectMapper.readTree(responseBytes);
+    }
+
+    private byte[] readResource(String name) throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/" + name)) {
+            if (inputStream == null) {
+                throw new IOException("Missing example payload " + name);
+            }
+            return inputStream.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public RentForecastRequest readRequest() throws IOException {
+        return objectMapper.readValue(requestBytes, RentForecastRequest.class);
+    }
+
+    @Benchmark
+    public byte[] writeRequest() throws IOException {
+        return objectMapper.writeValueAsBytes(rentForecastRequest);
+    }
+
+    @Benchmark
+    public JsonNode readResponse() throws IOException {
+        return objectMapper.readTree(responseBytes);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,56 @@
+package com.methodicalplatforms.rentforecast.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.response.RentResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson reading a synthetic portfolio request and writing its forecast response
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PortfolioJacksonBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int unitCount;
+
+    @Param({"12", "120", "360"})
+    private int horizonMonths;
+
+    @Param({"1", "10"})
+    private int unitTypeCount;
+
+    private final ObjectMapper objectMapper = BenchmarkServices.objectMapper();
+    private byte[] requestBytes;
+    private RentResponse rentResponse;
+
+    @Setup
+    public void setup() throws IOException {
+        RentForecastRequest rentForecastRequest = SyntheticPortfolio.generate(unitTypeCount, unitCount, horizonMonths);
+        requestBytes = objectMapper.writeValueAsBytes(rentForecastRequest);
+        rentResponse = BenchmarkServices.rentForecastService(ForecastEngine.BIG_DECIMAL).forecastRents(rentForecastRequest);
+    }
+
+    @Benchmark
+    public RentForecastRequest readRequest() throws IOException {
+        return objectMapper.readValue(requestBytes, RentForecastRequest.class);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(rentResponse);
+    }
+}
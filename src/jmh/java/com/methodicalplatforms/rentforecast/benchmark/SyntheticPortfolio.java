@@ -0,0 +1,94 @@
+package com.methodicalplatforms.rentforecast.benchmark;
+
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates rent forecast requests shaped like a real portfolio: rents with cents, leases that started before
+ * closing or start shortly after it, a mix of contract terms and unit statuses. The same arguments always
+ * generate the same request.
+ */
+public final class SyntheticPortfolio {
+
+    public static final LocalDate CLOSING_DATE = LocalDate.of(2024, 3, 15);
+    private static final long SEED = 20240315L;
+    private static final String[] UNIT_STATUSES = {"READY", "READY", "READY", "NOT READY", "DOWN"};
+    private static final int[] CONTRACT_TERMS = {6, 12, 12, 12, 18, 24};
+
+    private SyntheticPortfolio() {
+    }
+
+    /**
+     * Generate a request
+     *
+     * @param unitTypeCount - number of unit types
+     * @param unitCount     - number of units, split evenly over the unit types
+     * @param horizonMonths - number of forecast months for each unit type
+     * @return - the request
+     */
+    public static RentForecastRequest generate(int unitTypeCount, int unitCount, int horizonMonths) {
+        Random random = new Random(SEED);
+        List<UnitTypeForecast> unitTypeForecasts = new ArrayList<>();
+        for (int unitType = 0; unitType < unitTypeCount; unitType++) {
+            int unitTypeUnitCount = unitCount / unitTypeCount + (unitType < unitCount % unitTypeCount ? 1 : 0);
+            unitTypeForecasts.add(UnitTypeForecast.builder()
+                    .unitType("UNIT TYPE " + unitType)
+                    .excessRentAdjustmentRate(BigDecimal.valueOf(.15))
+                    .forecastMonthData(forecastMonths(random, horizonMonths))
+                    .unitDetails(unitDetails(random, unitType, unitTypeUnitCount))
+                    .build());
+        }
+
+        RentForecastRequest rentForecastRequest = new RentForecastRequest();
+        rentForecastRequest.setClosingDate(CLOSING_DATE);
+        rentForecastRequest.setUnitTypeForecastList(unitTypeForecasts);
+        return rentForecastRequest;
+    }
+
+    private static List<ForecastMonth> forecastMonths(Random random, int horizonMonths) {
+        List<ForecastMonth> forecastMonths = new ArrayList<>(horizonMonths);
+        for (int i = 0; i < horizonMonths; i++) {
+            forecastMonths.add(ForecastMonth.builder()
+                    .year(i / 12 + 1)
+                    .month(i % 12 + 1)
+                    .marketEscalationRate(rate(random, .005))
+                    // most leases renew in the spring
+                    .actualEscalationRate(i % 12 == 3 ? rate(random, .05) : BigDecimal.ZERO)
+                    .build());
+        }
+        return forecastMonths;
+    }
+
+    private static Map<String, UnitDetails> unitDetails(Random random, int unitType, int unitCount) {
+        Map<String, UnitDetails> unitDetails = new HashMap<>();
+        for (int unit = 0; unit < unitCount; unit++) {
+            BigDecimal marketRent = BigDecimal.valueOf(80_000 + random.nextInt(270_000), 2);
+            UnitDetails details = new UnitDetails();
+            details.setStartingMarketRent(marketRent);
+            details.setStartingActualRent(marketRent.multiply(BigDecimal.valueOf(85 + random.nextInt(20), 2)).setScale(2, RoundingMode.HALF_EVEN));
+            details.setContractTerm(CONTRACT_TERMS[random.nextInt(CONTRACT_TERMS.length)]);
+            details.setUnitStatus(UNIT_STATUSES[random.nextInt(UNIT_STATUSES.length)]);
+            // one in ten units has no lease start date
+            if (random.nextInt(10) != 0) {
+                details.setStartDate(CLOSING_DATE.minusMonths(24).plusDays(random.nextInt(900)));
+            }
+            unitDetails.put(unitType + "-" + unit, details);
+        }
+        return unitDetails;
+    }
+
+    private static BigDecimal rate(Random random, double maxRate) {
+        return BigDecimal.valueOf(random.nextDouble() * maxRate).setScale(4, RoundingMode.HALF_EVEN);
+    }
+}
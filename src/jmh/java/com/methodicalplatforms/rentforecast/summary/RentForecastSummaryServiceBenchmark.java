@@ -0,0 +1,123 @@
+package com.methodicalplatforms.rentforecast.summary;
+
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.benchmark.BenchmarkServices;
+import com.methodicalplatforms.rentforecast.benchmark.SyntheticPortfolio;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastYearly;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each summary on its own, over unit forecasts calculated once in setup. The BigDecimal summaries run over
+ * BIG_DECIMAL engine forecasts, the aggregated ones over PRIMITIVE engine forecasts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RentForecastSummaryServiceBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int unitCount;
+
+    @Param({"12", "120", "360"})
+    private int horizonMonths;
+
+    @Param({"1", "10"})
+    private int unitTypeCount;
+
+    private final RentForecastSummaryService rentForecastSummaryService = new RentForecastSummaryService();
+    private RentForecastRequest rentForecastRequest;
+    private Map<String, UnitTypeForecastMonthly> rentByMonths;
+    private Map<String, UnitTypeForecastYearly> rentByYears;
+    private Map<String, UnitTypeForecastMonthly> aggregatedRentByMonths;
+
+    @Setup
+    public void setup() {
+        rentForecastRequest = SyntheticPortfolio.generate(unitTypeCount, unitCount, horizonMonths);
+        rentByMonths = forecastUnitTypes(BenchmarkServices.rentForecastService(ForecastEngine.BIG_DECIMAL));
+        rentByYears = rentForecastSummaryService.summarizeYearsForAllUnitTypes(rentByMonths);
+        rentForecastSummaryService.calculateFiscalYearSummaries(rentByMonths, rentByYears, rentForecastRequest.getClosingDate());
+        aggregatedRentByMonths = forecastUnitTypes(BenchmarkServices.rentForecastService(ForecastEngine.PRIMITIVE));
+    }
+
+    private Map<String, UnitTypeForecastMonthly> forecastUnitTypes(RentForecastService rentForecastService) {
+        Map<String, UnitTypeForecastMonthly> unitTypeForecasts = new HashMap<>();
+        for (UnitTypeForecast unitTypeForecast : rentForecastRequest.getUnitTypeForecastList()) {
+            unitTypeForecasts.put(unitTypeForecast.getUnitType(), rentForecastService.forecastUnitType(unitTypeForecast, rentForecastRequest.getClosingDate()));
+        }
+        return unitTypeForecasts;
+    }
+
+    @Benchmark
+    public void summarizeUnitType(Blackhole blackhole) {
+        rentByMonths.values().forEach(unitTypeForecastMonthly ->
+                blackhole.consume(rentForecastSummaryService.summarizeUnitType(unitTypeForecastMonthly.getUnitForecasts())));
+    }
+
+    @Benchmark
+    public Map<String, UnitTypeForecastYearly> summarizeYearsForAllUnitTypes() {
+        return rentForecastSummaryService.summarizeYearsForAllUnitTypes(rentByMonths);
+    }
+
+    /**
+     * Fiscal years are added to the calendar year summaries, so this includes summarizeYearsForAllUnitTypes
+     */
+    @Benchmark
+    public Map<String, UnitTypeForecastYearly> calculateFiscalYearSummaries() {
+        Map<String, UnitTypeForecastYearly> unitTypeRentByYears = rentForecastSummaryService.summarizeYearsForAllUnitTypes(rentByMonths);
+        rentForecastSummaryService.calculateFiscalYearSummaries(rentByMonths, unitTypeRentByYears, rentForecastRequest.getClosingDate());
+        return unitTypeRentByYears;
+    }
+
+    @Benchmark
+    public Map<String, UnitTypeForecastYearly> summarizeByUnitStatus() {
+        return rentForecastSummaryService.summarizeByUnitStatus(rentByYears, rentForecastRequest.getUnitTypeForecastList());
+    }
+
+    @Benchmark
+    public Map<String, UnitTypeForecastYearly> yearlySummaryByUnitType() {
+        Map<String, UnitTypeForecastYearly> unitTypeRentByYears = new HashMap<>(rentByYears);
+        rentForecastSummaryService.yearlySummaryByUnitType(unitTypeRentByYears);
+        return unitTypeRentByYears;
+    }
+
+    @Benchmark
+    public Map<String, UnitTypeForecastMonthly> summarizeAllUnitTypes() {
+        Map<String, UnitTypeForecastMonthly> unitTypeRentByMonths = new HashMap<>(rentByMonths);
+        rentForecastSummaryService.summarizeAllUnitTypes(unitTypeRentByMonths);
+        return unitTypeRentByMonths;
+    }
+
+    @Benchmark
+    public void summarizeAggregatedUnitType(Blackhole blackhole) {
+        aggregatedRentByMonths.values().forEach(unitTypeForecastMonthly ->
+                blackhole.consume(rentForecastSummaryService.summarizeUnitType(unitTypeForecastMonthly.getUnitTypeAggregates())));
+    }
+
+    @Benchmark
+    public void summarizeAggregatedYears(Blackhole blackhole) {
+        aggregatedRentByMonths.values().forEach(unitTypeForecastMonthly ->
+                blackhole.consume(rentForecastSummaryService.summarizeAggregatedYears(unitTypeForecastMonthly.getUnitTypeAggregates())));
+    }
+
+    @Benchmark
+    public void summarizeAggregatedUnitStatuses(Blackhole blackhole) {
+        aggregatedRentByMonths.values().forEach(unitTypeForecastMonthly ->
+                blackhole.consume(rentForecastSummaryService.summarizeAggregatedUnitStatuses(unitTypeForecastMonthly.getUnitTypeAggregates())));
+    }
+}
@@ -1,27 +1,173 @@
 package com.methodicalplatforms.rentforecast;
 
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.admission.ForecastPermit;
+import com.methodicalplatforms.rentforecast.admission.ForecastPermitFilter;
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.arena.ForecastArenaStats;
+import com.methodicalplatforms.rentforecast.arena.ForecastBufferPool;
+import com.methodicalplatforms.rentforecast.cache.ForecastCacheStats;
+import com.methodicalplatforms.rentforecast.cache.UnitCheckpointCache;
+import com.methodicalplatforms.rentforecast.cache.UnitTypeForecastCache;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutorStats;
+import com.methodicalplatforms.rentforecast.ingest.StreamingRentForecastReader;
 import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
 import com.methodicalplatforms.rentforecast.response.RentResponse;
+import com.methodicalplatforms.rentforecast.stream.StreamingRentResponseWriter;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("/rent-forecast")
 public class RentForecastController {
 
     private final RentForecastService rentForecastService;
+    private final StreamingRentResponseWriter streamingRentResponseWriter;
+    private final UnitTypeForecastCache unitTypeForecastCache;
+    private final ForecastExecutor forecastExecutor;
+    private final MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
+    private final ForecastAdmission forecastAdmission;
+    private final StreamingRentForecastReader streamingRentForecastReader;
+    private final ForecastBufferPool forecastBufferPool;
+    private final UnitCheckpointCache unitCheckpointCache;
 
     @Autowired
-    public RentForecastController(RentForecastService rentForecastService) {
+    public RentForecastController(RentForecastService rentForecastService, StreamingRentResponseWriter streamingRentResponseWriter,
+                                  UnitTypeForecastCache unitTypeForecastCache, ForecastExecutor forecastExecutor,
+                                  MappingJackson2CborHttpMessageConverter cborHttpMessageConverter, ForecastAdmission forecastAdmission,
+                                  StreamingRentForecastReader streamingRentForecastReader, ForecastBufferPool forecastBufferPool,
+                                  UnitCheckpointCache unitCheckpointCache) {
         this.rentForecastService = rentForecastService;
+        this.streamingRentResponseWriter = streamingRentResponseWriter;
+        this.unitTypeForecastCache = unitTypeForecastCache;
+        this.forecastExecutor = forecastExecutor;
+        this.cborHttpMessageConverter = cborHttpMessageConverter;
+        this.forecastAdmission = forecastAdmission;
+        this.streamingRentForecastReader = streamingRentForecastReader;
+        this.forecastBufferPool = forecastBufferPool;
+        this.unitCheckpointCache = unitCheckpointCache;
     }
 
+    /**
+     * JSON by default, CBOR with columnar months when the client accepts application/cbor.
+     * 400 for an invalid forecast window, 413 for requests too large to answer here, 429 with a Retry-After while the
+     * forecast budget is in use.
+     */
     @PostMapping
-    public RentResponse getRentForecasts(@RequestBody RentForecastRequest rentForecastRequest) {
-        return rentForecastService.forecastRents(rentForecastRequest);
+    public ResponseEntity<RentResponse> getRentForecasts(@RequestBody RentForecastRequest rentForecastRequest, HttpServletRequest request) {
+        try {
+            // the response is serialized after this returns, the permit is held until it is written
+            ForecastPermitFilter.holdUntilWritten(request, forecastAdmission.admit(rentForecastRequest));
+            return ResponseEntity.ok(rentForecastService.forecastRents(rentForecastRequest));
+        } catch (ForecastRejectedException e) {
+            return e.toResponse();
+        } catch (IllegalArgumentException e) {
+            // an invalid forecast window
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Same response as getRentForecasts, written while unit types are still being forecast
+     */
+    @PostMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamRentForecasts(@RequestBody RentForecastRequest rentForecastRequest) {
+        ForecastPermit forecastPermit;
+        try {
+            forecastPermit = forecastAdmission.admit(rentForecastRequest);
+        } catch (ForecastRejectedException e) {
+            return e.toResponse();
+        }
+        // the permit is held until the response is written
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> {
+                    try (forecastPermit) {
+                        streamingRentResponseWriter.writeRentForecasts(rentForecastRequest, outputStream);
+                    }
+                });
+    }
+
+    /**
+     * Streamed forecast in CBOR with columnar months
+     */
+    @PostMapping(params = "stream=true", produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCborRentForecasts(@RequestBody RentForecastRequest rentForecastRequest) {
+        ForecastPermit forecastPermit;
+        try {
+            forecastPermit = forecastAdmission.admit(rentForecastRequest);
+        } catch (ForecastRejectedException e) {
+            return e.toResponse();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_CBOR)
+                .body(outputStream -> {
+                    try (forecastPermit) {
+                        streamingRentResponseWriter.writeRentForecasts(rentForecastRequest, outputStream, cborHttpMessageConverter.getObjectMapper());
+                    }
+                });
+    }
+
+    /**
+     * Same response as getRentForecasts for very large JSON requests, each unit type is forecast as soon as it has been
+     * read. closingDate should come before unitTypeForecastList, unit types read before it wait for it.
+     */
+    @PostMapping(params = "ingest=stream", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<RentResponse> ingestRentForecasts(InputStream inputStream, HttpServletRequest request) {
+        try {
+            // the permits are held until the response is written
+            return ResponseEntity.ok(streamingRentForecastReader.forecastRents(inputStream,
+                    forecastPermit -> ForecastPermitFilter.holdUntilWritten(request, forecastPermit)));
+        } catch (ForecastRejectedException e) {
+            return e.toResponse();
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters of the unit type forecast cache
+     */
+    @GetMapping("/cache")
+    public ForecastCacheStats getCacheStats() {
+        return unitTypeForecastCache.getStats();
+    }
+
+    /**
+     * Resumed unit forecasts, as hits, and the number of checkpoints kept, as weight
+     */
+    @GetMapping("/checkpoints")
+    public ForecastCacheStats getCheckpointStats() {
+        return unitCheckpointCache.getStats();
+    }
+
+    /**
+     * Queue depth, utilization and task counters of the forecast thread pool
+     */
+    @GetMapping("/executor")
+    public ForecastExecutorStats getExecutorStats() {
+        return forecastExecutor.getStats();
+    }
+
+    /**
+     * Direct memory reserved and in use by the forecast buffer pool
+     */
+    @GetMapping("/arena")
+    public ForecastArenaStats getArenaStats() {
+        return forecastBufferPool.getStats();
     }
 
 }
@@ -1,8 +1,29 @@
 package com.methodicalplatforms.rentforecast;
 
 import com.methodicalplatforms.rentforecast.actual.ActualRentForecastService;
+import com.methodicalplatforms.rentforecast.arena.ForecastArena;
+import com.methodicalplatforms.rentforecast.cache.UnitCheckpointCache;
+import com.methodicalplatforms.rentforecast.cache.UnitCheckpointPlan;
+import com.methodicalplatforms.rentforecast.cache.UnitCheckpoints;
+import com.methodicalplatforms.rentforecast.cache.UnitTypeForecastCache;
+import com.methodicalplatforms.rentforecast.cache.UnitTypeForecastKey;
+import com.methodicalplatforms.rentforecast.calendar.ForecastMonthIndex;
+import com.methodicalplatforms.rentforecast.calendar.MonthWindow;
+import com.methodicalplatforms.rentforecast.calendar.UnitMonthSchedule;
+import com.methodicalplatforms.rentforecast.config.RentForecastProperties;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.kernel.PrimitiveRentForecastKernel;
+import com.methodicalplatforms.rentforecast.kernel.ProfileSlice;
+import com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastAggregates;
+import com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns;
 import com.methodicalplatforms.rentforecast.market.MarketRentForecastService;
+import com.methodicalplatforms.rentforecast.metrics.ForecastMetrics;
+import com.methodicalplatforms.rentforecast.metrics.ForecastStage;
+import com.methodicalplatforms.rentforecast.profile.UnitProfiles;
 import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.ForecastOptions;
+import com.methodicalplatforms.rentforecast.request.ForecastWindow;
 import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
 import com.methodicalplatforms.rentforecast.request.UnitDetails;
 import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
@@ -11,35 +32,55 @@ import com.methodicalplatforms.rentforecast.response.RentResponse;
 import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
 import com.methodicalplatforms.rentforecast.response.UnitTypeForecastYearly;
 import com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.YearMonth;
-import java.time.temporal.ChronoUnit;
-import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService.ALL_UNITS;
+
+@Slf4j
 @Service
 public class RentForecastService {
 
     private final ActualRentForecastService actualRentForecastService;
     private final MarketRentForecastService marketRentForecastService;
     private final RentForecastSummaryService rentForecastSummaryService;
+    private final PrimitiveRentForecastKernel primitiveRentForecastKernel;
+    private final RentForecastProperties rentForecastProperties;
+    private final UnitTypeForecastCache unitTypeForecastCache;
+    private final ForecastExecutor forecastExecutor;
+    private final ForecastMetrics forecastMetrics;
+    private final UnitCheckpointCache unitCheckpointCache;
     private static final int DECIMAL_PLACES = 15;
 
     @Autowired
-    public RentForecastService(ActualRentForecastService actualRentForecastService, MarketRentForecastService marketRentForecastService, RentForecastSummaryService rentForecastSummaryService) {
+    public RentForecastService(ActualRentForecastService actualRentForecastService, MarketRentForecastService marketRentForecastService,
+                               RentForecastSummaryService rentForecastSummaryService, PrimitiveRentForecastKernel primitiveRentForecastKernel,
+                               RentForecastProperties rentForecastProperties, UnitTypeForecastCache unitTypeForecastCache,
+                               ForecastExecutor forecastExecutor, ForecastMetrics forecastMetrics, UnitCheckpointCache unitCheckpointCache) {
         this.actualRentForecastService = actualRentForecastService;
         this.marketRentForecastService = marketRentForecastService;
         this.rentForecastSummaryService = rentForecastSummaryService;
+        this.primitiveRentForecastKernel = primitiveRentForecastKernel;
+        this.rentForecastProperties = rentForecastProperties;
+        this.unitTypeForecastCache = unitTypeForecastCache;
+        this.forecastExecutor = forecastExecutor;
+        this.forecastMetrics = forecastMetrics;
+        this.unitCheckpointCache = unitCheckpointCache;
     }
 
     /**
@@ -50,68 +91,455 @@ public class RentForecastService {
      */
     public RentResponse forecastRents(RentForecastRequest rentForecastRequest) {
         LocalDate closingDate = rentForecastRequest.getClosingDate();
-        Map<String, UnitTypeForecastMonthly> rentByMonths = forecastRentsForAllUnitTypes(rentForecastRequest.getUnitTypeForecastList(), closingDate);
+        // the response is written on this thread, so its forecasts can use the request's arena
+        ForecastArena arena = ForecastArena.current();
+        ForecastWindow window = rentForecastRequest.getOptions() == null ? null : rentForecastRequest.getOptions().getWindow();
+        boolean unitForecasts = includesUnitForecasts(rentForecastRequest.getOptions());
+        forecastMetrics.recordRequestSize(rentForecastRequest.getUnitTypeForecastList());
+        Map<String, UnitTypeForecastMonthly> rentByMonths = forecastMetrics.time(ForecastStage.FORECAST,
+                () -> forecastRentsForAllUnitTypes(rentForecastRequest.getUnitTypeForecastList(), closingDate, window, unitForecasts, arena));
+        return summarizeRents(rentByMonths, rentForecastRequest.getUnitTypeForecastList(), closingDate, rentForecastRequest.getOptions());
+    }
+
+    /**
+     * @param forecastOptions - views to build, every view when null
+     * @return - true if a view is built from the forecast of each unit, false when only unit type totals are needed
+     */
+    public static boolean includesUnitForecasts(ForecastOptions forecastOptions) {
+        return forecastOptions == null || forecastOptions.includesUnits() || forecastOptions.includesUnitStatuses();
+    }
 
+    /**
+     * Build the response, with every view, from the monthly forecasts of every unit type
+     *
+     * @param rentByMonths         - monthly forecast for each unit type, ALL UNITS is added to it
+     * @param unitTypeForecastList - the list of unit types and their corresponding forecast data
+     * @param closingDate          - the closing date for the property
+     * @return - forecast response
+     */
+    public RentResponse summarizeRents(Map<String, UnitTypeForecastMonthly> rentByMonths, List<UnitTypeForecast> unitTypeForecastList, LocalDate closingDate) {
+        return summarizeRents(rentByMonths, unitTypeForecastList, closingDate, null);
+    }
+
+    /**
+     * Build the response from the monthly forecasts of every unit type, only summarizing the views the options ask for
+     *
+     * @param rentByMonths         - monthly forecast for each unit type, ALL UNITS is added to it
+     * @param unitTypeForecastList - the list of unit types and their corresponding forecast data
+     * @param closingDate          - the closing date for the property
+     * @param forecastOptions      - views to build, every view when null
+     * @return - forecast response
+     */
+    public RentResponse summarizeRents(Map<String, UnitTypeForecastMonthly> rentByMonths, List<UnitTypeForecast> unitTypeForecastList, LocalDate closingDate,
+                                       ForecastOptions forecastOptions) {
+        ForecastOptions options = Objects.requireNonNullElseGet(forecastOptions, ForecastOptions::new);
         RentResponse.RentResponseBuilder rentResponseBuilder = RentResponse.builder();
         // Summarize by Year
-        Map<String, UnitTypeForecastYearly> rentByYears = rentForecastSummaryService.summarizeYearsForAllUnitTypes(rentByMonths);
-        rentForecastSummaryService.calculateFiscalYearSummaries(rentByMonths,rentByYears, closingDate);
-        rentForecastSummaryService.yearlySummaryByUnitType(rentByYears);
-        rentResponseBuilder.unitTypeUnitStatusView(rentForecastSummaryService.summarizeByUnitStatus(rentByYears, rentForecastRequest.getUnitTypeForecastList()));
+        Map<String, UnitTypeForecastYearly> rentByYears;
+        if (rentByMonths.values().stream().allMatch(unitTypeForecastMonthly -> unitTypeForecastMonthly.getUnitTypeAggregates() != null)) {
+            // Unit, fiscal and unit status years were aggregated while forecasting
+            Map<String, UnitTypeForecastYearly> aggregatedYears = new HashMap<>();
+            Map<String, UnitTypeForecastYearly> unitStatusView = new HashMap<>();
+            forecastMetrics.time(ForecastStage.SUMMARY_YEARS, () -> rentByMonths.forEach((unitType, unitTypeForecastMonthly) ->
+                    aggregatedYears.put(unitType, rentForecastSummaryService.summarizeAggregatedYears(unitTypeForecastMonthly.getUnitTypeAggregates(), options.includesUnits()))));
+            if (options.includesUnitStatuses()) {
+                forecastMetrics.time(ForecastStage.SUMMARY_UNIT_STATUSES, () -> rentByMonths.forEach((unitType, unitTypeForecastMonthly) ->
+                        unitStatusView.put(unitType, rentForecastSummaryService.summarizeAggregatedUnitStatuses(unitTypeForecastMonthly.getUnitTypeAggregates()))));
+            }
+            forecastMetrics.time(ForecastStage.SUMMARY_UNIT_TYPES, () -> rentForecastSummaryService.yearlySummaryByUnitType(aggregatedYears));
+            rentResponseBuilder.unitTypeUnitStatusView(options.includesUnitStatuses() ? unitStatusView : null);
+            rentByYears = aggregatedYears;
+        } else {
+            // Unit years are only summarized when a view is built from them
+            boolean unitYears = options.includesUnits() || options.includesUnitStatuses();
+            Map<String, UnitTypeForecastMonthly> yearlyRentByMonths = unitYears ? rentByMonths : withoutUnits(rentByMonths);
+            Map<String, UnitTypeForecastYearly> unitTypeYears = forecastMetrics.time(ForecastStage.SUMMARY_YEARS,
+                    () -> rentForecastSummaryService.summarizeYearsForAllUnitTypes(yearlyRentByMonths));
+            forecastMetrics.time(ForecastStage.SUMMARY_FISCAL_YEARS,
+                    () -> rentForecastSummaryService.calculateFiscalYearSummaries(yearlyRentByMonths, unitTypeYears, closingDate));
+            forecastMetrics.time(ForecastStage.SUMMARY_UNIT_TYPES, () -> rentForecastSummaryService.yearlySummaryByUnitType(unitTypeYears));
+            rentResponseBuilder.unitTypeUnitStatusView(options.includesUnitStatuses() ? forecastMetrics.time(ForecastStage.SUMMARY_UNIT_STATUSES,
+                    () -> rentForecastSummaryService.summarizeByUnitStatus(unitTypeYears, unitTypeForecastList)) : null);
+            rentByYears = unitTypeYears;
+            if (!options.includesUnits()) {
+                rentByYears.values().forEach(unitTypeForecastYearly -> unitTypeForecastYearly.setUnitForecasts(null));
+            }
+        }
+        if (!options.includesUnitTypes()) {
+            rentByYears.keySet().retainAll(Set.of(ALL_UNITS));
+        }
         rentResponseBuilder.unitTypeForecastRentYears(rentByYears);
+
         // Summarize by unit type
-        rentForecastSummaryService.summarizeAllUnitTypes(rentByMonths);
-        rentResponseBuilder.unitTypeForecastRentMonths(rentByMonths);
+        if (options.includesMonths()) {
+            Map<String, UnitTypeForecastMonthly> monthlyRentByMonths = options.includesUnits() ? rentByMonths : withoutUnits(rentByMonths);
+            forecastMetrics.time(ForecastStage.SUMMARY_MONTHS, () -> rentForecastSummaryService.summarizeAllUnitTypes(monthlyRentByMonths));
+            if (!options.includesUnitTypes()) {
+                monthlyRentByMonths.keySet().retainAll(Set.of(ALL_UNITS));
+            }
+            rentResponseBuilder.unitTypeForecastRentMonths(monthlyRentByMonths);
+        }
 
         return rentResponseBuilder.build();
     }
 
+    /**
+     * @param rentByMonths - monthly forecast for each unit type
+     * @return - the unit type summaries and aggregates of each unit type, without the forecasts of each unit
+     */
+    private static Map<String, UnitTypeForecastMonthly> withoutUnits(Map<String, UnitTypeForecastMonthly> rentByMonths) {
+        Map<String, UnitTypeForecastMonthly> unitTypeSummaries = new HashMap<>();
+        rentByMonths.forEach((unitType, unitTypeForecastMonthly) -> unitTypeSummaries.put(unitType, UnitTypeForecastMonthly.builder()
+                .unitTypeForecast(unitTypeForecastMonthly.getUnitTypeForecast())
+                .unitTypeAggregates(unitTypeForecastMonthly.getUnitTypeAggregates())
+                .monthWindow(unitTypeForecastMonthly.getMonthWindow())
+                .build()));
+        return unitTypeSummaries;
+    }
+
     /**
      * Forecast rents for each unit type
      *
      * @param unitTypeForecastList - the list of unit types and their corresponding forecast data
      * @return - a map of forecasts by unit type
      */
-    private Map<String, UnitTypeForecastMonthly> forecastRentsForAllUnitTypes(List<UnitTypeForecast> unitTypeForecastList, LocalDate closingDate) {
-        return unitTypeForecastList.parallelStream()
-                .map(unitTypeForecast -> {
-                    Map<String, List<RentForecastMonth>> unitForecasts = forecastMonthlyRentsForAllUnits(unitTypeForecast, closingDate);
-                    List<RentForecastMonth> unitTypeSummary = rentForecastSummaryService.summarizeUnitType(unitForecasts);
+    private Map<String, UnitTypeForecastMonthly> forecastRentsForAllUnitTypes(List<UnitTypeForecast> unitTypeForecastList, LocalDate closingDate,
+                                                                               ForecastWindow window, boolean unitForecasts, ForecastArena arena) {
+        List<UnitTypeForecastMonthly> unitTypeForecasts = forecastExecutor.map(unitTypeForecastList.size(), unitMonths(unitTypeForecastList),
+                unitTypeIndex -> forecastUnitType(unitTypeForecastList.get(unitTypeIndex), closingDate, window, unitForecasts, arena));
+        return IntStream.range(0, unitTypeForecastList.size()).boxed()
+                .collect(Collectors.toMap(unitTypeIndex -> unitTypeForecastList.get(unitTypeIndex).getUnitType(), unitTypeForecasts::get));
+    }
 
-                    UnitTypeForecastMonthly unitTypeForecastMonthly = UnitTypeForecastMonthly.builder()
-                            .unitTypeForecast(unitTypeSummary)
-                            .unitForecasts(unitForecasts)
-                            .build();
+    /**
+     * @param unitTypeForecastList - the list of unit types and their corresponding forecast data
+     * @return - number of unit months to forecast over all unit types
+     */
+    public static long unitMonths(List<UnitTypeForecast> unitTypeForecastList) {
+        return unitTypeForecastList.stream().mapToLong(RentForecastService::unitMonths).sum();
+    }
+
+    private static long unitMonths(UnitTypeForecast unitTypeForecast) {
+        return (long) unitTypeForecast.getUnitDetails().size() * unitTypeForecast.getForecastMonthData().size();
+    }
 
-                    return Map.entry(unitTypeForecast.getUnitType(), unitTypeForecastMonthly);
-                })
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    /**
+     * Forecast rents for a single unit type, monthly for each unit and summarized for the unit type.
+     * Unit types with the same inputs as a cached one reuse the cached forecast.
+     *
+     * @param unitTypeForecast - the unit type forecast details
+     * @param closingDate      - the closing date for the property
+     * @return - monthly forecast for the unit type, shared with the cache and not to be modified
+     */
+    public UnitTypeForecastMonthly forecastUnitType(UnitTypeForecast unitTypeForecast, LocalDate closingDate) {
+        return forecastUnitType(unitTypeForecast, closingDate, null, null);
     }
 
+    /**
+     * Forecast rents for a single unit type like {@link #forecastUnitType(UnitTypeForecast, LocalDate)}, returning
+     * only the months in a window. With a PRIMITIVE forecast the cache won't keep, the unit forecasts are allocated
+     * from a request's arena.
+     *
+     * @param unitTypeForecast - the unit type forecast details
+     * @param closingDate      - the closing date for the property
+     * @param window           - months to return, every month when null
+     * @param arena            - arena of the request the forecast is written for, null allocates on the heap
+     * @return - monthly forecast for the unit type, not to be read once the arena is closed
+     * @throws IllegalArgumentException - if the window is invalid
+     */
+    public UnitTypeForecastMonthly forecastUnitType(UnitTypeForecast unitTypeForecast, LocalDate closingDate, ForecastWindow window,
+                                                    ForecastArena arena) {
+        return forecastUnitType(unitTypeForecast, closingDate, window, true, arena);
+    }
 
     /**
-     * Forecast rents for all units for a given unit type
+     * Forecast rents for a single unit type like {@link #forecastUnitType(UnitTypeForecast, LocalDate, ForecastWindow, ForecastArena)},
+     * leaving out the forecast of each unit when no view is built from it. The BIG_DECIMAL engine then adds every
+     * unit profile straight into the unit type totals instead of keeping a list of months for each.
      *
      * @param unitTypeForecast - the unit type forecast details
-     * @return - unit forecasts
+     * @param closingDate      - the closing date for the property
+     * @param window           - months to return, every month when null
+     * @param unitForecasts    - whether the forecast of each unit is needed, see {@link #includesUnitForecasts(ForecastOptions)}
+     * @param arena            - arena of the request the forecast is written for, null allocates on the heap
+     * @return - monthly forecast for the unit type, without unit forecasts when they're left out
+     * @throws IllegalArgumentException - if the window is invalid
      */
-    private Map<String, List<RentForecastMonth>> forecastMonthlyRentsForAllUnits(UnitTypeForecast unitTypeForecast, LocalDate closingDate) {
-        // Sort the escalation months
-        List<ForecastMonth> sortedForecastMonths = unitTypeForecast.getForecastMonthData().stream()
+    public UnitTypeForecastMonthly forecastUnitType(UnitTypeForecast unitTypeForecast, LocalDate closingDate, ForecastWindow window,
+                                                    boolean unitForecasts, ForecastArena arena) {
+        ForecastEngine forecastEngine = rentForecastProperties.getEngine();
+        // the other engines forecast each unit either way, so their forecasts are cached under one key
+        boolean totalsOnly = !unitForecasts && forecastEngine == ForecastEngine.BIG_DECIMAL;
+        long unitMonths = unitMonths(unitTypeForecast);
+        // a cached forecast outlives the request, so it can't use the arena
+        ForecastArena columnsArena = unitTypeForecastCache.retains(unitMonths) ? null : arena;
+        return unitTypeForecastCache.get(UnitTypeForecastKey.of(unitTypeForecast, closingDate, forecastEngine, window, !totalsOnly), unitMonths,
+                () -> calculateUnitTypeForecast(unitTypeForecast, closingDate, window, !totalsOnly, columnsArena));
+    }
+
+    private UnitTypeForecastMonthly calculateUnitTypeForecast(UnitTypeForecast unitTypeForecast, LocalDate closingDate, ForecastWindow window,
+                                                              boolean unitForecasts, ForecastArena arena) {
+        List<ForecastMonth> sortedForecastMonths = sortForecastMonths(unitTypeForecast.getForecastMonthData());
+        MonthWindow monthWindow = MonthWindow.of(sortedForecastMonths, closingDate, window);
+        // Calendar checks for every unit month become integer comparisons on the month index
+        ForecastMonthIndex monthIndex = new ForecastMonthIndex(sortedForecastMonths, closingDate);
+        // Identical units are only forecast once
+        UnitProfiles unitProfiles = new UnitProfiles(unitTypeForecast.getUnitDetails());
+        return forecastPreparedUnitType(unitTypeForecast, sortedForecastMonths, monthIndex, unitProfiles, closingDate,
+                window == null ? null : monthWindow, unitForecasts, arena);
+    }
+
+    /**
+     * Sort forecast months in calendar order
+     *
+     * @param forecastMonths - forecast months of a unit type
+     * @return - a sorted copy of the forecast months
+     */
+    public static List<ForecastMonth> sortForecastMonths(List<ForecastMonth> forecastMonths) {
+        return forecastMonths.stream()
                 .sorted(Comparator.comparingInt(ForecastMonth::getYear).thenComparingInt(ForecastMonth::getMonth))
                 .collect(Collectors.toList());
+    }
 
-        // Process units using stream
-        return unitTypeForecast.getUnitDetails().entrySet().parallelStream()
-                .collect(Collectors.toMap(Map.Entry::getKey, entry -> {
-                    UnitDetails unitDetails = entry.getValue();
+    /**
+     * Forecast rents for a single unit type whose forecast months, month index and unit profiles were prepared
+     * by the caller, so they can be shared between forecasts of the same unit type. Not cached.
+     *
+     * @param unitTypeForecast     - the unit type forecast details, its forecast months are ignored
+     * @param sortedForecastMonths - the forecast months for the unit type, sorted
+     * @param monthIndex           - month axis of the sorted forecast months and closing date
+     * @param unitProfiles         - the distinct unit profiles of the unit type
+     * @param closingDate          - the closing date for the property
+     * @return - monthly forecast for the unit type
+     */
+    public UnitTypeForecastMonthly forecastPreparedUnitType(UnitTypeForecast unitTypeForecast, List<ForecastMonth> sortedForecastMonths,
+                                                            ForecastMonthIndex monthIndex, UnitProfiles unitProfiles, LocalDate closingDate) {
+        return forecastPreparedUnitType(unitTypeForecast, sortedForecastMonths, monthIndex, unitProfiles, closingDate, null, true, null);
+    }
+
+    /**
+     * @param monthWindow   - months to return, null for every month
+     * @param unitForecasts - false to only sum the unit type totals on the BIG_DECIMAL engine
+     */
+    private UnitTypeForecastMonthly forecastPreparedUnitType(UnitTypeForecast unitTypeForecast, List<ForecastMonth> sortedForecastMonths,
+                                                             ForecastMonthIndex monthIndex, UnitProfiles unitProfiles, LocalDate closingDate,
+                                                             MonthWindow monthWindow, boolean unitForecasts, ForecastArena arena) {
+        MonthWindow forecastWindow = monthWindow == null ? MonthWindow.full(sortedForecastMonths.size()) : monthWindow;
+        ForecastEngine forecastEngine = rentForecastProperties.getEngine();
+        // parity runs compare both engines from the first month
+        UnitCheckpointPlan checkpointPlan = forecastEngine == ForecastEngine.PARITY ? null : unitCheckpointCache.plan(forecastEngine, closingDate,
+                unitTypeForecast.getExcessRentAdjustmentRate(), sortedForecastMonths, forecastWindow);
+        if (forecastEngine == ForecastEngine.PRIMITIVE) {
+            UnitTypeForecastAggregates unitTypeAggregates = forecastUnitColumns(unitTypeForecast, sortedForecastMonths, forecastWindow,
+                    unitProfiles, monthIndex, closingDate, checkpointPlan, arena);
+            UnitTypeForecastColumns unitColumns = unitTypeAggregates.getUnitColumns();
+            return UnitTypeForecastMonthly.builder()
+                    .unitTypeForecast(rentForecastSummaryService.summarizeUnitType(unitTypeAggregates))
+                    .unitForecasts(unitColumns.unitForecastViews())
+                    .unitColumns(unitColumns)
+                    .unitTypeAggregates(unitTypeAggregates)
+                    .monthWindow(monthWindow)
+                    .build();
+        }
 
-                    return forecastRentsByMonthForUnit(
-                            sortedForecastMonths,
-                            unitTypeForecast.getExcessRentAdjustmentRate(),
-                            unitDetails, closingDate
-                    );
-                }));
+        if (!unitForecasts && forecastEngine == ForecastEngine.BIG_DECIMAL) {
+            return UnitTypeForecastMonthly.builder()
+                    .unitTypeForecast(sumAllProfiles(unitTypeForecast, sortedForecastMonths, forecastWindow, unitProfiles, monthIndex, checkpointPlan))
+                    .monthWindow(monthWindow)
+                    .build();
+        }
+
+        List<List<RentForecastMonth>> profileForecasts = forecastMonthlyRentsForAllProfiles(unitTypeForecast, sortedForecastMonths, forecastWindow,
+                unitProfiles, monthIndex, checkpointPlan);
+        return UnitTypeForecastMonthly.builder()
+                .unitTypeForecast(rentForecastSummaryService.summarizeUnitType(profileForecasts, unitProfiles))
+                .unitForecasts(unitProfiles.byUnit(profileForecasts::get))
+                .monthWindow(monthWindow)
+                .build();
+    }
+
+
+    /**
+     * Forecast rents for each distinct unit profile of a given unit type
+     *
+     * @param unitTypeForecast     - the unit type forecast details
+     * @param sortedForecastMonths - the forecast months for the unit type, sorted
+     * @param monthWindow          - months to return
+     * @param unitProfiles         - the distinct unit profiles of the unit type
+     * @param monthIndex           - month axis of the sorted forecast months
+     * @param checkpointPlan       - checkpoints to resume from and record, null for none
+     * @return - unit forecasts by profile index, shared by every unit with the profile
+     */
+    private List<List<RentForecastMonth>> forecastMonthlyRentsForAllProfiles(UnitTypeForecast unitTypeForecast, List<ForecastMonth> sortedForecastMonths,
+                                                                             MonthWindow monthWindow, UnitProfiles unitProfiles, ForecastMonthIndex monthIndex,
+                                                                             UnitCheckpointPlan checkpointPlan) {
+        long unitMonths = (long) unitProfiles.size() * monthWindow.getEnd();
+        if (rentForecastProperties.getEngine() == ForecastEngine.BIG_DECIMAL) {
+            return forecastExecutor.map(unitProfiles.size(), unitMonths,
+                    profileIndex -> List.copyOf(forecastProfile(unitTypeForecast, sortedForecastMonths, monthWindow, unitProfiles.getUnitDetails(profileIndex),
+                            monthIndex, checkpointPlan)));
+        }
+
+        // Parity mode, run the kernel alongside every BigDecimal profile forecast
+        double[] marketEscalationRates = Arrays.copyOf(PrimitiveRentForecastKernel.marketEscalationRates(sortedForecastMonths), monthWindow.getEnd());
+        double[] actualEscalationRates = Arrays.copyOf(PrimitiveRentForecastKernel.actualEscalationRates(sortedForecastMonths), monthWindow.getEnd());
+        return forecastExecutor.map(unitProfiles.size(), unitMonths,
+                profileIndex -> {
+                    UnitDetails unitDetails = unitProfiles.getUnitDetails(profileIndex);
+                    double[] marketRents = new double[monthWindow.getEnd()];
+                    double[] actualRents = new double[monthWindow.getEnd()];
+                    forecastUnitWithKernel(0, marketEscalationRates, actualEscalationRates, monthIndex,
+                            unitTypeForecast.getExcessRentAdjustmentRate(), unitDetails, marketRents, actualRents, 0);
+
+                    List<RentForecastMonth> bigDecimalForecast = forecastRentsByMonthForUnit(sortedForecastMonths,
+                            unitTypeForecast.getExcessRentAdjustmentRate(), unitDetails, monthIndex, monthWindow, null);
+                    checkParity(unitTypeForecast.getUnitType(), unitProfiles.getUnitId(profileIndex), unitProfiles.getUnitCount(profileIndex), bigDecimalForecast,
+                            marketRents, actualRents, monthWindow.getStart());
+                    return List.copyOf(bigDecimalForecast);
+                });
+    }
+
+    /**
+     * Forecast rents for each distinct unit profile of a given unit type with the BigDecimal engine, adding each
+     * profile's forecast to the unit type totals as soon as it's done instead of keeping it
+     *
+     * @param unitTypeForecast     - the unit type forecast details
+     * @param sortedForecastMonths - the forecast months for the unit type, sorted
+     * @param monthWindow          - months to return
+     * @param unitProfiles         - the distinct unit profiles of the unit type
+     * @param monthIndex           - month axis of the sorted forecast months
+     * @param checkpointPlan       - checkpoints to resume from and record, null for none
+     * @return - the summed up monthly values for the unit type
+     */
+    private List<RentForecastMonth> sumAllProfiles(UnitTypeForecast unitTypeForecast, List<ForecastMonth> sortedForecastMonths, MonthWindow monthWindow,
+                                                   UnitProfiles unitProfiles, ForecastMonthIndex monthIndex, UnitCheckpointPlan checkpointPlan) {
+        // workers keep partial totals that are merged at the end, BigDecimal sums don't depend on the order
+        return forecastExecutor.collect(unitProfiles.size(), (long) unitProfiles.size() * monthWindow.getEnd(),
+                ArrayList::new,
+                (unitTypeSummary, profileIndex) -> rentForecastSummaryService.addProfile(unitTypeSummary,
+                        forecastProfile(unitTypeForecast, sortedForecastMonths, monthWindow, unitProfiles.getUnitDetails(profileIndex), monthIndex, checkpointPlan),
+                        unitProfiles.getUnitCount(profileIndex)),
+                (unitTypeSummary, partialSummary) -> rentForecastSummaryService.addProfile(unitTypeSummary, partialSummary, 1));
+    }
+
+    /**
+     * @return - BigDecimal forecast of a unit profile, resumed from and recording its checkpoints
+     */
+    private List<RentForecastMonth> forecastProfile(UnitTypeForecast unitTypeForecast, List<ForecastMonth> sortedForecastMonths, MonthWindow monthWindow,
+                                                    UnitDetails unitDetails, ForecastMonthIndex monthIndex, UnitCheckpointPlan checkpointPlan) {
+        UnitCheckpoints unitCheckpoints = checkpointPlan == null ? null : checkpointPlan.begin(unitDetails);
+        List<RentForecastMonth> profileForecast = forecastRentsByMonthForUnit(sortedForecastMonths,
+                unitTypeForecast.getExcessRentAdjustmentRate(), unitDetails, monthIndex, monthWindow, unitCheckpoints);
+        if (unitCheckpoints != null) {
+            checkpointPlan.finish(unitCheckpoints);
+        }
+        return profileForecast;
+    }
+
+    /**
+     * Forecast rents for all units for a given unit type into a columnar store with the primitive kernel,
+     * aggregating the unit type summaries in the same pass
+     *
+     * @param unitTypeForecast     - the unit type forecast details
+     * @param sortedForecastMonths - the forecast months for the unit type, sorted
+     * @param monthWindow          - months kept in the columns
+     * @param unitProfiles         - the distinct unit profiles of the unit type
+     * @param monthIndex           - month axis of the sorted forecast months
+     * @param closingDate          - the closing date for the property
+     * @param checkpointPlan       - checkpoints to resume from and record, null for none
+     * @param arena                - arena the columns are allocated from, null allocates on the heap
+     * @return - aggregated totals, backed by the columnar unit forecasts
+     */
+    private UnitTypeForecastAggregates forecastUnitColumns(UnitTypeForecast unitTypeForecast, List<ForecastMonth> sortedForecastMonths,
+                                                           MonthWindow monthWindow, UnitProfiles unitProfiles, ForecastMonthIndex monthIndex,
+                                                           LocalDate closingDate, UnitCheckpointPlan checkpointPlan, ForecastArena arena) {
+        // Escalation rates only need converting once per unit type, the months after the window aren't forecast
+        double[] marketEscalationRates = Arrays.copyOf(PrimitiveRentForecastKernel.marketEscalationRates(sortedForecastMonths), monthWindow.getEnd());
+        double[] actualEscalationRates = Arrays.copyOf(PrimitiveRentForecastKernel.actualEscalationRates(sortedForecastMonths), monthWindow.getEnd());
+
+        UnitTypeForecastColumns unitColumns = new UnitTypeForecastColumns(sortedForecastMonths, monthWindow, unitProfiles, closingDate, arena);
+        // Each profile writes its own slice of the columns, workers keep partial totals that are merged at the end
+        return forecastExecutor.collect(unitProfiles.size(), (long) unitProfiles.size() * monthWindow.getEnd(),
+                () -> new UnitTypeForecastAggregates(unitColumns),
+                (unitTypeAggregates, profileIndex) -> {
+                    ProfileSlice profileSlice = unitColumns.slice(profileIndex, false);
+                    UnitDetails unitDetails = unitProfiles.getUnitDetails(profileIndex);
+                    UnitCheckpoints unitCheckpoints = checkpointPlan == null ? null : checkpointPlan.begin(unitDetails);
+                    int fromMonth = unitCheckpoints == null ? 0 : unitCheckpoints.getResumeMonth();
+                    if (fromMonth > 0) {
+                        // the checkpoint is before the window, so the kernel picks its rents up from the slice's lead months
+                        int resumeCheckpoint = unitCheckpoints.getResumeCheckpoint();
+                        int previousMonth = profileSlice.getForecastOffset() + fromMonth - 1;
+                        profileSlice.getMarketRents()[previousMonth] = unitCheckpoints.marketRent(resumeCheckpoint).doubleValue();
+                        profileSlice.getActualRents()[previousMonth] = unitCheckpoints.actualRent(resumeCheckpoint).doubleValue();
+                    }
+                    forecastUnitWithKernel(fromMonth, marketEscalationRates, actualEscalationRates, monthIndex,
+                            unitTypeForecast.getExcessRentAdjustmentRate(), unitDetails,
+                            profileSlice.getMarketRents(), profileSlice.getActualRents(), profileSlice.getForecastOffset());
+                    if (unitCheckpoints != null) {
+                        recordCheckpoints(unitCheckpoints, profileSlice, actualEscalationRates);
+                        checkpointPlan.finish(unitCheckpoints);
+                    }
+                    unitTypeAggregates.addProfile(profileSlice, unitProfiles.getUnitCount(profileIndex), unitProfiles.getUnitStatusCounts(profileIndex));
+                    unitColumns.store(profileSlice);
+                },
+                UnitTypeForecastAggregates::merge);
+    }
+
+    /**
+     * Record the checkpoints after the one a unit's kernel forecast resumed from, the doubles are kept exactly
+     *
+     * @param unitCheckpoints       - checkpoints of the unit
+     * @param profileSlice          - the unit's forecast, every month up to the last checkpoint is in its arrays
+     * @param actualEscalationRates - actual escalation rate for each month
+     */
+    private static void recordCheckpoints(UnitCheckpoints unitCheckpoints, ProfileSlice profileSlice, double[] actualEscalationRates) {
+        double compoundedActualEscalationRate = 1d;
+        int month = 0;
+        for (int checkpoint = 0; checkpoint < unitCheckpoints.size(); checkpoint++) {
+            for (; month < unitCheckpoints.month(checkpoint); month++) {
+                compoundedActualEscalationRate *= 1d + actualEscalationRates[month];
+            }
+            if (checkpoint > unitCheckpoints.getResumeCheckpoint()) {
+                int previousMonth = profileSlice.getForecastOffset() + month - 1;
+                unitCheckpoints.record(checkpoint, new BigDecimal(profileSlice.getMarketRents()[previousMonth]),
+                        new BigDecimal(profileSlice.getActualRents()[previousMonth]), new BigDecimal(compoundedActualEscalationRate));
+            }
+        }
+    }
+
+    private void forecastUnitWithKernel(int fromMonth, double[] marketEscalationRates, double[] actualEscalationRates, ForecastMonthIndex monthIndex,
+                                        BigDecimal excessRentAdjustmentRate, UnitDetails unitDetails,
+                                        double[] marketRents, double[] actualRents, int offset) {
+        primitiveRentForecastKernel.forecastUnitFrom(fromMonth, marketEscalationRates, actualEscalationRates,
+                monthIndex.getPropertyStartIndex(), monthIndex.unitSchedule(unitDetails),
+                PrimitiveRentForecastKernel.toDouble(unitDetails.getStartingMarketRent()),
+                PrimitiveRentForecastKernel.toDouble(unitDetails.getStartingActualRent()),
+                PrimitiveRentForecastKernel.toDouble(excessRentAdjustmentRate), marketRents, actualRents, offset);
+    }
+
+    /**
+     * Compare the primitive kernel results with the BigDecimal engine and log every month outside the tolerance
+     *
+     * @param unitType           - the unit type being forecast
+     * @param unitId             - a unit with the profile being forecast
+     * @param unitCount          - number of units with the profile
+     * @param bigDecimalForecast - BigDecimal engine forecast for the unit profile
+     * @param marketRents        - primitive kernel market rents for the unit profile
+     * @param actualRents        - primitive kernel actual rents for the unit profile
+     * @param offset             - position in the kernel results of the first BigDecimal month
+     */
+    private void checkParity(String unitType, String unitId, int unitCount, List<RentForecastMonth> bigDecimalForecast, double[] marketRents,
+                             double[] actualRents, int offset) {
+        for (int i = 0; i < bigDecimalForecast.size(); i++) {
+            RentForecastMonth rentForecastMonth = bigDecimalForecast.get(i);
+            if (!primitiveRentForecastKernel.withinTolerance(marketRents[offset + i], rentForecastMonth.getMarketRent())
+                    || !primitiveRentForecastKernel.withinTolerance(actualRents[offset + i], rentForecastMonth.getActualRent())) {
+                log.warn("Parity mismatch for unit type {} unit {} ({} units with its profile) year {} month {}: market {} vs {}, actual {} vs {}",
+                        unitType, unitId, unitCount, rentForecastMonth.getYear(), rentForecastMonth.getMonth(),
+                        marketRents[offset + i], rentForecastMonth.getMarketRent(), actualRents[offset + i], rentForecastMonth.getActualRent());
+            }
+        }
     }
 
 
@@ -121,45 +549,71 @@ public class RentForecastService {
      * @param forecastMonths           - contains the data for each month in question
      * @param excessRentAdjustmentRate - the rate in which to modify loss to lease
      * @param unitDetails              - the details for a particular unit
-     * @param closingDate              - the closing date for the property
+     * @param monthIndex               - month axis of the forecast months
      * @return - forecasted data for a unit
      */
-    private List<RentForecastMonth> forecastRentsByMonthForUnit(List<ForecastMonth> forecastMonths, BigDecimal
-            excessRentAdjustmentRate, UnitDetails unitDetails, LocalDate closingDate) {
-        List<RentForecastMonth> forecastedRentsByMonth = new ArrayList<>();
+    // package-private for the unit forecast benchmark
+    List<RentForecastMonth> forecastRentsByMonthForUnit(List<ForecastMonth> forecastMonths, BigDecimal
+            excessRentAdjustmentRate, UnitDetails unitDetails, ForecastMonthIndex monthIndex) {
+        return forecastRentsByMonthForUnit(forecastMonths, excessRentAdjustmentRate, unitDetails, monthIndex, MonthWindow.full(forecastMonths.size()),
+                null);
+    }
+
+    /**
+     * forecast the rents of a specific unit for the months in a window, the months before it are only forecast to
+     * carry the rents forward
+     *
+     * @param forecastMonths           - contains the data for each month in question
+     * @param excessRentAdjustmentRate - the rate in which to modify loss to lease
+     * @param unitDetails              - the details for a particular unit
+     * @param monthIndex               - month axis of the forecast months
+     * @param monthWindow              - months to return
+     * @param unitCheckpoints          - checkpoints to resume from and record, null for none
+     * @return - forecasted data for a unit in the window
+     */
+    private List<RentForecastMonth> forecastRentsByMonthForUnit(List<ForecastMonth> forecastMonths, BigDecimal excessRentAdjustmentRate,
+                                                                UnitDetails unitDetails, ForecastMonthIndex monthIndex, MonthWindow monthWindow,
+                                                                UnitCheckpoints unitCheckpoints) {
+        List<RentForecastMonth> forecastedRentsByMonth = new ArrayList<>(monthWindow.size());
+        UnitMonthSchedule unitSchedule = monthIndex.unitSchedule(unitDetails);
 
         // Track values during calculation
         BigDecimal marketRent = Objects.requireNonNullElse(unitDetails.getStartingMarketRent(), BigDecimal.ZERO);
         BigDecimal actualRent = Objects.requireNonNullElse(unitDetails.getStartingActualRent(), BigDecimal.ZERO);
         BigDecimal compoundedActualEscalationRate = BigDecimal.ONE;
         BigDecimal marketEscalationRate = BigDecimal.ONE;
-        boolean unitStarted = false;
-        boolean propertyStarted = false;
 
-        for (ForecastMonth forecastMonth : forecastMonths) {
-            // Get current month
-            int month = forecastMonth.getMonth();
-            int year = forecastMonth.getYear();
-            boolean isUnitStartMonth = isStartMonth(unitDetails, month, year, closingDate);
-
-            if (!unitStarted) {
-                if (isUnitStarted(forecastMonth, closingDate, unitDetails.getStartDate())) {
-                    unitStarted = true;
-                }
-            }
+        // Carry on from the checkpoint instead of the first month
+        int firstMonth = 0;
+        int checkpoint = 0;
+        if (unitCheckpoints != null && unitCheckpoints.getResumeCheckpoint() >= 0) {
+            int resumeCheckpoint = unitCheckpoints.getResumeCheckpoint();
+            firstMonth = unitCheckpoints.month(resumeCheckpoint);
+            marketRent = unitCheckpoints.marketRent(resumeCheckpoint);
+            actualRent = unitCheckpoints.actualRent(resumeCheckpoint);
+            compoundedActualEscalationRate = unitCheckpoints.compoundedActualEscalationRate(resumeCheckpoint);
+            marketEscalationRate = calculateMarketEscalationRate(forecastMonths.get(firstMonth - 1).getMarketEscalationRate());
+            checkpoint = resumeCheckpoint + 1;
+        }
 
-            if (!propertyStarted) {
-                if (isPropertyStarted(forecastMonth, closingDate)) {
-                    propertyStarted = true;
-                }
+        for (int i = firstMonth; i < monthWindow.getEnd(); i++) {
+            if (unitCheckpoints != null && checkpoint < unitCheckpoints.size() && i == unitCheckpoints.month(checkpoint)) {
+                unitCheckpoints.record(checkpoint++, marketRent, actualRent, compoundedActualEscalationRate);
             }
+            // Get current month
+            ForecastMonth forecastMonth = forecastMonths.get(i);
+            boolean isUnitStartMonth = unitSchedule.isStartMonth(i);
+            boolean unitStarted = i >= unitSchedule.getStartedIndex();
+            boolean propertyStarted = i >= monthIndex.getPropertyStartIndex();
 
-            BigDecimal currentMonthActualEscalationRate = getCurrentMonthActualEscalationRate(unitStarted, isEscalationMonthForActual(unitDetails, month, year, closingDate), isUnitStartMonth, compoundedActualEscalationRate);
+            BigDecimal currentMonthActualEscalationRate = getCurrentMonthActualEscalationRate(unitStarted, unitSchedule.isEscalationMonthForActual(i), isUnitStartMonth, compoundedActualEscalationRate);
             BigDecimal forecastedActualRent = calculateForecastedActualRent(isUnitStartMonth, unitStarted, unitDetails.getStartingActualRent(), actualRent, currentMonthActualEscalationRate);
             BigDecimal forecastedMarketRent = calculateForecastedMarketRent(propertyStarted, marketRent, unitDetails.getStartingMarketRent(), marketEscalationRate, forecastedActualRent, excessRentAdjustmentRate);
             compoundedActualEscalationRate = calculateCompoundedActualEscalationRate(compoundedActualEscalationRate, forecastMonth.getActualEscalationRate());
             marketEscalationRate = calculateMarketEscalationRate(forecastMonth.getMarketEscalationRate());
-            forecastedRentsByMonth.add(newRentForecastMonth(year, month, setScale(forecastedMarketRent), setScale(forecastedActualRent)));
+            if (i >= monthWindow.getStart()) {
+                forecastedRentsByMonth.add(newRentForecastMonth(forecastMonth.getYear(), forecastMonth.getMonth(), setScale(forecastedMarketRent), setScale(forecastedActualRent)));
+            }
             marketRent = forecastedMarketRent;
             actualRent = forecastedActualRent;
         }
@@ -218,100 +672,4 @@ public class RentForecastService {
         return bigDecimal.setScale(DECIMAL_PLACES, RoundingMode.HALF_EVEN);
     }
 
-    /**
-     * Should we escalate this month in question?
-     *
-     * @param unitDetails  - details for a unit
-     * @param currentMonth - current month index
-     * @return - true or false, whether we should escalate
-     */
-    private boolean isEscalationMonthForActual(UnitDetails unitDetails, int currentMonth, int currentYear, LocalDate closingDate) {
-        if (closingDate == null || unitDetails.getStartDate() == null) {
-            // this works because our array is 0 indexed, so if we renew every 6 months, index 6 would actually be the 7th month
-            return unitDetails.getContractTerm() != null && (currentMonth % unitDetails.getContractTerm()) == 0;
-        }
-        LocalDate currentDate = LocalDate.of(closingDate.getYear() + currentYear - 1, currentMonth, 1);
-        long monthsBetween = ChronoUnit.MONTHS.between(
-                YearMonth.from(unitDetails.getStartDate()),
-                YearMonth.from(currentDate)
-        );
-        // If the unit start date hasn't occurred yet
-        if (monthsBetween < 0) {
-            return false;
-        }
-        long remainder = monthsBetween % unitDetails.getContractTerm();
-        return remainder == 0;
-    }
-
-    /**
-     * Determine if the current month we're forecasting is the start month
-     *
-     * @param unitDetails
-     * @param currentMonth
-     * @param currentYear
-     * @param closingDate
-     * @return
-     */
-    private boolean isStartMonth(UnitDetails unitDetails, int currentMonth, int currentYear, LocalDate closingDate) {
-        if (closingDate == null) {
-            return false;
-        }
-        LocalDate startDate = unitDetails.getStartDate();
-        if (unitDetails.getStartDate() == null) {
-            startDate = closingDate;
-        }
-        LocalDate currentDate = LocalDate.of(closingDate.getYear() + currentYear - 1, currentMonth, 1);
-        long monthsBetween = ChronoUnit.MONTHS.between(
-                YearMonth.from(currentDate),
-                YearMonth.from(startDate)
-        );
-        return monthsBetween == 0;
-    }
-
-    private boolean isPropertyStarted(ForecastMonth forecastMonth, LocalDate closingDate) {
-        if (closingDate == null) {
-            return true;
-        }
-
-        LocalDate calcDate = closingDate.withMonth(forecastMonth.getMonth())
-                .plusYears(forecastMonth.getYear() - 1);
-        closingDate = closingDate.with(TemporalAdjusters.lastDayOfMonth());
-        LocalDate calcDateLastDayOfMonth = calcDate.withDayOfMonth(calcDate.lengthOfMonth())
-                .with(TemporalAdjusters.lastDayOfMonth()); // Set to last day of the month
-        return calcDateLastDayOfMonth.isAfter(closingDate);
-    }
-
-
-    /**
-     * Determine whether the unit is already started
-     *
-     * @param forecastMonth - the forecastMonth in question to determine calc date
-     * @param closingDate   - the closing date for the property
-     * @param unitStartDate - the start date for the unit
-     * @return - true if unit is started false otherwise
-     */
-    private boolean isUnitStarted(ForecastMonth forecastMonth, LocalDate closingDate, LocalDate unitStartDate) {
-        if (closingDate == null) {
-            return true;
-        }
-
-        // Calculate the calculation date and set it to the last day of the month
-        // this is to make sure that if a unit starts on the last day of the month or middle of the month
-        // it will reflect in following month actual
-        // todo: in v2 we would prorate and this would need to change
-        LocalDate calcDate = closingDate.withMonth(forecastMonth.getMonth())
-                .plusYears(forecastMonth.getYear()-1);
-        LocalDate calcDateLastDayOfMonth = calcDate.withDayOfMonth(calcDate.lengthOfMonth());
-        // if calcDate is before closing date we can't start calculating actuals
-        if (!(calcDateLastDayOfMonth.isEqual(closingDate) || calcDateLastDayOfMonth.isAfter(closingDate))) {
-            return false;
-        }
-
-        if (unitStartDate == null) {
-            unitStartDate = closingDate;
-        }
-
-        return calcDateLastDayOfMonth.isAfter(unitStartDate.withDayOfMonth(unitStartDate.lengthOfMonth()));
-    }
-
 }
@@ -0,0 +1,232 @@
+package com.methodicalplatforms.rentforecast.admission;
+
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.config.RentForecastAdmissionProperties;
+import com.methodicalplatforms.rentforecast.metrics.ForecastMetrics;
+import com.methodicalplatforms.rentforecast.request.ForecastOptions;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for forecasts. A request's cost is estimated from its size before any work is done, forecasts
+ * running at the same time share a budget of cost. Requests wait a short while for room in the budget and are turned
+ * away with a Retry-After otherwise, requests too large to answer in one call are turned away to the job API.
+ * Jobs wait in the background for as long as it takes.
+ */
+@Service
+public class ForecastAdmission {
+    // weight of the last forecast in the time per cost estimate
+    private static final double NANOS_PER_COST_WEIGHT = 0.2;
+
+    private final RentForecastAdmissionProperties admissionProperties;
+    private final ForecastMetrics forecastMetrics;
+    // guarded by this
+    private long inFlightCost;
+    private double nanosPerCost;
+
+    @Autowired
+    public ForecastAdmission(RentForecastAdmissionProperties admissionProperties, ForecastMetrics forecastMetrics) {
+        this.admissionProperties = admissionProperties;
+        this.forecastMetrics = forecastMetrics;
+    }
+
+    /**
+     * Estimate the cost of a forecast: every unit month is forecast once, then visited again for each view built
+     * at unit level, the monthly unit forecasts and the unit yearly and unit status summaries
+     *
+     * @param rentForecastRequest - details on what/how to forecast
+     * @return - estimated cost in unit months per view
+     */
+    public static long estimateCost(RentForecastRequest rentForecastRequest) {
+        return estimateCost(RentForecastService.unitMonths(rentForecastRequest.getUnitTypeForecastList()), rentForecastRequest.getOptions());
+    }
+
+    /**
+     * @param unitMonths      - unit months to forecast
+     * @param forecastOptions - views to build, every view when null
+     * @return - estimated cost in unit months per view
+     */
+    public static long estimateCost(long unitMonths, ForecastOptions forecastOptions) {
+        ForecastOptions options = Objects.requireNonNullElseGet(forecastOptions, ForecastOptions::new);
+        int views = 1;
+        if (options.includesMonths() && options.includesUnits()) {
+            views++;
+        }
+        if (options.includesUnits() || options.includesUnitStatuses()) {
+            views++;
+        }
+        return unitMonths * views;
+    }
+
+    /**
+     * Admit a forecast answered in the request, waiting up to the queue timeout for room in the budget
+     *
+     * @param rentForecastRequest - details on what/how to forecast
+     * @return - the forecast's permit, to close once the response is written
+     * @throws ForecastRejectedException - 413 if the request is over the request limit, 429 if the budget stayed full
+     */
+    public ForecastPermit admit(RentForecastRequest rentForecastRequest) {
+        return admit(estimateCost(rentForecastRequest));
+    }
+
+    /**
+     * Admit forecast work of a known cost, waiting up to the queue timeout for room in the budget
+     *
+     * @param estimatedCost - estimated cost of the work
+     * @return - the work's permit, to close once it is done
+     * @throws ForecastRejectedException - 413 if the cost is over the request limit, 429 if the budget stayed full
+     */
+    public ForecastPermit admit(long estimatedCost) {
+        return admit(estimatedCost, estimatedCost);
+    }
+
+    /**
+     * Admit part of a request admitted piece by piece. The limit is checked against the whole request read so far,
+     * a request over it would otherwise wait on budget held by its own earlier permits.
+     *
+     * @param estimatedCost - estimated cost of this part of the request
+     * @param requestCost   - estimated cost of the request so far, including this part
+     * @return - the part's permit, to close once it is done
+     * @throws ForecastRejectedException - 413 if the request is over the request limit, 429 if the budget stayed full
+     */
+    public ForecastPermit admit(long estimatedCost, long requestCost) {
+        if (admissionProperties.isEnabled() && requestCost > admissionProperties.getMaxRequestCost()) {
+            throw reject(HttpStatus.PAYLOAD_TOO_LARGE, null, String.format(
+                    "Estimated cost %d is over the limit of %d, submit the forecast as a job", requestCost, admissionProperties.getMaxRequestCost()));
+        }
+        return reserve(estimatedCost);
+    }
+
+    /**
+     * Admit a forecast sharded over the workers, waiting up to the queue timeout for room in the budget. The workers
+     * admit their own shards, the coordinator's share is the merged response it holds until written, so a sharded
+     * request may be over the request limit, just not over the whole budget.
+     *
+     * @param rentForecastRequest - details on what/how to forecast
+     * @return - the forecast's permit, to close once the response is written
+     * @throws ForecastRejectedException - 413 if the request is over the whole budget, 429 if the budget stayed full
+     */
+    public ForecastPermit admitSharded(RentForecastRequest rentForecastRequest) {
+        checkJob(rentForecastRequest);
+        return reserve(estimateCost(rentForecastRequest));
+    }
+
+    /**
+     * @param estimatedCost - estimated cost of the work, the budget is reserved for at most all of it
+     * @return - the work's permit
+     * @throws ForecastRejectedException - 429 if the budget stayed full for the queue timeout
+     */
+    private ForecastPermit reserve(long estimatedCost) {
+        if (!admissionProperties.isEnabled()) {
+            return new ForecastPermit(this, estimatedCost, 0);
+        }
+        long reservedCost = Math.min(estimatedCost, admissionProperties.getBudget());
+        long deadline = System.nanoTime() + admissionProperties.getQueueTimeout().toNanos();
+        try {
+            synchronized (this) {
+                while (inFlightCost + reservedCost > admissionProperties.getBudget()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw reject(HttpStatus.TOO_MANY_REQUESTS, retryAfter(reservedCost), "Forecast budget is in use");
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+                inFlightCost += reservedCost;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(HttpStatus.TOO_MANY_REQUESTS, admissionProperties.getRetryAfter(), "Interrupted waiting for the forecast budget");
+        }
+        return new ForecastPermit(this, estimatedCost, reservedCost);
+    }
+
+    /**
+     * Check a job can ever be admitted, before it is queued
+     *
+     * @param rentForecastRequest - details on what/how to forecast
+     * @throws ForecastRejectedException - 413 if the request is over the whole budget
+     */
+    public void checkJob(RentForecastRequest rentForecastRequest) {
+        long estimatedCost = estimateCost(rentForecastRequest);
+        if (admissionProperties.isEnabled() && estimatedCost > admissionProperties.getBudget()) {
+            throw reject(HttpStatus.PAYLOAD_TOO_LARGE, null, String.format(
+                    "Estimated cost %d is over the budget of %d", estimatedCost, admissionProperties.getBudget()));
+        }
+    }
+
+    /**
+     * Admit a job's forecast, waiting for room in the budget
+     *
+     * @param rentForecastRequest - details on what/how to forecast
+     * @return - the forecast's permit, to close once the forecast is done
+     * @throws InterruptedException - if the job is cancelled while waiting
+     */
+    public ForecastPermit admitJob(RentForecastRequest rentForecastRequest) throws InterruptedException {
+        return admitJob(estimateCost(rentForecastRequest));
+    }
+
+    /**
+     * Admit background work of a known cost, waiting for room in the budget. Work over the whole budget waits for
+     * the budget to be free and is run alone.
+     *
+     * @param estimatedCost - estimated cost of the work
+     * @return - the work's permit, to close once it is done
+     * @throws InterruptedException - if interrupted while waiting
+     */
+    public ForecastPermit admitJob(long estimatedCost) throws InterruptedException {
+        if (!admissionProperties.isEnabled()) {
+            return new ForecastPermit(this, estimatedCost, 0);
+        }
+        long reservedCost = Math.min(estimatedCost, admissionProperties.getBudget());
+        synchronized (this) {
+            while (inFlightCost + reservedCost > admissionProperties.getBudget()) {
+                wait();
+            }
+            inFlightCost += reservedCost;
+        }
+        return new ForecastPermit(this, estimatedCost, reservedCost);
+    }
+
+    /**
+     * @return - estimated cost of the forecasts running right now
+     */
+    public synchronized long getInFlightCost() {
+        return inFlightCost;
+    }
+
+    void release(ForecastPermit forecastPermit, long nanos) {
+        synchronized (this) {
+            inFlightCost -= forecastPermit.getReservedCost();
+            if (forecastPermit.getEstimatedCost() > 0) {
+                double sample = (double) nanos / forecastPermit.getEstimatedCost();
+                nanosPerCost = nanosPerCost == 0 ? sample : nanosPerCost + NANOS_PER_COST_WEIGHT * (sample - nanosPerCost);
+            }
+            notifyAll();
+        }
+        forecastMetrics.recordAdmittedForecast(forecastPermit.getEstimatedCost(), nanos);
+    }
+
+    /**
+     * @param reservedCost - cost that didn't fit in the budget
+     * @return - how long until the forecasts in the way should be done, from the measured time per cost
+     */
+    private Duration retryAfter(long reservedCost) {
+        if (nanosPerCost == 0) {
+            return admissionProperties.getRetryAfter();
+        }
+        long excessCost = inFlightCost + reservedCost - admissionProperties.getBudget();
+        long seconds = (long) Math.ceil(excessCost * nanosPerCost / TimeUnit.SECONDS.toNanos(1));
+        return Duration.ofSeconds(Math.max(1, seconds));
+    }
+
+    private ForecastRejectedException reject(HttpStatus status, Duration retryAfter, String message) {
+        forecastMetrics.recordRejectedForecast(status);
+        return new ForecastRejectedException(status, retryAfter, message);
+    }
+}
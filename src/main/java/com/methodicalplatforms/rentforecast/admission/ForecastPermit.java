@@ -0,0 +1,35 @@
+package com.methodicalplatforms.rentforecast.admission;
+
+import lombok.Getter;
+
+/**
+ * A forecast's share of the admission budget, held until the forecast is done. Closing it gives the share back
+ * and records how long the forecast took against its estimated cost.
+ */
+public class ForecastPermit implements AutoCloseable {
+    private final ForecastAdmission forecastAdmission;
+    @Getter
+    private final long estimatedCost;
+    // part of the budget taken, the whole budget for a forecast estimated over it
+    @Getter
+    private final long reservedCost;
+    private final long start = System.nanoTime();
+    private boolean closed;
+
+    ForecastPermit(ForecastAdmission forecastAdmission, long estimatedCost, long reservedCost) {
+        this.forecastAdmission = forecastAdmission;
+        this.estimatedCost = estimatedCost;
+        this.reservedCost = reservedCost;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        forecastAdmission.release(this, System.nanoTime() - start);
+    }
+}
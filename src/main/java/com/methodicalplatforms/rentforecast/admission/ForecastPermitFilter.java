@@ -0,0 +1,56 @@
+package com.methodicalplatforms.rentforecast.admission;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Closes the {@link ForecastPermit} held for a response once the response has been written. Response bodies are
+ * serialized after the controller returns, with the primitive engine that is when the months of every unit are
+ * built, so the permit covers serialization too. Streamed responses close their permit when the stream is done.
+ */
+@Component
+public class ForecastPermitFilter extends OncePerRequestFilter {
+
+    private static final String PERMIT_ATTRIBUTE = ForecastPermitFilter.class.getName() + ".permit";
+
+    /**
+     * Hold a permit until the response to a request has been written, a request can hold several
+     *
+     * @param request        - the request being answered
+     * @param forecastPermit - permit of the forecast answering it
+     */
+    @SuppressWarnings("unchecked")
+    public static void holdUntilWritten(HttpServletRequest request, ForecastPermit forecastPermit) {
+        List<ForecastPermit> forecastPermits = (List<ForecastPermit>) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (forecastPermits == null) {
+            forecastPermits = new ArrayList<>();
+            request.setAttribute(PERMIT_ATTRIBUTE, forecastPermits);
+        }
+        forecastPermits.add(forecastPermit);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/rent-forecast");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof List<?> forecastPermits) {
+                forecastPermits.forEach(forecastPermit -> ((ForecastPermit) forecastPermit).close());
+            }
+        }
+    }
+}
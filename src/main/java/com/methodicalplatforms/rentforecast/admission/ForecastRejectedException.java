@@ -0,0 +1,35 @@
+package com.methodicalplatforms.rentforecast.admission;
+
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+
+/**
+ * A forecast turned away by {@link ForecastAdmission}, with the status to respond with
+ */
+@Getter
+public class ForecastRejectedException extends RuntimeException {
+    private final HttpStatus status;
+    // when to try again, null if retrying the same request won't help
+    private final Duration retryAfter;
+
+    public ForecastRejectedException(HttpStatus status, Duration retryAfter, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return - an empty response with the status, and the Retry-After if retrying will help
+     */
+    public <T> ResponseEntity<T> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+        if (retryAfter != null) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()));
+        }
+        return response.build();
+    }
+}
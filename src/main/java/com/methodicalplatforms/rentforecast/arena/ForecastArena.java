@@ -0,0 +1,92 @@
+package com.methodicalplatforms.rentforecast.arena;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request scoped allocator of forecast columns. Columns come from the {@link ForecastBufferPool}'s direct buffers
+ * when they fit and from the heap otherwise, and every pooled buffer goes back in one go when the arena closes.
+ * Nothing allocated from an arena may be read after it is closed, so forecasts that outlive the request, like
+ * cached ones, must not use it.
+ */
+public class ForecastArena implements AutoCloseable {
+    // the arena of the request the current thread is serving
+    private static final ThreadLocal<ForecastArena> CURRENT_ARENA = new ThreadLocal<>();
+
+    private final ForecastBufferPool forecastBufferPool;
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private boolean closed;
+
+    ForecastArena(ForecastBufferPool forecastBufferPool) {
+        this.forecastBufferPool = forecastBufferPool;
+    }
+
+    /**
+     * @return - the arena opened on this thread, or null when the thread isn't serving a request
+     */
+    public static ForecastArena current() {
+        return CURRENT_ARENA.get();
+    }
+
+    static void bind(ForecastArena forecastArena) {
+        CURRENT_ARENA.set(forecastArena);
+    }
+
+    /**
+     * Allocate a zeroed column of doubles
+     *
+     * @param arena - arena to allocate from, null allocates on the heap
+     * @param size  - number of doubles
+     * @return - the column
+     */
+    public static DoubleBuffer allocateDoubles(ForecastArena arena, int size) {
+        return arena == null ? DoubleBuffer.wrap(new double[size]) : arena.allocateDoubles(size);
+    }
+
+    /**
+     * Allocate a zeroed column of doubles, from a pooled buffer if one is available
+     *
+     * @param size - number of doubles
+     * @return - the column, direct or heap backed
+     */
+    public DoubleBuffer allocateDoubles(int size) {
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = closed ? null : forecastBufferPool.acquire((long) size * Double.BYTES);
+            if (buffer != null) {
+                buffers.add(buffer);
+            }
+        }
+        if (buffer == null) {
+            return DoubleBuffer.wrap(new double[size]);
+        }
+        int bytes = size * Double.BYTES;
+        // pooled buffers hold whatever the last request left in them
+        for (int i = 0; i < bytes; i += Long.BYTES) {
+            buffer.putLong(i, 0L);
+        }
+        return buffer.limit(bytes).slice().order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+
+    /**
+     * Return every pooled buffer, columns allocated from the arena must not be read anymore
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            forecastBufferPool.release(buffers);
+            buffers.clear();
+        }
+        forecastBufferPool.arenaClosed();
+        if (CURRENT_ARENA.get() == this) {
+            CURRENT_ARENA.remove();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.methodicalplatforms.rentforecast.arena;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opens a {@link ForecastArena} for each forecast request and closes it once the response has been written.
+ * Streamed responses are forecast after the request thread returns, so they never allocate from the arena.
+ */
+@Component
+public class ForecastArenaFilter extends OncePerRequestFilter {
+
+    private final ForecastBufferPool forecastBufferPool;
+
+    @Autowired
+    public ForecastArenaFilter(ForecastBufferPool forecastBufferPool) {
+        this.forecastBufferPool = forecastBufferPool;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/rent-forecast");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // the response body has been serialized by the time the chain returns, nothing reads the arena after that
+        try (ForecastArena ignored = forecastBufferPool.openArena()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
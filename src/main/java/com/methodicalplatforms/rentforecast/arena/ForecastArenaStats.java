@@ -0,0 +1,15 @@
+package com.methodicalplatforms.rentforecast.arena;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ForecastArenaStats {
+    private long maxBytes;
+    private long reservedBytes;
+    private long inUseBytes;
+    private int openArenas;
+    private long acquisitions;
+    private long heapFallbacks;
+}
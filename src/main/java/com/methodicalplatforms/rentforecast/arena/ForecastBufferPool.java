@@ -0,0 +1,151 @@
+package com.methodicalplatforms.rentforecast.arena;
+
+import com.methodicalplatforms.rentforecast.config.RentForecastArenaProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pool of direct buffers backing {@link ForecastArena}s. Buffers are sized in powers of two and go back to the pool
+ * when their arena closes, so after warm up requests reuse the same off heap memory instead of allocating columns on
+ * the heap. The pool never reserves more than the configured maximum, idle buffers of other sizes are dropped to
+ * make room and anything that still doesn't fit is allocated on the heap.
+ */
+@Service
+public class ForecastBufferPool {
+    public static final String RESERVED_BYTES = "rent.forecast.arena.reserved.bytes";
+    public static final String IN_USE_BYTES = "rent.forecast.arena.in.use.bytes";
+    public static final String OPEN_ARENAS = "rent.forecast.arena.open";
+    // largest power of two a ByteBuffer can hold
+    private static final int MAX_BUFFER_BYTES = 1 << 30;
+
+    private final RentForecastArenaProperties arenaProperties;
+    // idle buffers by capacity
+    private final TreeMap<Integer, ArrayDeque<ByteBuffer>> idleBuffers = new TreeMap<>();
+    private long reservedBytes;
+    private long inUseBytes;
+    private int openArenas;
+    private long acquisitions;
+    private long heapFallbacks;
+
+    @Autowired
+    public ForecastBufferPool(RentForecastArenaProperties arenaProperties, MeterRegistry meterRegistry) {
+        this.arenaProperties = arenaProperties;
+        Gauge.builder(RESERVED_BYTES, this, pool -> pool.getStats().getReservedBytes())
+                .description("Direct memory reserved by the forecast buffer pool")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(IN_USE_BYTES, this, pool -> pool.getStats().getInUseBytes())
+                .description("Direct memory held by open forecast arenas")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(OPEN_ARENAS, this, pool -> pool.getStats().getOpenArenas())
+                .description("Forecast arenas open on request threads")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open an arena for the current thread, it is returned by {@link ForecastArena#current()} until it is closed
+     *
+     * @return - the arena, to be closed once nothing allocated from it is read anymore
+     */
+    public ForecastArena openArena() {
+        ForecastArena forecastArena = new ForecastArena(this);
+        synchronized (this) {
+            openArenas++;
+        }
+        ForecastArena.bind(forecastArena);
+        return forecastArena;
+    }
+
+    /**
+     * Take a buffer of at least the requested size out of the pool
+     *
+     * @param bytes - size needed
+     * @return - a cleared buffer, or null when the pool is disabled, the size is below the minimum or it doesn't fit
+     */
+    synchronized ByteBuffer acquire(long bytes) {
+        if (!arenaProperties.isEnabled() || bytes < arenaProperties.getMinBufferBytes()) {
+            return null;
+        }
+        if (bytes > MAX_BUFFER_BYTES) {
+            heapFallbacks++;
+            return null;
+        }
+        int capacity = Math.max(1, Integer.highestOneBit((int) bytes - 1) << 1);
+        ByteBuffer buffer = pollIdle(capacity);
+        if (buffer == null) {
+            if (!makeRoom(capacity)) {
+                heapFallbacks++;
+                return null;
+            }
+            buffer = ByteBuffer.allocateDirect(capacity);
+            reservedBytes += capacity;
+        }
+        inUseBytes += capacity;
+        acquisitions++;
+        return buffer.clear();
+    }
+
+    /**
+     * Put buffers back in the pool
+     *
+     * @param buffers - buffers acquired from this pool that are no longer read
+     */
+    synchronized void release(Iterable<ByteBuffer> buffers) {
+        for (ByteBuffer buffer : buffers) {
+            inUseBytes -= buffer.capacity();
+            idleBuffers.computeIfAbsent(buffer.capacity(), capacity -> new ArrayDeque<>()).push(buffer);
+        }
+        // the maximum may have been lowered while the buffers were out
+        makeRoom(0);
+    }
+
+    synchronized void arenaClosed() {
+        openArenas--;
+    }
+
+    private ByteBuffer pollIdle(int capacity) {
+        ArrayDeque<ByteBuffer> buffers = idleBuffers.get(capacity);
+        if (buffers == null) {
+            return null;
+        }
+        ByteBuffer buffer = buffers.poll();
+        if (buffers.isEmpty()) {
+            idleBuffers.remove(capacity);
+        }
+        return buffer;
+    }
+
+    /**
+     * Drop idle buffers, largest first, until the capacity fits under the maximum. Dropped buffers are freed by the
+     * garbage collector.
+     */
+    private boolean makeRoom(int capacity) {
+        Iterator<Map.Entry<Integer, ArrayDeque<ByteBuffer>>> largest = idleBuffers.descendingMap().entrySet().iterator();
+        while (reservedBytes + capacity > arenaProperties.getMaxBytes() && largest.hasNext()) {
+            Map.Entry<Integer, ArrayDeque<ByteBuffer>> buffers = largest.next();
+            reservedBytes -= (long) buffers.getKey() * buffers.getValue().size();
+            largest.remove();
+        }
+        return reservedBytes + capacity <= arenaProperties.getMaxBytes();
+    }
+
+    public synchronized ForecastArenaStats getStats() {
+        return ForecastArenaStats.builder()
+                .maxBytes(arenaProperties.getMaxBytes())
+                .reservedBytes(reservedBytes)
+                .inUseBytes(inUseBytes)
+                .openArenas(openArenas)
+                .acquisitions(acquisitions)
+                .heapFallbacks(heapFallbacks)
+                .build();
+    }
+}
@@ -0,0 +1,181 @@
+package com.methodicalplatforms.rentforecast.batch;
+
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.calendar.ForecastMonthIndex;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.profile.UnitProfiles;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.ForecastOptions;
+import com.methodicalplatforms.rentforecast.request.ForecastScenario;
+import com.methodicalplatforms.rentforecast.request.RentForecastBatchRequest;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.RentResponse;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A validated batch request with the work every scenario shares done up front: forecast months sorted, units grouped
+ * into profiles and a month index for each closing date the scenarios use, once per unit type.
+ */
+public class ForecastBatch {
+    private final LocalDate baseClosingDate;
+    private final ForecastOptions forecastOptions;
+    @Getter
+    private final List<ForecastScenario> scenarios;
+    private final List<PreparedUnitType> unitTypes;
+    // unit months of a single scenario
+    @Getter
+    private final long scenarioUnitMonths;
+
+    ForecastBatch(RentForecastBatchRequest batchRequest) {
+        RentForecastRequest baseRequest = batchRequest.getBaseRequest();
+        if (baseRequest == null || baseRequest.getUnitTypeForecastList() == null) {
+            throw new IllegalArgumentException("Missing base request");
+        }
+        this.baseClosingDate = baseRequest.getClosingDate();
+        this.forecastOptions = baseRequest.getOptions();
+        this.scenarios = List.copyOf(Objects.requireNonNullElse(batchRequest.getScenarios(), List.of()));
+
+        Set<String> scenarioIds = new HashSet<>();
+        Set<LocalDate> closingDates = new HashSet<>();
+        for (ForecastScenario scenario : scenarios) {
+            if (scenario.getScenarioId() == null || !scenarioIds.add(scenario.getScenarioId())) {
+                throw new IllegalArgumentException("Missing or duplicate scenario id " + scenario.getScenarioId());
+            }
+            checkScenarioRates(scenario);
+            closingDates.add(closingDate(scenario));
+        }
+
+        Set<String> unitTypeNames = new HashSet<>();
+        this.unitTypes = new ArrayList<>();
+        for (UnitTypeForecast unitTypeForecast : baseRequest.getUnitTypeForecastList()) {
+            if (!unitTypeNames.add(unitTypeForecast.getUnitType())) {
+                throw new IllegalArgumentException("Duplicate unit type " + unitTypeForecast.getUnitType());
+            }
+            PreparedUnitType unitType = new PreparedUnitType(unitTypeForecast, closingDates);
+            scenarios.forEach(unitType::checkScenarioMonths);
+            unitTypes.add(unitType);
+        }
+        this.scenarioUnitMonths = RentForecastService.unitMonths(baseRequest.getUnitTypeForecastList());
+    }
+
+    /**
+     * @return - estimated cost of forecasting every scenario
+     */
+    public long estimateCost() {
+        return ForecastAdmission.estimateCost(scenarioUnitMonths * scenarios.size(), forecastOptions);
+    }
+
+    /**
+     * Forecast every unit type of the base request with a scenario's changes
+     *
+     * @param scenario            - the scenario to forecast
+     * @param rentForecastService - forecasts each unit type and builds the response
+     * @param forecastExecutor    - splits the unit types across threads
+     * @return - the forecast response of the scenario
+     */
+    RentResponse forecastScenario(ForecastScenario scenario, RentForecastService rentForecastService, ForecastExecutor forecastExecutor) {
+        LocalDate closingDate = closingDate(scenario);
+        List<UnitTypeForecast> scenarioUnitTypes = unitTypes.stream()
+                .map(unitType -> unitType.applyScenario(scenario))
+                .collect(Collectors.toList());
+        List<UnitTypeForecastMonthly> unitTypeForecasts = forecastExecutor.map(unitTypes.size(), scenarioUnitMonths,
+                unitTypeIndex -> unitTypes.get(unitTypeIndex).forecast(scenarioUnitTypes.get(unitTypeIndex), closingDate, rentForecastService));
+
+        Map<String, UnitTypeForecastMonthly> rentByMonths = new HashMap<>();
+        IntStream.range(0, unitTypes.size())
+                .forEach(unitTypeIndex -> rentByMonths.put(scenarioUnitTypes.get(unitTypeIndex).getUnitType(), unitTypeForecasts.get(unitTypeIndex)));
+        return rentForecastService.summarizeRents(rentByMonths, scenarioUnitTypes, closingDate, forecastOptions);
+    }
+
+    /**
+     * A scenario's months replace whole months of the base request, so each needs both rates
+     */
+    private static void checkScenarioRates(ForecastScenario scenario) {
+        Objects.requireNonNullElse(scenario.getForecastMonthData(), List.<ForecastMonth>of()).forEach(forecastMonth -> {
+            if (forecastMonth.getMarketEscalationRate() == null || forecastMonth.getActualEscalationRate() == null) {
+                throw new IllegalArgumentException("Scenario " + scenario.getScenarioId() + " is missing an escalation rate for year "
+                        + forecastMonth.getYear() + " month " + forecastMonth.getMonth());
+            }
+        });
+    }
+
+    private LocalDate closingDate(ForecastScenario scenario) {
+        return scenario.getClosingDate() != null ? scenario.getClosingDate() : baseClosingDate;
+    }
+
+    /**
+     * A unit type of the base request, ready to forecast with any of the batch's scenarios
+     */
+    private static final class PreparedUnitType {
+        private final UnitTypeForecast unitTypeForecast;
+        private final List<ForecastMonth> sortedForecastMonths;
+        // position of each month in the sorted forecast months by year * 12 + month - 1
+        private final Map<Integer, Integer> monthPositions = new HashMap<>();
+        private final UnitProfiles unitProfiles;
+        private final Map<LocalDate, ForecastMonthIndex> monthIndexes = new HashMap<>();
+
+        private PreparedUnitType(UnitTypeForecast unitTypeForecast, Set<LocalDate> closingDates) {
+            this.unitTypeForecast = unitTypeForecast;
+            this.sortedForecastMonths = RentForecastService.sortForecastMonths(unitTypeForecast.getForecastMonthData());
+            for (int i = 0; i < sortedForecastMonths.size(); i++) {
+                monthPositions.put(monthKey(sortedForecastMonths.get(i)), i);
+            }
+            this.unitProfiles = new UnitProfiles(unitTypeForecast.getUnitDetails());
+            closingDates.forEach(closingDate -> monthIndexes.put(closingDate, new ForecastMonthIndex(sortedForecastMonths, closingDate)));
+        }
+
+        private void checkScenarioMonths(ForecastScenario scenario) {
+            Objects.requireNonNullElse(scenario.getForecastMonthData(), List.<ForecastMonth>of()).forEach(forecastMonth -> {
+                if (!monthPositions.containsKey(monthKey(forecastMonth))) {
+                    throw new IllegalArgumentException("Scenario " + scenario.getScenarioId() + " changes year " + forecastMonth.getYear()
+                            + " month " + forecastMonth.getMonth() + " which unit type " + unitTypeForecast.getUnitType() + " doesn't forecast");
+                }
+            });
+        }
+
+        /**
+         * @param scenario - the scenario to apply
+         * @return - the unit type with the scenario's rates, months in calendar order
+         */
+        private UnitTypeForecast applyScenario(ForecastScenario scenario) {
+            List<ForecastMonth> scenarioMonths = sortedForecastMonths;
+            if (scenario.getForecastMonthData() != null && !scenario.getForecastMonthData().isEmpty()) {
+                scenarioMonths = new ArrayList<>(sortedForecastMonths);
+                for (ForecastMonth forecastMonth : scenario.getForecastMonthData()) {
+                    scenarioMonths.set(monthPositions.get(monthKey(forecastMonth)), forecastMonth);
+                }
+            }
+            return UnitTypeForecast.builder()
+                    .unitType(unitTypeForecast.getUnitType())
+                    .unitDetails(unitTypeForecast.getUnitDetails())
+                    .excessRentAdjustmentRate(scenario.getExcessRentAdjustmentRate() != null
+                            ? scenario.getExcessRentAdjustmentRate()
+                            : unitTypeForecast.getExcessRentAdjustmentRate())
+                    .forecastMonthData(scenarioMonths)
+                    .build();
+        }
+
+        private UnitTypeForecastMonthly forecast(UnitTypeForecast scenarioUnitType, LocalDate closingDate, RentForecastService rentForecastService) {
+            return rentForecastService.forecastPreparedUnitType(scenarioUnitType, scenarioUnitType.getForecastMonthData(),
+                    monthIndexes.get(closingDate), unitProfiles, closingDate);
+        }
+
+        private static int monthKey(ForecastMonth forecastMonth) {
+            return forecastMonth.getYear() * 12 + forecastMonth.getMonth() - 1;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.methodicalplatforms.rentforecast.batch;
+
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.admission.ForecastPermit;
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.request.RentForecastBatchRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/rent-forecast/batch")
+public class ForecastBatchController {
+
+    private final ForecastBatchService forecastBatchService;
+    private final ForecastAdmission forecastAdmission;
+
+    @Autowired
+    public ForecastBatchController(ForecastBatchService forecastBatchService, ForecastAdmission forecastAdmission) {
+        this.forecastBatchService = forecastBatchService;
+        this.forecastAdmission = forecastAdmission;
+    }
+
+    /**
+     * Forecast a base request under every scenario, responses are written by scenario id as they complete. 400 if the
+     * batch is invalid. Every scenario is admitted before the response starts, 413 if the batch is over the request
+     * limit, 429 if the forecast budget is in use.
+     */
+    @PostMapping
+    public ResponseEntity<StreamingResponseBody> forecastBatch(@RequestBody RentForecastBatchRequest batchRequest) {
+        ForecastBatch forecastBatch;
+        try {
+            forecastBatch = forecastBatchService.prepareBatch(batchRequest);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ForecastPermit forecastPermit;
+        try {
+            forecastPermit = forecastAdmission.admit(forecastBatch.estimateCost());
+        } catch (ForecastRejectedException e) {
+            return e.toResponse();
+        }
+        // the permit is held until the response is written
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> {
+                    try (forecastPermit) {
+                        forecastBatchService.writeBatch(forecastBatch, outputStream);
+                    }
+                });
+    }
+}
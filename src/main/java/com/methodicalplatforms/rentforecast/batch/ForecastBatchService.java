@@ -0,0 +1,83 @@
+package com.methodicalplatforms.rentforecast.batch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.request.ForecastScenario;
+import com.methodicalplatforms.rentforecast.request.RentForecastBatchRequest;
+import com.methodicalplatforms.rentforecast.response.RentResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Forecasts one base request under many scenarios. The work that doesn't depend on a scenario is done once for the
+ * batch, scenarios are forecast in parallel and each response is written, keyed by scenario id, as soon as it is done.
+ */
+@Service
+public class ForecastBatchService {
+
+    private final RentForecastService rentForecastService;
+    private final ForecastExecutor forecastExecutor;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ForecastBatchService(RentForecastService rentForecastService, ForecastExecutor forecastExecutor, ObjectMapper objectMapper) {
+        this.rentForecastService = rentForecastService;
+        this.forecastExecutor = forecastExecutor;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Validate a batch and prepare the work its scenarios share
+     *
+     * @param batchRequest - base request and scenarios
+     * @return - the prepared batch
+     * @throws IllegalArgumentException - if the base request is missing, ids are duplicated or a scenario changes a month that isn't forecast
+     *                                  or leaves out a rate of a month it changes
+     */
+    public ForecastBatch prepareBatch(RentForecastBatchRequest batchRequest) {
+        return new ForecastBatch(batchRequest);
+    }
+
+    /**
+     * Forecast every scenario of a batch and write a JSON object of forecast responses by scenario id, in completion order
+     *
+     * @param forecastBatch - the prepared batch
+     * @param outputStream  - stream the JSON response is written to, left open
+     * @throws IOException - if the response can't be written or the forecast is interrupted
+     */
+    public void writeBatch(ForecastBatch forecastBatch, OutputStream outputStream) throws IOException {
+        List<ForecastScenario> scenarios = forecastBatch.getScenarios();
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.writeStartObject();
+            forecastExecutor.forEachCompleted(scenarios.size(), forecastBatch.getScenarioUnitMonths() * scenarios.size(),
+                    scenarioIndex -> Map.entry(scenarios.get(scenarioIndex).getScenarioId(),
+                            forecastBatch.forecastScenario(scenarios.get(scenarioIndex), rentForecastService, forecastExecutor)),
+                    scenarioForecast -> writeScenario(generator, scenarioForecast));
+            generator.writeEndObject();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while forecasting rents");
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeScenario(JsonGenerator generator, Map.Entry<String, RentResponse> scenarioForecast) {
+        try {
+            generator.writeObjectField(scenarioForecast.getKey(), scenarioForecast.getValue());
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
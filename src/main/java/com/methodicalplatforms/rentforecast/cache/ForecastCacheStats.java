@@ -0,0 +1,14 @@
+package com.methodicalplatforms.rentforecast.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ForecastCacheStats {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int entries;
+    private long weight;
+}
@@ -0,0 +1,106 @@
+package com.methodicalplatforms.rentforecast.cache;
+
+import com.methodicalplatforms.rentforecast.calendar.MonthWindow;
+import com.methodicalplatforms.rentforecast.config.RentForecastCheckpointProperties;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In process cache of {@link UnitCheckpoints} by {@link UnitCheckpointKey}, kept next to the
+ * {@link UnitTypeForecastCache} so forecasts that differ from a previous one, or only return its later months,
+ * don't start over from the first month. Least recently used unit profiles are evicted once either the number of
+ * entries or their total number of checkpoints goes over the configured limits.
+ */
+@Service
+public class UnitCheckpointCache {
+
+    private final RentForecastCheckpointProperties checkpointProperties;
+    // access ordered, the eldest entry is the least recently used
+    private final LinkedHashMap<UnitCheckpointKey, UnitCheckpoints> cachedCheckpoints = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    @Autowired
+    public UnitCheckpointCache(RentForecastCheckpointProperties checkpointProperties) {
+        this.checkpointProperties = checkpointProperties;
+    }
+
+    /**
+     * Plan the checkpoints of a unit type forecast
+     *
+     * @param forecastEngine           - engine the forecast is calculated with
+     * @param closingDate              - the closing date for the property
+     * @param excessRentAdjustmentRate - the rate in which to modify loss to lease
+     * @param sortedForecastMonths     - the forecast months for the unit type, sorted
+     * @param monthWindow              - months the forecast returns
+     * @return - the plan, null when checkpoints are disabled or the forecast has none
+     */
+    public UnitCheckpointPlan plan(ForecastEngine forecastEngine, LocalDate closingDate, BigDecimal excessRentAdjustmentRate,
+                                   List<ForecastMonth> sortedForecastMonths, MonthWindow monthWindow) {
+        if (!checkpointProperties.isEnabled()) {
+            return null;
+        }
+        UnitCheckpointPlan unitCheckpointPlan = new UnitCheckpointPlan(this, forecastEngine, closingDate, excessRentAdjustmentRate,
+                sortedForecastMonths, monthWindow);
+        return unitCheckpointPlan.isEmpty() ? null : unitCheckpointPlan;
+    }
+
+    synchronized UnitCheckpoints get(UnitCheckpointKey key) {
+        return cachedCheckpoints.get(key);
+    }
+
+    synchronized void recordResume(boolean resumed) {
+        if (resumed) {
+            hits++;
+        } else {
+            misses++;
+        }
+    }
+
+    synchronized void put(UnitCheckpoints unitCheckpoints) {
+        UnitCheckpoints replaced = cachedCheckpoints.put(unitCheckpoints.getKey(), unitCheckpoints);
+        if (replaced != null) {
+            weight -= replaced.size();
+        }
+        weight += unitCheckpoints.size();
+
+        Iterator<Map.Entry<UnitCheckpointKey, UnitCheckpoints>> eldest = cachedCheckpoints.entrySet().iterator();
+        while (cachedCheckpoints.size() > checkpointProperties.getMaxEntries() || weight > checkpointProperties.getMaxCheckpoints()) {
+            weight -= eldest.next().getValue().size();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Drop every cached checkpoint, the counters are kept
+     */
+    public synchronized void clear() {
+        cachedCheckpoints.clear();
+        weight = 0;
+    }
+
+    /**
+     * @return - hits are unit forecasts resumed from a checkpoint, the weight is the number of cached checkpoints
+     */
+    public synchronized ForecastCacheStats getStats() {
+        return ForecastCacheStats.builder()
+                .hits(hits)
+                .misses(misses)
+                .evictions(evictions)
+                .entries(cachedCheckpoints.size())
+                .weight(weight)
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.methodicalplatforms.rentforecast.cache;
+
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.profile.UnitProfile;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Every input a unit's checkpoints depend on besides the forecast months, which are compared month by month when
+ * resuming. Units with the same profile share checkpoints, whatever unit type they are in.
+ */
+@Value
+public class UnitCheckpointKey {
+    ForecastEngine forecastEngine;
+    LocalDate closingDate;
+    BigDecimal excessRentAdjustmentRate;
+    UnitProfile unitProfile;
+}
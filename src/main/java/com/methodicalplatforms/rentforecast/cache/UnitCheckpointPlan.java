@@ -0,0 +1,87 @@
+package com.methodicalplatforms.rentforecast.cache;
+
+import com.methodicalplatforms.rentforecast.calendar.MonthWindow;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.profile.UnitProfile;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checkpoints of a unit type forecast: the first month of each year up to the end of the window. Each unit profile
+ * starts from the latest cached checkpoint before both the first month the window returns and the first forecast
+ * month that changed, and caches its checkpoints once forecast.
+ */
+public class UnitCheckpointPlan {
+    private final UnitCheckpointCache unitCheckpointCache;
+    private final ForecastEngine forecastEngine;
+    private final LocalDate closingDate;
+    private final BigDecimal excessRentAdjustmentRate;
+    private final List<ForecastMonth> sortedForecastMonths;
+    private final int firstNeededMonth;
+    private final int[] months;
+    // forecast months up to the last checkpoint, shared by the checkpoints of every profile
+    private final List<ForecastMonth> checkpointForecastMonths;
+
+    UnitCheckpointPlan(UnitCheckpointCache unitCheckpointCache, ForecastEngine forecastEngine, LocalDate closingDate,
+                       BigDecimal excessRentAdjustmentRate, List<ForecastMonth> sortedForecastMonths, MonthWindow monthWindow) {
+        this.unitCheckpointCache = unitCheckpointCache;
+        this.forecastEngine = forecastEngine;
+        this.closingDate = closingDate;
+        this.excessRentAdjustmentRate = excessRentAdjustmentRate;
+        this.sortedForecastMonths = sortedForecastMonths;
+        this.firstNeededMonth = monthWindow.getStart();
+        this.months = yearStarts(sortedForecastMonths, monthWindow.getEnd());
+        this.checkpointForecastMonths = List.copyOf(sortedForecastMonths.subList(0, months.length == 0 ? 0 : months[months.length - 1]));
+    }
+
+    /**
+     * @param sortedForecastMonths - the forecast months for the unit type, sorted
+     * @param end                  - month after the last forecast month
+     * @return - index of the first month of each year after the first, up to the end
+     */
+    private static int[] yearStarts(List<ForecastMonth> sortedForecastMonths, int end) {
+        List<Integer> yearStarts = new ArrayList<>();
+        for (int i = 1; i < end; i++) {
+            if (sortedForecastMonths.get(i).getYear() != sortedForecastMonths.get(i - 1).getYear()) {
+                yearStarts.add(i);
+            }
+        }
+        return yearStarts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return - true if the forecast has no year start to checkpoint
+     */
+    public boolean isEmpty() {
+        return months.length == 0;
+    }
+
+    /**
+     * Checkpoints for forecasting a unit, resumed from the latest usable cached checkpoint
+     *
+     * @param unitDetails - details of the unit to forecast
+     * @return - checkpoints to forecast from and record into, see {@link UnitCheckpoints#getResumeMonth()}
+     */
+    public UnitCheckpoints begin(UnitDetails unitDetails) {
+        UnitCheckpointKey key = new UnitCheckpointKey(forecastEngine, closingDate, excessRentAdjustmentRate, UnitProfile.of(unitDetails));
+        UnitCheckpoints previous = unitCheckpointCache.get(key);
+        int resumeCheckpoint = previous == null ? -1
+                : Math.min(previous.resumeCheckpoint(sortedForecastMonths, firstNeededMonth), months.length - 1);
+        unitCheckpointCache.recordResume(resumeCheckpoint >= 0);
+        return new UnitCheckpoints(key, checkpointForecastMonths, months, previous, resumeCheckpoint);
+    }
+
+    /**
+     * Cache the checkpoints of a unit once every one of them is recorded
+     *
+     * @param unitCheckpoints - checkpoints from {@link #begin(UnitDetails)}
+     */
+    public void finish(UnitCheckpoints unitCheckpoints) {
+        unitCheckpointCache.put(unitCheckpoints);
+    }
+}
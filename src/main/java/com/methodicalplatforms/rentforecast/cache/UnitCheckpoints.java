@@ -0,0 +1,112 @@
+package com.methodicalplatforms.rentforecast.cache;
+
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * State of a unit's forecast at the first month of each year: the rents of the month before it and the actual
+ * escalation compounded over the months before it, the values carried from one month to the next. When the unit
+ * started and when it renews follow from the unit details and the month axis, so they aren't recorded. A forecast
+ * with the same inputs and the same forecast months up to a checkpoint can start from it instead of the first month.
+ * Checkpoints are recorded while their unit is forecast and not modified once cached.
+ */
+public class UnitCheckpoints {
+    @Getter
+    private final UnitCheckpointKey key;
+    // forecast months up to the last checkpoint, shared by the unit profiles of a unit type
+    private final List<ForecastMonth> forecastMonths;
+    // month index of each checkpoint
+    private final int[] months;
+    private final BigDecimal[] marketRents;
+    private final BigDecimal[] actualRents;
+    private final BigDecimal[] compoundedActualEscalationRates;
+    // checkpoint the forecast resumed from, -1 when it started from the first month
+    @Getter
+    private final int resumeCheckpoint;
+
+    UnitCheckpoints(UnitCheckpointKey key, List<ForecastMonth> forecastMonths, int[] months, UnitCheckpoints previous, int resumeCheckpoint) {
+        this.key = key;
+        this.forecastMonths = forecastMonths;
+        this.months = months;
+        this.marketRents = new BigDecimal[months.length];
+        this.actualRents = new BigDecimal[months.length];
+        this.compoundedActualEscalationRates = new BigDecimal[months.length];
+        this.resumeCheckpoint = resumeCheckpoint;
+        // the months up to the resumed checkpoint are the same, so are their checkpoints
+        for (int checkpoint = 0; checkpoint <= resumeCheckpoint; checkpoint++) {
+            record(checkpoint, previous.marketRents[checkpoint], previous.actualRents[checkpoint],
+                    previous.compoundedActualEscalationRates[checkpoint]);
+        }
+    }
+
+    /**
+     * Latest checkpoint a forecast of other forecast months can start from
+     *
+     * @param sortedForecastMonths - the forecast months of the new forecast, sorted
+     * @param firstNeededMonth     - first month the new forecast returns, the checkpoint can't be after it
+     * @return - index of the checkpoint, -1 if there is none
+     */
+    int resumeCheckpoint(List<ForecastMonth> sortedForecastMonths, int firstNeededMonth) {
+        int sameMonths = 0;
+        int comparedMonths = Math.min(Math.min(forecastMonths.size(), sortedForecastMonths.size()), firstNeededMonth);
+        while (sameMonths < comparedMonths && forecastMonths.get(sameMonths).equals(sortedForecastMonths.get(sameMonths))) {
+            sameMonths++;
+        }
+        int checkpoint = -1;
+        while (checkpoint + 1 < months.length && months[checkpoint + 1] <= sameMonths) {
+            checkpoint++;
+        }
+        return checkpoint;
+    }
+
+    /**
+     * @return - first month to forecast, 0 when the forecast didn't resume from a checkpoint
+     */
+    public int getResumeMonth() {
+        return resumeCheckpoint < 0 ? 0 : months[resumeCheckpoint];
+    }
+
+    /**
+     * @return - number of checkpoints
+     */
+    public int size() {
+        return months.length;
+    }
+
+    /**
+     * @param checkpoint - index of the checkpoint
+     * @return - month index of the checkpoint
+     */
+    public int month(int checkpoint) {
+        return months[checkpoint];
+    }
+
+    public BigDecimal marketRent(int checkpoint) {
+        return marketRents[checkpoint];
+    }
+
+    public BigDecimal actualRent(int checkpoint) {
+        return actualRents[checkpoint];
+    }
+
+    public BigDecimal compoundedActualEscalationRate(int checkpoint) {
+        return compoundedActualEscalationRates[checkpoint];
+    }
+
+    /**
+     * Record the state of the forecast at a checkpoint
+     *
+     * @param checkpoint                     - index of the checkpoint
+     * @param marketRent                     - market rent of the month before the checkpoint
+     * @param actualRent                     - actual rent of the month before the checkpoint
+     * @param compoundedActualEscalationRate - actual escalation compounded over the months before the checkpoint
+     */
+    public void record(int checkpoint, BigDecimal marketRent, BigDecimal actualRent, BigDecimal compoundedActualEscalationRate) {
+        marketRents[checkpoint] = marketRent;
+        actualRents[checkpoint] = actualRent;
+        compoundedActualEscalationRates[checkpoint] = compoundedActualEscalationRate;
+    }
+}
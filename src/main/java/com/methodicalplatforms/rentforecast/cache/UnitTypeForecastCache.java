@@ -0,0 +1,113 @@
+package com.methodicalplatforms.rentforecast.cache;
+
+import com.methodicalplatforms.rentforecast.config.RentForecastCacheProperties;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * In process cache of unit type forecasts by {@link UnitTypeForecastKey}. Least recently used unit types are evicted
+ * once either the number of entries or their total weight, in unit months, goes over the configured limits.
+ * Cached forecasts are shared between requests and must not be modified.
+ */
+@Service
+public class UnitTypeForecastCache {
+
+    private final RentForecastCacheProperties cacheProperties;
+    // access ordered, the eldest entry is the least recently used
+    private final LinkedHashMap<UnitTypeForecastKey, CachedForecast> cachedForecasts = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    @Autowired
+    public UnitTypeForecastCache(RentForecastCacheProperties cacheProperties) {
+        this.cacheProperties = cacheProperties;
+    }
+
+    /**
+     * Get the cached forecast for a key or forecast and cache it. The forecast runs outside the cache lock, so
+     * concurrent misses on the same key may both forecast.
+     *
+     * @param key      - content address of the unit type forecast
+     * @param weight   - number of unit months in the forecast
+     * @param forecast - calculates the forecast on a miss
+     * @return - the unit type forecast
+     */
+    public UnitTypeForecastMonthly get(UnitTypeForecastKey key, long weight, Supplier<UnitTypeForecastMonthly> forecast) {
+        if (!cacheProperties.isEnabled()) {
+            return forecast.get();
+        }
+        synchronized (this) {
+            CachedForecast cachedForecast = cachedForecasts.get(key);
+            if (cachedForecast != null) {
+                hits++;
+                return cachedForecast.unitTypeForecastMonthly;
+            }
+            misses++;
+        }
+
+        UnitTypeForecastMonthly unitTypeForecastMonthly = forecast.get();
+        if (retains(weight)) {
+            put(key, new CachedForecast(unitTypeForecastMonthly, weight));
+        }
+        return unitTypeForecastMonthly;
+    }
+
+    /**
+     * @param weight - number of unit months in a forecast
+     * @return - true if a forecast of that weight is kept after it is calculated
+     */
+    public boolean retains(long weight) {
+        return cacheProperties.isEnabled() && weight <= cacheProperties.getMaxWeight();
+    }
+
+    private synchronized void put(UnitTypeForecastKey key, CachedForecast cachedForecast) {
+        CachedForecast replaced = cachedForecasts.put(key, cachedForecast);
+        if (replaced != null) {
+            weight -= replaced.weight;
+        }
+        weight += cachedForecast.weight;
+
+        Iterator<Map.Entry<UnitTypeForecastKey, CachedForecast>> eldest = cachedForecasts.entrySet().iterator();
+        while (cachedForecasts.size() > cacheProperties.getMaxEntries() || weight > cacheProperties.getMaxWeight()) {
+            weight -= eldest.next().getValue().weight;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Drop every cached forecast, the counters are kept
+     */
+    public synchronized void clear() {
+        cachedForecasts.clear();
+        weight = 0;
+    }
+
+    public synchronized ForecastCacheStats getStats() {
+        return ForecastCacheStats.builder()
+                .hits(hits)
+                .misses(misses)
+                .evictions(evictions)
+                .entries(cachedForecasts.size())
+                .weight(weight)
+                .build();
+    }
+
+    private static class CachedForecast {
+        private final UnitTypeForecastMonthly unitTypeForecastMonthly;
+        private final long weight;
+
+        private CachedForecast(UnitTypeForecastMonthly unitTypeForecastMonthly, long weight) {
+            this.unitTypeForecastMonthly = unitTypeForecastMonthly;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.methodicalplatforms.rentforecast.cache;
+
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.ForecastWindow;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import lombok.EqualsAndHashCode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Content address of a unit type forecast, a SHA-256 digest of every input the forecast depends on in a canonical
+ * order: forecast months sorted by year and month, unit details sorted by unit id. BigDecimals are written with
+ * their scale since the scale can show up in the response.
+ */
+@EqualsAndHashCode
+public class UnitTypeForecastKey {
+    private final String digest;
+
+    private UnitTypeForecastKey(String digest) {
+        this.digest = digest;
+    }
+
+    /**
+     * Calculate the key for a unit type forecast
+     *
+     * @param unitTypeForecast - the unit type forecast details
+     * @param closingDate      - the closing date for the property
+     * @param forecastEngine   - engine the forecast is calculated with
+     * @return - the key
+     */
+    public static UnitTypeForecastKey of(UnitTypeForecast unitTypeForecast, LocalDate closingDate, ForecastEngine forecastEngine) {
+        return of(unitTypeForecast, closingDate, forecastEngine, null);
+    }
+
+    /**
+     * Calculate the key for a unit type forecast of the months in a window. Without a window the key is the same as
+     * for a forecast of every month.
+     *
+     * @param unitTypeForecast - the unit type forecast details
+     * @param closingDate      - the closing date for the property
+     * @param forecastEngine   - engine the forecast is calculated with
+     * @param window           - months the forecast returns, every month when null
+     * @return - the key
+     */
+    public static UnitTypeForecastKey of(UnitTypeForecast unitTypeForecast, LocalDate closingDate, ForecastEngine forecastEngine,
+                                         ForecastWindow window) {
+        return of(unitTypeForecast, closingDate, forecastEngine, window, true);
+    }
+
+    /**
+     * Calculate the key for a unit type forecast of the months in a window, with or without the forecast of each unit.
+     * With the unit forecasts the key is the same as without this flag.
+     *
+     * @param unitTypeForecast - the unit type forecast details
+     * @param closingDate      - the closing date for the property
+     * @param forecastEngine   - engine the forecast is calculated with
+     * @param window           - months the forecast returns, every month when null
+     * @param unitForecasts    - whether the forecast has the forecast of each unit or only the unit type totals
+     * @return - the key
+     */
+    public static UnitTypeForecastKey of(UnitTypeForecast unitTypeForecast, LocalDate closingDate, ForecastEngine forecastEngine,
+                                         ForecastWindow window, boolean unitForecasts) {
+        StringBuilder canonical = new StringBuilder();
+        append(canonical, forecastEngine);
+        append(canonical, closingDate);
+        append(canonical, unitTypeForecast.getUnitType());
+        append(canonical, unitTypeForecast.getExcessRentAdjustmentRate());
+
+        canonical.append('[');
+        unitTypeForecast.getForecastMonthData().stream()
+                .sorted(Comparator.comparingInt(ForecastMonth::getYear).thenComparingInt(ForecastMonth::getMonth))
+                .forEach(forecastMonth -> {
+                    append(canonical, forecastMonth.getYear());
+                    append(canonical, forecastMonth.getMonth());
+                    append(canonical, forecastMonth.getMarketEscalationRate());
+                    append(canonical, forecastMonth.getActualEscalationRate());
+                });
+        canonical.append(']');
+
+        canonical.append('[');
+        Map<String, UnitDetails> sortedUnitDetails = new TreeMap<>(Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+        sortedUnitDetails.putAll(unitTypeForecast.getUnitDetails());
+        sortedUnitDetails.forEach((unitId, unitDetails) -> {
+            append(canonical, unitId);
+            append(canonical, unitDetails.getStartingMarketRent());
+            append(canonical, unitDetails.getStartingActualRent());
+            append(canonical, unitDetails.getStartDate());
+            append(canonical, unitDetails.getContractTerm());
+            append(canonical, unitDetails.getUnitStatus());
+        });
+        canonical.append(']');
+
+        if (window != null) {
+            append(canonical, window.getStartYear());
+            append(canonical, window.getStartMonth());
+            append(canonical, window.getEndYear());
+            append(canonical, window.getEndMonth());
+        }
+        if (!unitForecasts) {
+            append(canonical, "totals");
+        }
+
+        return new UnitTypeForecastKey(sha256(canonical));
+    }
+
+    /**
+     * Length prefix every value so values can't run into each other, null is written as -1
+     */
+    private static void append(StringBuilder canonical, Object value) {
+        if (value == null) {
+            canonical.append("-1:");
+            return;
+        }
+        String string = value.toString();
+        canonical.append(string.length()).append(':').append(string);
+    }
+
+    private static String sha256(CharSequence canonical) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return digest;
+    }
+}
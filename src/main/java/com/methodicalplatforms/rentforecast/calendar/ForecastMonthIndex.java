@@ -0,0 +1,168 @@
+package com.methodicalplatforms.rentforecast.calendar;
+
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoField;
+import java.util.List;
+
+/**
+ * Month axis for a unit type, calculated once from the closing date and the sorted forecast months.
+ * Each month is an absolute month ordinal (year * 12 + month - 1) so the calendar checks made for every unit month
+ * are integer comparisons instead of LocalDate math.
+ */
+public class ForecastMonthIndex {
+    private final int[] months;
+    private final int[] ordinals;
+    private final boolean hasClosingDate;
+    private final int closingOrdinal;
+    // every month is the month after the one before it, so month offsets can be calculated instead of searched
+    private final boolean contiguous;
+    // first month the property has started, every month from here on is started
+    @Getter
+    private final int propertyStartIndex;
+
+    public ForecastMonthIndex(List<ForecastMonth> sortedForecastMonths, LocalDate closingDate) {
+        this.months = new int[sortedForecastMonths.size()];
+        this.ordinals = new int[sortedForecastMonths.size()];
+        this.hasClosingDate = closingDate != null;
+        this.closingOrdinal = hasClosingDate ? ordinal(closingDate) : 0;
+
+        boolean contiguousMonths = true;
+        int firstStartedMonth = sortedForecastMonths.size();
+        for (int i = 0; i < sortedForecastMonths.size(); i++) {
+            ForecastMonth forecastMonth = sortedForecastMonths.get(i);
+            months[i] = forecastMonth.getMonth();
+            if (hasClosingDate) {
+                // forecast months are relative to the closing year, year 1 being the closing year
+                int month = ChronoField.MONTH_OF_YEAR.checkValidIntValue(forecastMonth.getMonth());
+                ordinals[i] = (closingDate.getYear() + forecastMonth.getYear() - 1) * 12 + month - 1;
+                contiguousMonths &= i == 0 || ordinals[i] == ordinals[i - 1] + 1;
+            }
+            // The property starts the month after closing
+            if (firstStartedMonth == sortedForecastMonths.size() && (!hasClosingDate || ordinals[i] > closingOrdinal)) {
+                firstStartedMonth = i;
+            }
+        }
+        this.propertyStartIndex = firstStartedMonth;
+        this.contiguous = contiguousMonths;
+    }
+
+    public int size() {
+        return months.length;
+    }
+
+    /**
+     * Convert a unit's dates to integer offsets on this axis
+     *
+     * @param unitDetails - details for a unit
+     * @return - the unit's schedule
+     */
+    public UnitMonthSchedule unitSchedule(UnitDetails unitDetails) {
+        LocalDate startDate = unitDetails.getStartDate();
+        int startOrdinal = startDate != null ? ordinal(startDate) : closingOrdinal;
+
+        // A unit has started once we are past closing and past its start month, a unit that starts on the last day
+        // or middle of the month reflects in the following month's actual
+        // todo: in v2 we would prorate and this would need to change
+        int startedIndex = months.length;
+        for (int i = 0; i < months.length; i++) {
+            if (!hasClosingDate || (ordinals[i] >= closingOrdinal && ordinals[i] > startOrdinal)) {
+                startedIndex = i;
+                break;
+            }
+        }
+        return new UnitMonthSchedule(this, startOrdinal, startedIndex, unitDetails.getContractTerm(), startDate != null);
+    }
+
+    /**
+     * Determine if the month is the unit's start month
+     *
+     * @param monthIndex   - index of the month on the axis
+     * @param startOrdinal - the unit's start month ordinal
+     * @return - true if the unit starts this month
+     */
+    boolean isStartMonth(int monthIndex, int startOrdinal) {
+        return hasClosingDate && ordinals[monthIndex] == startOrdinal;
+    }
+
+    /**
+     * Should we escalate this month in question?
+     *
+     * @param monthIndex   - index of the month on the axis
+     * @param startOrdinal - the unit's start month ordinal
+     * @param contractTerm - the unit's contract term in months
+     * @param hasStartDate - whether the unit has its own start date
+     * @return - true or false, whether we should escalate
+     */
+    boolean isEscalationMonthForActual(int monthIndex, int startOrdinal, Integer contractTerm, boolean hasStartDate) {
+        if (!hasClosingDate || !hasStartDate) {
+            // this works because our array is 0 indexed, so if we renew every 6 months, index 6 would actually be the 7th month
+            return contractTerm != null && (months[monthIndex] % contractTerm) == 0;
+        }
+        int monthsBetween = ordinals[monthIndex] - startOrdinal;
+        // If the unit start date hasn't occurred yet
+        if (monthsBetween < 0) {
+            return false;
+        }
+        return monthsBetween % contractTerm == 0;
+    }
+
+    /**
+     * First month on or after a month where the unit's actual rent can change: the start month, the month after it,
+     * the month the unit has started and each escalation month. Every month in between repeats the one before it.
+     *
+     * @param fromMonth    - index of the first month to check
+     * @param startOrdinal - the unit's start month ordinal
+     * @param startedIndex - first month the unit has started
+     * @param contractTerm - the unit's contract term in months
+     * @param hasStartDate - whether the unit has its own start date
+     * @return - index of the next change, the axis size if there is none
+     */
+    int nextActualRentChange(int fromMonth, int startOrdinal, int startedIndex, Integer contractTerm, boolean hasStartDate) {
+        if (fromMonth >= months.length || (hasClosingDate && !contiguous)) {
+            // a gap or repeated month on the axis, every month has to be checked
+            return fromMonth;
+        }
+        int nextChange = months.length;
+        if (hasClosingDate) {
+            int startMonth = startOrdinal - ordinals[0];
+            if (startMonth + 1 >= fromMonth) {
+                nextChange = Math.max(startMonth, fromMonth);
+            }
+        }
+        if (startedIndex >= fromMonth) {
+            nextChange = Math.min(nextChange, startedIndex);
+        }
+        return Math.min(nextChange, nextEscalationMonthForActual(Math.max(fromMonth, startedIndex), startOrdinal, contractTerm, hasStartDate));
+    }
+
+    private int nextEscalationMonthForActual(int fromMonth, int startOrdinal, Integer contractTerm, boolean hasStartDate) {
+        if (fromMonth >= months.length) {
+            return months.length;
+        }
+        if (!hasClosingDate || !hasStartDate) {
+            if (contractTerm == null) {
+                return months.length;
+            }
+            int escalationMonth = fromMonth;
+            while (escalationMonth < months.length && !isEscalationMonthForActual(escalationMonth, startOrdinal, contractTerm, hasStartDate)) {
+                escalationMonth++;
+            }
+            return escalationMonth;
+        }
+        if (contractTerm == null || contractTerm <= 0) {
+            // leave the term to the per month check
+            return fromMonth;
+        }
+        int monthsBetween = ordinals[fromMonth] - startOrdinal;
+        int monthsToEscalation = monthsBetween < 0 ? -monthsBetween : Math.floorMod(-monthsBetween, contractTerm);
+        return (int) Math.min((long) fromMonth + monthsToEscalation, months.length);
+    }
+
+    private static int ordinal(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+}
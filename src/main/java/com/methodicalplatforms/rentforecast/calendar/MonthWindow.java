@@ -0,0 +1,119 @@
+package com.methodicalplatforms.rentforecast.calendar;
+
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.ForecastWindow;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A {@link ForecastWindow} resolved against a unit type's sorted forecast months. Months from {@link #getStart()} up
+ * to {@link #getEnd()} are returned, the months before the window are only forecast to carry the forecast forward.
+ * Fiscal years keep their place on the full month axis, so the months of a fiscal year that started before the
+ * window aren't summarized.
+ */
+@Getter
+public class MonthWindow {
+    private final int start;
+    private final int end;
+    // calendar years before the window's first year, the window's years start at this year slot of the full axis
+    private final int yearsBefore;
+    // months after closing before the window, fiscal months in the window keep counting from here
+    private final int fiscalMonthsBefore;
+
+    private MonthWindow(int start, int end, int yearsBefore, int fiscalMonthsBefore) {
+        this.start = start;
+        this.end = end;
+        this.yearsBefore = yearsBefore;
+        this.fiscalMonthsBefore = fiscalMonthsBefore;
+    }
+
+    /**
+     * @param monthCount - number of forecast months
+     * @return - window over every month
+     */
+    public static MonthWindow full(int monthCount) {
+        return new MonthWindow(0, monthCount, 0, 0);
+    }
+
+    /**
+     * Resolve a window against the forecast months of a unit type
+     *
+     * @param sortedForecastMonths - the forecast months for the unit type, sorted
+     * @param closingDate          - the closing date for the property
+     * @param forecastWindow       - months to return, every month when null
+     * @return - the resolved window, empty when no forecast month is in it
+     * @throws IllegalArgumentException - if the window has an invalid month or starts after it ends
+     */
+    public static MonthWindow of(List<ForecastMonth> sortedForecastMonths, LocalDate closingDate, ForecastWindow forecastWindow) {
+        if (forecastWindow == null) {
+            return full(sortedForecastMonths.size());
+        }
+        if (forecastWindow.getStartMonth() < 1 || forecastWindow.getStartMonth() > 12
+                || forecastWindow.getEndMonth() < 1 || forecastWindow.getEndMonth() > 12) {
+            throw new IllegalArgumentException("Forecast window months must be between 1 and 12");
+        }
+        int firstMonth = forecastWindow.getStartYear() == null ? Integer.MIN_VALUE
+                : monthNumber(forecastWindow.getStartYear(), forecastWindow.getStartMonth());
+        int lastMonth = forecastWindow.getEndYear() == null ? Integer.MAX_VALUE
+                : monthNumber(forecastWindow.getEndYear(), forecastWindow.getEndMonth());
+        if (firstMonth > lastMonth) {
+            throw new IllegalArgumentException("Forecast window starts after it ends");
+        }
+
+        int start = 0;
+        int yearsBefore = 0;
+        int fiscalMonthsBefore = 0;
+        while (start < sortedForecastMonths.size() && monthNumber(sortedForecastMonths.get(start)) < firstMonth) {
+            ForecastMonth forecastMonth = sortedForecastMonths.get(start);
+            if (start == 0 || forecastMonth.getYear() != sortedForecastMonths.get(start - 1).getYear()) {
+                yearsBefore++;
+            }
+            // mirrors RentForecastSummaryService.calculateFiscalYearSummary
+            if (closingDate != null && (forecastMonth.getYear() != 1 || forecastMonth.getMonth() > closingDate.getMonthValue())) {
+                fiscalMonthsBefore++;
+            }
+            start++;
+        }
+        // a window starting part way through a year still returns that year
+        if (start > 0 && start < sortedForecastMonths.size()
+                && sortedForecastMonths.get(start).getYear() == sortedForecastMonths.get(start - 1).getYear()) {
+            yearsBefore--;
+        }
+        int end = start;
+        while (end < sortedForecastMonths.size() && monthNumber(sortedForecastMonths.get(end)) <= lastMonth) {
+            end++;
+        }
+        return new MonthWindow(start, end, yearsBefore, fiscalMonthsBefore);
+    }
+
+    private static int monthNumber(ForecastMonth forecastMonth) {
+        return monthNumber(forecastMonth.getYear(), forecastMonth.getMonth());
+    }
+
+    private static int monthNumber(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    /**
+     * @return - number of months in the window
+     */
+    public int size() {
+        return end - start;
+    }
+
+    /**
+     * Year slot of a fiscal month in the window's years
+     *
+     * @param fiscalMonth - months after closing, counted from the first month of the forecast
+     * @return - the year slot, negative when the fiscal year started before the window
+     */
+    public int fiscalYearSlot(int fiscalMonth) {
+        // a window starting part way through a fiscal year still has that year's slot, but not all of its months
+        if (fiscalMonth / 12 * 12 < fiscalMonthsBefore) {
+            return -1;
+        }
+        return fiscalMonth / 12 - yearsBefore;
+    }
+}
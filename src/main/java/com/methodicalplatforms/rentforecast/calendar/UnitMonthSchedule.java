@@ -0,0 +1,36 @@
+package com.methodicalplatforms.rentforecast.calendar;
+
+import lombok.Getter;
+
+/**
+ * A unit's start and escalation months as integer offsets on a {@link ForecastMonthIndex}
+ */
+public class UnitMonthSchedule {
+    private final ForecastMonthIndex monthIndex;
+    private final int startOrdinal;
+    // first month the unit has started, every month from here on is started
+    @Getter
+    private final int startedIndex;
+    private final Integer contractTerm;
+    private final boolean hasStartDate;
+
+    UnitMonthSchedule(ForecastMonthIndex monthIndex, int startOrdinal, int startedIndex, Integer contractTerm, boolean hasStartDate) {
+        this.monthIndex = monthIndex;
+        this.startOrdinal = startOrdinal;
+        this.startedIndex = startedIndex;
+        this.contractTerm = contractTerm;
+        this.hasStartDate = hasStartDate;
+    }
+
+    public boolean isStartMonth(int month) {
+        return monthIndex.isStartMonth(month, startOrdinal);
+    }
+
+    public boolean isEscalationMonthForActual(int month) {
+        return monthIndex.isEscalationMonthForActual(month, startOrdinal, contractTerm, hasStartDate);
+    }
+
+    public int nextActualRentChange(int month) {
+        return monthIndex.nextActualRentChange(month, startOrdinal, startedIndex, contractTerm, hasStartDate);
+    }
+}
@@ -0,0 +1,23 @@
+package com.methodicalplatforms.rentforecast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rent-forecast.admission")
+public class RentForecastAdmissionProperties {
+    // turn admission control off, every request runs right away
+    private boolean enabled = true;
+    // estimated cost, in unit months per view, of every forecast running at the same time
+    private long budget = 200_000_000;
+    // largest estimated cost POST /rent-forecast accepts, bigger requests have to be submitted as jobs
+    private long maxRequestCost = 50_000_000;
+    // how long a request waits for room in the budget before it is turned away
+    private Duration queueTimeout = Duration.ofSeconds(2);
+    // Retry-After for turned away requests until a forecast has been timed
+    private Duration retryAfter = Duration.ofSeconds(5);
+}
@@ -0,0 +1,17 @@
+package com.methodicalplatforms.rentforecast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rent-forecast.arena")
+public class RentForecastArenaProperties {
+    // keep the rent columns of request scoped PRIMITIVE forecasts in pooled direct buffers
+    private boolean enabled = true;
+    // direct memory the pool may reserve, columns that don't fit are allocated on the heap
+    private long maxBytes = 512L * 1024 * 1024;
+    // columns smaller than this are allocated on the heap
+    private int minBufferBytes = 64 * 1024;
+}
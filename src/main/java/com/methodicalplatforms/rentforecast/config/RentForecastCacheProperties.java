@@ -0,0 +1,17 @@
+package com.methodicalplatforms.rentforecast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rent-forecast.cache")
+public class RentForecastCacheProperties {
+    // cache unit type forecasts between requests
+    private boolean enabled = true;
+    // maximum number of cached unit types
+    private int maxEntries = 512;
+    // maximum number of cached unit months, summed over the cached unit types
+    private long maxWeight = 5_000_000;
+}
@@ -0,0 +1,17 @@
+package com.methodicalplatforms.rentforecast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rent-forecast.checkpoint")
+public class RentForecastCheckpointProperties {
+    // record the state of each unit profile at every year start, so windowed forecasts can resume from it
+    private boolean enabled = false;
+    // maximum number of unit profiles with checkpoints
+    private int maxEntries = 100_000;
+    // maximum number of checkpoints, summed over the unit profiles
+    private long maxCheckpoints = 2_000_000;
+}
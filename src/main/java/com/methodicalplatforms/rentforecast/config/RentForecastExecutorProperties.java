@@ -0,0 +1,19 @@
+package com.methodicalplatforms.rentforecast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rent-forecast.executor")
+public class RentForecastExecutorProperties {
+    // threads forecasting rents, shared by every request
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+    // tasks waiting for a forecast thread, work that doesn't fit runs on the request thread
+    private int queueCapacity = 1024;
+    // threads a single request can forecast on, its own thread included
+    private int maxRequestParallelism = Runtime.getRuntime().availableProcessors();
+    // work is only split into tasks of at least this many unit months
+    private long minUnitMonthsPerTask = 20_000;
+}
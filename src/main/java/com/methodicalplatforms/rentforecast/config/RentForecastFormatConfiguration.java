@@ -0,0 +1,28 @@
+package com.methodicalplatforms.rentforecast.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.methodicalplatforms.rentforecast.format.ColumnarForecastModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Binary encoding negotiated with Accept and Content-Type application/cbor. Spring Boot puts the converter where its
+ * default CBOR converter would be, after JSON, so JSON stays the default.
+ */
+@Configuration
+public class RentForecastFormatConfiguration {
+
+    /**
+     * @param objectMapperBuilder - builder configured like the JSON ObjectMapper
+     * @return - CBOR converter using the columnar month layout
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        ObjectMapper cborObjectMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        cborObjectMapper.registerModule(new ColumnarForecastModule());
+        return new MappingJackson2CborHttpMessageConverter(cborObjectMapper);
+    }
+}
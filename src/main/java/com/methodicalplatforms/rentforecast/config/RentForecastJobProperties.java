@@ -0,0 +1,21 @@
+package com.methodicalplatforms.rentforecast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rent-forecast.job")
+public class RentForecastJobProperties {
+    // jobs forecasting at the same time, each one splits its work on the forecast executor
+    private int threads = 2;
+    // jobs waiting to start, submissions beyond this are turned away
+    private int queueCapacity = 50;
+    // finished jobs and their results are kept this long
+    private Duration retention = Duration.ofHours(1);
+    // maximum number of finished jobs kept, the oldest is dropped
+    private int maxRetainedJobs = 100;
+}
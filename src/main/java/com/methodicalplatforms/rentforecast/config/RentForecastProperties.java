@@ -0,0 +1,14 @@
+package com.methodicalplatforms.rentforecast.config;
+
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rent-forecast")
+public class RentForecastProperties {
+    // engine used to calculate unit forecasts
+    private ForecastEngine engine = ForecastEngine.BIG_DECIMAL;
+}
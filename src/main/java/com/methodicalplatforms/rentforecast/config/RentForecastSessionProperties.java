@@ -0,0 +1,17 @@
+package com.methodicalplatforms.rentforecast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rent-forecast.session")
+public class RentForecastSessionProperties {
+    // maximum number of forecast sessions kept, the least recently used is dropped, at least 1
+    private int maxSessions = 100;
+    // sessions not used for this long are dropped
+    private Duration idleTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,28 @@
+package com.methodicalplatforms.rentforecast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rent-forecast.shard")
+public class RentForecastShardProperties {
+    // base urls of the instances shards are forecast on, e.g. http://forecast-1:8080, sharding is off when empty
+    private List<String> workers = new ArrayList<>();
+    // shards in flight on each worker at a time
+    private int shardsPerWorker = 2;
+    // largest shard, unit types over it are split by unit, keep it under the workers' admission max request cost
+    private long maxUnitMonthsPerShard = 5_000_000;
+    // workers a shard is tried on before the forecast fails, each attempt on the next worker
+    private int maxAttempts = 3;
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    // time a worker has to answer a shard
+    private Duration requestTimeout = Duration.ofMinutes(10);
+    // longest Retry-After waited on before trying the next worker
+    private Duration maxRetryAfter = Duration.ofSeconds(30);
+}
@@ -0,0 +1,20 @@
+package com.methodicalplatforms.rentforecast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rent-forecast.snapshot")
+public class RentForecastSnapshotProperties {
+    // keep forecast snapshots on disk, the snapshot endpoints answer 404 otherwise. Snapshots are the size of a
+    // response, set a directory with room for max-snapshots of them before enabling
+    private boolean enabled = false;
+    // directory holding one file per snapshot and format, created when missing, relative to the working directory
+    private Path directory = Path.of("rent-forecast-snapshots");
+    // snapshot files kept, the least recently written are deleted
+    private int maxSnapshots = 1000;
+}
@@ -0,0 +1,13 @@
+package com.methodicalplatforms.rentforecast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rent-forecast.simulation")
+public class RentSimulationProperties {
+    // maximum number of paths a simulation can ask for
+    private int maxPaths = 100_000;
+}
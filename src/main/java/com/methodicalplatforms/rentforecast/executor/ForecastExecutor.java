@@ -0,0 +1,574 @@
+package com.methodicalplatforms.rentforecast.executor;
+
+import com.methodicalplatforms.rentforecast.config.RentForecastExecutorProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs forecast work on a dedicated, bounded thread pool instead of the common fork join pool.
+ * <p>
+ * Work is split into chunks of at least the configured number of unit months, smaller work runs on the calling
+ * thread. The calling thread always takes chunks itself, pool threads only help, so nested work (units inside a
+ * unit type) can't deadlock the pool and a full queue only means less help. Helpers are capped per request,
+ * nested calls count against the cap of the request they run for, and split evenly between concurrent requests.
+ */
+@Service
+public class ForecastExecutor {
+    public static final String QUEUE_DEPTH = "rent.forecast.executor.queue.depth";
+    public static final String ACTIVE_HELPERS = "rent.forecast.executor.active.helpers";
+    public static final String UTILIZATION = "rent.forecast.executor.utilization";
+    public static final String ACTIVE_REQUESTS = "rent.forecast.executor.active.requests";
+    public static final String REJECTED_HELPERS = "rent.forecast.executor.rejected.helpers";
+
+    private final RentForecastExecutorProperties executorProperties;
+    private final ThreadPoolExecutor threadPoolExecutor;
+    // the request the current thread is forecasting for, set on the request thread and on its helpers
+    private final ThreadLocal<RequestSlot> currentRequest = new ThreadLocal<>();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final LongAdder splitTasks = new LongAdder();
+    private final LongAdder inlineTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+
+    @Autowired
+    public ForecastExecutor(RentForecastExecutorProperties executorProperties, MeterRegistry meterRegistry) {
+        this.executorProperties = executorProperties;
+        this.threadPoolExecutor = new ThreadPoolExecutor(executorProperties.getPoolSize(), executorProperties.getPoolSize(),
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(executorProperties.getQueueCapacity()), new ForecastThreadFactory());
+        Gauge.builder(QUEUE_DEPTH, this, executor -> executor.getStats().getQueueDepth())
+                .description("Helper tasks waiting for a forecast pool thread")
+                .register(meterRegistry);
+        Gauge.builder(ACTIVE_HELPERS, this, executor -> executor.getStats().getActiveThreads())
+                .description("Forecast pool threads helping a request")
+                .register(meterRegistry);
+        Gauge.builder(UTILIZATION, this, executor -> executor.getStats().getUtilization())
+                .description("Active forecast pool threads over the pool size")
+                .register(meterRegistry);
+        Gauge.builder(ACTIVE_REQUESTS, this, executor -> executor.getStats().getActiveRequests())
+                .description("Requests with forecast work on the executor")
+                .register(meterRegistry);
+        FunctionCounter.builder(REJECTED_HELPERS, rejectedTasks, LongAdder::sum)
+                .description("Helper tasks that didn't fit the queue and ran on the request thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Apply a task to every index
+     *
+     * @param size       - number of indexes
+     * @param unitMonths - total unit months of the work, decides how far it is split
+     * @param task       - calculates the result for an index
+     * @return - results in index order
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> map(int size, long unitMonths, IntFunction<T> task) {
+        Object[] results = new Object[size];
+        run(new ChunkedTask<>(size, chunkSize(size, unitMonths), () -> results, (ignored, index) -> results[index] = task.apply(index)));
+        return (List<T>) Arrays.asList(results);
+    }
+
+    /**
+     * Accumulate every index into containers that are combined at the end, each thread accumulates into its own container
+     *
+     * @param size        - number of indexes
+     * @param unitMonths  - total unit months of the work, decides how far it is split
+     * @param supplier    - creates an empty container
+     * @param accumulator - adds an index to a container
+     * @param combiner    - merges the second container into the first
+     * @return - the combined container
+     */
+    public <A> A collect(int size, long unitMonths, Supplier<A> supplier, ObjIntConsumer<A> accumulator, BiConsumer<A, A> combiner) {
+        List<A> containers = run(new ChunkedTask<>(size, chunkSize(size, unitMonths), supplier, accumulator));
+        A container = containers.get(0);
+        for (int i = 1; i < containers.size(); i++) {
+            combiner.accept(container, containers.get(i));
+        }
+        return container;
+    }
+
+    /**
+     * Apply a task to every index, one index per chunk, and hand the results to a consumer in completion order.
+     * The consumer is only called on the calling thread.
+     *
+     * @param size       - number of indexes
+     * @param unitMonths - total unit months of the work, decides whether it is split at all
+     * @param task       - calculates the result for an index
+     * @param consumer   - receives every result
+     * @throws InterruptedException - if the calling thread is interrupted while waiting for results
+     */
+    public <T> void forEachCompleted(int size, long unitMonths, IntFunction<T> task, Consumer<T> consumer) throws InterruptedException {
+        BlockingQueue<T> completed = new LinkedBlockingQueue<>();
+        int chunkSize = unitMonths < executorProperties.getMinUnitMonthsPerTask() ? Math.max(size, 1) : 1;
+        ChunkedTask<BlockingQueue<T>> chunkedTask = new ChunkedTask<>(size, chunkSize, () -> completed,
+                (results, index) -> results.add(task.apply(index)));
+        (chunkedTask.chunkCount > 1 ? splitTasks : inlineTasks).increment();
+
+        int consumed = 0;
+        RequestSlot requestSlot = currentRequest.get();
+        // nested work counts against the request it runs for
+        boolean topLevel = requestSlot == null;
+        if (topLevel) {
+            requestSlot = enterRequest();
+        }
+        List<Helper<BlockingQueue<T>>> helpers = List.of();
+        try {
+            helpers = fork(chunkedTask, requestSlot);
+            // Work on our own chunks, passing on whatever completed in between
+            while (chunkedTask.runNextChunk(completed)) {
+                consumed += drainTo(completed, consumer);
+            }
+            cancelUnstarted(helpers, requestSlot);
+            while (consumed < size) {
+                T result = completed.poll(10, TimeUnit.MILLISECONDS);
+                if (result != null) {
+                    consumer.accept(result);
+                    consumed++;
+                } else {
+                    // Surface failed helpers, they would otherwise leave us waiting
+                    for (Helper<BlockingQueue<T>> helper : helpers) {
+                        if (helper.future.isDone()) {
+                            join(helper.future);
+                        }
+                    }
+                }
+            }
+        } finally {
+            chunkedTask.abandon();
+            cancelUnstarted(helpers, requestSlot);
+            // results of running helpers may be written to the request's arena, which closes once we return
+            awaitStarted(helpers);
+            if (topLevel) {
+                exitRequest();
+            }
+        }
+    }
+
+    /**
+     * Open a group of tasks that are started while the caller goes on with other work, like reading the rest of a
+     * request, and joined at the end. The group counts as one request however many tasks are added to it.
+     *
+     * @return - an empty group, to close on the thread that opened it
+     */
+    public <T> TaskGroup<T> taskGroup() {
+        return new TaskGroup<>();
+    }
+
+    /**
+     * @return - pool size, load and task counters
+     */
+    public ForecastExecutorStats getStats() {
+        int poolSize = threadPoolExecutor.getMaximumPoolSize();
+        int activeThreads = threadPoolExecutor.getActiveCount();
+        return ForecastExecutorStats.builder()
+                .poolSize(poolSize)
+                .activeThreads(activeThreads)
+                .utilization((double) activeThreads / poolSize)
+                .queueDepth(threadPoolExecutor.getQueue().size())
+                .queueCapacity(executorProperties.getQueueCapacity())
+                .activeRequests(activeRequests.get())
+                .splitTasks(splitTasks.sum())
+                .inlineTasks(inlineTasks.sum())
+                .completedHelpers(threadPoolExecutor.getCompletedTaskCount())
+                .rejectedHelpers(rejectedTasks.sum())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        threadPoolExecutor.shutdownNow();
+    }
+
+    private int chunkSize(int size, long unitMonths) {
+        long chunkCount = Math.max(1, Math.min(size, unitMonths / Math.max(1, executorProperties.getMinUnitMonthsPerTask())));
+        return (int) Math.max(1, (size + chunkCount - 1) / chunkCount);
+    }
+
+    /**
+     * Run every chunk of the task, on the calling thread and on any helpers the request can get
+     *
+     * @param chunkedTask - the work
+     * @return - the containers that were accumulated into, the calling thread's first
+     */
+    private <A> List<A> run(ChunkedTask<A> chunkedTask) {
+        if (chunkedTask.chunkCount <= 1) {
+            inlineTasks.increment();
+            A container = chunkedTask.supplier.get();
+            chunkedTask.runNextChunk(container);
+            return List.of(container);
+        }
+
+        splitTasks.increment();
+        RequestSlot requestSlot = currentRequest.get();
+        // nested work counts against the request it runs for
+        boolean topLevel = requestSlot == null;
+        if (topLevel) {
+            requestSlot = enterRequest();
+        }
+        List<Helper<A>> helpers = List.of();
+        try {
+            helpers = fork(chunkedTask, requestSlot);
+            A container = chunkedTask.supplier.get();
+            while (chunkedTask.runNextChunk(container)) {
+                // keep taking chunks until there are none left
+            }
+            // Helpers that haven't started have nothing left to do, running ones finish the chunks they took
+            cancelUnstarted(helpers, requestSlot);
+            List<A> containers = new ArrayList<>();
+            containers.add(container);
+            for (Helper<A> helper : helpers) {
+                if (!helper.skipped) {
+                    containers.add(join(helper.future));
+                }
+            }
+            return containers;
+        } finally {
+            chunkedTask.abandon();
+            cancelUnstarted(helpers, requestSlot);
+            // results of running helpers may be written to the request's arena, which closes once we return
+            awaitStarted(helpers);
+            if (topLevel) {
+                exitRequest();
+            }
+        }
+    }
+
+    private <A> List<Helper<A>> fork(ChunkedTask<A> chunkedTask, RequestSlot requestSlot) {
+        // An even share of the pool for every request forecasting right now
+        int fairShare = Math.max(1, threadPoolExecutor.getMaximumPoolSize() / Math.max(1, activeRequests.get()));
+        int helperCount = Math.min(chunkedTask.chunkCount - 1, fairShare);
+        List<Helper<A>> helpers = new ArrayList<>(helperCount);
+        for (int i = 0; i < helperCount && requestSlot.helperPermits.tryAcquire(); i++) {
+            Helper<A> helper = new Helper<>();
+            try {
+                helper.future = threadPoolExecutor.submit(() -> help(helper, chunkedTask, requestSlot));
+                helpers.add(helper);
+            } catch (RejectedExecutionException e) {
+                requestSlot.helperPermits.release();
+                rejectedTasks.increment();
+                break;
+            }
+        }
+        return helpers;
+    }
+
+    private <A> A help(Helper<A> helper, ChunkedTask<A> chunkedTask, RequestSlot requestSlot) {
+        if (!helper.started.compareAndSet(false, true)) {
+            // skipped by the caller while queued
+            return null;
+        }
+        currentRequest.set(requestSlot);
+        try {
+            A container = chunkedTask.supplier.get();
+            while (chunkedTask.runNextChunk(container)) {
+                // keep taking chunks until there are none left
+            }
+            return container;
+        } catch (RuntimeException | Error e) {
+            chunkedTask.abandon();
+            throw e;
+        } finally {
+            currentRequest.remove();
+            requestSlot.helperPermits.release();
+        }
+    }
+
+    private <A> void cancelUnstarted(List<Helper<A>> helpers, RequestSlot requestSlot) {
+        for (Helper<A> helper : helpers) {
+            // Only succeeds for helpers that haven't started, those never take chunks or release their permit
+            if (helper.started.compareAndSet(false, true)) {
+                helper.skipped = true;
+                threadPoolExecutor.remove((Runnable) helper.future);
+                requestSlot.helperPermits.release();
+            }
+        }
+    }
+
+    /**
+     * Wait for every helper that started to finish its chunk, whether it failed or not. Abandoned work has no chunks
+     * left to take, so this is at most one chunk per helper. Interrupts are kept for the caller.
+     */
+    private static <A> void awaitStarted(List<Helper<A>> helpers) {
+        boolean interrupted = false;
+        for (Helper<A> helper : helpers) {
+            if (helper.skipped) {
+                continue;
+            }
+            while (true) {
+                try {
+                    helper.future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    // the failure is surfaced by the join, or the work is failing for another reason already
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> int drainTo(BlockingQueue<T> completed, Consumer<T> consumer) {
+        int drained = 0;
+        for (T result = completed.poll(); result != null; result = completed.poll()) {
+            consumer.accept(result);
+            drained++;
+        }
+        return drained;
+    }
+
+    private static <A> A join(Future<A> helper) {
+        try {
+            return helper.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while forecasting rents", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private RequestSlot enterRequest() {
+        RequestSlot requestSlot = new RequestSlot(Math.max(0, executorProperties.getMaxRequestParallelism() - 1));
+        currentRequest.set(requestSlot);
+        activeRequests.incrementAndGet();
+        return requestSlot;
+    }
+
+    private void exitRequest() {
+        currentRequest.remove();
+        activeRequests.decrementAndGet();
+    }
+
+    /**
+     * Tasks started on helpers as they are added, in the request of the thread that opened the group. A task only
+     * gets a helper while the request has one to spare and the queue has room, otherwise it runs on the calling thread
+     * when the group is joined, so adding a task never waits on the pool. Closing the group drops tasks that haven't
+     * started and waits for running ones, their results may refer to the request's arena.
+     */
+    public final class TaskGroup<T> implements AutoCloseable {
+        private final RequestSlot requestSlot;
+        private final boolean topLevel;
+        private final List<GroupTask> tasks = new ArrayList<>();
+
+        private TaskGroup() {
+            RequestSlot current = currentRequest.get();
+            this.topLevel = current == null;
+            this.requestSlot = topLevel ? enterRequest() : current;
+        }
+
+        /**
+         * Start a task on a helper if one is free
+         *
+         * @param unitMonths - unit months of the task, smaller tasks than a chunk are left for the join
+         * @param task       - calculates the result
+         */
+        public void submit(long unitMonths, Supplier<T> task) {
+            GroupTask groupTask = new GroupTask(task);
+            tasks.add(groupTask);
+            if (unitMonths < executorProperties.getMinUnitMonthsPerTask() || !requestSlot.helperPermits.tryAcquire()) {
+                inlineTasks.increment();
+                return;
+            }
+            try {
+                groupTask.future = threadPoolExecutor.submit(() -> {
+                    if (!groupTask.started.compareAndSet(false, true)) {
+                        // taken back by the caller while queued
+                        return null;
+                    }
+                    currentRequest.set(requestSlot);
+                    try {
+                        return groupTask.task.get();
+                    } finally {
+                        currentRequest.remove();
+                        requestSlot.helperPermits.release();
+                    }
+                });
+                splitTasks.increment();
+            } catch (RejectedExecutionException e) {
+                requestSlot.helperPermits.release();
+                rejectedTasks.increment();
+            }
+        }
+
+        /**
+         * @return - number of tasks added to the group
+         */
+        public int size() {
+            return tasks.size();
+        }
+
+        /**
+         * Wait for every task, running the ones no helper has started on the calling thread
+         *
+         * @return - results in the order the tasks were added
+         */
+        public List<T> join() {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (GroupTask groupTask : tasks) {
+                if (groupTask.takeBack()) {
+                    results.add(groupTask.task.get());
+                } else {
+                    results.add(ForecastExecutor.join(groupTask.future));
+                }
+            }
+            return results;
+        }
+
+        @Override
+        public void close() {
+            try {
+                for (GroupTask groupTask : tasks) {
+                    if (!groupTask.takeBack() && groupTask.future != null) {
+                        try {
+                            groupTask.future.get();
+                        } catch (ExecutionException | CancellationException e) {
+                            // the failure surfaced at join, or the group is closing after another failure
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (topLevel) {
+                    exitRequest();
+                }
+            }
+        }
+
+        /**
+         * A task of a group, started by whichever comes first of a helper and the caller taking it back
+         */
+        private final class GroupTask {
+            private final Supplier<T> task;
+            private final AtomicBoolean started = new AtomicBoolean();
+            private Future<T> future;
+
+            private GroupTask(Supplier<T> task) {
+                this.task = task;
+            }
+
+            /**
+             * @return - true if no helper has started the task, it is the caller's to run or drop
+             */
+            private boolean takeBack() {
+                if (!started.compareAndSet(false, true)) {
+                    return false;
+                }
+                if (future != null) {
+                    threadPoolExecutor.remove((Runnable) future);
+                    requestSlot.helperPermits.release();
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Helper threads a request may still use, the thread that started the request isn't counted
+     */
+    private static final class RequestSlot {
+        private final Semaphore helperPermits;
+
+        private RequestSlot(int maxHelpers) {
+            this.helperPermits = new Semaphore(maxHelpers);
+        }
+    }
+
+    /**
+     * A pool thread helping with a chunked task, started by whichever comes first of the pool and the caller skipping it
+     */
+    private static final class Helper<A> {
+        private final AtomicBoolean started = new AtomicBoolean();
+        private Future<A> future;
+        // only read and written by the caller
+        private boolean skipped;
+    }
+
+    /**
+     * Indexes split into chunks that threads take one at a time
+     */
+    private static final class ChunkedTask<A> {
+        private final int size;
+        private final int chunkSize;
+        private final int chunkCount;
+        private final Supplier<A> supplier;
+        private final ObjIntConsumer<A> accumulator;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+
+        private ChunkedTask(int size, int chunkSize, Supplier<A> supplier, ObjIntConsumer<A> accumulator) {
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.chunkCount = (size + chunkSize - 1) / chunkSize;
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+        }
+
+        /**
+         * @param container - container to accumulate into
+         * @return - false once there are no chunks left
+         */
+        private boolean runNextChunk(A container) {
+            int chunk = nextChunk.getAndIncrement();
+            if (chunk >= chunkCount) {
+                return false;
+            }
+            int end = Math.min(size, (chunk + 1) * chunkSize);
+            for (int index = chunk * chunkSize; index < end; index++) {
+                accumulator.accept(container, index);
+            }
+            return true;
+        }
+
+        /**
+         * Stop handing out chunks, after a failure or once the caller gave up
+         */
+        private void abandon() {
+            nextChunk.set(chunkCount);
+        }
+    }
+
+    private static final class ForecastThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "rent-forecast-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
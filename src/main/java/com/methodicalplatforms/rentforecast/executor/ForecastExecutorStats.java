@@ -0,0 +1,22 @@
+package com.methodicalplatforms.rentforecast.executor;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ForecastExecutorStats {
+    private int poolSize;
+    private int activeThreads;
+    // active threads over pool size
+    private double utilization;
+    private int queueDepth;
+    private int queueCapacity;
+    private int activeRequests;
+    // work split across threads and work small enough to stay on the request thread
+    private long splitTasks;
+    private long inlineTasks;
+    private long completedHelpers;
+    // helpers that didn't fit the queue, their share ran on the request thread
+    private long rejectedHelpers;
+}
@@ -0,0 +1,39 @@
+package com.methodicalplatforms.rentforecast.format;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.RentForecastMonth;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar layout of the month lists for the binary formats. Forecast months of a request and monthly rents of a
+ * response are written as a delta encoded month axis plus one array per value instead of an object per month,
+ * everything else keeps the JSON schema. Register it on an ObjectMapper that should use the columnar layout.
+ */
+public class ColumnarForecastModule extends SimpleModule {
+
+    public ColumnarForecastModule() {
+        super(ColumnarForecastModule.class.getSimpleName());
+        setMixInAnnotation(UnitTypeForecast.class, UnitTypeForecastMixIn.class);
+        setMixInAnnotation(UnitTypeForecastMonthly.class, UnitTypeForecastMonthlyMixIn.class);
+    }
+
+    private abstract static class UnitTypeForecastMixIn {
+        @JsonSerialize(using = ForecastMonthsSerializer.class)
+        @JsonDeserialize(using = ForecastMonthsDeserializer.class)
+        private List<ForecastMonth> forecastMonthData;
+    }
+
+    private abstract static class UnitTypeForecastMonthlyMixIn {
+        @JsonSerialize(using = RentForecastMonthsSerializer.class)
+        private List<RentForecastMonth> unitTypeForecast;
+        @JsonSerialize(contentUsing = RentForecastMonthsSerializer.class)
+        private Map<String, List<RentForecastMonth>> unitForecasts;
+    }
+}
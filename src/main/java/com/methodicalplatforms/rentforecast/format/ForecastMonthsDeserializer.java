@@ -0,0 +1,77 @@
+package com.methodicalplatforms.rentforecast.format;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.methodicalplatforms.rentforecast.format.ForecastMonthsSerializer.ACTUAL_ESCALATION_RATE;
+import static com.methodicalplatforms.rentforecast.format.ForecastMonthsSerializer.MARKET_ESCALATION_RATE;
+
+/**
+ * Reads forecast months written by {@link ForecastMonthsSerializer}. A plain array of forecast months is read as
+ * usual, so clients can send either shape.
+ */
+public class ForecastMonthsDeserializer extends StdDeserializer<List<ForecastMonth>> {
+
+    public ForecastMonthsDeserializer() {
+        super(List.class);
+    }
+
+    @Override
+    public List<ForecastMonth> deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() == JsonToken.START_ARRAY) {
+            JavaType forecastMonthsType = context.getTypeFactory().constructCollectionType(List.class, ForecastMonth.class);
+            return context.readValue(parser, forecastMonthsType);
+        }
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return context.reportInputMismatch(this, "Expected forecast months as an array or columns");
+        }
+
+        int[] monthNumbers = new int[0];
+        List<BigDecimal> marketEscalationRates = List.of();
+        List<BigDecimal> actualEscalationRates = List.of();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case MonthAxis.MONTHS -> monthNumbers = MonthAxis.readMonths(parser, context);
+                case MARKET_ESCALATION_RATE -> marketEscalationRates = readRates(parser, context);
+                case ACTUAL_ESCALATION_RATE -> actualEscalationRates = readRates(parser, context);
+                default -> parser.skipChildren();
+            }
+        }
+        if (marketEscalationRates.size() != monthNumbers.length || actualEscalationRates.size() != monthNumbers.length) {
+            return context.reportInputMismatch(this, "Escalation rate columns must have a rate for each of the %d months", monthNumbers.length);
+        }
+
+        List<ForecastMonth> forecastMonths = new ArrayList<>(monthNumbers.length);
+        for (int i = 0; i < monthNumbers.length; i++) {
+            forecastMonths.add(ForecastMonth.builder()
+                    .year(MonthAxis.year(monthNumbers[i]))
+                    .month(MonthAxis.month(monthNumbers[i]))
+                    .marketEscalationRate(marketEscalationRates.get(i))
+                    .actualEscalationRate(actualEscalationRates.get(i))
+                    .build());
+        }
+        return forecastMonths;
+    }
+
+    private List<BigDecimal> readRates(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return context.reportInputMismatch(this, "Expected an array of escalation rates");
+        }
+        List<BigDecimal> rates = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            rates.add(parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getDecimalValue());
+        }
+        return rates;
+    }
+}
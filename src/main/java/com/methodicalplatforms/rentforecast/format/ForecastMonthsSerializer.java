@@ -0,0 +1,48 @@
+package com.methodicalplatforms.rentforecast.format;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Writes forecast months as columns: the delta encoded month axis and arrays of market and actual escalation rates.
+ * Rates stay decimals, most are zero or have a couple of digits and encode smaller than doubles in binary formats.
+ */
+public class ForecastMonthsSerializer extends StdSerializer<List<ForecastMonth>> {
+    static final String MARKET_ESCALATION_RATE = "marketEscalationRate";
+    static final String ACTUAL_ESCALATION_RATE = "actualEscalationRate";
+
+    @SuppressWarnings("unchecked")
+    public ForecastMonthsSerializer() {
+        super((Class<List<ForecastMonth>>) (Class<?>) List.class);
+    }
+
+    @Override
+    public void serialize(List<ForecastMonth> forecastMonths, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        int size = forecastMonths.size();
+        generator.writeStartObject();
+        MonthAxis.writeMonths(generator, size, i -> MonthAxis.monthNumber(forecastMonths.get(i).getYear(), forecastMonths.get(i).getMonth()));
+        writeRates(generator, MARKET_ESCALATION_RATE, size, i -> forecastMonths.get(i).getMarketEscalationRate());
+        writeRates(generator, ACTUAL_ESCALATION_RATE, size, i -> forecastMonths.get(i).getActualEscalationRate());
+        generator.writeEndObject();
+    }
+
+    private void writeRates(JsonGenerator generator, String fieldName, int size, IntFunction<BigDecimal> rate) throws IOException {
+        generator.writeArrayFieldStart(fieldName);
+        for (int i = 0; i < size; i++) {
+            BigDecimal value = rate.apply(i);
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+        generator.writeEndArray();
+    }
+}
@@ -0,0 +1,75 @@
+package com.methodicalplatforms.rentforecast.format;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Delta encoding of a month axis. Months are numbered year * 12 + month - 1, the first month is written as is and
+ * every following month as the step from the one before, so a consecutive axis is a run of small integers.
+ */
+final class MonthAxis {
+    // Field holding the encoded month axis of a columnar month list
+    static final String MONTHS = "months";
+
+    private MonthAxis() {
+    }
+
+    static int monthNumber(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    static int year(int monthNumber) {
+        return Math.floorDiv(monthNumber, 12);
+    }
+
+    static int month(int monthNumber) {
+        return Math.floorMod(monthNumber, 12) + 1;
+    }
+
+    /**
+     * @param generator   - generator positioned where the field goes
+     * @param size        - number of months
+     * @param monthNumber - month number of each position
+     * @throws IOException - if the months can't be written
+     */
+    static void writeMonths(JsonGenerator generator, int size, IntUnaryOperator monthNumber) throws IOException {
+        int[] deltas = new int[size];
+        int previous = 0;
+        for (int i = 0; i < size; i++) {
+            int current = monthNumber.applyAsInt(i);
+            deltas[i] = current - previous;
+            previous = current;
+        }
+        generator.writeFieldName(MONTHS);
+        generator.writeArray(deltas, 0, size);
+    }
+
+    /**
+     * @param parser  - parser positioned on the start of the months array
+     * @param context - context to report a malformed axis to
+     * @return - month number of each position
+     * @throws IOException - if the months can't be read
+     */
+    static int[] readMonths(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return context.reportInputMismatch(int[].class, "Expected an array of month deltas");
+        }
+        int[] monthNumbers = new int[16];
+        int size = 0;
+        int current = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            current += parser.getIntValue();
+            if (size == monthNumbers.length) {
+                monthNumbers = Arrays.copyOf(monthNumbers, size * 2);
+            }
+            monthNumbers[size++] = current;
+        }
+        return Arrays.copyOf(monthNumbers, size);
+    }
+}
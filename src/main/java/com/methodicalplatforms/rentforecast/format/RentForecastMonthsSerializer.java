@@ -0,0 +1,56 @@
+package com.methodicalplatforms.rentforecast.format;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.methodicalplatforms.rentforecast.kernel.ColumnarRentForecastMonths;
+import com.methodicalplatforms.rentforecast.kernel.ProfileSlice;
+import com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns;
+import com.methodicalplatforms.rentforecast.response.RentForecastMonth;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes monthly rents as columns: the delta encoded month axis and packed arrays of market and actual rents.
+ * Months backed by forecast columns are written straight from the columns without building a RentForecastMonth.
+ */
+public class RentForecastMonthsSerializer extends StdSerializer<List<RentForecastMonth>> {
+    static final String MARKET_RENT = "marketRent";
+    static final String ACTUAL_RENT = "actualRent";
+
+    @SuppressWarnings("unchecked")
+    public RentForecastMonthsSerializer() {
+        super((Class<List<RentForecastMonth>>) (Class<?>) List.class);
+    }
+
+    @Override
+    public void serialize(List<RentForecastMonth> rentForecastMonths, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        int size = rentForecastMonths.size();
+        generator.writeStartObject();
+        if (rentForecastMonths instanceof ColumnarRentForecastMonths columnarMonths) {
+            UnitTypeForecastColumns unitColumns = columnarMonths.getUnitColumns();
+            int[] years = unitColumns.getYears();
+            int[] months = unitColumns.getMonths();
+            MonthAxis.writeMonths(generator, size, i -> MonthAxis.monthNumber(years[i], months[i]));
+            ProfileSlice profileSlice = unitColumns.slice(columnarMonths.getProfileIndex(), true);
+            generator.writeFieldName(MARKET_RENT);
+            generator.writeArray(profileSlice.getMarketRents(), profileSlice.getOffset(), size);
+            generator.writeFieldName(ACTUAL_RENT);
+            generator.writeArray(profileSlice.getActualRents(), profileSlice.getOffset(), size);
+        } else {
+            double[] marketRents = new double[size];
+            double[] actualRents = new double[size];
+            for (int i = 0; i < size; i++) {
+                marketRents[i] = rentForecastMonths.get(i).getMarketRent().doubleValue();
+                actualRents[i] = rentForecastMonths.get(i).getActualRent().doubleValue();
+            }
+            MonthAxis.writeMonths(generator, size, i -> MonthAxis.monthNumber(rentForecastMonths.get(i).getYear(), rentForecastMonths.get(i).getMonth()));
+            generator.writeFieldName(MARKET_RENT);
+            generator.writeArray(marketRents, 0, size);
+            generator.writeFieldName(ACTUAL_RENT);
+            generator.writeArray(actualRents, 0, size);
+        }
+        generator.writeEndObject();
+    }
+}
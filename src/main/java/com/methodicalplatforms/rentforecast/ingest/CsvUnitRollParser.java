@@ -0,0 +1,319 @@
+package com.methodicalplatforms.rentforecast.ingest;
+
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reads a CSV unit roll straight from a byte buffer, usually a memory mapped file. The header names the columns in any
+ * order, columns other than unitId, unitType and the UnitDetails fields are ignored. Numbers and dates are parsed from
+ * the bytes and unit types and statuses come from a cache, so the unit id is the only string made for each row.
+ */
+final class CsvUnitRollParser {
+    // distinct unit types and statuses kept, far more than a roll has
+    private static final int TEXT_CACHE_SIZE = 4096;
+    // digits that always fit in a long
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private enum Column {
+        UNIT_ID, UNIT_TYPE, UNIT_STATUS, STARTING_MARKET_RENT, STARTING_ACTUAL_RENT, START_DATE, CONTRACT_TERM, IGNORED;
+
+        static Column of(String header) {
+            String name = header.replace("_", "").replace(" ", "").toLowerCase(Locale.ROOT);
+            for (Column column : values()) {
+                if (column.name().replace("_", "").toLowerCase(Locale.ROOT).equals(name)) {
+                    return column;
+                }
+            }
+            return IGNORED;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private final TextCache textCache = new TextCache();
+    private int position;
+    private int line;
+    // unquoted bytes of the field last read
+    private byte[] field = new byte[64];
+    private int fieldLength;
+
+    /**
+     * @param buffer - the unit roll from its position to its limit, UTF-8
+     */
+    CsvUnitRollParser(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+        this.position = buffer.position();
+        // byte order mark of spreadsheet exports
+        if (limit - position >= 3 && buffer.get(position) == (byte) 0xEF && buffer.get(position + 1) == (byte) 0xBB && buffer.get(position + 2) == (byte) 0xBF) {
+            position += 3;
+        }
+    }
+
+    /**
+     * @return - the units of the roll
+     * @throws IllegalArgumentException - if the roll has no header with unitId and unitType or a row can't be read
+     */
+    UnitRoll parse() {
+        Column[] columns = readHeader();
+        UnitRoll unitRoll = new UnitRoll();
+        while (position < limit) {
+            line++;
+            if (buffer.get(position) == '\r') {
+                position++;
+            }
+            if (position == limit || buffer.get(position) == '\n') {
+                position++;
+                continue;
+            }
+
+            String unitId = null;
+            String unitType = null;
+            UnitDetails unitDetails = new UnitDetails();
+            boolean moreFields = true;
+            for (int column = 0; moreFields; column++) {
+                moreFields = readField();
+                switch (column < columns.length ? columns[column] : Column.IGNORED) {
+                    case UNIT_ID -> unitId = fieldLength == 0 ? null : new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+                    case UNIT_TYPE -> unitType = textCache.get(field, fieldLength);
+                    case UNIT_STATUS -> unitDetails.setUnitStatus(textCache.get(field, fieldLength));
+                    case STARTING_MARKET_RENT -> unitDetails.setStartingMarketRent(readDecimal());
+                    case STARTING_ACTUAL_RENT -> unitDetails.setStartingActualRent(readDecimal());
+                    case START_DATE -> unitDetails.setStartDate(readDate());
+                    case CONTRACT_TERM -> unitDetails.setContractTerm(readInteger());
+                    default -> {
+                    }
+                }
+            }
+            if (unitId == null || unitType == null) {
+                throw error("unitId and unitType are required");
+            }
+            unitRoll.add(unitType, unitId, unitDetails);
+        }
+        return unitRoll;
+    }
+
+    private Column[] readHeader() {
+        if (position >= limit) {
+            throw new IllegalArgumentException("Unit roll is empty");
+        }
+        line++;
+        Column[] columns = new Column[0];
+        boolean moreFields = true;
+        while (moreFields) {
+            moreFields = readField();
+            columns = Arrays.copyOf(columns, columns.length + 1);
+            columns[columns.length - 1] = Column.of(new String(field, 0, fieldLength, StandardCharsets.UTF_8).trim());
+        }
+        if (!Arrays.asList(columns).contains(Column.UNIT_ID) || !Arrays.asList(columns).contains(Column.UNIT_TYPE)) {
+            throw error("Header needs unitId and unitType columns");
+        }
+        return columns;
+    }
+
+    /**
+     * Read the next field into the field bytes
+     *
+     * @return - true if another field of the same row follows
+     */
+    private boolean readField() {
+        fieldLength = 0;
+        if (position < limit && buffer.get(position) == '"') {
+            position++;
+            while (true) {
+                if (position >= limit) {
+                    throw error("Unterminated quoted field");
+                }
+                byte b = buffer.get(position++);
+                if (b == '"') {
+                    if (position < limit && buffer.get(position) == '"') {
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+                append(b);
+            }
+        }
+        while (position < limit) {
+            byte b = buffer.get(position++);
+            if (b == ',') {
+                return true;
+            }
+            if (b == '\n') {
+                return false;
+            }
+            if (b != '\r') {
+                append(b);
+            }
+        }
+        return false;
+    }
+
+    private void append(byte b) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = b;
+    }
+
+    private BigDecimal readDecimal() {
+        int start = trimStart();
+        int end = trimEnd(start);
+        if (start == end) {
+            return null;
+        }
+        int i = start;
+        boolean negative = field[i] == '-';
+        if (negative || field[i] == '+') {
+            i++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            byte b = field[i];
+            if (b >= '0' && b <= '9') {
+                if (digits == MAX_LONG_DIGITS) {
+                    return parseDecimal(start, end);
+                }
+                unscaled = unscaled * 10 + (b - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                throw error("Not a number: " + new String(field, start, end - start, StandardCharsets.UTF_8));
+            }
+        }
+        if (digits == 0) {
+            throw error("Not a number: " + new String(field, start, end - start, StandardCharsets.UTF_8));
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    private BigDecimal parseDecimal(int start, int end) {
+        try {
+            return new BigDecimal(new String(field, start, end - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw error("Not a number: " + new String(field, start, end - start, StandardCharsets.UTF_8));
+        }
+    }
+
+    private Integer readInteger() {
+        int start = trimStart();
+        int end = trimEnd(start);
+        if (start == end) {
+            return null;
+        }
+        int i = field[start] == '-' || field[start] == '+' ? start + 1 : start;
+        if (i == end || end - i > 9) {
+            throw error("Not an integer: " + new String(field, start, end - start, StandardCharsets.UTF_8));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            if (field[i] < '0' || field[i] > '9') {
+                throw error("Not an integer: " + new String(field, start, end - start, StandardCharsets.UTF_8));
+            }
+            value = value * 10 + (field[i] - '0');
+        }
+        return field[start] == '-' ? -value : value;
+    }
+
+    /**
+     * @return - date written MM/dd/yyyy, like dates in JSON requests
+     */
+    private LocalDate readDate() {
+        int start = trimStart();
+        int end = trimEnd(start);
+        if (start == end) {
+            return null;
+        }
+        int[] parts = new int[3];
+        int part = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            byte b = field[i];
+            if (b >= '0' && b <= '9' && digits < 4) {
+                parts[part] = parts[part] * 10 + (b - '0');
+                digits++;
+            } else if (b == '/' && part < 2 && digits > 0) {
+                part++;
+                digits = 0;
+            } else {
+                throw error("Not a MM/dd/yyyy date: " + new String(field, start, end - start, StandardCharsets.UTF_8));
+            }
+        }
+        try {
+            if (part != 2 || digits != 4) {
+                throw new DateTimeException("incomplete date");
+            }
+            return LocalDate.of(parts[2], parts[0], parts[1]);
+        } catch (DateTimeException e) {
+            throw error("Not a MM/dd/yyyy date: " + new String(field, start, end - start, StandardCharsets.UTF_8));
+        }
+    }
+
+    private int trimStart() {
+        int start = 0;
+        while (start < fieldLength && field[start] == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(int start) {
+        int end = fieldLength;
+        while (end > start && field[end - 1] == ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Unit roll line " + line + ": " + message);
+    }
+
+    /**
+     * Strings of repeated fields by their bytes, empty fields are null
+     */
+    private static final class TextCache {
+        private final byte[][] keys = new byte[TEXT_CACHE_SIZE][];
+        private final String[] values = new String[TEXT_CACHE_SIZE];
+        private int size;
+
+        String get(byte[] bytes, int length) {
+            if (length == 0) {
+                return null;
+            }
+            int hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            int slot = hash & (TEXT_CACHE_SIZE - 1);
+            while (keys[slot] != null) {
+                if (Arrays.equals(keys[slot], 0, keys[slot].length, bytes, 0, length)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & (TEXT_CACHE_SIZE - 1);
+            }
+            String value = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            // half full at most, so probing stays short, later texts are just not cached
+            if (size < TEXT_CACHE_SIZE / 2) {
+                keys[slot] = Arrays.copyOf(bytes, length);
+                values[slot] = value;
+                size++;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.methodicalplatforms.rentforecast.ingest;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads a unit roll of one JSON object per line: unitId, unitType and the UnitDetails fields, token by token
+ */
+final class NdjsonUnitRollParser {
+    // same format as UnitDetails.startDate
+    private static final DateTimeFormatter START_DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    private final JsonParser parser;
+    // unit types and statuses, one instance of each for the whole roll
+    private final Map<String, String> texts = new HashMap<>();
+
+    /**
+     * @param parser - parser over the unit roll, closed by the caller
+     */
+    NdjsonUnitRollParser(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * @return - the units of the roll
+     * @throws IOException              - if the roll isn't a sequence of JSON objects
+     * @throws IllegalArgumentException - if a unit has no unitId or unitType or a bad start date
+     */
+    UnitRoll parse() throws IOException {
+        UnitRoll unitRoll = new UnitRoll();
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a unit object on each line but found " + token);
+            }
+            String unitId = null;
+            String unitType = null;
+            UnitDetails unitDetails = new UnitDetails();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (fieldName) {
+                    case "unitId" -> unitId = parser.getText();
+                    case "unitType" -> unitType = text();
+                    case "unitStatus" -> unitDetails.setUnitStatus(text());
+                    case "startingMarketRent" -> unitDetails.setStartingMarketRent(parser.getDecimalValue());
+                    case "startingActualRent" -> unitDetails.setStartingActualRent(parser.getDecimalValue());
+                    case "startDate" -> unitDetails.setStartDate(startDate());
+                    case "contractTerm" -> unitDetails.setContractTerm(parser.getIntValue());
+                    default -> parser.skipChildren();
+                }
+            }
+            if (unitId == null || unitType == null) {
+                throw new IllegalArgumentException("Unit roll line " + parser.currentLocation().getLineNr() + ": unitId and unitType are required");
+            }
+            unitRoll.add(unitType, unitId, unitDetails);
+        }
+        return unitRoll;
+    }
+
+    private String text() throws IOException {
+        return texts.computeIfAbsent(parser.getText(), text -> text);
+    }
+
+    private LocalDate startDate() throws IOException {
+        try {
+            return LocalDate.parse(parser.getText(), START_DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Unit roll line " + parser.currentLocation().getLineNr() + ": not a MM/dd/yyyy date " + parser.getText());
+        }
+    }
+}
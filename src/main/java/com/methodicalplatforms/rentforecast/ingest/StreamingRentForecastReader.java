@@ -0,0 +1,240 @@
+package com.methodicalplatforms.rentforecast.ingest;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.admission.ForecastPermit;
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.arena.ForecastArena;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.ForecastOptions;
+import com.methodicalplatforms.rentforecast.request.ForecastWindow;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.RentResponse;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reads a RentForecastRequest token by token and hands each unit type to the forecast executor as soon as it has been
+ * read, instead of binding the whole request before any work starts. Unit types are forecast on helpers while the
+ * rest of the body is read, the ones no helper took are forecast once reading is done. Units with identical details share one UnitDetails, so the
+ * request side of memory follows the distinct units of a portfolio rather than the size of the upload.
+ * <p>
+ * Unit types are forecast as they are read once closingDate has been read, so it should come before
+ * unitTypeForecastList. Unit types read before it wait for it.
+ */
+@Service
+public class StreamingRentForecastReader {
+
+    // Field names of RentForecastRequest and UnitTypeForecast
+    private static final String CLOSING_DATE = "closingDate";
+    private static final String OPTIONS = "options";
+    private static final String UNIT_TYPE_FORECAST_LIST = "unitTypeForecastList";
+    private static final String UNIT_TYPE = "unitType";
+    private static final String FORECAST_MONTH_DATA = "forecastMonthData";
+    private static final String EXCESS_RENT_ADJUSTMENT_RATE = "excessRentAdjustmentRate";
+    private static final String UNIT_DETAILS = "unitDetails";
+    // same format as RentForecastRequest.closingDate
+    private static final DateTimeFormatter CLOSING_DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    private final RentForecastService rentForecastService;
+    private final ForecastAdmission forecastAdmission;
+    private final ForecastExecutor forecastExecutor;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public StreamingRentForecastReader(RentForecastService rentForecastService, ForecastAdmission forecastAdmission, ForecastExecutor forecastExecutor,
+                                       ObjectMapper objectMapper) {
+        this.rentForecastService = rentForecastService;
+        this.forecastAdmission = forecastAdmission;
+        this.forecastExecutor = forecastExecutor;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Forecast the rents of a JSON request while it is being read, the budget is given back once the response is built
+     *
+     * @param inputStream - the JSON request body
+     * @return - forecast response, the same as for the bound request
+     * @throws IOException              - if the request can't be read or isn't valid JSON
+     * @throws IllegalArgumentException - if a unit type is listed twice or a forecast window comes after forecast unit types
+     */
+    public RentResponse forecastRents(InputStream inputStream) throws IOException {
+        List<ForecastPermit> forecastPermits = new ArrayList<>();
+        try {
+            return forecastRents(inputStream, forecastPermits::add);
+        } finally {
+            forecastPermits.forEach(ForecastPermit::close);
+        }
+    }
+
+    /**
+     * Forecast the rents of a JSON request while it is being read. Each unit type is admitted as it is read, its
+     * permit covers the forecast held in the response and is handed to the caller to close once that is written.
+     *
+     * @param inputStream     - the JSON request body
+     * @param forecastPermits - receives the permit of every unit type, including unit types of a request that failed
+     * @return - forecast response, the same as for the bound request
+     * @throws IOException               - if the request can't be read or isn't valid JSON
+     * @throws IllegalArgumentException  - if a unit type is listed twice or a forecast window comes after forecast unit types
+     * @throws ForecastRejectedException - 413 once the unit types read are over the request limit, 429 if the budget stayed full
+     */
+    public RentResponse forecastRents(InputStream inputStream, Consumer<ForecastPermit> forecastPermits) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream);
+             ForecastExecutor.TaskGroup<Map.Entry<String, UnitTypeForecastMonthly>> unitTypeTasks = forecastExecutor.taskGroup()) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            LocalDate closingDate = null;
+            boolean closingDateRead = false;
+            ForecastOptions options = null;
+            List<UnitTypeForecast> unitTypeForecastList = new ArrayList<>();
+            Set<String> unitTypes = new HashSet<>();
+            // unit types read before the closing date wait for it
+            List<UnitTypeForecast> pendingUnitTypes = new ArrayList<>();
+            // estimated cost of the unit types admitted so far, the request limit applies to all of them together
+            long requestCost = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (fieldName) {
+                    case CLOSING_DATE -> {
+                        closingDate = value == JsonToken.VALUE_NULL ? null : LocalDate.parse(parser.getText(), CLOSING_DATE_FORMAT);
+                        closingDateRead = true;
+                        for (UnitTypeForecast unitTypeForecast : pendingUnitTypes) {
+                            requestCost = submitUnitType(unitTypeTasks, unitTypeForecast, closingDate, options, requestCost, forecastPermits);
+                        }
+                        pendingUnitTypes.clear();
+                    }
+                    case OPTIONS -> {
+                        options = objectMapper.readValue(parser, ForecastOptions.class);
+                        if (options != null && options.getWindow() != null && unitTypeTasks.size() > 0) {
+                            throw new IllegalArgumentException("A forecast window must come before the unit types it applies to");
+                        }
+                    }
+                    case UNIT_TYPE_FORECAST_LIST -> {
+                        expect(parser, value, JsonToken.START_ARRAY);
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            UnitTypeForecast unitTypeForecast = readUnitType(parser);
+                            if (!unitTypes.add(unitTypeForecast.getUnitType())) {
+                                throw new IllegalArgumentException("Duplicate unit type " + unitTypeForecast.getUnitType());
+                            }
+                            unitTypeForecastList.add(unitTypeForecast);
+                            if (closingDateRead) {
+                                requestCost = submitUnitType(unitTypeTasks, unitTypeForecast, closingDate, options, requestCost, forecastPermits);
+                            } else {
+                                pendingUnitTypes.add(unitTypeForecast);
+                            }
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            for (UnitTypeForecast unitTypeForecast : pendingUnitTypes) {
+                requestCost = submitUnitType(unitTypeTasks, unitTypeForecast, closingDate, options, requestCost, forecastPermits);
+            }
+            Map<String, UnitTypeForecastMonthly> rentByMonths = new HashMap<>();
+            unitTypeTasks.join().forEach(unitTypeForecastMonthly -> rentByMonths.put(unitTypeForecastMonthly.getKey(), unitTypeForecastMonthly.getValue()));
+            return rentForecastService.summarizeRents(rentByMonths, unitTypeForecastList, closingDate, options);
+        }
+    }
+
+    /**
+     * @param requestCost - estimated cost of the unit types admitted before this one
+     * @return - estimated cost of the request including this unit type
+     */
+    private long submitUnitType(ForecastExecutor.TaskGroup<Map.Entry<String, UnitTypeForecastMonthly>> unitTypeTasks, UnitTypeForecast unitTypeForecast,
+                                LocalDate closingDate, ForecastOptions options, long requestCost, Consumer<ForecastPermit> forecastPermits) {
+        long unitMonths = RentForecastService.unitMonths(List.of(unitTypeForecast));
+        long estimatedCost = ForecastAdmission.estimateCost(unitMonths, options);
+        // admitted before any of its work starts, the permit is held for as long as its forecast is
+        forecastPermits.accept(forecastAdmission.admit(estimatedCost, requestCost + estimatedCost));
+        ForecastWindow window = options == null ? null : options.getWindow();
+        // options read after this unit type can only leave views out, so it's never missing a unit forecast a view needs
+        boolean unitForecasts = RentForecastService.includesUnitForecasts(options);
+        // the summary is written on the request thread, so the unit forecasts can use the request's arena
+        ForecastArena arena = ForecastArena.current();
+        unitTypeTasks.submit(unitMonths, () -> Map.entry(unitTypeForecast.getUnitType(),
+                rentForecastService.forecastUnitType(unitTypeForecast, closingDate, window, unitForecasts, arena)));
+        return requestCost + estimatedCost;
+    }
+
+    private UnitTypeForecast readUnitType(JsonParser parser) throws IOException {
+        UnitTypeForecast.UnitTypeForecastBuilder unitTypeForecast = UnitTypeForecast.builder();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (fieldName) {
+                case UNIT_TYPE -> unitTypeForecast.unitType(value == JsonToken.VALUE_NULL ? null : parser.getText());
+                case EXCESS_RENT_ADJUSTMENT_RATE -> unitTypeForecast.excessRentAdjustmentRate(readDecimal(parser, value));
+                case FORECAST_MONTH_DATA -> unitTypeForecast.forecastMonthData(readForecastMonths(parser, value));
+                case UNIT_DETAILS -> unitTypeForecast.unitDetails(readUnitDetails(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+        return unitTypeForecast.build();
+    }
+
+    private List<ForecastMonth> readForecastMonths(JsonParser parser, JsonToken value) throws IOException {
+        expect(parser, value, JsonToken.START_ARRAY);
+        List<ForecastMonth> forecastMonths = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            ForecastMonth.ForecastMonthBuilder forecastMonth = ForecastMonth.builder();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken monthValue = parser.nextToken();
+                switch (fieldName) {
+                    case "month" -> forecastMonth.month(parser.getIntValue());
+                    case "year" -> forecastMonth.year(parser.getIntValue());
+                    case "marketEscalationRate" -> forecastMonth.marketEscalationRate(readDecimal(parser, monthValue));
+                    case "actualEscalationRate" -> forecastMonth.actualEscalationRate(readDecimal(parser, monthValue));
+                    default -> parser.skipChildren();
+                }
+            }
+            forecastMonths.add(forecastMonth.build());
+        }
+        return forecastMonths;
+    }
+
+    private Map<String, UnitDetails> readUnitDetails(JsonParser parser, JsonToken value) throws IOException {
+        expect(parser, value, JsonToken.START_OBJECT);
+        Map<String, UnitDetails> unitDetails = new LinkedHashMap<>();
+        // units with the same details share an instance, most of a large portfolio is a handful of profiles
+        Map<UnitDetails, UnitDetails> distinctUnitDetails = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String unitId = parser.currentName();
+            parser.nextToken();
+            UnitDetails details = objectMapper.readValue(parser, UnitDetails.class);
+            unitDetails.put(unitId, distinctUnitDetails.computeIfAbsent(details, distinct -> distinct));
+        }
+        return unitDetails;
+    }
+
+    private static BigDecimal readDecimal(JsonParser parser, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_NULL ? null : parser.getDecimalValue();
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
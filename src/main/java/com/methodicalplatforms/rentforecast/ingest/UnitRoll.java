@@ -0,0 +1,33 @@
+package com.methodicalplatforms.rentforecast.ingest;
+
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Units of a unit roll grouped by unit type, in the order the unit types first appear. Units with identical details
+ * share one UnitDetails.
+ */
+final class UnitRoll {
+    private final Map<String, Map<String, UnitDetails>> unitDetailsByUnitType = new LinkedHashMap<>();
+    private final Map<UnitDetails, UnitDetails> distinctUnitDetails = new HashMap<>();
+
+    /**
+     * @param unitType    - unit type of the unit
+     * @param unitId      - id of the unit, unique within its unit type
+     * @param unitDetails - details of the unit, not to be modified afterwards
+     * @throws IllegalArgumentException - if the unit is already in the roll
+     */
+    void add(String unitType, String unitId, UnitDetails unitDetails) {
+        Map<String, UnitDetails> units = unitDetailsByUnitType.computeIfAbsent(unitType, type -> new LinkedHashMap<>());
+        if (units.putIfAbsent(unitId, distinctUnitDetails.computeIfAbsent(unitDetails, distinct -> distinct)) != null) {
+            throw new IllegalArgumentException("Duplicate unit " + unitId + " in unit type " + unitType);
+        }
+    }
+
+    Map<String, Map<String, UnitDetails>> getUnitDetailsByUnitType() {
+        return unitDetailsByUnitType;
+    }
+}
@@ -0,0 +1,77 @@
+package com.methodicalplatforms.rentforecast.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.admission.ForecastPermit;
+import com.methodicalplatforms.rentforecast.request.UnitRollRequest;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Forecasts a local unit roll file when the application is started with --unit-roll, for example
+ * <pre>
+ * java -jar api.jar --spring.main.web-application-type=none \
+ *     --unit-roll=units.csv --curves=curves.json --output=forecast.csv
+ * </pre>
+ * curves is a UnitRollRequest as JSON. The output format follows the output file's extension, NDJSON to standard out
+ * without one. Rolls aren't limited to the size of a request, the command waits for the forecast budget like a job.
+ */
+@Component
+public class UnitRollCommand implements ApplicationRunner {
+
+    private final UnitRollService unitRollService;
+    private final ForecastAdmission forecastAdmission;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public UnitRollCommand(UnitRollService unitRollService, ForecastAdmission forecastAdmission, ObjectMapper objectMapper) {
+        this.unitRollService = unitRollService;
+        this.forecastAdmission = forecastAdmission;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException, InterruptedException {
+        if (!args.containsOption("unit-roll")) {
+            return;
+        }
+        Path unitRollPath = Path.of(option(args, "unit-roll"));
+        UnitRollRequest unitRollRequest = objectMapper.readValue(Path.of(option(args, "curves")).toFile(), UnitRollRequest.class);
+        List<UnitTypeForecast> unitTypeForecastList = unitRollService.readUnitRoll(unitRollRequest, unitRollPath,
+                UnitRollFormat.of(null, unitRollPath.getFileName().toString()));
+
+        // admitted before the output is opened, a roll waiting for the budget leaves no partial file behind
+        try (ForecastPermit ignored = forecastAdmission.admitJob(UnitRollService.estimateCost(unitTypeForecastList))) {
+            if (!args.containsOption("output")) {
+                unitRollService.writeForecasts(unitTypeForecastList, unitRollRequest.getClosingDate(), System.out, UnitRollFormat.NDJSON);
+                return;
+            }
+            writeForecasts(unitTypeForecastList, unitRollRequest, Path.of(option(args, "output")));
+        }
+    }
+
+    private void writeForecasts(List<UnitTypeForecast> unitTypeForecastList, UnitRollRequest unitRollRequest, Path outputPath) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(outputPath))) {
+            unitRollService.writeForecasts(unitTypeForecastList, unitRollRequest.getClosingDate(), outputStream,
+                    UnitRollFormat.of(null, outputPath.getFileName().toString()));
+        }
+    }
+
+    private static String option(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        if (values == null || values.size() != 1) {
+            throw new IllegalArgumentException("--" + name + "=<file> is required");
+        }
+        return values.get(0);
+    }
+}
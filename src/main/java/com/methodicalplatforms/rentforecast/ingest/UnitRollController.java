@@ -0,0 +1,76 @@
+package com.methodicalplatforms.rentforecast.ingest;
+
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.admission.ForecastPermit;
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.request.UnitRollRequest;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+@RestController
+@RequestMapping("/rent-forecast/unit-roll")
+public class UnitRollController {
+
+    private final UnitRollService unitRollService;
+    private final ForecastAdmission forecastAdmission;
+
+    @Autowired
+    public UnitRollController(UnitRollService unitRollService, ForecastAdmission forecastAdmission) {
+        this.unitRollService = unitRollService;
+        this.forecastAdmission = forecastAdmission;
+    }
+
+    /**
+     * Forecast a unit roll uploaded as the units part, CSV or NDJSON by its content type or file name, with the closing
+     * date and escalation curves of the curves part. The forecast of each unit is streamed back as NDJSON, or CSV with
+     * output=CSV. 400 if the roll can't be read. The whole roll is admitted before the response starts, 413 if it is
+     * over the request limit and should be forecast with the unit roll command, 429 if the forecast budget is in use.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> forecastUnitRoll(@RequestPart("curves") UnitRollRequest unitRollRequest,
+                                                                  @RequestPart("units") MultipartFile units,
+                                                                  @RequestParam(name = "output", defaultValue = "NDJSON") UnitRollFormat output) {
+        List<UnitTypeForecast> unitTypeForecastList;
+        try {
+            UnitRollFormat format = UnitRollFormat.of(units.getContentType(), units.getOriginalFilename());
+            // the upload is mapped from a file like a roll read from disk
+            Path unitRollPath = Files.createTempFile("unit-roll-", format.getExtension());
+            try {
+                units.transferTo(unitRollPath);
+                unitTypeForecastList = unitRollService.readUnitRoll(unitRollRequest, unitRollPath, format);
+            } finally {
+                Files.deleteIfExists(unitRollPath);
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ForecastPermit forecastPermit;
+        try {
+            forecastPermit = forecastAdmission.admit(UnitRollService.estimateCost(unitTypeForecastList));
+        } catch (ForecastRejectedException e) {
+            return e.toResponse();
+        }
+        // the permit is held until the response is written
+        return ResponseEntity.ok()
+                .contentType(output.getMediaType())
+                .body(outputStream -> {
+                    try (forecastPermit) {
+                        unitRollService.writeForecasts(unitTypeForecastList, unitRollRequest.getClosingDate(), outputStream, output);
+                    }
+                });
+    }
+}
@@ -0,0 +1,49 @@
+package com.methodicalplatforms.rentforecast.ingest;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Formats a unit roll is read from and its forecast is written in
+ */
+public enum UnitRollFormat {
+    CSV("text/csv", ".csv"),
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE, ".ndjson");
+
+    private final String mediaType;
+    private final String extension;
+
+    UnitRollFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return MediaType.parseMediaType(mediaType);
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param contentType - content type of the unit roll, may be null
+     * @param fileName    - file name of the unit roll, may be null
+     * @return - format by content type, then by file extension
+     * @throws IllegalArgumentException - if neither names a known format
+     */
+    public static UnitRollFormat of(String contentType, String fileName) {
+        for (UnitRollFormat format : values()) {
+            if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(format.mediaType)) {
+                return format;
+            }
+        }
+        for (UnitRollFormat format : values()) {
+            if (fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(format.extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unit roll has to be CSV or NDJSON, was " + contentType + " " + fileName);
+    }
+}
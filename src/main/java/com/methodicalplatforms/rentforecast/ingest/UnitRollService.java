@@ -0,0 +1,219 @@
+package com.methodicalplatforms.rentforecast.ingest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitRollRequest;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.RentForecastMonth;
+import com.methodicalplatforms.rentforecast.response.UnitRollForecastLine;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Forecasts unit rolls: flat CSV or NDJSON files of units with their unit type, forecast with escalation curves given
+ * separately. Rolls are read from memory mapped files and the forecast of every unit is written as CSV or NDJSON while
+ * the unit types are still being forecast.
+ */
+@Service
+public class UnitRollService {
+
+    // Header of a forecast written as CSV, a row per unit month, unit type totals have no unit id
+    private static final String CSV_HEADER = "unitType,unitId,year,month,marketRent,actualRent\n";
+
+    private final RentForecastService rentForecastService;
+    private final ForecastExecutor forecastExecutor;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public UnitRollService(RentForecastService rentForecastService, ForecastExecutor forecastExecutor, ObjectMapper objectMapper) {
+        this.rentForecastService = rentForecastService;
+        this.forecastExecutor = forecastExecutor;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Read a unit roll and pair each of its unit types with its escalation curves
+     *
+     * @param unitRollRequest - closing date and escalation curves
+     * @param unitRollPath    - file holding the unit roll
+     * @param format          - format of the unit roll
+     * @return - unit types to forecast, in the order they first appear in the roll
+     * @throws IOException              - if the roll can't be read or isn't valid NDJSON
+     * @throws IllegalArgumentException - if a row can't be read or a unit type has no forecast months
+     */
+    public List<UnitTypeForecast> readUnitRoll(UnitRollRequest unitRollRequest, Path unitRollPath, UnitRollFormat format) throws IOException {
+        UnitRoll unitRoll;
+        try (FileChannel channel = FileChannel.open(unitRollPath, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Unit rolls over 2GB have to be split");
+            }
+            // the mapping stays valid after the channel is closed and is released with the buffer
+            ByteBuffer unitRollBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (format == UnitRollFormat.CSV) {
+                unitRoll = new CsvUnitRollParser(unitRollBuffer).parse();
+            } else {
+                try (JsonParser parser = objectMapper.getFactory().createParser(new ByteBufferBackedInputStream(unitRollBuffer))) {
+                    unitRoll = new NdjsonUnitRollParser(parser).parse();
+                }
+            }
+        }
+        return unitTypeForecasts(unitRollRequest, unitRoll);
+    }
+
+    private static List<UnitTypeForecast> unitTypeForecasts(UnitRollRequest unitRollRequest, UnitRoll unitRoll) {
+        Map<String, UnitTypeForecast> curvesByUnitType = new HashMap<>();
+        if (unitRollRequest.getUnitTypeForecastList() != null) {
+            unitRollRequest.getUnitTypeForecastList().forEach(curves -> curvesByUnitType.put(curves.getUnitType(), curves));
+        }
+
+        List<UnitTypeForecast> unitTypeForecastList = new ArrayList<>();
+        for (Map.Entry<String, Map<String, UnitDetails>> unitType : unitRoll.getUnitDetailsByUnitType().entrySet()) {
+            UnitTypeForecast curves = curvesByUnitType.get(unitType.getKey());
+            List<ForecastMonth> forecastMonthData = curves != null && curves.getForecastMonthData() != null
+                    ? curves.getForecastMonthData() : unitRollRequest.getForecastMonthData();
+            if (forecastMonthData == null) {
+                throw new IllegalArgumentException("No forecast months for unit type " + unitType.getKey());
+            }
+            BigDecimal excessRentAdjustmentRate = curves != null && curves.getExcessRentAdjustmentRate() != null
+                    ? curves.getExcessRentAdjustmentRate() : unitRollRequest.getExcessRentAdjustmentRate();
+            unitTypeForecastList.add(UnitTypeForecast.builder()
+                    .unitType(unitType.getKey())
+                    .forecastMonthData(forecastMonthData)
+                    .excessRentAdjustmentRate(excessRentAdjustmentRate)
+                    .unitDetails(unitType.getValue())
+                    .build());
+        }
+        return unitTypeForecastList;
+    }
+
+    /**
+     * Estimate the cost of forecasting a unit roll, to admit it before anything is written
+     *
+     * @param unitTypeForecastList - unit types read from a unit roll
+     * @return - estimated cost in unit months per view, every unit is forecast by month
+     */
+    public static long estimateCost(List<UnitTypeForecast> unitTypeForecastList) {
+        return ForecastAdmission.estimateCost(RentForecastService.unitMonths(unitTypeForecastList), null);
+    }
+
+    /**
+     * Forecast the unit types of a unit roll and write the monthly forecast of each unit and unit type total as the
+     * unit types complete. The roll is admitted by the caller, before the forecast starts being written.
+     *
+     * @param unitTypeForecastList - unit types read from a unit roll
+     * @param closingDate          - the closing date for the property
+     * @param outputStream         - stream the forecast is written to, left open
+     * @param format               - format to write the forecast in
+     * @throws IOException - if the forecast can't be written or is interrupted
+     */
+    public void writeForecasts(List<UnitTypeForecast> unitTypeForecastList, LocalDate closingDate, OutputStream outputStream,
+                               UnitRollFormat format) throws IOException {
+        if (format == UnitRollFormat.CSV) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            writer.write(CSV_HEADER);
+            forEachCompletedUnitType(unitTypeForecastList, closingDate, (unitType, unitTypeForecastMonthly) -> {
+                writeCsvRows(writer, unitType, null, unitTypeForecastMonthly.getUnitTypeForecast());
+                for (Map.Entry<String, List<RentForecastMonth>> unitForecast : unitTypeForecastMonthly.getUnitForecasts().entrySet()) {
+                    writeCsvRows(writer, unitType, unitForecast.getKey(), unitForecast.getValue());
+                }
+                writer.flush();
+            });
+            writer.flush();
+            return;
+        }
+
+        try (SequenceWriter sequenceWriter = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(outputStream)) {
+            forEachCompletedUnitType(unitTypeForecastList, closingDate, (unitType, unitTypeForecastMonthly) -> {
+                sequenceWriter.write(new UnitRollForecastLine(unitType, null, unitTypeForecastMonthly.getUnitTypeForecast()));
+                for (Map.Entry<String, List<RentForecastMonth>> unitForecast : unitTypeForecastMonthly.getUnitForecasts().entrySet()) {
+                    sequenceWriter.write(new UnitRollForecastLine(unitType, unitForecast.getKey(), unitForecast.getValue()));
+                }
+                sequenceWriter.flush();
+            });
+        }
+        if (!unitTypeForecastList.isEmpty()) {
+            outputStream.write('\n');
+        }
+        outputStream.flush();
+    }
+
+    private static void writeCsvRows(Writer writer, String unitType, String unitId, List<RentForecastMonth> rentForecastMonths) throws IOException {
+        String unitColumns = csvText(unitType) + ',' + (unitId == null ? "" : csvText(unitId)) + ',';
+        for (RentForecastMonth rentForecastMonth : rentForecastMonths) {
+            writer.write(unitColumns);
+            writer.write(Integer.toString(rentForecastMonth.getYear()));
+            writer.write(',');
+            writer.write(Integer.toString(rentForecastMonth.getMonth()));
+            writer.write(',');
+            writer.write(rentForecastMonth.getMarketRent().toPlainString());
+            writer.write(',');
+            writer.write(rentForecastMonth.getActualRent().toPlainString());
+            writer.write('\n');
+        }
+    }
+
+    private static String csvText(String text) {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private void forEachCompletedUnitType(List<UnitTypeForecast> unitTypeForecastList, LocalDate closingDate,
+                                          UnitTypeWriter unitTypeWriter) throws IOException {
+        try {
+            forecastExecutor.forEachCompleted(unitTypeForecastList.size(), RentForecastService.unitMonths(unitTypeForecastList),
+                    unitTypeIndex -> {
+                        UnitTypeForecast unitTypeForecast = unitTypeForecastList.get(unitTypeIndex);
+                        return Map.entry(unitTypeForecast.getUnitType(), rentForecastService.forecastUnitType(unitTypeForecast, closingDate));
+                    },
+                    unitTypeForecast -> {
+                        try {
+                            unitTypeWriter.write(unitTypeForecast.getKey(), unitTypeForecast.getValue());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while forecasting rents");
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface UnitTypeWriter {
+        void write(String unitType, UnitTypeForecastMonthly unitTypeForecastMonthly) throws IOException;
+    }
+}
@@ -0,0 +1,116 @@
+package com.methodicalplatforms.rentforecast.job;
+
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.response.ForecastJobResponse;
+import com.methodicalplatforms.rentforecast.response.RentResponse;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A forecast request running in the background. The request is released once the job starts running,
+ * the result is kept until the job is dropped.
+ */
+class ForecastJob {
+    @Getter
+    private final String jobId;
+    private final Instant submittedAt = Instant.now();
+    private final long unitMonths;
+    private final AtomicLong completedUnitMonths = new AtomicLong();
+    private RentForecastRequest rentForecastRequest;
+    private Future<?> future;
+    private ForecastJobStatus status = ForecastJobStatus.QUEUED;
+    private Instant completedAt;
+    @Getter
+    private volatile long completedNanos;
+    private RentResponse forecast;
+    private String error;
+
+    ForecastJob(String jobId, RentForecastRequest rentForecastRequest) {
+        this.jobId = jobId;
+        this.rentForecastRequest = rentForecastRequest;
+        this.unitMonths = RentForecastService.unitMonths(rentForecastRequest.getUnitTypeForecastList());
+    }
+
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Move a queued job to running
+     *
+     * @return - the request to forecast, null if the job was cancelled while queued
+     */
+    synchronized RentForecastRequest start() {
+        if (status != ForecastJobStatus.QUEUED) {
+            return null;
+        }
+        status = ForecastJobStatus.RUNNING;
+        RentForecastRequest request = rentForecastRequest;
+        rentForecastRequest = null;
+        return request;
+    }
+
+    void addCompletedUnitMonths(long unitMonths) {
+        completedUnitMonths.addAndGet(unitMonths);
+    }
+
+    synchronized void succeed(RentResponse forecast) {
+        if (status == ForecastJobStatus.RUNNING) {
+            this.forecast = forecast;
+            complete(ForecastJobStatus.SUCCEEDED);
+        }
+    }
+
+    synchronized void fail(String error) {
+        if (status == ForecastJobStatus.RUNNING) {
+            this.error = error;
+            complete(ForecastJobStatus.FAILED);
+        }
+    }
+
+    /**
+     * Stop the job, interrupting it if it is running
+     */
+    synchronized void cancel() {
+        if (!isDone()) {
+            rentForecastRequest = null;
+            complete(ForecastJobStatus.CANCELLED);
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    synchronized boolean isDone() {
+        return status != ForecastJobStatus.QUEUED && status != ForecastJobStatus.RUNNING;
+    }
+
+    synchronized ForecastJobResponse toResponse() {
+        return ForecastJobResponse.builder()
+                .jobId(jobId)
+                .status(status)
+                .progress(progress())
+                .submittedAt(submittedAt)
+                .completedAt(completedAt)
+                .forecast(forecast)
+                .error(error)
+                .build();
+    }
+
+    private double progress() {
+        if (status == ForecastJobStatus.SUCCEEDED) {
+            return 1;
+        }
+        return unitMonths == 0 ? 0 : Math.min(1, (double) completedUnitMonths.get() / unitMonths);
+    }
+
+    private void complete(ForecastJobStatus status) {
+        this.status = status;
+        this.completedAt = Instant.now();
+        this.completedNanos = System.nanoTime();
+    }
+}
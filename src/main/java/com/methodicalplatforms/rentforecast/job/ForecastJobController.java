@@ -0,0 +1,60 @@
+package com.methodicalplatforms.rentforecast.job;
+
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.response.ForecastJobResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/rent-forecast/jobs")
+public class ForecastJobController {
+
+    private final ForecastJobService forecastJobService;
+
+    @Autowired
+    public ForecastJobController(ForecastJobService forecastJobService) {
+        this.forecastJobService = forecastJobService;
+    }
+
+    /**
+     * Same forecast as POST /rent-forecast, run in the background, poll the job for its progress and result
+     */
+    @PostMapping
+    public ResponseEntity<ForecastJobResponse> submitJob(@RequestBody RentForecastRequest rentForecastRequest) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(forecastJobService.submitJob(rentForecastRequest));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        } catch (ForecastRejectedException e) {
+            return e.toResponse();
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ForecastJobResponse> getJob(@PathVariable String jobId) {
+        return forecastJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Cancel a job that hasn't finished, or drop a finished one
+     */
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Void> deleteJob(@PathVariable String jobId) {
+        return forecastJobService.deleteJob(jobId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
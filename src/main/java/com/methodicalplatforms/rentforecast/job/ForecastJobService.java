@@ -0,0 +1,174 @@
+package com.methodicalplatforms.rentforecast.job;
+
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.admission.ForecastPermit;
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.config.RentForecastJobProperties;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.request.ForecastWindow;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.ForecastJobResponse;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Forecasts submitted as background jobs, so long forecasts don't hold a request thread or run into HTTP timeouts.
+ * Jobs wait in a bounded queue for one of a few job threads, each running job splits its work on the forecast
+ * executor like any other request. Finished jobs are kept for a while for their results to be picked up.
+ */
+@Slf4j
+@Service
+public class ForecastJobService {
+
+    private final RentForecastService rentForecastService;
+    private final ForecastExecutor forecastExecutor;
+    private final RentForecastJobProperties jobProperties;
+    private final ForecastAdmission forecastAdmission;
+    private final ThreadPoolExecutor jobExecutor;
+    private final Map<String, ForecastJob> forecastJobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ForecastJobService(RentForecastService rentForecastService, ForecastExecutor forecastExecutor, RentForecastJobProperties jobProperties,
+                              ForecastAdmission forecastAdmission) {
+        this.rentForecastService = rentForecastService;
+        this.forecastExecutor = forecastExecutor;
+        this.jobProperties = jobProperties;
+        this.forecastAdmission = forecastAdmission;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("rent-forecast-job-");
+        threadFactory.setDaemon(true);
+        this.jobExecutor = new ThreadPoolExecutor(jobProperties.getThreads(), jobProperties.getThreads(), 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(jobProperties.getQueueCapacity()), threadFactory);
+    }
+
+    /**
+     * Queue a forecast
+     *
+     * @param rentForecastRequest - details on what/how to forecast
+     * @return - the queued job
+     * @throws RejectedExecutionException - if the job queue is full
+     * @throws ForecastRejectedException  - if the forecast is over the whole admission budget
+     */
+    public ForecastJobResponse submitJob(RentForecastRequest rentForecastRequest) {
+        forecastAdmission.checkJob(rentForecastRequest);
+        expireJobs();
+        ForecastJob forecastJob = new ForecastJob(UUID.randomUUID().toString(), rentForecastRequest);
+        forecastJobs.put(forecastJob.getJobId(), forecastJob);
+        try {
+            forecastJob.setFuture(jobExecutor.submit(() -> run(forecastJob)));
+        } catch (RejectedExecutionException e) {
+            forecastJobs.remove(forecastJob.getJobId());
+            throw e;
+        }
+        return forecastJob.toResponse();
+    }
+
+    /**
+     * Status, progress and, once it succeeded, the forecast of a job
+     *
+     * @param jobId - id of the job
+     * @return - the job, empty if there is no such job
+     */
+    public Optional<ForecastJobResponse> getJob(String jobId) {
+        return findJob(jobId).map(ForecastJob::toResponse);
+    }
+
+    /**
+     * Cancel a job if it hasn't finished and drop it
+     *
+     * @param jobId - id of the job
+     * @return - true if the job existed
+     */
+    public boolean deleteJob(String jobId) {
+        ForecastJob forecastJob = forecastJobs.remove(jobId);
+        if (forecastJob == null) {
+            return false;
+        }
+        forecastJob.cancel();
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    private void run(ForecastJob forecastJob) {
+        RentForecastRequest rentForecastRequest = forecastJob.start();
+        if (rentForecastRequest == null) {
+            return;
+        }
+        // jobs share the forecast budget with requests, waiting for as long as it takes
+        try (ForecastPermit ignored = forecastAdmission.admitJob(rentForecastRequest)) {
+            List<UnitTypeForecast> unitTypeForecastList = rentForecastRequest.getUnitTypeForecastList();
+            ForecastWindow window = rentForecastRequest.getOptions() == null ? null : rentForecastRequest.getOptions().getWindow();
+            Map<String, UnitTypeForecastMonthly> rentByMonths = new HashMap<>();
+            forecastExecutor.forEachCompleted(unitTypeForecastList.size(), RentForecastService.unitMonths(unitTypeForecastList),
+                    unitTypeIndex -> {
+                        UnitTypeForecast unitTypeForecast = unitTypeForecastList.get(unitTypeIndex);
+                        UnitTypeForecastMonthly unitTypeForecastMonthly = rentForecastService.forecastUnitType(unitTypeForecast,
+                                rentForecastRequest.getClosingDate(), window, null);
+                        forecastJob.addCompletedUnitMonths(RentForecastService.unitMonths(List.of(unitTypeForecast)));
+                        return Map.entry(unitTypeForecast.getUnitType(), unitTypeForecastMonthly);
+                    },
+                    unitTypeForecast -> {
+                        if (rentByMonths.putIfAbsent(unitTypeForecast.getKey(), unitTypeForecast.getValue()) != null) {
+                            throw new IllegalArgumentException("Duplicate unit type " + unitTypeForecast.getKey());
+                        }
+                    });
+            forecastJob.succeed(rentForecastService.summarizeRents(rentByMonths, unitTypeForecastList, rentForecastRequest.getClosingDate(),
+                    rentForecastRequest.getOptions()));
+        } catch (InterruptedException e) {
+            // cancelled
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Forecast job {} failed", forecastJob.getJobId(), e);
+            forecastJob.fail(e.getMessage());
+        }
+    }
+
+    private Optional<ForecastJob> findJob(String jobId) {
+        ForecastJob forecastJob = forecastJobs.get(jobId);
+        if (forecastJob != null && isExpired(forecastJob)) {
+            forecastJobs.remove(jobId, forecastJob);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(forecastJob);
+    }
+
+    /**
+     * Drop finished jobs past their retention, then the oldest finished ones until there is room for another
+     */
+    private void expireJobs() {
+        forecastJobs.values().removeIf(this::isExpired);
+        List<ForecastJob> finishedJobs = forecastJobs.values().stream()
+                .filter(ForecastJob::isDone)
+                .sorted(Comparator.comparingLong(ForecastJob::getCompletedNanos))
+                .collect(Collectors.toList());
+        for (int i = 0; i <= finishedJobs.size() - jobProperties.getMaxRetainedJobs(); i++) {
+            forecastJobs.remove(finishedJobs.get(i).getJobId(), finishedJobs.get(i));
+        }
+    }
+
+    private boolean isExpired(ForecastJob forecastJob) {
+        return forecastJob.isDone() && System.nanoTime() - forecastJob.getCompletedNanos() > jobProperties.getRetention().toNanos();
+    }
+}
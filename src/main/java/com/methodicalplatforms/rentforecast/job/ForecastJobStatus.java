@@ -0,0 +1,9 @@
+package com.methodicalplatforms.rentforecast.job;
+
+public enum ForecastJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED
+}
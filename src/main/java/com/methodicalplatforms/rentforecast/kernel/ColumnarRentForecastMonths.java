@@ -0,0 +1,40 @@
+package com.methodicalplatforms.rentforecast.kernel;
+
+import com.methodicalplatforms.rentforecast.response.RentForecastMonth;
+import lombok.Getter;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read only view of one unit profile in a {@link UnitTypeForecastColumns}, each month is converted to a
+ * {@link RentForecastMonth} when it is read so nothing is held beyond the columns themselves
+ */
+@Getter
+public class ColumnarRentForecastMonths extends AbstractList<RentForecastMonth> implements RandomAccess {
+    private final UnitTypeForecastColumns unitColumns;
+    private final int profileIndex;
+    // position of the unit profile's first month in the rent columns
+    private final int offset;
+
+    public ColumnarRentForecastMonths(UnitTypeForecastColumns unitColumns, int profileIndex) {
+        this.unitColumns = unitColumns;
+        this.profileIndex = profileIndex;
+        this.offset = unitColumns.offset(profileIndex);
+    }
+
+    @Override
+    public RentForecastMonth get(int index) {
+        return RentForecastMonth.builder()
+                .year(unitColumns.getYears()[index])
+                .month(unitColumns.getMonths()[index])
+                .marketRent(PrimitiveRentForecastKernel.toBigDecimal(unitColumns.marketRent(offset + index)))
+                .actualRent(PrimitiveRentForecastKernel.toBigDecimal(unitColumns.actualRent(offset + index)))
+                .build();
+    }
+
+    @Override
+    public int size() {
+        return unitColumns.getMonthCount();
+    }
+}
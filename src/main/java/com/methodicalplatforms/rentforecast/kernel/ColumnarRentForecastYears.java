@@ -0,0 +1,45 @@
+package com.methodicalplatforms.rentforecast.kernel;
+
+import com.methodicalplatforms.rentforecast.response.RentForecastYear;
+
+import java.nio.DoubleBuffer;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.FISCAL_ACTUAL_RENT;
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.FISCAL_MARKET_RENT;
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.YEARLY_ACTUAL_RENT;
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.YEARLY_FIELDS;
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.YEARLY_MARKET_RENT;
+
+/**
+ * Read only view of packed yearly rents, each year is converted to a {@link RentForecastYear} when it is read
+ */
+public class ColumnarRentForecastYears extends AbstractList<RentForecastYear> implements RandomAccess {
+    private final int[] yearValues;
+    private final DoubleBuffer yearlyRents;
+    private final int offset;
+
+    public ColumnarRentForecastYears(int[] yearValues, DoubleBuffer yearlyRents, int offset) {
+        this.yearValues = yearValues;
+        this.yearlyRents = yearlyRents;
+        this.offset = offset;
+    }
+
+    @Override
+    public RentForecastYear get(int index) {
+        int position = offset + index * YEARLY_FIELDS;
+        return RentForecastYear.builder()
+                .year(yearValues[index])
+                .marketRent(PrimitiveRentForecastKernel.toBigDecimal(yearlyRents.get(position + YEARLY_MARKET_RENT)))
+                .actualRent(PrimitiveRentForecastKernel.toBigDecimal(yearlyRents.get(position + YEARLY_ACTUAL_RENT)))
+                .fiscalMarketRent(PrimitiveRentForecastKernel.toBigDecimal(yearlyRents.get(position + FISCAL_MARKET_RENT)))
+                .fiscalActualRent(PrimitiveRentForecastKernel.toBigDecimal(yearlyRents.get(position + FISCAL_ACTUAL_RENT)))
+                .build();
+    }
+
+    @Override
+    public int size() {
+        return yearValues.length;
+    }
+}
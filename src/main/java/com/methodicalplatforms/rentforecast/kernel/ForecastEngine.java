@@ -0,0 +1,19 @@
+package com.methodicalplatforms.rentforecast.kernel;
+
+/**
+ * The computation engine used to forecast unit rents
+ */
+public enum ForecastEngine {
+    /**
+     * Reference implementation, exact BigDecimal arithmetic for every unit month
+     */
+    BIG_DECIMAL,
+    /**
+     * Primitive double kernel, see {@link PrimitiveRentForecastKernel} for the precision contract
+     */
+    PRIMITIVE,
+    /**
+     * Runs both engines, returns the BigDecimal results and logs every unit month outside the parity tolerance
+     */
+    PARITY
+}
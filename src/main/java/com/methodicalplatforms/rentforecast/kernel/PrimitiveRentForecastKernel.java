@@ -0,0 +1,209 @@
+package com.methodicalplatforms.rentforecast.kernel;
+
+import com.methodicalplatforms.rentforecast.calendar.UnitMonthSchedule;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Forecasts unit rents on primitive double columns instead of BigDecimal objects.
+ * <p>
+ * Precision contract:
+ * <ul>
+ *     <li>all arithmetic is IEEE 754 double, results are rounded to {@link #RESULT_DECIMAL_PLACES} decimal places
+ *     when converted back to BigDecimal at the response boundary</li>
+ *     <li>for rents below 10,000,000 and horizons up to 600 months every unit month agrees with the
+ *     {@link ForecastEngine#BIG_DECIMAL} engine within {@link #PARITY_TOLERANCE}</li>
+ *     <li>the BigDecimal engine rounds the loss to lease ratio to the scale of the rent difference before comparing it
+ *     to the excess rent adjustment rate, this kernel compares at full precision, so a unit whose ratio sits within
+ *     that rounding of the threshold can reset to actual rent one month apart between engines</li>
+ * </ul>
+ */
+@Service
+public class PrimitiveRentForecastKernel {
+
+    public static final int RESULT_DECIMAL_PLACES = 9;
+    public static final double PARITY_TOLERANCE = 0.000001;
+
+    private static final int BIG_DECIMAL_DECIMAL_PLACES = 15;
+
+    /**
+     * forecast the rents for all months for a specific unit, mirrors RentForecastService.forecastRentsByMonthForUnit.
+     * Only months where a rent can change are evaluated, the stretches between them are filled with the rents before them.
+     *
+     * @param marketEscalationRates    - market escalation rate for each month
+     * @param actualEscalationRates    - actual escalation rate for each month
+     * @param propertyStartIndex       - first month the property has started
+     * @param unitSchedule             - the unit's start and escalation months
+     * @param startingMarketRent       - the starting market rent for the unit
+     * @param startingActualRent       - the starting actual rent for the unit
+     * @param excessRentAdjustmentRate - the rate in which to modify loss to lease, 0 disables the adjustment
+     * @param marketRents              - output column the forecasted market rent is written to
+     * @param actualRents              - output column the forecasted actual rent is written to
+     * @param offset                   - position in the output columns of the unit's first month
+     */
+    public void forecastUnit(double[] marketEscalationRates, double[] actualEscalationRates, int propertyStartIndex, UnitMonthSchedule unitSchedule,
+                             double startingMarketRent, double startingActualRent, double excessRentAdjustmentRate,
+                             double[] marketRents, double[] actualRents, int offset) {
+        forecastUnitFrom(0, marketEscalationRates, actualEscalationRates, propertyStartIndex, unitSchedule,
+                startingMarketRent, startingActualRent, excessRentAdjustmentRate, marketRents, actualRents, offset);
+    }
+
+    /**
+     * Re-forecast a unit from a month onward, the months before it must hold the unit's current forecast.
+     * The loop state is restored from the previous month so the result is the same as forecasting every month.
+     *
+     * @param fromMonth                - first month to forecast
+     * @param marketEscalationRates    - market escalation rate for each month
+     * @param actualEscalationRates    - actual escalation rate for each month
+     * @param propertyStartIndex       - first month the property has started
+     * @param unitSchedule             - the unit's start and escalation months
+     * @param startingMarketRent       - the starting market rent for the unit
+     * @param startingActualRent       - the starting actual rent for the unit
+     * @param excessRentAdjustmentRate - the rate in which to modify loss to lease, 0 disables the adjustment
+     * @param marketRents              - output column the forecasted market rent is written to
+     * @param actualRents              - output column the forecasted actual rent is written to
+     * @param offset                   - position in the output columns of the unit's first month
+     */
+    public void forecastUnitFrom(int fromMonth, double[] marketEscalationRates, double[] actualEscalationRates, int propertyStartIndex,
+                                 UnitMonthSchedule unitSchedule, double startingMarketRent, double startingActualRent,
+                                 double excessRentAdjustmentRate, double[] marketRents, double[] actualRents, int offset) {
+        double marketRent = startingMarketRent;
+        double actualRent = startingActualRent;
+        double compoundedActualEscalationRate = 1d;
+        double marketEscalationRate = 1d;
+        if (fromMonth > 0) {
+            marketRent = marketRents[offset + fromMonth - 1];
+            actualRent = actualRents[offset + fromMonth - 1];
+            for (int i = 0; i < fromMonth; i++) {
+                compoundedActualEscalationRate *= 1d + actualEscalationRates[i];
+            }
+            marketEscalationRate = 1d + marketEscalationRates[fromMonth - 1];
+        }
+        int unitStartedIndex = unitSchedule.getStartedIndex();
+
+        int i = fromMonth;
+        while (i < marketEscalationRates.length) {
+            boolean isUnitStartMonth = unitSchedule.isStartMonth(i);
+            boolean unitStarted = i >= unitStartedIndex;
+            boolean propertyStarted = i >= propertyStartIndex;
+
+            double currentMonthActualEscalationRate = 1d;
+            if (unitStarted && (unitSchedule.isEscalationMonthForActual(i) || isUnitStartMonth)) {
+                currentMonthActualEscalationRate = compoundedActualEscalationRate;
+            }
+
+            double forecastedActualRent = 0d;
+            if (isUnitStartMonth) {
+                forecastedActualRent = startingActualRent;
+            } else if (unitStarted) {
+                forecastedActualRent = currentMonthActualEscalationRate == 1d ? actualRent : startingActualRent * currentMonthActualEscalationRate;
+            }
+
+            double forecastedMarketRent = 0d;
+            boolean marketEscalated = propertyStarted && marketRent != 0d;
+            if (propertyStarted && marketRent == 0d) {
+                forecastedMarketRent = startingMarketRent;
+            } else if (marketEscalated) {
+                forecastedMarketRent = marketRent * marketEscalationRate;
+                if (forecastedActualRent != 0d && excessRentAdjustmentRate != 0d) {
+                    double lossToLeasePercent = (forecastedActualRent - forecastedMarketRent) / forecastedActualRent;
+                    if (lossToLeasePercent > excessRentAdjustmentRate) {
+                        forecastedMarketRent = forecastedActualRent;
+                    }
+                }
+            }
+
+            compoundedActualEscalationRate *= 1d + actualEscalationRates[i];
+            marketEscalationRate = 1d + marketEscalationRates[i];
+            marketRents[offset + i] = forecastedMarketRent;
+            actualRents[offset + i] = forecastedActualRent;
+            marketRent = forecastedMarketRent;
+            actualRent = forecastedActualRent;
+
+            // The months up to the next actual rent change or market escalation repeat this one, the loss to lease
+            // check already ran on the same rents
+            int segmentEnd = i + 1;
+            int nextActualRentChange = unitSchedule.nextActualRentChange(segmentEnd);
+            while (segmentEnd < nextActualRentChange && (segmentEnd < propertyStartIndex
+                    || (marketEscalated && marketRent != 0d && marketEscalationRates[segmentEnd - 1] == 0d))) {
+                compoundedActualEscalationRate *= 1d + actualEscalationRates[segmentEnd];
+                segmentEnd++;
+            }
+            if (segmentEnd > i + 1) {
+                Arrays.fill(marketRents, offset + i + 1, offset + segmentEnd, marketRent);
+                Arrays.fill(actualRents, offset + i + 1, offset + segmentEnd, actualRent);
+                marketEscalationRate = 1d + marketEscalationRates[segmentEnd - 1];
+            }
+            i = segmentEnd;
+        }
+    }
+
+    /**
+     * Market escalation rates of the sorted forecast months as doubles
+     *
+     * @param sortedForecastMonths - the forecast months for a unit type, sorted
+     * @return - market escalation rate for each month
+     */
+    public static double[] marketEscalationRates(List<ForecastMonth> sortedForecastMonths) {
+        double[] marketEscalationRates = new double[sortedForecastMonths.size()];
+        for (int i = 0; i < sortedForecastMonths.size(); i++) {
+            marketEscalationRates[i] = sortedForecastMonths.get(i).getMarketEscalationRate().doubleValue();
+        }
+        return marketEscalationRates;
+    }
+
+    /**
+     * Actual escalation rates of the sorted forecast months as doubles, a missing rate is zero
+     *
+     * @param sortedForecastMonths - the forecast months for a unit type, sorted
+     * @return - actual escalation rate for each month
+     */
+    public static double[] actualEscalationRates(List<ForecastMonth> sortedForecastMonths) {
+        double[] actualEscalationRates = new double[sortedForecastMonths.size()];
+        for (int i = 0; i < sortedForecastMonths.size(); i++) {
+            actualEscalationRates[i] = toDouble(sortedForecastMonths.get(i).getActualEscalationRate());
+        }
+        return actualEscalationRates;
+    }
+
+    /**
+     * Convert a nullable BigDecimal input to a double, null is treated as zero
+     *
+     * @param value - the input value
+     * @return - the value as a double
+     */
+    public static double toDouble(BigDecimal value) {
+        return value == null ? 0d : value.doubleValue();
+    }
+
+    /**
+     * Convert a kernel result back to a BigDecimal with the same scale as the BigDecimal engine
+     *
+     * @param value - kernel result
+     * @return - the value rounded per the precision contract
+     */
+    public static BigDecimal toBigDecimal(double value) {
+        if (value == 0d) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(value)
+                .setScale(RESULT_DECIMAL_PLACES, RoundingMode.HALF_EVEN)
+                .setScale(BIG_DECIMAL_DECIMAL_PLACES, RoundingMode.UNNECESSARY);
+    }
+
+    /**
+     * Whether a kernel result is within the parity tolerance of the BigDecimal engine result
+     *
+     * @param primitiveValue  - kernel result
+     * @param bigDecimalValue - BigDecimal engine result
+     * @return - true if the values agree per the precision contract
+     */
+    public boolean withinTolerance(double primitiveValue, BigDecimal bigDecimalValue) {
+        return Math.abs(primitiveValue - bigDecimalValue.doubleValue()) <= PARITY_TOLERANCE;
+    }
+}
@@ -0,0 +1,57 @@
+package com.methodicalplatforms.rentforecast.kernel;
+
+import lombok.Getter;
+
+/**
+ * One unit profile's months and years in a {@link UnitTypeForecastColumns} as arrays, for the loops too hot to go
+ * through a buffer. The months start at {@link #getOffset()} and the years at {@link #getYearOffset()}. The kernel
+ * writes from {@link #getForecastOffset()}, which is earlier when the columns only keep a window of the months.
+ */
+@Getter
+public class ProfileSlice {
+    // scratch arrays for slices of direct or windowed columns, one set per thread
+    private static final ThreadLocal<ProfileSlice> SCRATCH = ThreadLocal.withInitial(() -> new ProfileSlice(0, new double[0], new double[0], new double[0], 0, 0, 0));
+
+    private int profileIndex;
+    private double[] marketRents;
+    private double[] actualRents;
+    private double[] yearlyRents;
+    private int forecastOffset;
+    private int offset;
+    private int yearOffset;
+
+    ProfileSlice(int profileIndex, double[] marketRents, double[] actualRents, double[] yearlyRents, int forecastOffset, int offset, int yearOffset) {
+        this.profileIndex = profileIndex;
+        this.marketRents = marketRents;
+        this.actualRents = actualRents;
+        this.yearlyRents = yearlyRents;
+        this.forecastOffset = forecastOffset;
+        this.offset = offset;
+        this.yearOffset = yearOffset;
+    }
+
+    /**
+     * The calling thread's scratch slice, grown to fit and valid until the thread takes its next scratch slice
+     *
+     * @param profileIndex - index of the unit profile copied into the slice
+     * @param leadMonths   - forecast months before the months in the columns
+     * @param monthCount   - number of forecast months up to the end of the columns
+     * @param yearlySize   - number of yearly values in the columns for a profile
+     * @return - the scratch slice, forecast from 0 with the columns' months starting after the lead months
+     */
+    static ProfileSlice scratch(int profileIndex, int leadMonths, int monthCount, int yearlySize) {
+        ProfileSlice scratch = SCRATCH.get();
+        if (scratch.marketRents.length < monthCount) {
+            scratch.marketRents = new double[monthCount];
+            scratch.actualRents = new double[monthCount];
+        }
+        if (scratch.yearlyRents.length < yearlySize) {
+            scratch.yearlyRents = new double[yearlySize];
+        }
+        scratch.profileIndex = profileIndex;
+        scratch.forecastOffset = 0;
+        scratch.offset = leadMonths;
+        scratch.yearOffset = 0;
+        return scratch;
+    }
+}
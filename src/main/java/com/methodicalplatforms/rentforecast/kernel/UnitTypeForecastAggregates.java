@@ -0,0 +1,160 @@
+package com.methodicalplatforms.rentforecast.kernel;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.FISCAL_ACTUAL_RENT;
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.FISCAL_MARKET_RENT;
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.YEARLY_ACTUAL_RENT;
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.YEARLY_FIELDS;
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.YEARLY_MARKET_RENT;
+
+/**
+ * Unit type totals accumulated in a single pass over each unit profile's months, right after the kernel produces them.
+ * Covers the unit type monthly summary, the unit yearly and fiscal columns, the unit type yearly summary and
+ * the unit status yearly summaries, each profile weighted by its number of units. Partial aggregates from parallel
+ * workers are combined with {@link #merge}.
+ */
+@Getter
+public class UnitTypeForecastAggregates {
+    private final UnitTypeForecastColumns unitColumns;
+    private final double[] monthlyMarketRents;
+    private final double[] monthlyActualRents;
+    private final double[] yearlyRents;
+    private final Map<String, double[]> unitStatusYearlyRents = new HashMap<>();
+
+    public UnitTypeForecastAggregates(UnitTypeForecastColumns unitColumns) {
+        this.unitColumns = unitColumns;
+        this.monthlyMarketRents = new double[unitColumns.getMonthCount()];
+        this.monthlyActualRents = new double[unitColumns.getMonthCount()];
+        this.yearlyRents = new double[unitColumns.getYearCount() * YEARLY_FIELDS];
+    }
+
+    /**
+     * Fold a forecast unit profile into the totals and fill in its yearly column
+     *
+     * @param profileSlice     - slice of the unit profile in the columns
+     * @param unitCount        - number of units with the profile
+     * @param unitStatusCounts - number of units with the profile by unit status
+     */
+    public void addProfile(ProfileSlice profileSlice, int unitCount, Map<String, Integer> unitStatusCounts) {
+        int offset = profileSlice.getOffset();
+        int yearOffset = profileSlice.getYearOffset();
+        double[] marketRents = profileSlice.getMarketRents();
+        double[] actualRents = profileSlice.getActualRents();
+        double[] unitYearlyRents = profileSlice.getYearlyRents();
+        int[] yearIndexes = unitColumns.getYearIndexes();
+        int[] fiscalYearIndexes = unitColumns.getFiscalYearIndexes();
+
+        for (int i = 0; i < monthlyMarketRents.length; i++) {
+            double marketRent = marketRents[offset + i];
+            double actualRent = actualRents[offset + i];
+            monthlyMarketRents[i] += marketRent * unitCount;
+            monthlyActualRents[i] += actualRent * unitCount;
+
+            int year = yearOffset + yearIndexes[i] * YEARLY_FIELDS;
+            unitYearlyRents[year + YEARLY_MARKET_RENT] += marketRent;
+            unitYearlyRents[year + YEARLY_ACTUAL_RENT] += actualRent;
+            if (fiscalYearIndexes[i] >= 0) {
+                int fiscalYear = yearOffset + fiscalYearIndexes[i] * YEARLY_FIELDS;
+                unitYearlyRents[fiscalYear + FISCAL_MARKET_RENT] += marketRent;
+                unitYearlyRents[fiscalYear + FISCAL_ACTUAL_RENT] += actualRent;
+            }
+        }
+
+        // Years are an order of magnitude smaller than months, roll the profile's years up into the summaries
+        for (int i = 0; i < yearlyRents.length; i++) {
+            yearlyRents[i] += unitYearlyRents[yearOffset + i] * unitCount;
+        }
+        unitStatusCounts.forEach((unitStatus, statusCount) -> {
+            double[] unitStatusRents = unitStatusYearlyRents.computeIfAbsent(unitStatus, status -> new double[yearlyRents.length]);
+            for (int i = 0; i < yearlyRents.length; i++) {
+                unitStatusRents[i] += unitYearlyRents[yearOffset + i] * statusCount;
+            }
+        });
+    }
+
+    /**
+     * Add or remove a profile's months from a month onward, so a changed unit can be swapped in without
+     * re-aggregating the unit type. The profile's yearly column is adjusted along with the totals.
+     *
+     * @param profileSlice     - slice of the unit profile in the columns
+     * @param fromMonth        - first month to add or remove
+     * @param sign             - 1 to add the months, -1 to remove them
+     * @param unitStatusCounts - number of units with the profile by unit status
+     */
+    public void adjustProfile(ProfileSlice profileSlice, int fromMonth, int sign, Map<String, Integer> unitStatusCounts) {
+        int offset = profileSlice.getOffset();
+        int yearOffset = profileSlice.getYearOffset();
+        double[] marketRents = profileSlice.getMarketRents();
+        double[] actualRents = profileSlice.getActualRents();
+        double[] unitYearlyRents = profileSlice.getYearlyRents();
+        int[] yearIndexes = unitColumns.getYearIndexes();
+        int[] fiscalYearIndexes = unitColumns.getFiscalYearIndexes();
+        int unitCount = unitStatusCounts.values().stream().mapToInt(Integer::intValue).sum();
+        double[][] unitStatusRents = unitStatusCounts.keySet().stream()
+                .map(unitStatus -> unitStatusYearlyRents.computeIfAbsent(unitStatus, status -> new double[yearlyRents.length]))
+                .toArray(double[][]::new);
+        int[] statusCounts = unitStatusCounts.values().stream().mapToInt(Integer::intValue).toArray();
+
+        for (int i = fromMonth; i < monthlyMarketRents.length; i++) {
+            double marketRent = sign * marketRents[offset + i];
+            double actualRent = sign * actualRents[offset + i];
+            monthlyMarketRents[i] += marketRent * unitCount;
+            monthlyActualRents[i] += actualRent * unitCount;
+
+            int year = yearIndexes[i] * YEARLY_FIELDS;
+            adjustYear(unitYearlyRents, yearOffset + year, YEARLY_MARKET_RENT, YEARLY_ACTUAL_RENT, marketRent, actualRent, 1);
+            adjustYear(yearlyRents, year, YEARLY_MARKET_RENT, YEARLY_ACTUAL_RENT, marketRent, actualRent, unitCount);
+            for (int s = 0; s < unitStatusRents.length; s++) {
+                adjustYear(unitStatusRents[s], year, YEARLY_MARKET_RENT, YEARLY_ACTUAL_RENT, marketRent, actualRent, statusCounts[s]);
+            }
+            if (fiscalYearIndexes[i] >= 0) {
+                int fiscalYear = fiscalYearIndexes[i] * YEARLY_FIELDS;
+                adjustYear(unitYearlyRents, yearOffset + fiscalYear, FISCAL_MARKET_RENT, FISCAL_ACTUAL_RENT, marketRent, actualRent, 1);
+                adjustYear(yearlyRents, fiscalYear, FISCAL_MARKET_RENT, FISCAL_ACTUAL_RENT, marketRent, actualRent, unitCount);
+                for (int s = 0; s < unitStatusRents.length; s++) {
+                    adjustYear(unitStatusRents[s], fiscalYear, FISCAL_MARKET_RENT, FISCAL_ACTUAL_RENT, marketRent, actualRent, statusCounts[s]);
+                }
+            }
+        }
+    }
+
+    private void adjustYear(double[] yearly, int year, int marketField, int actualField, double marketRent, double actualRent, int unitCount) {
+        yearly[year + marketField] += marketRent * unitCount;
+        yearly[year + actualField] += actualRent * unitCount;
+    }
+
+    /**
+     * Drop a unit status from the unit status summaries once no unit has it
+     *
+     * @param unitStatus - the unit status
+     */
+    public void removeUnitStatus(String unitStatus) {
+        unitStatusYearlyRents.remove(unitStatus);
+    }
+
+    /**
+     * Combine the totals from another worker into this one
+     *
+     * @param other - aggregates over a disjoint set of units
+     */
+    public void merge(UnitTypeForecastAggregates other) {
+        add(monthlyMarketRents, other.monthlyMarketRents);
+        add(monthlyActualRents, other.monthlyActualRents);
+        add(yearlyRents, other.yearlyRents);
+        other.unitStatusYearlyRents.forEach((unitStatus, rents) ->
+                unitStatusYearlyRents.merge(unitStatus, rents, (to, from) -> {
+                    add(to, from);
+                    return to;
+                }));
+    }
+
+    private void add(double[] to, double[] from) {
+        for (int i = 0; i < to.length; i++) {
+            to[i] += from[i];
+        }
+    }
+}
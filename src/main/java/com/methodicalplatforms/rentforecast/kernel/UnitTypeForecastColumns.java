@@ -0,0 +1,222 @@
+package com.methodicalplatforms.rentforecast.kernel;
+
+import com.methodicalplatforms.rentforecast.arena.ForecastArena;
+import com.methodicalplatforms.rentforecast.calendar.MonthWindow;
+import com.methodicalplatforms.rentforecast.profile.UnitProfiles;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.response.RentForecastMonth;
+import com.methodicalplatforms.rentforecast.response.RentForecastYear;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.DoubleBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Columnar forecast store for a unit type. Every unit shares one month axis and rents are packed by distinct unit
+ * profile, so the months for a unit are its profile's slice starting at {@link #offset(int)} and its years the slice
+ * starting at {@link #yearOffset(int)}. Rents are heap arrays or, for forecasts scoped to a request, direct buffers
+ * from the request's {@link ForecastArena}; loops over a profile work on its {@link ProfileSlice}.
+ */
+@Getter
+public class UnitTypeForecastColumns {
+    // Layout of a year in the yearly columns
+    public static final int YEARLY_MARKET_RENT = 0;
+    public static final int YEARLY_ACTUAL_RENT = 1;
+    public static final int FISCAL_MARKET_RENT = 2;
+    public static final int FISCAL_ACTUAL_RENT = 3;
+    public static final int YEARLY_FIELDS = 4;
+
+    private final int[] years;
+    private final int[] months;
+    // Calendar year slot of each month, and fiscal year slot or -1 when the month is before the first fiscal year
+    private final int[] yearIndexes;
+    private final int[] fiscalYearIndexes;
+    private final int[] yearValues;
+    private final UnitProfiles unitProfiles;
+    // forecast months before the window, they're forecast but not kept in the columns
+    private final int leadMonths;
+    @Getter(AccessLevel.NONE)
+    private final DoubleBuffer marketRents;
+    @Getter(AccessLevel.NONE)
+    private final DoubleBuffer actualRents;
+    @Getter(AccessLevel.NONE)
+    private final DoubleBuffer yearlyRents;
+
+    public UnitTypeForecastColumns(List<ForecastMonth> sortedForecastMonths, UnitProfiles unitProfiles, LocalDate closingDate) {
+        this(sortedForecastMonths, MonthWindow.full(sortedForecastMonths.size()), unitProfiles, closingDate, null);
+    }
+
+    /**
+     * @param sortedForecastMonths - the forecast months for the unit type, sorted
+     * @param monthWindow          - the forecast months kept in the columns
+     * @param unitProfiles         - the distinct unit profiles of the unit type
+     * @param closingDate          - the closing date for the property
+     * @param arena                - arena the rents are allocated from, null for heap arrays
+     */
+    public UnitTypeForecastColumns(List<ForecastMonth> sortedForecastMonths, MonthWindow monthWindow, UnitProfiles unitProfiles,
+                                   LocalDate closingDate, ForecastArena arena) {
+        int monthCount = monthWindow.size();
+        this.leadMonths = monthWindow.getStart();
+        this.years = new int[monthCount];
+        this.months = new int[monthCount];
+        this.yearIndexes = new int[monthCount];
+        int yearCount = 0;
+        for (int i = 0; i < monthCount; i++) {
+            years[i] = sortedForecastMonths.get(leadMonths + i).getYear();
+            months[i] = sortedForecastMonths.get(leadMonths + i).getMonth();
+            if (i == 0 || years[i] != years[i - 1]) {
+                yearCount++;
+            }
+            yearIndexes[i] = yearCount - 1;
+        }
+        this.yearValues = new int[yearCount];
+        for (int i = 0; i < monthCount; i++) {
+            yearValues[yearIndexes[i]] = years[i];
+        }
+        this.fiscalYearIndexes = calculateFiscalYearIndexes(closingDate, monthWindow, yearCount, unitProfiles.getUnitCount() > 0);
+        this.unitProfiles = unitProfiles;
+        this.marketRents = ForecastArena.allocateDoubles(arena, unitProfiles.size() * monthCount);
+        this.actualRents = ForecastArena.allocateDoubles(arena, unitProfiles.size() * monthCount);
+        this.yearlyRents = ForecastArena.allocateDoubles(arena, unitProfiles.size() * yearCount * YEARLY_FIELDS);
+    }
+
+    /**
+     * Fiscal years start the month after closing, mirrors RentForecastSummaryService.calculateFiscalYearSummary.
+     * Fiscal years that started before the window are left out like the months before the closing.
+     */
+    private int[] calculateFiscalYearIndexes(LocalDate closingDate, MonthWindow monthWindow, int yearCount, boolean hasUnits) {
+        int[] fiscalYearIndexes = new int[years.length];
+        int fiscalMonth = monthWindow.getFiscalMonthsBefore();
+        for (int i = 0; i < years.length; i++) {
+            if (closingDate == null || (years[i] == 1 && months[i] <= closingDate.getMonthValue())) {
+                fiscalYearIndexes[i] = -1;
+                continue;
+            }
+            fiscalYearIndexes[i] = Math.max(monthWindow.fiscalYearSlot(fiscalMonth), -1);
+            if (hasUnits && fiscalYearIndexes[i] >= 0) {
+                // the summary service adds fiscal values to the calendar year list, so it can't have more fiscal years
+                Objects.checkIndex(fiscalYearIndexes[i], yearCount);
+            }
+            fiscalMonth++;
+        }
+        return fiscalYearIndexes;
+    }
+
+    public int getMonthCount() {
+        return years.length;
+    }
+
+    public int getYearCount() {
+        return yearValues.length;
+    }
+
+    public int getUnitCount() {
+        return unitProfiles.getUnitCount();
+    }
+
+    /**
+     * Position of a unit profile's first month in the rent columns
+     *
+     * @param profileIndex - index of the unit profile
+     * @return - the column offset
+     */
+    public int offset(int profileIndex) {
+        return profileIndex * years.length;
+    }
+
+    /**
+     * Position of a unit profile's first year in the yearly rent column
+     *
+     * @param profileIndex - index of the unit profile
+     * @return - the yearly column offset
+     */
+    public int yearOffset(int profileIndex) {
+        return profileIndex * yearValues.length * YEARLY_FIELDS;
+    }
+
+    public double marketRent(int index) {
+        return marketRents.get(index);
+    }
+
+    public double actualRent(int index) {
+        return actualRents.get(index);
+    }
+
+    public double yearlyRent(int index) {
+        return yearlyRents.get(index);
+    }
+
+    /**
+     * @return - true if the rents are in direct buffers rather than heap arrays
+     */
+    public boolean isDirect() {
+        return marketRents.isDirect();
+    }
+
+    /**
+     * A unit profile's rents as arrays. Heap columns hand out their own arrays at the profile's offsets. Direct or
+     * windowed columns hand out a copy in the calling thread's scratch arrays, with room for the months before the
+     * window, that stays valid until the thread's next slice and has to be written back with {@link #store(ProfileSlice)}.
+     *
+     * @param profileIndex - index of the unit profile
+     * @param load         - copy the profile's current rents, otherwise a scratch slice starts out zeroed
+     * @return - the profile slice
+     */
+    public ProfileSlice slice(int profileIndex, boolean load) {
+        if (!isDirect() && leadMonths == 0) {
+            return new ProfileSlice(profileIndex, marketRents.array(), actualRents.array(), yearlyRents.array(),
+                    offset(profileIndex), offset(profileIndex), yearOffset(profileIndex));
+        }
+        int monthCount = getMonthCount();
+        int yearlySize = getYearCount() * YEARLY_FIELDS;
+        ProfileSlice slice = ProfileSlice.scratch(profileIndex, leadMonths, leadMonths + monthCount, yearlySize);
+        if (load) {
+            marketRents.get(offset(profileIndex), slice.getMarketRents(), leadMonths, monthCount);
+            actualRents.get(offset(profileIndex), slice.getActualRents(), leadMonths, monthCount);
+            yearlyRents.get(yearOffset(profileIndex), slice.getYearlyRents(), 0, yearlySize);
+        } else {
+            Arrays.fill(slice.getMarketRents(), 0, leadMonths + monthCount, 0d);
+            Arrays.fill(slice.getActualRents(), 0, leadMonths + monthCount, 0d);
+            Arrays.fill(slice.getYearlyRents(), 0, yearlySize, 0d);
+        }
+        return slice;
+    }
+
+    /**
+     * Write a profile slice's window back to the columns, heap slices without lead months are the columns themselves
+     *
+     * @param slice - slice taken from these columns
+     */
+    public void store(ProfileSlice slice) {
+        if (!isDirect() && leadMonths == 0) {
+            return;
+        }
+        int profileIndex = slice.getProfileIndex();
+        marketRents.put(offset(profileIndex), slice.getMarketRents(), leadMonths, getMonthCount());
+        actualRents.put(offset(profileIndex), slice.getActualRents(), leadMonths, getMonthCount());
+        yearlyRents.put(yearOffset(profileIndex), slice.getYearlyRents(), 0, getYearCount() * YEARLY_FIELDS);
+    }
+
+    /**
+     * Build the per unit monthly forecasts as views over the columns, months are only materialized when read
+     *
+     * @return - map of unit id to the monthly forecasts for the unit
+     */
+    public Map<String, List<RentForecastMonth>> unitForecastViews() {
+        return unitProfiles.byUnit(profileIndex -> new ColumnarRentForecastMonths(this, profileIndex));
+    }
+
+    /**
+     * Build the per unit yearly forecasts as views over the yearly column
+     *
+     * @return - map of unit id to the yearly forecasts for the unit
+     */
+    public Map<String, List<RentForecastYear>> unitYearlyForecastViews() {
+        return unitProfiles.byUnit(profileIndex -> new ColumnarRentForecastYears(yearValues, yearlyRents, yearOffset(profileIndex)));
+    }
+}
@@ -0,0 +1,179 @@
+package com.methodicalplatforms.rentforecast.metrics;
+
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer timers for each forecast stage and distribution summaries of the request and response sizes.
+ * Stages timed on a thread serving a request are also collected for its Server-Timing header.
+ */
+@Service
+public class ForecastMetrics {
+    public static final String STAGE_TIMER = "rent.forecast.stage";
+    public static final String UNITS_PER_REQUEST = "rent.forecast.request.units";
+    public static final String MONTHS_PER_UNIT = "rent.forecast.unit.months";
+    public static final String RESPONSE_BYTES = "rent.forecast.response.bytes";
+    public static final String ESTIMATED_COST = "rent.forecast.admission.estimated.cost";
+    public static final String NANOS_PER_COST = "rent.forecast.admission.nanos.per.cost";
+    public static final String REJECTED = "rent.forecast.admission.rejected";
+
+    private static final ThreadLocal<ForecastTimings> REQUEST_TIMINGS = new ThreadLocal<>();
+
+    private final Map<ForecastStage, Timer> stageTimers = new EnumMap<>(ForecastStage.class);
+    private final DistributionSummary unitsPerRequest;
+    private final DistributionSummary monthsPerUnit;
+    private final DistributionSummary responseBytes;
+    private final DistributionSummary estimatedCost;
+    private final DistributionSummary nanosPerCost;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ForecastMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (ForecastStage stage : ForecastStage.values()) {
+            stageTimers.put(stage, Timer.builder(STAGE_TIMER)
+                    .description("Time spent in a stage of a rent forecast")
+                    .tag("stage", stage.getMetricName())
+                    .register(meterRegistry));
+        }
+        this.unitsPerRequest = DistributionSummary.builder(UNITS_PER_REQUEST)
+                .description("Units forecast per request")
+                .baseUnit("units")
+                .register(meterRegistry);
+        this.monthsPerUnit = DistributionSummary.builder(MONTHS_PER_UNIT)
+                .description("Forecast months per unit, recorded once per unit type")
+                .baseUnit("months")
+                .register(meterRegistry);
+        this.responseBytes = DistributionSummary.builder(RESPONSE_BYTES)
+                .description("Bytes written for a forecast response")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.estimatedCost = DistributionSummary.builder(ESTIMATED_COST)
+                .description("Estimated cost of admitted forecasts, unit months per view")
+                .register(meterRegistry);
+        // steady when the estimate tracks the actual work, drifting when it doesn't
+        this.nanosPerCost = DistributionSummary.builder(NANOS_PER_COST)
+                .description("Time an admitted forecast took per unit of estimated cost")
+                .baseUnit("nanoseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a stage and record how long it took
+     *
+     * @param stage - the stage being run
+     * @param work  - the stage
+     * @return - the stage result
+     */
+    public <T> T time(ForecastStage stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Run a stage without a result and record how long it took
+     *
+     * @param stage - the stage being run
+     * @param work  - the stage
+     */
+    public void time(ForecastStage stage, Runnable work) {
+        time(stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * @param stage - the stage that ran
+     * @param nanos - how long it took
+     */
+    public void record(ForecastStage stage, long nanos) {
+        stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+        ForecastTimings requestTimings = REQUEST_TIMINGS.get();
+        if (requestTimings != null) {
+            requestTimings.add(stage, nanos);
+        }
+    }
+
+    /**
+     * @param unitTypeForecastList - the unit types of a request
+     */
+    public void recordRequestSize(List<UnitTypeForecast> unitTypeForecastList) {
+        int units = 0;
+        for (UnitTypeForecast unitTypeForecast : unitTypeForecastList) {
+            units += unitTypeForecast.getUnitDetails().size();
+            // every unit of a unit type shares its months
+            monthsPerUnit.record(unitTypeForecast.getForecastMonthData().size());
+        }
+        unitsPerRequest.record(units);
+    }
+
+    /**
+     * @param bytes - bytes written for a response
+     */
+    public void recordResponseBytes(long bytes) {
+        responseBytes.record(bytes);
+    }
+
+    /**
+     * Compare an admitted forecast's estimated cost with how long it took
+     *
+     * @param cost  - estimated cost of the forecast
+     * @param nanos - how long the forecast held its permit
+     */
+    public void recordAdmittedForecast(long cost, long nanos) {
+        estimatedCost.record(cost);
+        if (cost > 0) {
+            nanosPerCost.record((double) nanos / cost);
+        }
+    }
+
+    /**
+     * @param status - status the forecast was turned away with
+     */
+    public void recordRejectedForecast(HttpStatus status) {
+        Counter.builder(REJECTED)
+                .description("Forecasts turned away by admission control")
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Collect the stages timed on this thread until {@link #endRequest()}
+     *
+     * @return - timings of the request
+     */
+    public ForecastTimings startRequest() {
+        ForecastTimings requestTimings = new ForecastTimings();
+        REQUEST_TIMINGS.set(requestTimings);
+        return requestTimings;
+    }
+
+    /**
+     * @return - timings of the request served on this thread, null outside a request
+     */
+    public ForecastTimings currentTimings() {
+        return REQUEST_TIMINGS.get();
+    }
+
+    public void endRequest() {
+        REQUEST_TIMINGS.remove();
+    }
+}
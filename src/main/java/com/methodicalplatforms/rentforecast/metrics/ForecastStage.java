@@ -0,0 +1,24 @@
+package com.methodicalplatforms.rentforecast.metrics;
+
+import lombok.Getter;
+
+/**
+ * Timed stages of a forecast request, tagged on the stage timer and named in the Server-Timing header
+ */
+@Getter
+public enum ForecastStage {
+    DESERIALIZE("deserialize"),
+    FORECAST("forecast"),
+    SUMMARY_YEARS("summary-years"),
+    SUMMARY_FISCAL_YEARS("summary-fiscal-years"),
+    SUMMARY_UNIT_TYPES("summary-unit-types"),
+    SUMMARY_UNIT_STATUSES("summary-unit-statuses"),
+    SUMMARY_MONTHS("summary-months"),
+    SERIALIZE("serialize");
+
+    private final String metricName;
+
+    ForecastStage(String metricName) {
+        this.metricName = metricName;
+    }
+}
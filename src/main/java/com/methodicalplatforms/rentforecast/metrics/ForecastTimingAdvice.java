@@ -0,0 +1,64 @@
+package com.methodicalplatforms.rentforecast.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.lang.reflect.Type;
+
+/**
+ * Times reading the request body and adds the Server-Timing header before the response body is written.
+ * Serialization is still running when the header goes out, so it is only recorded on the stage timer.
+ */
+@ControllerAdvice
+public class ForecastTimingAdvice extends RequestBodyAdviceAdapter implements ResponseBodyAdvice<Object> {
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    private final ForecastMetrics forecastMetrics;
+
+    @Autowired
+    public ForecastTimingAdvice(ForecastMetrics forecastMetrics) {
+        this.forecastMetrics = forecastMetrics;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return forecastMetrics.currentTimings() != null;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        forecastMetrics.currentTimings().start(ForecastStage.DESERIALIZE);
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        forecastMetrics.record(ForecastStage.DESERIALIZE, forecastMetrics.currentTimings().sinceStart(ForecastStage.DESERIALIZE));
+        return body;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return forecastMetrics.currentTimings() != null;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        ForecastTimings requestTimings = forecastMetrics.currentTimings();
+        response.getHeaders().add(SERVER_TIMING, requestTimings.toServerTiming());
+        requestTimings.start(ForecastStage.SERIALIZE);
+        return body;
+    }
+}
@@ -0,0 +1,115 @@
+package com.methodicalplatforms.rentforecast.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Collects the stage timings of forecast requests, times serialization and counts the response bytes.
+ * Streamed responses are written after the request thread returns, so only their earlier stages are collected.
+ */
+@Component
+public class ForecastTimingFilter extends OncePerRequestFilter {
+
+    private final ForecastMetrics forecastMetrics;
+
+    @Autowired
+    public ForecastTimingFilter(ForecastMetrics forecastMetrics) {
+        this.forecastMetrics = forecastMetrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/rent-forecast");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ForecastTimings requestTimings = forecastMetrics.startRequest();
+        CountingResponse countingResponse = new CountingResponse(response);
+        try {
+            filterChain.doFilter(request, countingResponse);
+            countingResponse.flushBuffer();
+        } finally {
+            forecastMetrics.endRequest();
+            if (!request.isAsyncStarted()) {
+                long serializationNanos = requestTimings.sinceStart(ForecastStage.SERIALIZE);
+                if (serializationNanos > 0) {
+                    forecastMetrics.record(ForecastStage.SERIALIZE, serializationNanos);
+                }
+                forecastMetrics.recordResponseBytes(countingResponse.getBytes());
+            }
+        }
+    }
+
+    private static class CountingResponse extends HttpServletResponseWrapper {
+        private CountingOutputStream outputStream;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CountingOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        long getBytes() {
+            return outputStream == null ? 0 : outputStream.bytes;
+        }
+    }
+
+    private static class CountingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        private long bytes;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            bytes += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.methodicalplatforms.rentforecast.metrics;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Stage durations of a single request, summed when a stage runs more than once
+ */
+public class ForecastTimings {
+    private final Map<ForecastStage, Long> stageNanos = new EnumMap<>(ForecastStage.class);
+    // stages started outside of ForecastMetrics.time, such as reading and writing the body
+    private final Map<ForecastStage, Long> stageStarts = new EnumMap<>(ForecastStage.class);
+
+    public synchronized void add(ForecastStage stage, long nanos) {
+        stageNanos.merge(stage, nanos, Long::sum);
+    }
+
+    public synchronized long getNanos(ForecastStage stage) {
+        return stageNanos.getOrDefault(stage, 0L);
+    }
+
+    /**
+     * @param stage - a stage that ends in a different callback than it starts
+     */
+    public synchronized void start(ForecastStage stage) {
+        stageStarts.put(stage, System.nanoTime());
+    }
+
+    /**
+     * @param stage - a stage started with {@link #start}
+     * @return - nanos since the stage started, 0 if it never started
+     */
+    public synchronized long sinceStart(ForecastStage stage) {
+        Long stageStart = stageStarts.get(stage);
+        return stageStart == null ? 0 : System.nanoTime() - stageStart;
+    }
+
+    /**
+     * @return - the recorded stages as a Server-Timing header value, durations in milliseconds
+     */
+    public synchronized String toServerTiming() {
+        StringJoiner serverTiming = new StringJoiner(", ");
+        stageNanos.forEach((stage, nanos) -> serverTiming.add(String.format(Locale.ROOT, "%s;dur=%.3f", stage.getMetricName(), nanos / 1_000_000d)));
+        return serverTiming.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.methodicalplatforms.rentforecast.profile;
+
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fingerprint of the unit details a unit's forecast depends on. Units with equal profiles in the same unit type
+ * have identical forecasts, unit status only matters to the summaries. Rents are compared with BigDecimal equals,
+ * so the same rent with a different scale is a different profile and the response is unchanged.
+ */
+@Value
+public class UnitProfile {
+    BigDecimal startingMarketRent;
+    BigDecimal startingActualRent;
+    LocalDate startDate;
+    Integer contractTerm;
+
+    public static UnitProfile of(UnitDetails unitDetails) {
+        return new UnitProfile(unitDetails.getStartingMarketRent(), unitDetails.getStartingActualRent(),
+                unitDetails.getStartDate(), unitDetails.getContractTerm());
+    }
+}
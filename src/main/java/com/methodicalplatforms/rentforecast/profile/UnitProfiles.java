@@ -0,0 +1,126 @@
+package com.methodicalplatforms.rentforecast.profile;
+
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * The distinct unit profiles of a unit type. Each profile only needs forecasting once, every unit sharing it
+ * reuses the result and the summaries weigh it by the number of units.
+ */
+public class UnitProfiles {
+    @Getter
+    private final String[] unitIds;
+    // Profile of each unit, aligned with unitIds
+    @Getter
+    private final int[] unitProfileIndexes;
+    private final List<UnitDetails> profileUnitDetails = new ArrayList<>();
+    // id of the first unit with each profile
+    private final List<String> profileUnitIds = new ArrayList<>();
+    private final List<Integer> unitCounts = new ArrayList<>();
+    private final List<Map<String, Integer>> unitStatusCounts = new ArrayList<>();
+
+    public UnitProfiles(Map<String, UnitDetails> unitDetails) {
+        this(unitDetails, true);
+    }
+
+    /**
+     * One profile for each unit, for forecasts where units are changed independently of each other
+     *
+     * @param unitDetails - details for each unit
+     * @return - a profile for each unit, in unitIds order
+     */
+    public static UnitProfiles perUnit(Map<String, UnitDetails> unitDetails) {
+        return new UnitProfiles(unitDetails, false);
+    }
+
+    private UnitProfiles(Map<String, UnitDetails> unitDetails, boolean deduplicate) {
+        this.unitIds = unitDetails.keySet().toArray(new String[0]);
+        this.unitProfileIndexes = new int[unitIds.length];
+
+        Map<Object, Integer> profileIndexes = new HashMap<>();
+        for (int unitIndex = 0; unitIndex < unitIds.length; unitIndex++) {
+            String unitId = unitIds[unitIndex];
+            UnitDetails details = unitDetails.get(unitId);
+            Object profileKey = deduplicate ? UnitProfile.of(details) : unitIndex;
+            int profileIndex = profileIndexes.computeIfAbsent(profileKey, profile -> {
+                profileUnitDetails.add(details);
+                profileUnitIds.add(unitId);
+                unitCounts.add(0);
+                unitStatusCounts.add(new LinkedHashMap<>());
+                return profileUnitDetails.size() - 1;
+            });
+            unitProfileIndexes[unitIndex] = profileIndex;
+            unitCounts.set(profileIndex, unitCounts.get(profileIndex) + 1);
+            unitStatusCounts.get(profileIndex).merge(details.getUnitStatus(), 1, Integer::sum);
+        }
+    }
+
+    public int size() {
+        return profileUnitDetails.size();
+    }
+
+    public int getUnitCount() {
+        return unitIds.length;
+    }
+
+    /**
+     * Details of the first unit with the profile, the forecast inputs are the same for every unit with it
+     *
+     * @param profileIndex - index of the profile
+     * @return - unit details to forecast the profile with
+     */
+    public UnitDetails getUnitDetails(int profileIndex) {
+        return profileUnitDetails.get(profileIndex);
+    }
+
+    /**
+     * Id of the first unit with the profile, to tell which units a profile stands for
+     *
+     * @param profileIndex - index of the profile
+     * @return - id of a unit with the profile
+     */
+    public String getUnitId(int profileIndex) {
+        return profileUnitIds.get(profileIndex);
+    }
+
+    /**
+     * Number of units with a profile
+     *
+     * @param profileIndex - index of the profile
+     * @return - the number of units sharing the profile
+     */
+    public int getUnitCount(int profileIndex) {
+        return unitCounts.get(profileIndex);
+    }
+
+    /**
+     * Number of units with a profile for each unit status
+     *
+     * @param profileIndex - index of the profile
+     * @return - the number of units sharing the profile by unit status
+     */
+    public Map<String, Integer> getUnitStatusCounts(int profileIndex) {
+        return unitStatusCounts.get(profileIndex);
+    }
+
+    /**
+     * Hand each unit the result calculated for its profile, units with the same profile share the same instance
+     *
+     * @param profileResult - result for a profile index
+     * @return - map of unit id to the result for its profile
+     */
+    public <T> Map<String, T> byUnit(IntFunction<T> profileResult) {
+        Map<String, T> unitResults = new HashMap<>();
+        for (int unitIndex = 0; unitIndex < unitIds.length; unitIndex++) {
+            unitResults.put(unitIds[unitIndex], profileResult.apply(unitProfileIndexes[unitIndex]));
+        }
+        return unitResults;
+    }
+}
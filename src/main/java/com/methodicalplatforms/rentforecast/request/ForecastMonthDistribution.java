@@ -0,0 +1,14 @@
+package com.methodicalplatforms.rentforecast.request;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class ForecastMonthDistribution {
+    private int month;
+    private int year;
+    // standard deviations of the month's escalation rates, a missing one uses the simulation default
+    private BigDecimal marketEscalationRateStdDev;
+    private BigDecimal actualEscalationRateStdDev;
+}
@@ -0,0 +1,37 @@
+package com.methodicalplatforms.rentforecast.request;
+
+import lombok.Data;
+
+/**
+ * Views of a forecast response to build. Views that aren't asked for are skipped when summarizing, not just left out
+ * of the response. The defaults build every view.
+ */
+@Data
+public class ForecastOptions {
+    // only yearly forecasts, no monthly forecasts
+    private boolean summarizeByYear;
+    // only unit type totals, no forecasts for each unit
+    private boolean summarizeByUnitType;
+    // only the ALL UNITS totals
+    private boolean allUnitsOnly;
+    // yearly forecasts of each unit type by unit status
+    private boolean unitStatusView = true;
+    // only the months in the window, every month when not set
+    private ForecastWindow window;
+
+    public boolean includesMonths() {
+        return !summarizeByYear;
+    }
+
+    public boolean includesUnits() {
+        return !summarizeByUnitType && !allUnitsOnly;
+    }
+
+    public boolean includesUnitTypes() {
+        return !allUnitsOnly;
+    }
+
+    public boolean includesUnitStatuses() {
+        return unitStatusView && !allUnitsOnly;
+    }
+}
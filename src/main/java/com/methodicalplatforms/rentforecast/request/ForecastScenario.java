@@ -0,0 +1,20 @@
+package com.methodicalplatforms.rentforecast.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class ForecastScenario {
+    private String scenarioId;
+    // replaces the closing date of the base request
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    private LocalDate closingDate;
+    // replaces the excess rent adjustment rate of every unit type
+    private BigDecimal excessRentAdjustmentRate;
+    // replaces the escalation rates of these months in every unit type, the months must be in the base request
+    private List<ForecastMonth> forecastMonthData;
+}
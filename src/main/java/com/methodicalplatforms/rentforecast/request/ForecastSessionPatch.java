@@ -0,0 +1,15 @@
+package com.methodicalplatforms.rentforecast.request;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class ForecastSessionPatch {
+    private String unitType;
+    // replaces the details of each unit, units that aren't in the forecast yet are added
+    private Map<String, UnitDetails> unitDetails;
+    // replaces the escalation rates of each month, months that aren't in the forecast yet are added
+    private List<ForecastMonth> forecastMonthData;
+}
@@ -0,0 +1,20 @@
+package com.methodicalplatforms.rentforecast.request;
+
+import lombok.Data;
+
+/**
+ * Range of forecast months to return, by the forecast's year and month. Units are still forecast from the first
+ * month since rents compound and contracts renew, but months before the window only carry the forecast forward and
+ * months after it aren't forecast. Every monthly and yearly view only covers the months in the window.
+ */
+@Data
+public class ForecastWindow {
+    // first year of the window, from the first forecast month when not set
+    private Integer startYear;
+    // first month of the start year
+    private int startMonth = 1;
+    // last year of the window, up to the last forecast month when not set
+    private Integer endYear;
+    // last month of the end year
+    private int endMonth = 12;
+}
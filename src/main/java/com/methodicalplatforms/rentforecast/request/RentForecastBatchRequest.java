@@ -0,0 +1,12 @@
+package com.methodicalplatforms.rentforecast.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class RentForecastBatchRequest {
+    // forecast every scenario is applied to
+    private RentForecastRequest baseRequest;
+    private List<ForecastScenario> scenarios;
+}
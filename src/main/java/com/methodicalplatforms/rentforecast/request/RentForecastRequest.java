@@ -1,13 +1,18 @@
 package com.methodicalplatforms.rentforecast.request;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import lombok.Data;
 
 import java.time.LocalDate;
 import java.util.List;
 
+// closing date and options first, so a streamed request can be forecast while it is read
+@JsonPropertyOrder({"closingDate", "options", "unitTypeForecastList"})
 @Data
 public class RentForecastRequest {
+    // views to build, every view when missing
+    private ForecastOptions options;
     private List<UnitTypeForecast> unitTypeForecastList;
     @JsonFormat(pattern = "MM/dd/yyyy")
     private LocalDate closingDate;
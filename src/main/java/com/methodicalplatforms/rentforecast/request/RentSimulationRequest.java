@@ -0,0 +1,21 @@
+package com.methodicalplatforms.rentforecast.request;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class RentSimulationRequest {
+    // forecast whose escalation rates are simulated, its rates are the mean of each month's distribution
+    private RentForecastRequest baseRequest;
+    private int paths = 1000;
+    // paths are reproducible for a seed
+    private long seed;
+    private List<Double> percentiles = List.of(10d, 50d, 90d);
+    // standard deviations of every month with a non zero escalation rate
+    private BigDecimal marketEscalationRateStdDev;
+    private BigDecimal actualEscalationRateStdDev;
+    // distributions of specific months, for every unit type
+    private List<ForecastMonthDistribution> rateDistributions;
+}
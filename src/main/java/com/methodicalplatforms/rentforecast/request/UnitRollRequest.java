@@ -0,0 +1,24 @@
+package com.methodicalplatforms.rentforecast.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Everything needed to forecast a unit roll except the units: the closing date and the escalation curves. Unit types
+ * listed here use their own forecast months and excess rent adjustment rate, the others use the defaults.
+ */
+@Data
+public class UnitRollRequest {
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    private LocalDate closingDate;
+    // forecast months of unit types that aren't listed or have none of their own
+    private List<ForecastMonth> forecastMonthData;
+    // excess rent adjustment rate of unit types that aren't listed or have none of their own
+    private BigDecimal excessRentAdjustmentRate;
+    // curves by unit type, their unit details are ignored
+    private List<UnitTypeForecast> unitTypeForecastList;
+}
@@ -1,5 +1,6 @@
 package com.methodicalplatforms.rentforecast.request;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import lombok.Builder;
 import lombok.Data;
 
@@ -7,6 +8,8 @@ import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 
+// units last, after everything needed to forecast them
+@JsonPropertyOrder({"unitType", "excessRentAdjustmentRate", "forecastMonthData", "unitDetails"})
 @Data
 @Builder
 public class UnitTypeForecast {
@@ -0,0 +1,22 @@
+package com.methodicalplatforms.rentforecast.response;
+
+import com.methodicalplatforms.rentforecast.job.ForecastJobStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class ForecastJobResponse {
+    private String jobId;
+    private ForecastJobStatus status;
+    // share of the unit months forecast so far, from 0 to 1
+    private double progress;
+    private Instant submittedAt;
+    private Instant completedAt;
+    // only set once the job succeeded
+    private RentResponse forecast;
+    // only set if the job failed
+    private String error;
+}
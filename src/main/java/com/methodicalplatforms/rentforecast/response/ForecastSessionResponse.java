@@ -0,0 +1,11 @@
+package com.methodicalplatforms.rentforecast.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ForecastSessionResponse {
+    private String forecastId;
+    private RentResponse forecast;
+}
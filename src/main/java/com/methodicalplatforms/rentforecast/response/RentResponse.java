@@ -1,13 +1,17 @@
 package com.methodicalplatforms.rentforecast.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.Map;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class RentResponse {
     private Map<String, UnitTypeForecastMonthly> unitTypeForecastRentMonths;
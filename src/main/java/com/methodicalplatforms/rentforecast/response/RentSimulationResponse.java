@@ -0,0 +1,16 @@
+package com.methodicalplatforms.rentforecast.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class RentSimulationResponse {
+    private int paths;
+    private long seed;
+    // unit type, then percentile label (P10, P50, ...), then yearly and fiscal rents at that percentile
+    private Map<String, Map<String, List<RentForecastYear>>> unitTypeSimulationYears;
+}
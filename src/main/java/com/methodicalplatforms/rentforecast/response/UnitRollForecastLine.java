@@ -0,0 +1,23 @@
+package com.methodicalplatforms.rentforecast.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.methodicalplatforms.rentforecast.format.RentForecastMonthsSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One line of a unit roll forecast written as NDJSON, the monthly forecast of a unit or, without a unit id, the total
+ * of a unit type. Months are columns like in the CBOR encoding.
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UnitRollForecastLine {
+    private String unitType;
+    private String unitId;
+    @JsonSerialize(using = RentForecastMonthsSerializer.class)
+    private List<RentForecastMonth> forecast;
+}
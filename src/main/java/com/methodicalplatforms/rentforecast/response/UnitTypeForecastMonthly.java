@@ -1,16 +1,33 @@
 package com.methodicalplatforms.rentforecast.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.methodicalplatforms.rentforecast.calendar.MonthWindow;
+import com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastAggregates;
+import com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 import java.util.Map;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class UnitTypeForecastMonthly {
     private List<RentForecastMonth> unitTypeForecast;
     private Map<String, List<RentForecastMonth>> unitForecasts;
+    // Backing store of unitForecasts when forecast with the primitive engine
+    @JsonIgnore
+    private UnitTypeForecastColumns unitColumns;
+    // Summaries aggregated while forecasting with the primitive engine
+    @JsonIgnore
+    private UnitTypeForecastAggregates unitTypeAggregates;
+    // Months of the forecast that were returned, null when every month was
+    @JsonIgnore
+    private MonthWindow monthWindow;
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.methodicalplatforms.rentforecast.session;
+
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.kernel.PrimitiveRentForecastKernel;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.ForecastSessionPatch;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.RentResponse;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastYearly;
+import com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * A forecast kept on the server between requests so it can be changed a unit or a month at a time.
+ * Access is synchronized, responses are copied out of the session state before they are returned.
+ */
+class ForecastSession {
+    @Getter
+    private final String forecastId;
+    private final LocalDate closingDate;
+    private final PrimitiveRentForecastKernel primitiveRentForecastKernel;
+    private final Map<String, SessionUnitTypeForecast> unitTypeForecasts = new LinkedHashMap<>();
+    @Getter
+    private volatile long lastAccessedNanos;
+
+    ForecastSession(String forecastId, RentForecastRequest rentForecastRequest, PrimitiveRentForecastKernel primitiveRentForecastKernel) {
+        this.forecastId = forecastId;
+        this.closingDate = rentForecastRequest.getClosingDate();
+        this.primitiveRentForecastKernel = primitiveRentForecastKernel;
+        rentForecastRequest.getUnitTypeForecastList().forEach(unitTypeForecast -> {
+            if (unitTypeForecasts.containsKey(unitTypeForecast.getUnitType())) {
+                throw new IllegalArgumentException("Duplicate unit type " + unitTypeForecast.getUnitType());
+            }
+            unitTypeForecasts.put(unitTypeForecast.getUnitType(), new SessionUnitTypeForecast(copyOf(unitTypeForecast), closingDate, primitiveRentForecastKernel));
+        });
+        touch();
+    }
+
+    /**
+     * Apply a change to one unit type of the forecast
+     *
+     * @param forecastSessionPatch - the changed units and months
+     */
+    synchronized void patch(ForecastSessionPatch forecastSessionPatch) {
+        SessionUnitTypeForecast unitTypeForecast = unitTypeForecasts.get(forecastSessionPatch.getUnitType());
+        if (unitTypeForecast == null) {
+            throw new IllegalArgumentException("Unknown unit type " + forecastSessionPatch.getUnitType());
+        }
+        List<ForecastMonth> changedMonths = Objects.requireNonNullElse(forecastSessionPatch.getForecastMonthData(), List.of());
+        changedMonths.forEach(forecastMonth -> {
+            if (forecastMonth.getMarketEscalationRate() == null) {
+                throw new IllegalArgumentException("Missing market escalation rate for year " + forecastMonth.getYear() + " month " + forecastMonth.getMonth());
+            }
+        });
+
+        touch();
+        Map<String, UnitDetails> changedUnitDetails = Objects.requireNonNullElse(forecastSessionPatch.getUnitDetails(), Map.of());
+        if (!unitTypeForecast.update(changedUnitDetails, changedMonths)) {
+            // New units or months, forecast the unit type again with the updated inputs, replaced only once that worked
+            unitTypeForecasts.put(forecastSessionPatch.getUnitType(), new SessionUnitTypeForecast(
+                    unitTypeForecast.withChanges(changedUnitDetails, changedMonths), closingDate, primitiveRentForecastKernel));
+        }
+    }
+
+    /**
+     * @return - unit months of every unit type in the session, as they stand
+     */
+    synchronized long getUnitMonths() {
+        return RentForecastService.unitMonths(unitTypeForecasts.values().stream()
+                .map(SessionUnitTypeForecast::getUnitTypeForecast)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Summarize the current state of the session
+     *
+     * @param rentForecastService        - builds the response from the unit type forecasts
+     * @param rentForecastSummaryService - summarizes each unit type
+     * @return - forecast response, independent of the session state
+     */
+    synchronized RentResponse toRentResponse(RentForecastService rentForecastService, RentForecastSummaryService rentForecastSummaryService) {
+        touch();
+        Map<String, UnitTypeForecastMonthly> rentByMonths = new HashMap<>();
+        unitTypeForecasts.forEach((unitType, unitTypeForecast) -> rentByMonths.put(unitType, unitTypeForecast.toUnitTypeForecastMonthly(rentForecastSummaryService)));
+        List<UnitTypeForecast> unitTypeForecastList = unitTypeForecasts.values().stream()
+                .map(SessionUnitTypeForecast::getUnitTypeForecast)
+                .collect(Collectors.toList());
+        RentResponse rentResponse = rentForecastService.summarizeRents(rentByMonths, unitTypeForecastList, closingDate);
+
+        // Unit forecasts are views over the session columns, copy them before the session changes again
+        rentResponse.getUnitTypeForecastRentMonths().replaceAll((unitType, unitTypeForecastMonthly) -> UnitTypeForecastMonthly.builder()
+                .unitTypeForecast(unitTypeForecastMonthly.getUnitTypeForecast())
+                .unitForecasts(copyOf(unitTypeForecastMonthly.getUnitForecasts()))
+                .build());
+        rentResponse.getUnitTypeForecastRentYears().values().forEach(unitTypeForecastYearly ->
+                unitTypeForecastYearly.setUnitForecasts(copyOf(unitTypeForecastYearly.getUnitForecasts())));
+        return rentResponse;
+    }
+
+    private void touch() {
+        lastAccessedNanos = System.nanoTime();
+    }
+
+    private static <T> Map<String, List<T>> copyOf(Map<String, List<T>> unitForecasts) {
+        if (unitForecasts == null) {
+            return null;
+        }
+        Map<String, List<T>> copy = new HashMap<>();
+        unitForecasts.forEach((unitId, forecasts) -> copy.put(unitId, new ArrayList<>(forecasts)));
+        return copy;
+    }
+
+    private static UnitTypeForecast copyOf(UnitTypeForecast unitTypeForecast) {
+        return UnitTypeForecast.builder()
+                .unitType(unitTypeForecast.getUnitType())
+                .excessRentAdjustmentRate(unitTypeForecast.getExcessRentAdjustmentRate())
+                .forecastMonthData(unitTypeForecast.getForecastMonthData().stream()
+                        .map(forecastMonth -> ForecastMonth.builder()
+                                .year(forecastMonth.getYear())
+                                .month(forecastMonth.getMonth())
+                                .marketEscalationRate(forecastMonth.getMarketEscalationRate())
+                                .actualEscalationRate(forecastMonth.getActualEscalationRate())
+                                .build())
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .unitDetails(new HashMap<>(unitTypeForecast.getUnitDetails()))
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.methodicalplatforms.rentforecast.session;
+
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.admission.ForecastPermitFilter;
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.request.ForecastSessionPatch;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.response.ForecastSessionResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/rent-forecast/sessions")
+public class ForecastSessionController {
+
+    private final ForecastSessionService forecastSessionService;
+    private final ForecastAdmission forecastAdmission;
+
+    @Autowired
+    public ForecastSessionController(ForecastSessionService forecastSessionService, ForecastAdmission forecastAdmission) {
+        this.forecastSessionService = forecastSessionService;
+        this.forecastAdmission = forecastAdmission;
+    }
+
+    /**
+     * Forecast rents and keep the forecast for later changes, admitted like any other forecast
+     */
+    @PostMapping
+    public ResponseEntity<ForecastSessionResponse> createSession(@RequestBody RentForecastRequest rentForecastRequest, HttpServletRequest request) {
+        try {
+            ForecastPermitFilter.holdUntilWritten(request, forecastAdmission.admit(rentForecastRequest));
+            return ResponseEntity.ok(forecastSessionService.createSession(rentForecastRequest));
+        } catch (ForecastRejectedException e) {
+            return e.toResponse();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{forecastId}")
+    public ResponseEntity<ForecastSessionResponse> getSession(@PathVariable String forecastId) {
+        return forecastSessionService.getSession(forecastId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Change units or escalation rates of one unit type, only what changed is forecast again. The whole session is
+     * summarized for the response, so the change is admitted by the cost of the session.
+     */
+    @PatchMapping("/{forecastId}")
+    public ResponseEntity<ForecastSessionResponse> patchSession(@PathVariable String forecastId, @RequestBody ForecastSessionPatch forecastSessionPatch,
+                                                                HttpServletRequest request) {
+        try {
+            ForecastPermitFilter.holdUntilWritten(request, forecastAdmission.admit(forecastSessionService.estimateCost(forecastId)));
+            return forecastSessionService.patchSession(forecastId, forecastSessionPatch)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (ForecastRejectedException e) {
+            return e.toResponse();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/{forecastId}")
+    public ResponseEntity<Void> deleteSession(@PathVariable String forecastId) {
+        return forecastSessionService.deleteSession(forecastId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
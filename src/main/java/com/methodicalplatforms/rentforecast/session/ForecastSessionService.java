@@ -0,0 +1,138 @@
+package com.methodicalplatforms.rentforecast.session;
+
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.config.RentForecastSessionProperties;
+import com.methodicalplatforms.rentforecast.kernel.PrimitiveRentForecastKernel;
+import com.methodicalplatforms.rentforecast.request.ForecastSessionPatch;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.response.ForecastSessionResponse;
+import com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Forecasts kept between requests so an analyst's edits only recompute what changed. Sessions always forecast with
+ * the primitive kernel, a change is applied by subtracting the old contribution of a unit or month from the
+ * aggregates and adding the new one.
+ */
+@Service
+public class ForecastSessionService {
+
+    private final RentForecastService rentForecastService;
+    private final RentForecastSummaryService rentForecastSummaryService;
+    private final PrimitiveRentForecastKernel primitiveRentForecastKernel;
+    private final RentForecastSessionProperties sessionProperties;
+    private final Map<String, ForecastSession> forecastSessions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ForecastSessionService(RentForecastService rentForecastService, RentForecastSummaryService rentForecastSummaryService,
+                                  PrimitiveRentForecastKernel primitiveRentForecastKernel, RentForecastSessionProperties sessionProperties) {
+        this.rentForecastService = rentForecastService;
+        this.rentForecastSummaryService = rentForecastSummaryService;
+        this.primitiveRentForecastKernel = primitiveRentForecastKernel;
+        this.sessionProperties = sessionProperties;
+    }
+
+    /**
+     * Forecast rents and keep the forecast for later changes
+     *
+     * @param rentForecastRequest - details on what/how to forecast
+     * @return - the forecast id and forecast response
+     */
+    public ForecastSessionResponse createSession(RentForecastRequest rentForecastRequest) {
+        ForecastSession forecastSession = new ForecastSession(UUID.randomUUID().toString(), rentForecastRequest, primitiveRentForecastKernel);
+        // made room for and added together, concurrent creates can't go over the limit
+        synchronized (forecastSessions) {
+            expireSessions();
+            forecastSessions.put(forecastSession.getForecastId(), forecastSession);
+        }
+        return toResponse(forecastSession);
+    }
+
+    /**
+     * Current forecast of a session
+     *
+     * @param forecastId - id of the session
+     * @return - the forecast response, empty if there is no such session
+     */
+    public Optional<ForecastSessionResponse> getSession(String forecastId) {
+        return findSession(forecastId).map(this::toResponse);
+    }
+
+    /**
+     * Change units or escalation rates of a unit type in a session
+     *
+     * @param forecastId           - id of the session
+     * @param forecastSessionPatch - the changed units and months
+     * @return - the updated forecast response, empty if there is no such session
+     */
+    public Optional<ForecastSessionResponse> patchSession(String forecastId, ForecastSessionPatch forecastSessionPatch) {
+        return findSession(forecastId).map(forecastSession -> {
+            forecastSession.patch(forecastSessionPatch);
+            return toResponse(forecastSession);
+        });
+    }
+
+    /**
+     * Estimate the cost of answering a change to a session, the whole session is summarized again
+     *
+     * @param forecastId - id of the session
+     * @return - estimated cost in unit months per view, 0 if there is no such session
+     */
+    public long estimateCost(String forecastId) {
+        return findSession(forecastId)
+                .map(forecastSession -> ForecastAdmission.estimateCost(forecastSession.getUnitMonths(), null))
+                .orElse(0L);
+    }
+
+    /**
+     * Drop a session
+     *
+     * @param forecastId - id of the session
+     * @return - true if the session existed
+     */
+    public boolean deleteSession(String forecastId) {
+        return forecastSessions.remove(forecastId) != null;
+    }
+
+    private Optional<ForecastSession> findSession(String forecastId) {
+        ForecastSession forecastSession = forecastSessions.get(forecastId);
+        if (forecastSession != null && isExpired(forecastSession)) {
+            forecastSessions.remove(forecastId, forecastSession);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(forecastSession);
+    }
+
+    /**
+     * Drop idle sessions, then the least recently used ones until there is room for a new session. At least one
+     * session is always kept, the one being created.
+     */
+    private void expireSessions() {
+        forecastSessions.values().removeIf(this::isExpired);
+        int maxSessions = Math.max(1, sessionProperties.getMaxSessions());
+        while (!forecastSessions.isEmpty() && forecastSessions.size() >= maxSessions) {
+            forecastSessions.values().stream()
+                    .min(Comparator.comparingLong(ForecastSession::getLastAccessedNanos))
+                    .ifPresent(forecastSession -> forecastSessions.remove(forecastSession.getForecastId(), forecastSession));
+        }
+    }
+
+    private boolean isExpired(ForecastSession forecastSession) {
+        return System.nanoTime() - forecastSession.getLastAccessedNanos() > sessionProperties.getIdleTimeout().toNanos();
+    }
+
+    private ForecastSessionResponse toResponse(ForecastSession forecastSession) {
+        return ForecastSessionResponse.builder()
+                .forecastId(forecastSession.getForecastId())
+                .forecast(forecastSession.toRentResponse(rentForecastService, rentForecastSummaryService))
+                .build();
+    }
+}
@@ -0,0 +1,197 @@
+package com.methodicalplatforms.rentforecast.session;
+
+import com.methodicalplatforms.rentforecast.calendar.ForecastMonthIndex;
+import com.methodicalplatforms.rentforecast.kernel.PrimitiveRentForecastKernel;
+import com.methodicalplatforms.rentforecast.kernel.ProfileSlice;
+import com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastAggregates;
+import com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns;
+import com.methodicalplatforms.rentforecast.profile.UnitProfiles;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
+import com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Forecast state of a unit type in a forecast session. Every unit has its own slice of the columns, so a changed
+ * unit is swapped into the aggregates by removing its old months and adding the new ones, and a changed escalation
+ * rate only re-forecasts each unit from the changed month onward.
+ */
+class SessionUnitTypeForecast {
+    private final PrimitiveRentForecastKernel primitiveRentForecastKernel;
+    // Current inputs, owned by the session
+    @Getter
+    private final UnitTypeForecast unitTypeForecast;
+    private final List<ForecastMonth> sortedForecastMonths;
+    private final ForecastMonthIndex monthIndex;
+    private final double[] marketEscalationRates;
+    private final double[] actualEscalationRates;
+    private final double excessRentAdjustmentRate;
+    private final Map<String, Integer> unitIndexes = new HashMap<>();
+    private final UnitDetails[] unitDetails;
+    private final Map<String, Integer> unitStatusCounts = new HashMap<>();
+    private final UnitTypeForecastColumns unitColumns;
+    private final UnitTypeForecastAggregates unitTypeAggregates;
+
+    SessionUnitTypeForecast(UnitTypeForecast unitTypeForecast, LocalDate closingDate, PrimitiveRentForecastKernel primitiveRentForecastKernel) {
+        this.primitiveRentForecastKernel = primitiveRentForecastKernel;
+        this.unitTypeForecast = unitTypeForecast;
+        this.sortedForecastMonths = unitTypeForecast.getForecastMonthData().stream()
+                .sorted(Comparator.comparingInt(ForecastMonth::getYear).thenComparingInt(ForecastMonth::getMonth))
+                .collect(Collectors.toList());
+        this.monthIndex = new ForecastMonthIndex(sortedForecastMonths, closingDate);
+        this.marketEscalationRates = PrimitiveRentForecastKernel.marketEscalationRates(sortedForecastMonths);
+        this.actualEscalationRates = PrimitiveRentForecastKernel.actualEscalationRates(sortedForecastMonths);
+        this.excessRentAdjustmentRate = PrimitiveRentForecastKernel.toDouble(unitTypeForecast.getExcessRentAdjustmentRate());
+
+        UnitProfiles unitProfiles = UnitProfiles.perUnit(unitTypeForecast.getUnitDetails());
+        String[] unitIds = unitProfiles.getUnitIds();
+        this.unitDetails = new UnitDetails[unitIds.length];
+        this.unitColumns = new UnitTypeForecastColumns(sortedForecastMonths, unitProfiles, closingDate);
+        this.unitTypeAggregates = new UnitTypeForecastAggregates(unitColumns);
+        for (int unitIndex = 0; unitIndex < unitIds.length; unitIndex++) {
+            unitIndexes.put(unitIds[unitIndex], unitIndex);
+            unitDetails[unitIndex] = unitTypeForecast.getUnitDetails().get(unitIds[unitIndex]);
+            forecastUnit(unitIndex, 0);
+            adjustUnit(unitIndex, 0, 1);
+            unitStatusCounts.merge(unitDetails[unitIndex].getUnitStatus(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Apply changed units and escalation rates to existing units and months. Every changed unit is forecast once
+     * before anything is applied, a unit that can't be forecast fails the update and leaves the state as it was.
+     * New units or months change the shape of the forecast and leave the state as it was too.
+     *
+     * @param changedUnitDetails - replacement details by unit id
+     * @param changedMonths      - replacement escalation rates by year and month
+     * @return - false if the unit type has to be forecast again, from {@link #withChanges(Map, List)}
+     */
+    boolean update(Map<String, UnitDetails> changedUnitDetails, List<ForecastMonth> changedMonths) {
+        if (!unitIndexes.keySet().containsAll(changedUnitDetails.keySet()) || changedMonths.stream().anyMatch(changedMonth -> indexOf(changedMonth) < 0)) {
+            return false;
+        }
+        double[] trialMarketRents = new double[sortedForecastMonths.size()];
+        double[] trialActualRents = new double[sortedForecastMonths.size()];
+        changedUnitDetails.values().forEach(changedUnit -> forecastUnit(changedUnit, 0, trialMarketRents, trialActualRents, 0));
+
+        int firstChangedMonth = sortedForecastMonths.size();
+        for (ForecastMonth changedMonth : changedMonths) {
+            int monthIndex = indexOf(changedMonth);
+            ForecastMonth forecastMonth = sortedForecastMonths.get(monthIndex);
+            forecastMonth.setMarketEscalationRate(changedMonth.getMarketEscalationRate());
+            forecastMonth.setActualEscalationRate(changedMonth.getActualEscalationRate());
+            marketEscalationRates[monthIndex] = changedMonth.getMarketEscalationRate().doubleValue();
+            actualEscalationRates[monthIndex] = PrimitiveRentForecastKernel.toDouble(changedMonth.getActualEscalationRate());
+            firstChangedMonth = Math.min(firstChangedMonth, monthIndex);
+        }
+        unitTypeForecast.getUnitDetails().putAll(changedUnitDetails);
+
+        // Every unit escalates off the changed rates from the first changed month onward
+        if (firstChangedMonth < sortedForecastMonths.size()) {
+            for (int unitIndex = 0; unitIndex < unitDetails.length; unitIndex++) {
+                adjustUnit(unitIndex, firstChangedMonth, -1);
+                forecastUnit(unitIndex, firstChangedMonth);
+                adjustUnit(unitIndex, firstChangedMonth, 1);
+            }
+        }
+
+        changedUnitDetails.forEach((unitId, changedUnit) -> {
+            int unitIndex = unitIndexes.get(unitId);
+            adjustUnit(unitIndex, 0, -1);
+            String unitStatus = unitDetails[unitIndex].getUnitStatus();
+            if (unitStatusCounts.merge(unitStatus, -1, Integer::sum) == 0) {
+                unitStatusCounts.remove(unitStatus);
+                unitTypeAggregates.removeUnitStatus(unitStatus);
+            }
+
+            unitDetails[unitIndex] = changedUnit;
+            forecastUnit(unitIndex, 0);
+            adjustUnit(unitIndex, 0, 1);
+            unitStatusCounts.merge(changedUnit.getUnitStatus(), 1, Integer::sum);
+        });
+        return true;
+    }
+
+    /**
+     * Inputs of the unit type with changes applied, for forecasting it again when {@link #update(Map, List)} can't
+     *
+     * @param changedUnitDetails - replacement or new details by unit id
+     * @param changedMonths      - replacement or new escalation rates by year and month
+     * @return - a copy of the inputs, the inputs of this unit type are left as they are
+     */
+    UnitTypeForecast withChanges(Map<String, UnitDetails> changedUnitDetails, List<ForecastMonth> changedMonths) {
+        Map<Integer, ForecastMonth> forecastMonths = new LinkedHashMap<>();
+        for (List<ForecastMonth> months : List.of(sortedForecastMonths, changedMonths)) {
+            months.forEach(forecastMonth -> forecastMonths.put(forecastMonth.getYear() * 12 + forecastMonth.getMonth() - 1, ForecastMonth.builder()
+                    .year(forecastMonth.getYear())
+                    .month(forecastMonth.getMonth())
+                    .marketEscalationRate(forecastMonth.getMarketEscalationRate())
+                    .actualEscalationRate(forecastMonth.getActualEscalationRate())
+                    .build()));
+        }
+        Map<String, UnitDetails> unitDetailsById = new HashMap<>(unitTypeForecast.getUnitDetails());
+        unitDetailsById.putAll(changedUnitDetails);
+        return UnitTypeForecast.builder()
+                .unitType(unitTypeForecast.getUnitType())
+                .excessRentAdjustmentRate(unitTypeForecast.getExcessRentAdjustmentRate())
+                .forecastMonthData(new ArrayList<>(forecastMonths.values()))
+                .unitDetails(unitDetailsById)
+                .build();
+    }
+
+    /**
+     * Current monthly forecast of the unit type, the unit forecasts are views over the session's columns
+     *
+     * @param rentForecastSummaryService - summarizes the unit type
+     * @return - monthly forecast for the unit type
+     */
+    UnitTypeForecastMonthly toUnitTypeForecastMonthly(RentForecastSummaryService rentForecastSummaryService) {
+        return UnitTypeForecastMonthly.builder()
+                .unitTypeForecast(rentForecastSummaryService.summarizeUnitType(unitTypeAggregates))
+                .unitForecasts(unitColumns.unitForecastViews())
+                .unitColumns(unitColumns)
+                .unitTypeAggregates(unitTypeAggregates)
+                .build();
+    }
+
+    private void forecastUnit(int unitIndex, int fromMonth) {
+        ProfileSlice unitSlice = unitColumns.slice(unitIndex, true);
+        forecastUnit(unitDetails[unitIndex], fromMonth, unitSlice.getMarketRents(), unitSlice.getActualRents(), unitSlice.getOffset());
+        unitColumns.store(unitSlice);
+    }
+
+    private void forecastUnit(UnitDetails unit, int fromMonth, double[] marketRents, double[] actualRents, int offset) {
+        primitiveRentForecastKernel.forecastUnitFrom(fromMonth, marketEscalationRates, actualEscalationRates,
+                monthIndex.getPropertyStartIndex(), monthIndex.unitSchedule(unit),
+                PrimitiveRentForecastKernel.toDouble(unit.getStartingMarketRent()),
+                PrimitiveRentForecastKernel.toDouble(unit.getStartingActualRent()),
+                excessRentAdjustmentRate, marketRents, actualRents, offset);
+    }
+
+    private void adjustUnit(int unitIndex, int fromMonth, int sign) {
+        ProfileSlice unitSlice = unitColumns.slice(unitIndex, true);
+        unitTypeAggregates.adjustProfile(unitSlice, fromMonth, sign, Collections.singletonMap(unitDetails[unitIndex].getUnitStatus(), 1));
+        unitColumns.store(unitSlice);
+    }
+
+    private int indexOf(ForecastMonth forecastMonth) {
+        for (int i = 0; i < sortedForecastMonths.size(); i++) {
+            if (sortedForecastMonths.get(i).getYear() == forecastMonth.getYear() && sortedForecastMonths.get(i).getMonth() == forecastMonth.getMonth()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,11 @@
+package com.methodicalplatforms.rentforecast.shard;
+
+/**
+ * A shard no worker could forecast, the sharded forecast fails with it
+ */
+public class ForecastShardException extends RuntimeException {
+
+    public ForecastShardException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
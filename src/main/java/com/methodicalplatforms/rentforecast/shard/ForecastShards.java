@@ -0,0 +1,152 @@
+package com.methodicalplatforms.rentforecast.shard;
+
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Splits a forecast request into shards of about the same number of unit months. Unit types too large for one shard
+ * are split by unit, every piece goes to the least loaded shard, largest first. Pieces of a unit type that end up in
+ * the same shard are put back together, a request can't name a unit type twice.
+ */
+public final class ForecastShards {
+
+    private ForecastShards() {
+    }
+
+    /**
+     * @param rentForecastRequest   - the request to split
+     * @param shardCount            - shards to spread the request over, more when needed to keep under the shard size
+     * @param maxUnitMonthsPerShard - largest shard in unit months
+     * @return - requests with the same closing date and options, together forecasting every unit of the request once
+     */
+    public static List<RentForecastRequest> partition(RentForecastRequest rentForecastRequest, int shardCount, long maxUnitMonthsPerShard) {
+        List<UnitTypeForecast> unitTypeForecastList = rentForecastRequest.getUnitTypeForecastList() == null ? List.of()
+                : rentForecastRequest.getUnitTypeForecastList();
+        long totalUnitMonths = unitTypeForecastList.stream().mapToLong(ForecastShards::unitMonths).sum();
+        long maxShardUnitMonths = Math.max(1, Math.min(maxUnitMonthsPerShard, ceilDiv(totalUnitMonths, Math.max(1, shardCount))));
+        int shards = (int) Math.max(shardCount, ceilDiv(totalUnitMonths, maxShardUnitMonths));
+
+        List<ShardPiece> pieces = new ArrayList<>();
+        for (UnitTypeForecast unitTypeForecast : unitTypeForecastList) {
+            pieces.addAll(split(unitTypeForecast, maxShardUnitMonths));
+        }
+        pieces.sort(Comparator.comparingLong(ShardPiece::getUnitMonths).reversed());
+
+        PriorityQueue<ShardLoad> shardLoads = new PriorityQueue<>(Comparator.comparingLong(ShardLoad::getUnitMonths)
+                .thenComparingInt(ShardLoad::getIndex));
+        for (int index = 0; index < Math.min(shards, Math.max(1, pieces.size())); index++) {
+            shardLoads.add(new ShardLoad(index));
+        }
+        for (ShardPiece piece : pieces) {
+            ShardLoad shardLoad = shardLoads.poll();
+            shardLoad.add(piece);
+            shardLoads.add(shardLoad);
+        }
+
+        List<ShardLoad> loads = new ArrayList<>(shardLoads);
+        loads.sort(Comparator.comparingInt(ShardLoad::getIndex));
+        List<RentForecastRequest> shardRequests = new ArrayList<>();
+        for (ShardLoad shardLoad : loads) {
+            RentForecastRequest shardRequest = new RentForecastRequest();
+            shardRequest.setClosingDate(rentForecastRequest.getClosingDate());
+            shardRequest.setOptions(rentForecastRequest.getOptions());
+            shardRequest.setUnitTypeForecastList(new ArrayList<>(shardLoad.unitTypes.values()));
+            shardRequests.add(shardRequest);
+        }
+        return shardRequests;
+    }
+
+    /**
+     * @param unitTypeForecast   - unit type to split
+     * @param maxShardUnitMonths - largest piece in unit months
+     * @return - the unit type whole, or split by unit id into pieces of about the same size
+     */
+    private static List<ShardPiece> split(UnitTypeForecast unitTypeForecast, long maxShardUnitMonths) {
+        long unitMonths = unitMonths(unitTypeForecast);
+        if (unitMonths <= maxShardUnitMonths) {
+            return List.of(new ShardPiece(unitTypeForecast, unitMonths));
+        }
+        int pieceCount = (int) Math.min(unitTypeForecast.getUnitDetails().size(), ceilDiv(unitMonths, maxShardUnitMonths));
+        List<Map.Entry<String, UnitDetails>> units = new ArrayList<>(new TreeMap<>(unitTypeForecast.getUnitDetails()).entrySet());
+        List<ShardPiece> pieces = new ArrayList<>(pieceCount);
+        for (int piece = 0; piece < pieceCount; piece++) {
+            Map<String, UnitDetails> pieceUnits = new HashMap<>();
+            for (Map.Entry<String, UnitDetails> unit : units.subList(units.size() * piece / pieceCount, units.size() * (piece + 1) / pieceCount)) {
+                pieceUnits.put(unit.getKey(), unit.getValue());
+            }
+            UnitTypeForecast pieceForecast = withUnits(unitTypeForecast, pieceUnits);
+            pieces.add(new ShardPiece(pieceForecast, unitMonths(pieceForecast)));
+        }
+        return pieces;
+    }
+
+    private static UnitTypeForecast withUnits(UnitTypeForecast unitTypeForecast, Map<String, UnitDetails> unitDetails) {
+        return UnitTypeForecast.builder()
+                .unitType(unitTypeForecast.getUnitType())
+                .forecastMonthData(unitTypeForecast.getForecastMonthData())
+                .excessRentAdjustmentRate(unitTypeForecast.getExcessRentAdjustmentRate())
+                .unitDetails(unitDetails)
+                .build();
+    }
+
+    private static long unitMonths(UnitTypeForecast unitTypeForecast) {
+        long units = unitTypeForecast.getUnitDetails() == null ? 0 : unitTypeForecast.getUnitDetails().size();
+        long months = unitTypeForecast.getForecastMonthData() == null ? 0 : unitTypeForecast.getForecastMonthData().size();
+        return units * months;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+
+    private static final class ShardPiece {
+        private final UnitTypeForecast unitTypeForecast;
+        private final long unitMonths;
+
+        private ShardPiece(UnitTypeForecast unitTypeForecast, long unitMonths) {
+            this.unitTypeForecast = unitTypeForecast;
+            this.unitMonths = unitMonths;
+        }
+
+        private long getUnitMonths() {
+            return unitMonths;
+        }
+    }
+
+    private static final class ShardLoad {
+        private final int index;
+        private final Map<String, UnitTypeForecast> unitTypes = new LinkedHashMap<>();
+        private long unitMonths;
+
+        private ShardLoad(int index) {
+            this.index = index;
+        }
+
+        private void add(ShardPiece piece) {
+            unitMonths += piece.unitMonths;
+            unitTypes.merge(piece.unitTypeForecast.getUnitType(), piece.unitTypeForecast, (current, added) -> {
+                Map<String, UnitDetails> unitDetails = new HashMap<>(current.getUnitDetails());
+                unitDetails.putAll(added.getUnitDetails());
+                return withUnits(current, unitDetails);
+            });
+        }
+
+        private int getIndex() {
+            return index;
+        }
+
+        private long getUnitMonths() {
+            return unitMonths;
+        }
+    }
+}
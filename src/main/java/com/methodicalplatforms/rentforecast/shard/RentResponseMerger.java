@@ -0,0 +1,174 @@
+package com.methodicalplatforms.rentforecast.shard;
+
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.RentForecastMonth;
+import com.methodicalplatforms.rentforecast.response.RentForecastYear;
+import com.methodicalplatforms.rentforecast.response.RentResponse;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastYearly;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+/**
+ * Combines the responses of shards into the response of the whole request. Every rent in a response is a sum over
+ * units, so responses merge by adding rents with the same key: unit type or unit, then year and month. Merging is
+ * associative and commutative, shard responses can be merged in the order they arrive, then put back in the order of
+ * the request. Inputs aren't modified.
+ */
+public final class RentResponseMerger {
+
+    private RentResponseMerger() {
+    }
+
+    /**
+     * @param left  - response of some shards
+     * @param right - response of other shards
+     * @return - response of both
+     */
+    public static RentResponse merge(RentResponse left, RentResponse right) {
+        return RentResponse.builder()
+                .unitTypeForecastRentMonths(mergeMaps(left.getUnitTypeForecastRentMonths(), right.getUnitTypeForecastRentMonths(),
+                        RentResponseMerger::mergeMonthly))
+                .unitTypeForecastRentYears(mergeMaps(left.getUnitTypeForecastRentYears(), right.getUnitTypeForecastRentYears(),
+                        RentResponseMerger::mergeYearly))
+                .unitTypeUnitStatusView(mergeMaps(left.getUnitTypeUnitStatusView(), right.getUnitTypeUnitStatusView(),
+                        RentResponseMerger::mergeYearly))
+                .build();
+    }
+
+    /**
+     * @param rentResponse         - merged response of every shard
+     * @param unitTypeForecastList - unit types of the request the shards were split from
+     * @return - the same response with unit types and their units in the order of the request, keys the request
+     * doesn't name, like ALL UNITS, after them
+     */
+    public static RentResponse inRequestOrder(RentResponse rentResponse, List<UnitTypeForecast> unitTypeForecastList) {
+        Map<String, List<String>> unitIdsByUnitType = new LinkedHashMap<>();
+        unitTypeForecastList.forEach(unitTypeForecast -> unitIdsByUnitType.put(unitTypeForecast.getUnitType(),
+                unitTypeForecast.getUnitDetails() == null ? List.of() : List.copyOf(unitTypeForecast.getUnitDetails().keySet())));
+        List<String> unitTypes = List.copyOf(unitIdsByUnitType.keySet());
+        return RentResponse.builder()
+                .unitTypeForecastRentMonths(ordered(rentResponse.getUnitTypeForecastRentMonths(), unitTypes, (unitType, monthly) ->
+                        UnitTypeForecastMonthly.builder()
+                                .unitTypeForecast(monthly.getUnitTypeForecast())
+                                .unitForecasts(ordered(monthly.getUnitForecasts(), unitIdsByUnitType.getOrDefault(unitType, List.of())))
+                                .build()))
+                .unitTypeForecastRentYears(ordered(rentResponse.getUnitTypeForecastRentYears(), unitTypes,
+                        (unitType, yearly) -> orderedYearly(yearly, unitIdsByUnitType.getOrDefault(unitType, List.of()))))
+                .unitTypeUnitStatusView(ordered(rentResponse.getUnitTypeUnitStatusView(), unitTypes,
+                        (unitType, yearly) -> orderedYearly(yearly, List.of())))
+                .build();
+    }
+
+    private static UnitTypeForecastYearly orderedYearly(UnitTypeForecastYearly yearly, List<String> unitIds) {
+        UnitTypeForecastYearly ordered = new UnitTypeForecastYearly();
+        ordered.setUnitTypeForecast(yearly.getUnitTypeForecast());
+        ordered.setUnitForecasts(ordered(yearly.getUnitForecasts(), unitIds));
+        return ordered;
+    }
+
+    private static <V> Map<String, V> ordered(Map<String, V> map, List<String> keys) {
+        return ordered(map, keys, (key, value) -> value);
+    }
+
+    /**
+     * @return - the map's entries with the given keys first, in order, then the rest in their order, null when null
+     */
+    private static <V> Map<String, V> ordered(Map<String, V> map, List<String> keys, BiFunction<String, V, V> copy) {
+        if (map == null) {
+            return null;
+        }
+        Map<String, V> ordered = new LinkedHashMap<>();
+        for (String key : keys) {
+            if (map.containsKey(key)) {
+                ordered.put(key, copy.apply(key, map.get(key)));
+            }
+        }
+        map.forEach((key, value) -> ordered.computeIfAbsent(key, absent -> copy.apply(key, value)));
+        return ordered;
+    }
+
+    private static UnitTypeForecastMonthly mergeMonthly(UnitTypeForecastMonthly left, UnitTypeForecastMonthly right) {
+        return UnitTypeForecastMonthly.builder()
+                .unitTypeForecast(addMonths(left.getUnitTypeForecast(), right.getUnitTypeForecast()))
+                .unitForecasts(mergeMaps(left.getUnitForecasts(), right.getUnitForecasts(), RentResponseMerger::addMonths))
+                .build();
+    }
+
+    private static UnitTypeForecastYearly mergeYearly(UnitTypeForecastYearly left, UnitTypeForecastYearly right) {
+        UnitTypeForecastYearly merged = new UnitTypeForecastYearly();
+        merged.setUnitTypeForecast(addYears(left.getUnitTypeForecast(), right.getUnitTypeForecast()));
+        merged.setUnitForecasts(mergeMaps(left.getUnitForecasts(), right.getUnitForecasts(), RentResponseMerger::addYears));
+        return merged;
+    }
+
+    /**
+     * @return - both maps, values of keys in both merged, keys of the left first, null when both are null
+     */
+    private static <V> Map<String, V> mergeMaps(Map<String, V> left, Map<String, V> right, BinaryOperator<V> merge) {
+        if (left == null || right == null) {
+            return left == null ? right : left;
+        }
+        Map<String, V> merged = new LinkedHashMap<>(left);
+        right.forEach((key, value) -> merged.merge(key, value, merge));
+        return merged;
+    }
+
+    /**
+     * @return - rents of both added by year and month, sorted by year and month
+     */
+    private static List<RentForecastMonth> addMonths(List<RentForecastMonth> left, List<RentForecastMonth> right) {
+        if (left == null || right == null) {
+            return left == null ? right : left;
+        }
+        TreeMap<Integer, RentForecastMonth> monthsByKey = new TreeMap<>();
+        for (List<RentForecastMonth> months : List.of(left, right)) {
+            for (RentForecastMonth month : months) {
+                monthsByKey.merge(month.getYear() * 12 + month.getMonth() - 1, month, (current, added) -> new RentForecastMonth(
+                        current.getYear(), current.getMonth(),
+                        add(current.getMarketRent(), added.getMarketRent()),
+                        add(current.getActualRent(), added.getActualRent())));
+            }
+        }
+        return new ArrayList<>(monthsByKey.values());
+    }
+
+    /**
+     * @return - calendar and fiscal rents of both added by year, sorted by year
+     */
+    private static List<RentForecastYear> addYears(List<RentForecastYear> left, List<RentForecastYear> right) {
+        if (left == null || right == null) {
+            return left == null ? right : left;
+        }
+        TreeMap<Integer, RentForecastYear> yearsByKey = new TreeMap<>();
+        for (List<RentForecastYear> years : List.of(left, right)) {
+            for (RentForecastYear year : years) {
+                yearsByKey.merge(year.getYear(), year, (current, added) -> RentForecastYear.builder()
+                        .year(current.getYear())
+                        .marketRent(add(current.getMarketRent(), added.getMarketRent()))
+                        .actualRent(add(current.getActualRent(), added.getActualRent()))
+                        .fiscalMarketRent(add(current.getFiscalMarketRent(), added.getFiscalMarketRent()))
+                        .fiscalActualRent(add(current.getFiscalActualRent(), added.getFiscalActualRent()))
+                        .build());
+            }
+        }
+        return new ArrayList<>(yearsByKey.values());
+    }
+
+    /**
+     * @return - sum of both, a rent missing from one side counts as zero
+     */
+    private static BigDecimal add(BigDecimal left, BigDecimal right) {
+        if (left == null || right == null) {
+            return left == null ? right : left;
+        }
+        return left.add(right);
+    }
+}
@@ -0,0 +1,55 @@
+package com.methodicalplatforms.rentforecast.shard;
+
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.admission.ForecastPermitFilter;
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.response.RentResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/rent-forecast/sharded")
+public class ShardedForecastController {
+
+    private final ShardedForecastService shardedForecastService;
+    private final ForecastAdmission forecastAdmission;
+
+    @Autowired
+    public ShardedForecastController(ShardedForecastService shardedForecastService, ForecastAdmission forecastAdmission) {
+        this.shardedForecastService = shardedForecastService;
+        this.forecastAdmission = forecastAdmission;
+    }
+
+    /**
+     * Same response as POST /rent-forecast, forecast in shards on the configured workers.
+     * 503 when no workers are configured, 502 when a shard failed on every worker it was tried on.
+     * 413 if the merged response is over the whole forecast budget, 429 if the budget is in use.
+     */
+    @PostMapping
+    public ResponseEntity<RentResponse> getShardedRentForecasts(@RequestBody RentForecastRequest rentForecastRequest, HttpServletRequest request) {
+        if (!shardedForecastService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        try {
+            // the merged response is held until it is written
+            ForecastPermitFilter.holdUntilWritten(request, forecastAdmission.admitSharded(rentForecastRequest));
+            return ResponseEntity.ok(shardedForecastService.forecastRents(rentForecastRequest));
+        } catch (ForecastRejectedException e) {
+            return e.toResponse();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ForecastShardException e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
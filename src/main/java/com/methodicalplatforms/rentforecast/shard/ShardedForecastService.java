@@ -0,0 +1,178 @@
+package com.methodicalplatforms.rentforecast.shard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.config.RentForecastShardProperties;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.response.RentResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Coordinates a forecast over several instances of this service. The request is split into shards by
+ * {@link ForecastShards}, each shard is posted to a worker's streaming ingest endpoint and the responses are merged by
+ * {@link RentResponseMerger} as they come back. Shards go round robin over the workers, a shard that fails on one is
+ * tried on the next, after waiting out the Retry-After of a worker that is busy.
+ */
+@Slf4j
+@Service
+public class ShardedForecastService {
+
+    // forecasts each unit type of a shard as it is read, shards are written closing date first
+    private static final String WORKER_PATH = "/rent-forecast?ingest=stream";
+
+    private final RentForecastShardProperties shardProperties;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final ExecutorService shardExecutor;
+
+    @Autowired
+    public ShardedForecastService(RentForecastShardProperties shardProperties, ObjectMapper objectMapper) {
+        this.shardProperties = shardProperties;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(shardProperties.getConnectTimeout()).build();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("rent-forecast-shard-");
+        threadFactory.setDaemon(true);
+        // shards in flight over every worker, the rest wait for one to come back
+        this.shardExecutor = Executors.newFixedThreadPool(Math.max(1, shardCount()), threadFactory);
+    }
+
+    /**
+     * @return - true if there are workers to send shards to
+     */
+    public boolean isEnabled() {
+        return !shardProperties.getWorkers().isEmpty();
+    }
+
+    /**
+     * Forecast a request on the workers
+     *
+     * @param rentForecastRequest - details on what/how to forecast
+     * @return - the same response as forecasting the whole request on one instance, unit types and units in request order
+     * @throws IllegalArgumentException - if a worker turned a shard away as invalid
+     * @throws ForecastShardException   - if a shard failed on every worker it was tried on
+     * @throws InterruptedException     - if interrupted while waiting for the workers, shards still in flight are cancelled
+     */
+    public RentResponse forecastRents(RentForecastRequest rentForecastRequest) throws InterruptedException {
+        if (!isEnabled()) {
+            throw new IllegalStateException("No rent forecast workers configured");
+        }
+        List<RentForecastRequest> shards = ForecastShards.partition(rentForecastRequest, shardCount(), shardProperties.getMaxUnitMonthsPerShard());
+        ExecutorCompletionService<RentResponse> completedShards = new ExecutorCompletionService<>(shardExecutor);
+        List<Future<RentResponse>> shardFutures = new ArrayList<>(shards.size());
+        for (int shardIndex = 0; shardIndex < shards.size(); shardIndex++) {
+            int firstWorker = shardIndex;
+            RentForecastRequest shard = shards.get(shardIndex);
+            shardFutures.add(completedShards.submit(() -> forecastShard(shard, firstWorker)));
+        }
+
+        RentResponse rentResponse = null;
+        try {
+            for (int completed = 0; completed < shards.size(); completed++) {
+                RentResponse shardResponse = completedShards.take().get();
+                rentResponse = rentResponse == null ? shardResponse : RentResponseMerger.merge(rentResponse, shardResponse);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ForecastShardException("Shard failed", e.getCause());
+        } finally {
+            shardFutures.forEach(shardFuture -> shardFuture.cancel(true));
+        }
+        // shards come back in any order
+        return RentResponseMerger.inRequestOrder(rentResponse, rentForecastRequest.getUnitTypeForecastList());
+    }
+
+    /**
+     * @param shard       - part of the request
+     * @param firstWorker - worker to try first, modulo the number of workers
+     * @return - the worker's response to the shard
+     */
+    private RentResponse forecastShard(RentForecastRequest shard, int firstWorker) throws IOException, InterruptedException {
+        List<String> workers = shardProperties.getWorkers();
+        byte[] body = objectMapper.writeValueAsBytes(shard);
+        Exception lastFailure = null;
+        for (int attempt = 0; attempt < Math.max(1, shardProperties.getMaxAttempts()); attempt++) {
+            String worker = workers.get((firstWorker + attempt) % workers.size());
+            HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(stripTrailingSlash(worker) + WORKER_PATH))
+                    .timeout(shardProperties.getRequestTimeout())
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+            HttpResponse<byte[]> httpResponse;
+            try {
+                httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+            } catch (IOException e) {
+                log.warn("Rent forecast worker {} unreachable: {}", worker, e.getMessage());
+                lastFailure = e;
+                continue;
+            }
+
+            int status = httpResponse.statusCode();
+            if (status == HttpStatus.OK.value()) {
+                return objectMapper.readValue(httpResponse.body(), RentResponse.class);
+            }
+            if (status == HttpStatus.BAD_REQUEST.value()) {
+                throw new IllegalArgumentException("Rent forecast worker " + worker + " rejected the request as invalid");
+            }
+            lastFailure = new IOException("Rent forecast worker " + worker + " answered " + status);
+            if (status == HttpStatus.TOO_MANY_REQUESTS.value() || status == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                // the worker is busy, the next one may be too
+                Thread.sleep(retryAfter(httpResponse).toMillis());
+            } else if (status < 500) {
+                // the same shard gets the same answer from every worker
+                break;
+            }
+            log.warn(lastFailure.getMessage());
+        }
+        throw new ForecastShardException("Shard with " + shard.getUnitTypeForecastList().size() + " unit types failed on every worker tried",
+                lastFailure);
+    }
+
+    private Duration retryAfter(HttpResponse<?> httpResponse) {
+        Duration retryAfter = httpResponse.headers().firstValue(HttpHeaders.RETRY_AFTER)
+                .map(seconds -> {
+                    try {
+                        return Duration.ofSeconds(Long.parseLong(seconds.trim()));
+                    } catch (NumberFormatException e) {
+                        return Duration.ZERO;
+                    }
+                })
+                .orElse(Duration.ZERO);
+        return retryAfter.compareTo(shardProperties.getMaxRetryAfter()) > 0 ? shardProperties.getMaxRetryAfter() : retryAfter;
+    }
+
+    private int shardCount() {
+        return shardProperties.getWorkers().size() * Math.max(1, shardProperties.getShardsPerWorker());
+    }
+
+    private static String stripTrailingSlash(String worker) {
+        return worker.endsWith("/") ? worker.substring(0, worker.length() - 1) : worker;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shardExecutor.shutdownNow();
+    }
+}
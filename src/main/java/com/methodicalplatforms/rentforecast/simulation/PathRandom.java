@@ -0,0 +1,47 @@
+package com.methodicalplatforms.rentforecast.simulation;
+
+/**
+ * SplitMix64 generator that is reseeded for every path, so a path's draws only depend on the seed and the path number
+ * and not on which thread simulates it. Reseeding reuses the instance, the path loop doesn't allocate.
+ */
+final class PathRandom {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private long state;
+
+    /**
+     * @param seed - simulation seed
+     * @param path - path number
+     */
+    void reseed(long seed, int path) {
+        state = mix(seed + mix(path + 1L) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * @return - uniform double in [0, 1)
+     */
+    double nextDouble() {
+        state += GOLDEN_GAMMA;
+        return (mix(state) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Fill two arrays with independent standard normal draws, Box-Muller
+     *
+     * @param first  - receives the first draw of each pair
+     * @param second - receives the second draw of each pair
+     */
+    void nextGaussians(double[] first, double[] second) {
+        for (int i = 0; i < first.length; i++) {
+            double radius = Math.sqrt(-2d * Math.log(1d - nextDouble()));
+            double angle = 2d * Math.PI * nextDouble();
+            first[i] = radius * Math.cos(angle);
+            second[i] = radius * Math.sin(angle);
+        }
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,37 @@
+package com.methodicalplatforms.rentforecast.simulation;
+
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.request.RentSimulationRequest;
+import com.methodicalplatforms.rentforecast.response.RentSimulationResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/rent-forecast/simulations")
+public class RentSimulationController {
+
+    private final RentSimulationService rentSimulationService;
+
+    @Autowired
+    public RentSimulationController(RentSimulationService rentSimulationService) {
+        this.rentSimulationService = rentSimulationService;
+    }
+
+    /**
+     * Simulate a forecast with uncertain escalation rates, yearly rents are summarized by percentile
+     */
+    @PostMapping
+    public ResponseEntity<RentSimulationResponse> simulate(@RequestBody RentSimulationRequest simulationRequest) {
+        try {
+            return ResponseEntity.ok(rentSimulationService.simulate(simulationRequest));
+        } catch (ForecastRejectedException e) {
+            return e.toResponse();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
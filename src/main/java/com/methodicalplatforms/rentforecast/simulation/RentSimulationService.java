@@ -0,0 +1,388 @@
+package com.methodicalplatforms.rentforecast.simulation;
+
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.admission.ForecastPermit;
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.calendar.ForecastMonthIndex;
+import com.methodicalplatforms.rentforecast.calendar.UnitMonthSchedule;
+import com.methodicalplatforms.rentforecast.config.RentSimulationProperties;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.kernel.PrimitiveRentForecastKernel;
+import com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns;
+import com.methodicalplatforms.rentforecast.profile.UnitProfiles;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.ForecastMonthDistribution;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.RentSimulationRequest;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.RentForecastYear;
+import com.methodicalplatforms.rentforecast.response.RentSimulationResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.FISCAL_ACTUAL_RENT;
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.FISCAL_MARKET_RENT;
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.YEARLY_ACTUAL_RENT;
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.YEARLY_FIELDS;
+import static com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns.YEARLY_MARKET_RENT;
+import static com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService.ALL_UNITS;
+
+/**
+ * Monte Carlo simulation of a forecast with uncertain escalation rates. Each path draws every month's market and
+ * actual escalation rate from a normal distribution around the requested rate, the draws for a calendar month are
+ * shared by all unit types of the path. Every unit profile is forecast with the primitive kernel and rolled up into
+ * yearly and fiscal year totals per unit type, like RentForecastSummaryService does, and the totals of all paths
+ * are reduced to percentiles.
+ * <p>
+ * Paths are split across the forecast executor, each thread reuses its own scratch arrays so the path loop doesn't
+ * allocate. A path's draws only depend on the seed and the path number, results are reproducible for a seed.
+ */
+@Service
+public class RentSimulationService {
+
+    private final PrimitiveRentForecastKernel primitiveRentForecastKernel;
+    private final ForecastExecutor forecastExecutor;
+    private final RentSimulationProperties simulationProperties;
+    private final ForecastAdmission forecastAdmission;
+
+    @Autowired
+    public RentSimulationService(PrimitiveRentForecastKernel primitiveRentForecastKernel, ForecastExecutor forecastExecutor,
+                                 RentSimulationProperties simulationProperties, ForecastAdmission forecastAdmission) {
+        this.primitiveRentForecastKernel = primitiveRentForecastKernel;
+        this.forecastExecutor = forecastExecutor;
+        this.simulationProperties = simulationProperties;
+        this.forecastAdmission = forecastAdmission;
+    }
+
+    /**
+     * Simulate a forecast and summarize the yearly rents of every unit type by percentile
+     *
+     * @param simulationRequest - the forecast, its rate distributions and the number of paths
+     * @return - yearly and fiscal year rent percentiles by unit type
+     * @throws IllegalArgumentException  - if the request is missing its forecast or asks for invalid paths, percentiles or deviations
+     * @throws ForecastRejectedException - if the paths over every unit profile are over the request limit or the budget is in use
+     */
+    public RentSimulationResponse simulate(RentSimulationRequest simulationRequest) {
+        validate(simulationRequest);
+        RentForecastRequest baseRequest = simulationRequest.getBaseRequest();
+        LocalDate closingDate = baseRequest.getClosingDate();
+        int paths = simulationRequest.getPaths();
+
+        // Every calendar month gets one draw per path, whichever unit types forecast it
+        TreeSet<Integer> monthKeys = new TreeSet<>();
+        baseRequest.getUnitTypeForecastList().forEach(unitTypeForecast ->
+                unitTypeForecast.getForecastMonthData().forEach(forecastMonth -> monthKeys.add(monthKey(forecastMonth))));
+        Map<Integer, Integer> shockIndexes = new HashMap<>();
+        monthKeys.forEach(monthKey -> shockIndexes.put(monthKey, shockIndexes.size()));
+        Map<Integer, ForecastMonthDistribution> rateDistributions = new HashMap<>();
+        Objects.requireNonNullElse(simulationRequest.getRateDistributions(), List.<ForecastMonthDistribution>of())
+                .forEach(distribution -> rateDistributions.put(distribution.getYear() * 12 + distribution.getMonth() - 1, distribution));
+
+        List<SimulatedUnitType> unitTypes = new ArrayList<>();
+        for (UnitTypeForecast unitTypeForecast : baseRequest.getUnitTypeForecastList()) {
+            unitTypes.add(new SimulatedUnitType(unitTypeForecast, closingDate, shockIndexes, rateDistributions,
+                    PrimitiveRentForecastKernel.toDouble(simulationRequest.getMarketEscalationRateStdDev()),
+                    PrimitiveRentForecastKernel.toDouble(simulationRequest.getActualEscalationRateStdDev())));
+        }
+        int allUnitsYearCount = unitTypes.stream().mapToInt(unitType -> unitType.yearValues.length).max().orElse(0);
+        int[] allUnitsYearValues = new int[allUnitsYearCount];
+        // ALL UNITS adds unit types up by year position like RentForecastSummaryService.yearlySummaryByUnitType, fiscal years included
+        unitTypes.forEach(unitType -> System.arraycopy(unitType.yearValues, 0, allUnitsYearValues, 0, unitType.yearValues.length));
+
+        // Every path forecasts every unit profile once, only yearly totals are kept so there is one view to build
+        long unitMonths = unitTypes.stream().mapToLong(SimulatedUnitType::profileMonths).sum() * paths;
+        Map<String, Map<String, List<RentForecastYear>>> unitTypeSimulationYears = new LinkedHashMap<>();
+        try (ForecastPermit ignored = forecastAdmission.admit(unitMonths)) {
+            // Yearly totals of every path by unit type, laid out as [(field * yearCount + year) * paths + path]
+            double[][] pathTotals = new double[unitTypes.size() + 1][];
+            for (int u = 0; u < unitTypes.size(); u++) {
+                pathTotals[u] = new double[YEARLY_FIELDS * unitTypes.get(u).yearValues.length * paths];
+            }
+            pathTotals[unitTypes.size()] = new double[YEARLY_FIELDS * allUnitsYearCount * paths];
+
+            forecastExecutor.collect(paths, unitMonths,
+                    () -> new PathScratch(unitTypes, shockIndexes.size(), allUnitsYearCount),
+                    (pathScratch, path) -> simulatePath(simulationRequest.getSeed(), path, paths, unitTypes, pathScratch, pathTotals),
+                    (pathScratch, other) -> {
+                        // every path wrote its own slots of the totals
+                    });
+
+            for (int u = 0; u < unitTypes.size(); u++) {
+                unitTypeSimulationYears.put(unitTypes.get(u).unitType,
+                        percentileYears(pathTotals[u], unitTypes.get(u).yearValues, paths, simulationRequest.getPercentiles()));
+            }
+            unitTypeSimulationYears.put(ALL_UNITS, percentileYears(pathTotals[unitTypes.size()], allUnitsYearValues, paths, simulationRequest.getPercentiles()));
+        }
+
+        return RentSimulationResponse.builder()
+                .paths(paths)
+                .seed(simulationRequest.getSeed())
+                .unitTypeSimulationYears(unitTypeSimulationYears)
+                .build();
+    }
+
+    private void validate(RentSimulationRequest simulationRequest) {
+        if (simulationRequest.getBaseRequest() == null || simulationRequest.getBaseRequest().getUnitTypeForecastList() == null) {
+            throw new IllegalArgumentException("Missing base request");
+        }
+        if (simulationRequest.getPaths() < 1 || simulationRequest.getPaths() > simulationProperties.getMaxPaths()) {
+            throw new IllegalArgumentException("Paths must be between 1 and " + simulationProperties.getMaxPaths());
+        }
+        if (simulationRequest.getPercentiles() == null || simulationRequest.getPercentiles().stream().anyMatch(percentile -> percentile == null || percentile < 0 || percentile > 100)) {
+            throw new IllegalArgumentException("Percentiles must be between 0 and 100");
+        }
+        List<BigDecimal> stdDevs = new ArrayList<>(Arrays.asList(simulationRequest.getMarketEscalationRateStdDev(), simulationRequest.getActualEscalationRateStdDev()));
+        Objects.requireNonNullElse(simulationRequest.getRateDistributions(), List.<ForecastMonthDistribution>of()).forEach(distribution -> {
+            stdDevs.add(distribution.getMarketEscalationRateStdDev());
+            stdDevs.add(distribution.getActualEscalationRateStdDev());
+        });
+        if (stdDevs.stream().anyMatch(stdDev -> stdDev != null && stdDev.signum() < 0)) {
+            throw new IllegalArgumentException("Standard deviations can't be negative");
+        }
+        if (simulationRequest.getBaseRequest().getUnitTypeForecastList().stream().map(UnitTypeForecast::getUnitType).distinct().count()
+                != simulationRequest.getBaseRequest().getUnitTypeForecastList().size()) {
+            throw new IllegalArgumentException("Duplicate unit type");
+        }
+    }
+
+    /**
+     * Draw a path's rates, forecast every unit profile with them and store the path's yearly totals
+     */
+    private void simulatePath(long seed, int path, int paths, List<SimulatedUnitType> unitTypes, PathScratch pathScratch, double[][] pathTotals) {
+        pathScratch.random.reseed(seed, path);
+        pathScratch.random.nextGaussians(pathScratch.marketShocks, pathScratch.actualShocks);
+        double[] allUnitsYearlyRents = pathScratch.allUnitsYearlyRents;
+        Arrays.fill(allUnitsYearlyRents, 0d);
+
+        for (int u = 0; u < unitTypes.size(); u++) {
+            SimulatedUnitType unitType = unitTypes.get(u);
+            double[] marketEscalationRates = pathScratch.marketEscalationRates[u];
+            double[] actualEscalationRates = pathScratch.actualEscalationRates[u];
+            for (int i = 0; i < marketEscalationRates.length; i++) {
+                // a rate below -100% would turn rents negative
+                marketEscalationRates[i] = Math.max(-1d, unitType.meanMarketEscalationRates[i]
+                        + unitType.marketEscalationRateStdDevs[i] * pathScratch.marketShocks[unitType.shockIndexes[i]]);
+                actualEscalationRates[i] = Math.max(-1d, unitType.meanActualEscalationRates[i]
+                        + unitType.actualEscalationRateStdDevs[i] * pathScratch.actualShocks[unitType.shockIndexes[i]]);
+            }
+
+            double[] yearlyRents = pathScratch.yearlyRents;
+            int yearCount = unitType.yearValues.length;
+            Arrays.fill(yearlyRents, 0, yearCount * YEARLY_FIELDS, 0d);
+            for (int p = 0; p < unitType.unitSchedules.length; p++) {
+                primitiveRentForecastKernel.forecastUnit(marketEscalationRates, actualEscalationRates, unitType.propertyStartIndex,
+                        unitType.unitSchedules[p], unitType.startingMarketRents[p], unitType.startingActualRents[p],
+                        unitType.excessRentAdjustmentRate, pathScratch.marketRents, pathScratch.actualRents, 0);
+                double unitCount = unitType.unitCounts[p];
+                for (int i = 0; i < marketEscalationRates.length; i++) {
+                    double marketRent = pathScratch.marketRents[i] * unitCount;
+                    double actualRent = pathScratch.actualRents[i] * unitCount;
+                    int year = unitType.yearIndexes[i] * YEARLY_FIELDS;
+                    yearlyRents[year + YEARLY_MARKET_RENT] += marketRent;
+                    yearlyRents[year + YEARLY_ACTUAL_RENT] += actualRent;
+                    if (unitType.fiscalYearIndexes[i] >= 0) {
+                        int fiscalYear = unitType.fiscalYearIndexes[i] * YEARLY_FIELDS;
+                        yearlyRents[fiscalYear + FISCAL_MARKET_RENT] += marketRent;
+                        yearlyRents[fiscalYear + FISCAL_ACTUAL_RENT] += actualRent;
+                    }
+                }
+            }
+
+            for (int year = 0; year < yearCount; year++) {
+                for (int field = 0; field < YEARLY_FIELDS; field++) {
+                    double yearlyRent = yearlyRents[year * YEARLY_FIELDS + field];
+                    pathTotals[u][(field * yearCount + year) * paths + path] = yearlyRent;
+                    allUnitsYearlyRents[year * YEARLY_FIELDS + field] += yearlyRent;
+                }
+            }
+        }
+
+        int allUnitsYearCount = allUnitsYearlyRents.length / YEARLY_FIELDS;
+        for (int year = 0; year < allUnitsYearCount; year++) {
+            for (int field = 0; field < YEARLY_FIELDS; field++) {
+                pathTotals[unitTypes.size()][(field * allUnitsYearCount + year) * paths + path] = allUnitsYearlyRents[year * YEARLY_FIELDS + field];
+            }
+        }
+    }
+
+    /**
+     * Reduce the totals of all paths to yearly rents at each percentile
+     *
+     * @param pathTotals  - yearly totals of every path for a unit type
+     * @param yearValues  - forecast year of each year slot
+     * @param paths       - number of paths
+     * @param percentiles - percentiles to report, from 0 to 100
+     * @return - yearly rents by percentile label
+     */
+    private Map<String, List<RentForecastYear>> percentileYears(double[] pathTotals, int[] yearValues, int paths, List<Double> percentiles) {
+        Map<String, List<RentForecastYear>> percentileYears = new LinkedHashMap<>();
+        List<List<RentForecastYear>> yearsByPercentile = new ArrayList<>();
+        for (Double percentile : percentiles) {
+            List<RentForecastYear> years = new ArrayList<>();
+            for (int yearValue : yearValues) {
+                years.add(RentForecastYear.builder().year(yearValue).build());
+            }
+            yearsByPercentile.add(years);
+            percentileYears.put(percentileLabel(percentile), years);
+        }
+
+        double[] sortedTotals = new double[paths];
+        int yearCount = yearValues.length;
+        for (int field = 0; field < YEARLY_FIELDS; field++) {
+            for (int year = 0; year < yearCount; year++) {
+                System.arraycopy(pathTotals, (field * yearCount + year) * paths, sortedTotals, 0, paths);
+                Arrays.sort(sortedTotals);
+                for (int p = 0; p < percentiles.size(); p++) {
+                    BigDecimal rent = PrimitiveRentForecastKernel.toBigDecimal(percentile(sortedTotals, percentiles.get(p)));
+                    RentForecastYear rentForecastYear = yearsByPercentile.get(p).get(year);
+                    switch (field) {
+                        case YEARLY_MARKET_RENT -> rentForecastYear.setMarketRent(rent);
+                        case YEARLY_ACTUAL_RENT -> rentForecastYear.setActualRent(rent);
+                        case FISCAL_MARKET_RENT -> rentForecastYear.setFiscalMarketRent(rent);
+                        default -> rentForecastYear.setFiscalActualRent(rent);
+                    }
+                }
+            }
+        }
+        return percentileYears;
+    }
+
+    /**
+     * Percentile of sorted values, interpolating between the closest ranks
+     */
+    private static double percentile(double[] sortedValues, double percentile) {
+        double rank = percentile / 100d * (sortedValues.length - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = Math.min(lower + 1, sortedValues.length - 1);
+        return sortedValues[lower] + (rank - lower) * (sortedValues[upper] - sortedValues[lower]);
+    }
+
+    private static String percentileLabel(double percentile) {
+        return percentile == Math.rint(percentile) ? "P" + (int) percentile : "P" + percentile;
+    }
+
+    private static int monthKey(ForecastMonth forecastMonth) {
+        return forecastMonth.getYear() * 12 + forecastMonth.getMonth() - 1;
+    }
+
+    /**
+     * Everything about a unit type that is the same on every path
+     */
+    private static final class SimulatedUnitType {
+        private final String unitType;
+        private final double[] meanMarketEscalationRates;
+        private final double[] meanActualEscalationRates;
+        private final double[] marketEscalationRateStdDevs;
+        private final double[] actualEscalationRateStdDevs;
+        // draw of each month on the shared month axis
+        private final int[] shockIndexes;
+        private final int propertyStartIndex;
+        private final double excessRentAdjustmentRate;
+        private final UnitMonthSchedule[] unitSchedules;
+        private final double[] startingMarketRents;
+        private final double[] startingActualRents;
+        private final int[] unitCounts;
+        private final int[] yearIndexes;
+        private final int[] fiscalYearIndexes;
+        private final int[] yearValues;
+
+        private SimulatedUnitType(UnitTypeForecast unitTypeForecast, LocalDate closingDate, Map<Integer, Integer> shockIndexes,
+                                  Map<Integer, ForecastMonthDistribution> rateDistributions,
+                                  double marketEscalationRateStdDev, double actualEscalationRateStdDev) {
+            this.unitType = unitTypeForecast.getUnitType();
+            List<ForecastMonth> sortedForecastMonths = RentForecastService.sortForecastMonths(unitTypeForecast.getForecastMonthData());
+            int monthCount = sortedForecastMonths.size();
+            this.meanMarketEscalationRates = PrimitiveRentForecastKernel.marketEscalationRates(sortedForecastMonths);
+            this.meanActualEscalationRates = PrimitiveRentForecastKernel.actualEscalationRates(sortedForecastMonths);
+            this.marketEscalationRateStdDevs = new double[monthCount];
+            this.actualEscalationRateStdDevs = new double[monthCount];
+            this.shockIndexes = new int[monthCount];
+            for (int i = 0; i < monthCount; i++) {
+                int monthKey = monthKey(sortedForecastMonths.get(i));
+                this.shockIndexes[i] = shockIndexes.get(monthKey);
+                // the default deviation only applies to escalation months
+                marketEscalationRateStdDevs[i] = meanMarketEscalationRates[i] != 0d ? marketEscalationRateStdDev : 0d;
+                actualEscalationRateStdDevs[i] = meanActualEscalationRates[i] != 0d ? actualEscalationRateStdDev : 0d;
+                ForecastMonthDistribution distribution = rateDistributions.get(monthKey);
+                if (distribution != null && distribution.getMarketEscalationRateStdDev() != null) {
+                    marketEscalationRateStdDevs[i] = distribution.getMarketEscalationRateStdDev().doubleValue();
+                }
+                if (distribution != null && distribution.getActualEscalationRateStdDev() != null) {
+                    actualEscalationRateStdDevs[i] = distribution.getActualEscalationRateStdDev().doubleValue();
+                }
+            }
+
+            ForecastMonthIndex monthIndex = new ForecastMonthIndex(sortedForecastMonths, closingDate);
+            this.propertyStartIndex = monthIndex.getPropertyStartIndex();
+            this.excessRentAdjustmentRate = PrimitiveRentForecastKernel.toDouble(unitTypeForecast.getExcessRentAdjustmentRate());
+            UnitProfiles unitProfiles = new UnitProfiles(unitTypeForecast.getUnitDetails());
+            this.unitSchedules = new UnitMonthSchedule[unitProfiles.size()];
+            this.startingMarketRents = new double[unitProfiles.size()];
+            this.startingActualRents = new double[unitProfiles.size()];
+            this.unitCounts = new int[unitProfiles.size()];
+            for (int p = 0; p < unitProfiles.size(); p++) {
+                UnitDetails unitDetails = unitProfiles.getUnitDetails(p);
+                unitSchedules[p] = monthIndex.unitSchedule(unitDetails);
+                startingMarketRents[p] = PrimitiveRentForecastKernel.toDouble(unitDetails.getStartingMarketRent());
+                startingActualRents[p] = PrimitiveRentForecastKernel.toDouble(unitDetails.getStartingActualRent());
+                unitCounts[p] = unitProfiles.getUnitCount(p);
+            }
+
+            // Same year and fiscal year slots as the forecast columns
+            UnitTypeForecastColumns unitColumns = new UnitTypeForecastColumns(sortedForecastMonths, unitProfiles, closingDate);
+            this.yearIndexes = unitColumns.getYearIndexes();
+            this.fiscalYearIndexes = unitColumns.getFiscalYearIndexes();
+            this.yearValues = unitColumns.getYearValues();
+        }
+
+        private long profileMonths() {
+            return (long) unitSchedules.length * meanMarketEscalationRates.length;
+        }
+    }
+
+    /**
+     * Arrays a thread reuses for every path it simulates
+     */
+    private static final class PathScratch {
+        private final PathRandom random = new PathRandom();
+        private final double[] marketShocks;
+        private final double[] actualShocks;
+        private final double[][] marketEscalationRates;
+        private final double[][] actualEscalationRates;
+        private final double[] marketRents;
+        private final double[] actualRents;
+        private final double[] yearlyRents;
+        private final double[] allUnitsYearlyRents;
+
+        private PathScratch(List<SimulatedUnitType> unitTypes, int shockCount, int allUnitsYearCount) {
+            this.marketShocks = new double[shockCount];
+            this.actualShocks = new double[shockCount];
+            this.marketEscalationRates = new double[unitTypes.size()][];
+            this.actualEscalationRates = new double[unitTypes.size()][];
+            int maxMonths = 0;
+            for (int u = 0; u < unitTypes.size(); u++) {
+                int monthCount = unitTypes.get(u).meanMarketEscalationRates.length;
+                marketEscalationRates[u] = new double[monthCount];
+                actualEscalationRates[u] = new double[monthCount];
+                maxMonths = Math.max(maxMonths, monthCount);
+            }
+            this.marketRents = new double[maxMonths];
+            this.actualRents = new double[maxMonths];
+            this.yearlyRents = new double[allUnitsYearCount * YEARLY_FIELDS];
+            this.allUnitsYearlyRents = new double[allUnitsYearCount * YEARLY_FIELDS];
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.methodicalplatforms.rentforecast.snapshot;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A serialized forecast response mapped from its snapshot file. The bytes are written out as they are, nothing is
+ * deserialized.
+ */
+@Getter
+public class ForecastSnapshot {
+    private final String snapshotId;
+    private final ForecastSnapshotFormat format;
+    // read only mapping of the whole file
+    private final ByteBuffer content;
+
+    ForecastSnapshot(String snapshotId, ForecastSnapshotFormat format, ByteBuffer content) {
+        this.snapshotId = snapshotId;
+        this.format = format;
+        this.content = content;
+    }
+
+    public int size() {
+        return content.limit();
+    }
+
+    /**
+     * @param outputStream - stream the snapshot is written to, left open
+     * @throws IOException - if the snapshot can't be written
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        // a duplicate, so snapshots can be written by several requests at once
+        ByteBuffer remaining = content.duplicate();
+        WritableByteChannel channel = Channels.newChannel(outputStream);
+        while (remaining.hasRemaining()) {
+            channel.write(remaining);
+        }
+        outputStream.flush();
+    }
+}
@@ -0,0 +1,88 @@
+package com.methodicalplatforms.rentforecast.snapshot;
+
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/rent-forecast/snapshots")
+public class ForecastSnapshotController {
+
+    private final ForecastSnapshotService forecastSnapshotService;
+
+    @Autowired
+    public ForecastSnapshotController(ForecastSnapshotService forecastSnapshotService) {
+        this.forecastSnapshotService = forecastSnapshotService;
+    }
+
+    /**
+     * Same response as POST /rent-forecast, served from its snapshot when the same request was forecast before.
+     * The Location header is where the snapshot can be reopened without sending the request again.
+     */
+    @PostMapping
+    public ResponseEntity<StreamingResponseBody> snapshotRentForecasts(@RequestBody RentForecastRequest rentForecastRequest) {
+        return snapshot(rentForecastRequest, ForecastSnapshotFormat.JSON);
+    }
+
+    /**
+     * Snapshot in CBOR with columnar months
+     */
+    @PostMapping(produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<StreamingResponseBody> snapshotCborRentForecasts(@RequestBody RentForecastRequest rentForecastRequest) {
+        return snapshot(rentForecastRequest, ForecastSnapshotFormat.CBOR);
+    }
+
+    @GetMapping("/{snapshotId}")
+    public ResponseEntity<StreamingResponseBody> getSnapshot(@PathVariable String snapshotId) {
+        return getSnapshot(snapshotId, ForecastSnapshotFormat.JSON);
+    }
+
+    @GetMapping(path = "/{snapshotId}", produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<StreamingResponseBody> getCborSnapshot(@PathVariable String snapshotId) {
+        return getSnapshot(snapshotId, ForecastSnapshotFormat.CBOR);
+    }
+
+    private ResponseEntity<StreamingResponseBody> snapshot(RentForecastRequest rentForecastRequest, ForecastSnapshotFormat format) {
+        Optional<ForecastSnapshot> forecastSnapshot;
+        try {
+            forecastSnapshot = forecastSnapshotService.snapshot(rentForecastRequest, format);
+        } catch (ForecastRejectedException e) {
+            return e.toResponse();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // 404 when snapshots are disabled
+        return forecastSnapshot
+                .map(snapshot -> ResponseEntity.ok()
+                        .header(HttpHeaders.LOCATION, "/rent-forecast/snapshots/" + snapshot.getSnapshotId())
+                        .contentType(format.getMediaType())
+                        .<StreamingResponseBody>body(snapshot::writeTo))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<StreamingResponseBody> getSnapshot(String snapshotId, ForecastSnapshotFormat format) {
+        Optional<ForecastSnapshot> forecastSnapshot;
+        try {
+            forecastSnapshot = forecastSnapshotService.getSnapshot(snapshotId, format);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return forecastSnapshot
+                .map(snapshot -> ResponseEntity.ok().contentType(format.getMediaType()).<StreamingResponseBody>body(snapshot::writeTo))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,28 @@
+package com.methodicalplatforms.rentforecast.snapshot;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Encodings a snapshot is kept in, each one in its own file
+ */
+public enum ForecastSnapshotFormat {
+    JSON(MediaType.APPLICATION_JSON, ".json"),
+    // columnar months, see ColumnarForecastModule
+    CBOR(MediaType.APPLICATION_CBOR, ".cbor");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ForecastSnapshotFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,114 @@
+package com.methodicalplatforms.rentforecast.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.admission.ForecastPermit;
+import com.methodicalplatforms.rentforecast.cache.UnitTypeForecastKey;
+import com.methodicalplatforms.rentforecast.config.RentForecastProperties;
+import com.methodicalplatforms.rentforecast.request.ForecastOptions;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.RentResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Forecasts kept on disk by a digest of their request, so reopening a forecast after a restart serves the saved
+ * response instead of forecasting again
+ */
+@Service
+public class ForecastSnapshotService {
+
+    // bump when the response schema changes, older snapshots are no longer found
+    private static final String SNAPSHOT_VERSION = "1";
+
+    private final RentForecastService rentForecastService;
+    private final ForecastAdmission forecastAdmission;
+    private final ForecastSnapshotStore forecastSnapshotStore;
+    private final RentForecastProperties rentForecastProperties;
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
+
+    @Autowired
+    public ForecastSnapshotService(RentForecastService rentForecastService, ForecastAdmission forecastAdmission, ForecastSnapshotStore forecastSnapshotStore,
+                                   RentForecastProperties rentForecastProperties, ObjectMapper objectMapper,
+                                   MappingJackson2CborHttpMessageConverter cborHttpMessageConverter) {
+        this.rentForecastService = rentForecastService;
+        this.forecastAdmission = forecastAdmission;
+        this.forecastSnapshotStore = forecastSnapshotStore;
+        this.rentForecastProperties = rentForecastProperties;
+        this.objectMapper = objectMapper;
+        this.cborHttpMessageConverter = cborHttpMessageConverter;
+    }
+
+    /**
+     * Snapshot of a forecast, forecast and saved if there is none yet
+     *
+     * @param rentForecastRequest - details on what/how to forecast
+     * @param format              - format of the snapshot
+     * @return - the snapshot, empty if snapshots are disabled
+     * @throws IOException - if the snapshot can't be read or written
+     */
+    public Optional<ForecastSnapshot> snapshot(RentForecastRequest rentForecastRequest, ForecastSnapshotFormat format) throws IOException {
+        if (!forecastSnapshotStore.isEnabled()) {
+            return Optional.empty();
+        }
+        String snapshotId = snapshotId(rentForecastRequest);
+        Optional<ForecastSnapshot> forecastSnapshot = forecastSnapshotStore.find(snapshotId, format);
+        if (forecastSnapshot.isPresent()) {
+            return forecastSnapshot;
+        }
+
+        RentResponse rentResponse;
+        try (ForecastPermit ignored = forecastAdmission.admit(rentForecastRequest)) {
+            rentResponse = rentForecastService.forecastRents(rentForecastRequest);
+        }
+        ObjectMapper snapshotMapper = format == ForecastSnapshotFormat.CBOR ? cborHttpMessageConverter.getObjectMapper() : objectMapper;
+        return Optional.of(forecastSnapshotStore.save(snapshotId, format, outputStream -> snapshotMapper.writeValue(outputStream, rentResponse)));
+    }
+
+    /**
+     * @param snapshotId - id of a snapshot
+     * @param format     - format of the snapshot
+     * @return - the snapshot, empty if it hasn't been saved in that format
+     * @throws IOException - if the snapshot can't be read
+     */
+    public Optional<ForecastSnapshot> getSnapshot(String snapshotId, ForecastSnapshotFormat format) throws IOException {
+        return forecastSnapshotStore.find(snapshotId, format);
+    }
+
+    /**
+     * SHA-256 over the engine, options, closing date and the content address of every unit type in request order
+     *
+     * @param rentForecastRequest - details on what/how to forecast
+     * @return - id of the request's snapshot
+     */
+    public String snapshotId(RentForecastRequest rentForecastRequest) {
+        ForecastOptions options = Objects.requireNonNullElseGet(rentForecastRequest.getOptions(), ForecastOptions::new);
+        StringBuilder canonical = new StringBuilder()
+                .append(SNAPSHOT_VERSION).append('|')
+                .append(options).append('|')
+                .append(rentForecastRequest.getClosingDate());
+        for (UnitTypeForecast unitTypeForecast : rentForecastRequest.getUnitTypeForecastList()) {
+            // the unit type key covers the closing date and engine too
+            canonical.append('|').append(UnitTypeForecastKey.of(unitTypeForecast, rentForecastRequest.getClosingDate(), rentForecastProperties.getEngine()));
+        }
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
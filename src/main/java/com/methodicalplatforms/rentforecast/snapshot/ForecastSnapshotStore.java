@@ -0,0 +1,147 @@
+package com.methodicalplatforms.rentforecast.snapshot;
+
+import com.methodicalplatforms.rentforecast.config.RentForecastSnapshotProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Snapshot files in the configured directory, named by snapshot id and format. A file is written once, to a temporary
+ * file moved into place, and never changed afterwards, so it can be mapped and read without locking.
+ */
+@Service
+public class ForecastSnapshotStore {
+
+    // snapshot ids are SHA-256 digests, anything else never names a file
+    private static final Pattern SNAPSHOT_ID = Pattern.compile("[0-9a-f]{64}");
+
+    private final RentForecastSnapshotProperties snapshotProperties;
+
+    @Autowired
+    public ForecastSnapshotStore(RentForecastSnapshotProperties snapshotProperties) {
+        this.snapshotProperties = snapshotProperties;
+    }
+
+    /**
+     * @return - true if snapshots are kept, nothing is read or written otherwise
+     */
+    public boolean isEnabled() {
+        return snapshotProperties.isEnabled();
+    }
+
+    /**
+     * @param snapshotId - id of the snapshot
+     * @param format     - format of the snapshot
+     * @return - the mapped snapshot, empty if there is none in that format
+     * @throws IOException - if the snapshot file can't be mapped
+     */
+    public Optional<ForecastSnapshot> find(String snapshotId, ForecastSnapshotFormat format) throws IOException {
+        if (!isEnabled() || !SNAPSHOT_ID.matcher(snapshotId).matches()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(map(snapshotId, format, snapshotPath(snapshotId, format)));
+        } catch (NoSuchFileException e) {
+            // never saved, or deleted as one of the oldest snapshots
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Write a snapshot, replacing one with the same id and format
+     *
+     * @param snapshotId     - id of the snapshot
+     * @param format         - format of the snapshot
+     * @param snapshotWriter - writes the snapshot content
+     * @return - the mapped snapshot
+     * @throws IOException           - if the snapshot can't be written
+     * @throws IllegalStateException - if snapshots are disabled
+     */
+    public ForecastSnapshot save(String snapshotId, ForecastSnapshotFormat format, SnapshotWriter snapshotWriter) throws IOException {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Forecast snapshots are disabled");
+        }
+        if (!SNAPSHOT_ID.matcher(snapshotId).matches()) {
+            throw new IllegalArgumentException("Not a snapshot id " + snapshotId);
+        }
+        Path directory = Files.createDirectories(snapshotProperties.getDirectory());
+        Path temporaryPath = Files.createTempFile(directory, snapshotId, ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(temporaryPath)) {
+                snapshotWriter.write(outputStream);
+            }
+            Files.move(temporaryPath, snapshotPath(snapshotId, format), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+        deleteOldestSnapshots();
+        return map(snapshotId, format, snapshotPath(snapshotId, format));
+    }
+
+    private Path snapshotPath(String snapshotId, ForecastSnapshotFormat format) {
+        return snapshotProperties.getDirectory().resolve(snapshotId + format.getExtension());
+    }
+
+    private static ForecastSnapshot map(String snapshotId, ForecastSnapshotFormat format, Path snapshotPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            // the mapping outlives the channel and is released with the buffer
+            return new ForecastSnapshot(snapshotId, format, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private synchronized void deleteOldestSnapshots() throws IOException {
+        List<Path> snapshotPaths = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(snapshotProperties.getDirectory())) {
+            paths.filter(path -> isSnapshotFile(path.getFileName().toString())).forEach(snapshotPaths::add);
+        }
+        if (snapshotPaths.size() <= snapshotProperties.getMaxSnapshots()) {
+            return;
+        }
+        snapshotPaths.sort(Comparator.comparing(ForecastSnapshotStore::lastModified));
+        for (Path snapshotPath : snapshotPaths.subList(0, snapshotPaths.size() - snapshotProperties.getMaxSnapshots())) {
+            // mapped snapshots stay readable after their file is deleted
+            Files.deleteIfExists(snapshotPath);
+        }
+    }
+
+    private static boolean isSnapshotFile(String fileName) {
+        for (ForecastSnapshotFormat format : ForecastSnapshotFormat.values()) {
+            if (fileName.endsWith(format.getExtension())
+                    && SNAPSHOT_ID.matcher(fileName.substring(0, fileName.length() - format.getExtension().length())).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            // already gone, sorts first and is skipped by deleteIfExists
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Writes the content of a snapshot
+     */
+    public interface SnapshotWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
+}
@@ -0,0 +1,176 @@
+package com.methodicalplatforms.rentforecast.stream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.request.ForecastOptions;
+import com.methodicalplatforms.rentforecast.request.ForecastWindow;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastYearly;
+import com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService.ALL_UNITS;
+
+/**
+ * Writes a rent forecast as JSON, or another format of an ObjectMapper, while it is being calculated. The output has the same schema as a serialized
+ * RentResponse, but each unit type's monthly forecasts are written and released as soon as the unit type is done,
+ * only the unit type summaries and yearly data are kept until the end of the response.
+ */
+@Service
+public class StreamingRentResponseWriter {
+
+    // Field names of RentResponse
+    private static final String UNIT_TYPE_FORECAST_RENT_MONTHS = "unitTypeForecastRentMonths";
+    private static final String UNIT_TYPE_FORECAST_RENT_YEARS = "unitTypeForecastRentYears";
+    private static final String UNIT_TYPE_UNIT_STATUS_VIEW = "unitTypeUnitStatusView";
+
+    private final RentForecastService rentForecastService;
+    private final RentForecastSummaryService rentForecastSummaryService;
+    private final ObjectMapper objectMapper;
+    private final ForecastExecutor forecastExecutor;
+
+    @Autowired
+    public StreamingRentResponseWriter(RentForecastService rentForecastService, RentForecastSummaryService rentForecastSummaryService, ObjectMapper objectMapper,
+                                       ForecastExecutor forecastExecutor) {
+        this.rentForecastService = rentForecastService;
+        this.rentForecastSummaryService = rentForecastSummaryService;
+        this.objectMapper = objectMapper;
+        this.forecastExecutor = forecastExecutor;
+    }
+
+    /**
+     * forecast rents and write the response to the output stream as each unit type completes
+     *
+     * @param rentForecastRequest - details on what/how to forecast
+     * @param outputStream        - stream the JSON response is written to, left open
+     * @throws IOException - if the response can't be written or the forecast is interrupted
+     */
+    public void writeRentForecasts(RentForecastRequest rentForecastRequest, OutputStream outputStream) throws IOException {
+        writeRentForecasts(rentForecastRequest, outputStream, objectMapper);
+    }
+
+    /**
+     * forecast rents and write the response with the given mapper, its data format, as each unit type completes
+     *
+     * @param rentForecastRequest - details on what/how to forecast
+     * @param outputStream        - stream the response is written to, left open
+     * @param objectMapper        - mapper writing the response
+     * @throws IOException - if the response can't be written or the forecast is interrupted
+     */
+    public void writeRentForecasts(RentForecastRequest rentForecastRequest, OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+        LocalDate closingDate = rentForecastRequest.getClosingDate();
+        List<UnitTypeForecast> unitTypeForecastList = rentForecastRequest.getUnitTypeForecastList();
+        ForecastOptions options = Objects.requireNonNullElseGet(rentForecastRequest.getOptions(), ForecastOptions::new);
+        // Unit years are only summarized when a view is built from them
+        boolean unitYears = options.includesUnits() || options.includesUnitStatuses();
+
+        Map<String, UnitTypeForecastMonthly> unitTypeSummaries = new HashMap<>();
+        Map<String, UnitTypeForecastYearly> rentByYears = new HashMap<>();
+        Map<String, UnitTypeForecastYearly> unitStatusView = new HashMap<>();
+
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.writeStartObject();
+            if (options.includesMonths()) {
+                generator.writeObjectFieldStart(UNIT_TYPE_FORECAST_RENT_MONTHS);
+            }
+
+            // Forecast unit types in parallel, written in completion order
+            forEachCompletedUnitType(unitTypeForecastList, closingDate, options.getWindow(), unitYears, unitTypeForecast -> {
+                String unitType = unitTypeForecast.getKey();
+                UnitTypeForecastMonthly unitTypeForecastMonthly = unitTypeForecast.getValue();
+                // Only the unit type summary is needed for ALL UNITS
+                UnitTypeForecastMonthly unitTypeSummary = UnitTypeForecastMonthly.builder()
+                        .unitTypeForecast(unitTypeForecastMonthly.getUnitTypeForecast())
+                        .monthWindow(unitTypeForecastMonthly.getMonthWindow())
+                        .build();
+
+                // Summarize by year while the monthly data is still around
+                if (unitTypeForecastMonthly.getUnitTypeAggregates() != null) {
+                    rentByYears.put(unitType, rentForecastSummaryService.summarizeAggregatedYears(unitTypeForecastMonthly.getUnitTypeAggregates(), options.includesUnits()));
+                    if (options.includesUnitStatuses()) {
+                        unitStatusView.put(unitType, rentForecastSummaryService.summarizeAggregatedUnitStatuses(unitTypeForecastMonthly.getUnitTypeAggregates()));
+                    }
+                } else {
+                    Map<String, UnitTypeForecastMonthly> rentByMonths = Map.of(unitType, unitYears ? unitTypeForecastMonthly : unitTypeSummary);
+                    Map<String, UnitTypeForecastYearly> unitTypeRentByYears = rentForecastSummaryService.summarizeYearsForAllUnitTypes(rentByMonths);
+                    rentForecastSummaryService.calculateFiscalYearSummaries(rentByMonths, unitTypeRentByYears, closingDate);
+                    rentByYears.putAll(unitTypeRentByYears);
+                }
+
+                if (options.includesMonths()) {
+                    if (options.includesUnitTypes()) {
+                        generator.writeObjectField(unitType, options.includesUnits() ? unitTypeForecastMonthly : unitTypeSummary);
+                        generator.flush();
+                    }
+                    unitTypeSummaries.put(unitType, unitTypeSummary);
+                }
+            });
+
+            if (options.includesMonths()) {
+                rentForecastSummaryService.summarizeAllUnitTypes(unitTypeSummaries);
+                generator.writeObjectField(ALL_UNITS, unitTypeSummaries.get(ALL_UNITS));
+                generator.writeEndObject();
+            }
+
+            rentForecastSummaryService.yearlySummaryByUnitType(rentByYears);
+            if (options.includesUnitStatuses() && unitStatusView.isEmpty()) {
+                unitStatusView.putAll(rentForecastSummaryService.summarizeByUnitStatus(rentByYears, unitTypeForecastList));
+            }
+            if (!options.includesUnits()) {
+                rentByYears.values().forEach(unitTypeForecastYearly -> unitTypeForecastYearly.setUnitForecasts(null));
+            }
+            if (!options.includesUnitTypes()) {
+                rentByYears.keySet().retainAll(Set.of(ALL_UNITS));
+            }
+            generator.writeObjectField(UNIT_TYPE_FORECAST_RENT_YEARS, rentByYears);
+            if (options.includesUnitStatuses()) {
+                generator.writeObjectField(UNIT_TYPE_UNIT_STATUS_VIEW, unitStatusView);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private void forEachCompletedUnitType(List<UnitTypeForecast> unitTypeForecastList, LocalDate closingDate, ForecastWindow window,
+                                          boolean unitForecasts, UnitTypeWriter unitTypeWriter) throws IOException {
+        try {
+            forecastExecutor.forEachCompleted(unitTypeForecastList.size(), RentForecastService.unitMonths(unitTypeForecastList),
+                    unitTypeIndex -> {
+                        UnitTypeForecast unitTypeForecast = unitTypeForecastList.get(unitTypeIndex);
+                        return Map.entry(unitTypeForecast.getUnitType(), rentForecastService.forecastUnitType(unitTypeForecast, closingDate, window, unitForecasts, null));
+                    },
+                    unitTypeForecast -> {
+                        try {
+                            unitTypeWriter.write(unitTypeForecast);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while forecasting rents");
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface UnitTypeWriter {
+        void write(Map.Entry<String, UnitTypeForecastMonthly> unitTypeForecast) throws IOException;
+    }
+}
@@ -1,5 +1,11 @@
 package com.methodicalplatforms.rentforecast.summary;
 
+import com.methodicalplatforms.rentforecast.calendar.MonthWindow;
+import com.methodicalplatforms.rentforecast.kernel.ColumnarRentForecastYears;
+import com.methodicalplatforms.rentforecast.kernel.PrimitiveRentForecastKernel;
+import com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastAggregates;
+import com.methodicalplatforms.rentforecast.kernel.UnitTypeForecastColumns;
+import com.methodicalplatforms.rentforecast.profile.UnitProfiles;
 import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
 import com.methodicalplatforms.rentforecast.response.RentForecastMonth;
 import com.methodicalplatforms.rentforecast.response.RentForecastYear;
@@ -8,6 +14,7 @@ import com.methodicalplatforms.rentforecast.response.UnitTypeForecastYearly;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.nio.DoubleBuffer;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -18,7 +25,7 @@ import java.util.Map;
 @Service
 public class RentForecastSummaryService {
 
-    private static final String ALL_UNITS = "ALL UNITS";
+    public static final String ALL_UNITS = "ALL UNITS";
 
     // TODO: ALL YEARLY VALUES NEED A FISCAL VALUE!!!!
 
@@ -47,6 +54,115 @@ public class RentForecastSummaryService {
         return unitTypeSummary;
     }
 
+    /**
+     * Sum up the distinct unit profiles for a given Unit Type, each weighted by the number of units sharing it
+     *
+     * @param profileForecasts - the forecast details for each unit profile
+     * @param unitProfiles     - the unit profiles of the unit type
+     * @return - the summed up monthly values for a unit type
+     */
+    public List<RentForecastMonth> summarizeUnitType(List<List<RentForecastMonth>> profileForecasts, UnitProfiles unitProfiles) {
+        List<RentForecastMonth> unitTypeSummary = new ArrayList<>();
+
+        for (int profileIndex = 0; profileIndex < profileForecasts.size(); profileIndex++) {
+            addProfile(unitTypeSummary, profileForecasts.get(profileIndex), unitProfiles.getUnitCount(profileIndex));
+        }
+        return unitTypeSummary;
+    }
+
+    /**
+     * Add the forecast of a unit profile, weighted by the number of units sharing it, to a unit type summary
+     *
+     * @param unitTypeSummary    - the summed up monthly values so far, months missing from it are added
+     * @param rentForecastMonths - the forecast details for the unit profile
+     * @param unitCount          - number of units with the profile
+     */
+    public void addProfile(List<RentForecastMonth> unitTypeSummary, List<RentForecastMonth> rentForecastMonths, int unitCount) {
+        BigDecimal units = BigDecimal.valueOf(unitCount);
+        for (int i = 0; i < rentForecastMonths.size(); i++) {
+            RentForecastMonth rentForecastMonth = rentForecastMonths.get(i);
+            if (unitTypeSummary.size() <= i) {
+                unitTypeSummary.add(RentForecastMonth.builder().month(rentForecastMonth.getMonth()).year(rentForecastMonth.getYear()).build());
+            }
+            RentForecastMonth unitTypeRentforecastMonth = unitTypeSummary.get(i);
+            unitTypeRentforecastMonth.setActualRent(unitTypeRentforecastMonth.getActualRent().add(rentForecastMonth.getActualRent().multiply(units)));
+            unitTypeRentforecastMonth.setMarketRent(unitTypeRentforecastMonth.getMarketRent().add(rentForecastMonth.getMarketRent().multiply(units)));
+        }
+    }
+
+    /**
+     * Unit type monthly summary from the totals aggregated while the units were forecast
+     *
+     * @param aggregates - the aggregated totals for a unit type
+     * @return - the summed up monthly values for a unit type
+     */
+    public List<RentForecastMonth> summarizeUnitType(UnitTypeForecastAggregates aggregates) {
+        List<RentForecastMonth> unitTypeSummary = new ArrayList<>();
+        UnitTypeForecastColumns unitColumns = aggregates.getUnitColumns();
+        if (unitColumns.getUnitCount() == 0) {
+            return unitTypeSummary;
+        }
+
+        for (int i = 0; i < unitColumns.getMonthCount(); i++) {
+            unitTypeSummary.add(RentForecastMonth.builder()
+                    .year(unitColumns.getYears()[i])
+                    .month(unitColumns.getMonths()[i])
+                    .marketRent(PrimitiveRentForecastKernel.toBigDecimal(aggregates.getMonthlyMarketRents()[i]))
+                    .actualRent(PrimitiveRentForecastKernel.toBigDecimal(aggregates.getMonthlyActualRents()[i]))
+                    .build());
+        }
+        return unitTypeSummary;
+    }
+
+    /**
+     * Yearly summary, including fiscal years, for a unit type and its units from the aggregated totals
+     *
+     * @param aggregates - the aggregated totals for a unit type
+     * @return - summary for the unit type, yearly
+     */
+    public UnitTypeForecastYearly summarizeAggregatedYears(UnitTypeForecastAggregates aggregates) {
+        return summarizeAggregatedYears(aggregates, true);
+    }
+
+    /**
+     * Yearly summary, including fiscal years, for a unit type and optionally its units from the aggregated totals
+     *
+     * @param aggregates   - the aggregated totals for a unit type
+     * @param includeUnits - whether to add the yearly forecasts of each unit
+     * @return - summary for the unit type, yearly
+     */
+    public UnitTypeForecastYearly summarizeAggregatedYears(UnitTypeForecastAggregates aggregates, boolean includeUnits) {
+        UnitTypeForecastColumns unitColumns = aggregates.getUnitColumns();
+        UnitTypeForecastYearly unitTypeForecastYearly = new UnitTypeForecastYearly();
+        if (includeUnits) {
+            unitTypeForecastYearly.setUnitForecasts(unitColumns.unitYearlyForecastViews());
+        }
+        unitTypeForecastYearly.setUnitTypeForecast(unitColumns.getUnitCount() == 0
+                ? new ArrayList<>() : toRentForecastYears(unitColumns.getYearValues(), aggregates.getYearlyRents()));
+        return unitTypeForecastYearly;
+    }
+
+    /**
+     * Yearly summary by unit status for a unit type from the aggregated totals
+     *
+     * @param aggregates - the aggregated totals for a unit type
+     * @return - yearly forecast data for the unit type grouped by unit statuses
+     */
+    public UnitTypeForecastYearly summarizeAggregatedUnitStatuses(UnitTypeForecastAggregates aggregates) {
+        UnitTypeForecastYearly unitTypeForecastYearly = new UnitTypeForecastYearly();
+        if (!aggregates.getUnitStatusYearlyRents().isEmpty()) {
+            Map<String, List<RentForecastYear>> unitStatusForecasts = new HashMap<>();
+            aggregates.getUnitStatusYearlyRents().forEach((unitStatus, yearlyRents) ->
+                    unitStatusForecasts.put(unitStatus, toRentForecastYears(aggregates.getUnitColumns().getYearValues(), yearlyRents)));
+            unitTypeForecastYearly.setUnitForecasts(unitStatusForecasts);
+        }
+        return unitTypeForecastYearly;
+    }
+
+    private List<RentForecastYear> toRentForecastYears(int[] yearValues, double[] yearlyRents) {
+        return new ArrayList<>(new ColumnarRentForecastYears(yearValues, DoubleBuffer.wrap(yearlyRents), 0));
+    }
+
     /**
      * Provide a summary for each unit type at a yearly level
      *
@@ -59,11 +175,13 @@ public class RentForecastSummaryService {
         forecastedRentMonthsByUnitType.forEach((unitType, unitTypeForecastMonthly) -> {
             UnitTypeForecastYearly unitTypeForecastYearly = new UnitTypeForecastYearly();
             Map<String, List<RentForecastYear>> unitForecastsYearly = new HashMap<>();
-            // Summarize the years for each unit
-            unitTypeForecastMonthly.getUnitForecasts().forEach((unitId, rentForecastMonths) -> {
-                List<RentForecastYear> rentYearSummaryForUnitType = summarizeYearsForAUnitType(rentForecastMonths);
-                unitForecastsYearly.put(unitId, rentYearSummaryForUnitType);
-            });
+            // Summarize the years for each unit, unless the unit forecasts were left out
+            if (unitTypeForecastMonthly.getUnitForecasts() != null) {
+                unitTypeForecastMonthly.getUnitForecasts().forEach((unitId, rentForecastMonths) -> {
+                    List<RentForecastYear> rentYearSummaryForUnitType = summarizeYearsForAUnitType(rentForecastMonths);
+                    unitForecastsYearly.put(unitId, rentYearSummaryForUnitType);
+                });
+            }
             List<RentForecastYear> rentYearSummaryForUnitType = summarizeYearsForAUnitType(unitTypeForecastMonthly.getUnitTypeForecast());
 
             // Save results
@@ -78,32 +196,49 @@ public class RentForecastSummaryService {
     public void calculateFiscalYearSummaries(Map<String, UnitTypeForecastMonthly> monthlyForecastDataForAllUnitTypes, Map<String, UnitTypeForecastYearly> unitTypeForecastYearlyMap, LocalDate closingDate) {
         monthlyForecastDataForAllUnitTypes.forEach((unitType, unitTypeForecastMonth) -> {
             UnitTypeForecastYearly yearlyDataForUnitType = unitTypeForecastYearlyMap.get(unitType);
-            calculateFiscalYearSummary(unitTypeForecastMonth.getUnitTypeForecast(), closingDate, yearlyDataForUnitType.getUnitTypeForecast());
+            MonthWindow monthWindow = unitTypeForecastMonth.getMonthWindow();
+            calculateFiscalYearSummary(unitTypeForecastMonth.getUnitTypeForecast(), closingDate, monthWindow, yearlyDataForUnitType.getUnitTypeForecast());
+            if (unitTypeForecastMonth.getUnitForecasts() == null) {
+                return;
+            }
             unitTypeForecastMonth.getUnitForecasts().forEach((unitId, unitForecastMonth) -> {
-                calculateFiscalYearSummary(unitForecastMonth,closingDate, unitTypeForecastYearlyMap.get(unitType).getUnitForecasts().get(unitId));
+                calculateFiscalYearSummary(unitForecastMonth, closingDate, monthWindow, unitTypeForecastYearlyMap.get(unitType).getUnitForecasts().get(unitId));
             });
         });
     }
 
     public void calculateFiscalYearSummary(List<RentForecastMonth> monthlyForecastData, LocalDate closingDate, List<RentForecastYear> rentForecastYears) {
+        calculateFiscalYearSummary(monthlyForecastData, closingDate, null, rentForecastYears);
+    }
+
+    /**
+     * Add the fiscal year totals of the months in a window to its yearly summary. The months of a fiscal year that
+     * started before the window are left out.
+     *
+     * @param monthlyForecastData - monthly forecast data in the window
+     * @param closingDate         - the closing date for the property
+     * @param monthWindow         - window the monthly forecast data was forecast for, null for every month
+     * @param rentForecastYears   - yearly summary of the months in the window
+     */
+    public void calculateFiscalYearSummary(List<RentForecastMonth> monthlyForecastData, LocalDate closingDate, MonthWindow monthWindow,
+                                           List<RentForecastYear> rentForecastYears) {
         if (closingDate == null) {
             return;
         }
         int closingMonth = closingDate.getMonthValue();
-        int year = 1;
-        int month = 1;
+        int fiscalMonth = monthWindow == null ? 0 : monthWindow.getFiscalMonthsBefore();
         for (RentForecastMonth forecastMonth : monthlyForecastData) {
             if (forecastMonth.getYear() == 1 && forecastMonth.getMonth() <= closingMonth) {
                 continue;
             }
-            if (month > 12) {
-                year++;
-                month = 1;
+            int yearSlot = monthWindow == null ? fiscalMonth / 12 : monthWindow.fiscalYearSlot(fiscalMonth);
+            fiscalMonth++;
+            if (yearSlot < 0) {
+                continue;
             }
-            RentForecastYear yearForecast = rentForecastYears.get(year - 1);
+            RentForecastYear yearForecast = rentForecastYears.get(yearSlot);
             yearForecast.setFiscalActualRent(yearForecast.getFiscalActualRent().add(forecastMonth.getActualRent()));
             yearForecast.setFiscalMarketRent(yearForecast.getFiscalMarketRent().add(forecastMonth.getMarketRent()));
-            month++;
         }
     }
 
@@ -1,29 +1,41 @@
 package com.methodicalplatforms.rentforecast;
 
-import com.methodicalplatforms.rentforecast.actual.ActualRentForecastService;
-import com.methodicalplatforms.rentforecast.market.MarketRentForecastService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.kernel.PrimitiveRentForecastKernel;
 import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.ForecastOptions;
+import com.methodicalplatforms.rentforecast.request.ForecastWindow;
 import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
 import com.methodicalplatforms.rentforecast.request.UnitDetails;
 import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
-import com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService;
+import com.methodicalplatforms.rentforecast.response.RentForecastMonth;
+import com.methodicalplatforms.rentforecast.response.RentForecastYear;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createForecastMonth;
+import static com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService.ALL_UNITS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RentForecastServiceTest {
 
     public RentForecastService rentForecastService;
-    ActualRentForecastService actualRentForecastService = new ActualRentForecastService();
+    private final ObjectMapper objectMapper = new ObjectMapper();
     private static final String UNIT_TYPE_1BR_1BATH = "1 BR 1 BATH";
     private static final String UNIT_101 = "101";
     private static final String UNIT_102 = "102";
@@ -33,7 +45,15 @@ class RentForecastServiceTest {
 
     @BeforeEach
     public void setup() {
-        rentForecastService = new RentForecastService(actualRentForecastService, new MarketRentForecastService(), new RentForecastSummaryService());
+        rentForecastService = createRentForecastService(ForecastEngine.BIG_DECIMAL);
+    }
+
+    private RentForecastService createRentForecastService(ForecastEngine forecastEngine) {
+        // split even the smallest forecasts across threads
+        return RentForecastTestServices.builder()
+                .engine(forecastEngine)
+                .forecastExecutor(RentForecastTestServices.splittingForecastExecutor())
+                .build();
     }
 
     @Test
@@ -421,15 +441,328 @@ class RentForecastServiceTest {
     }
 
 
+    @Test
+    public void primitiveEngineMatchesBigDecimalEngine() {
+        var request = createMarketRentRequest(
+                UnitTypeForecast.builder()
+                        .unitType(UNIT_TYPE_1BR_1BATH)
+                        .unitDetails(Map.of(
+                                UNIT_101, createUnitDetails(6, READY, 1000, 700, LocalDate.of(2023, 8, 15)),
+                                UNIT_102, createUnitDetails(12, NOT_READY, 1250, 1300),
+                                "103", createUnitDetails(3, READY, 6000, 700, LocalDate.of(2022, 2, 1))
+                        ))
+                        .excessRentAdjustmentRate(BigDecimal.valueOf(.15))
+                        .forecastMonthData(forecastMonthTestData())
+                        .build(),
+                UnitTypeForecast.builder()
+                        .unitType("2 BR 2 BATH")
+                        .unitDetails(Map.of(
+                                "201", createUnitDetails(6, READY, 2000, 2100),
+                                "202", createUnitDetails(6, NOT_READY, 2000, 1900, LocalDate.of(2024, 3, 1))
+                        ))
+                        .forecastMonthData(forecastMonthTestData())
+                        .build()
+        );
+        request.setClosingDate(LocalDate.of(2023, 6, 10));
+
+        var bigDecimalResponse = rentForecastService.forecastRents(request);
+        var primitiveResponse = createRentForecastService(ForecastEngine.PRIMITIVE).forecastRents(request);
+
+        // every month, year, fiscal year, unit status and ALL UNITS value
+        assertWithinParityTolerance(objectMapper.valueToTree(bigDecimalResponse), objectMapper.valueToTree(primitiveResponse));
+    }
+
+    @Test
+    public void primitiveEngineMatchesBigDecimalEngineOverLongQuietStretches() {
+        // 30 years escalating once a year, units renewing on long terms so most months repeat the month before
+        List<ForecastMonth> forecastMonths = new ArrayList<>();
+        for (int year = 1; year <= 30; year++) {
+            for (int month = 1; month <= 12; month++) {
+                forecastMonths.add(createForecastMonth(year, month, month == 9 ? BigDecimal.valueOf(.03) : BigDecimal.ZERO,
+                        month == 9 ? BigDecimal.valueOf(.025) : BigDecimal.ZERO));
+            }
+        }
+        var request = createMarketRentRequest(
+                UnitTypeForecast.builder()
+                        .unitType(UNIT_TYPE_1BR_1BATH)
+                        .unitDetails(Map.of(
+                                UNIT_101, createUnitDetails(24, READY, 1400, 1000, LocalDate.of(2023, 8, 15)),
+                                UNIT_102, createUnitDetails(12, NOT_READY, 1250, 1300),
+                                "103", createUnitDetails(36, READY, 900, 700, LocalDate.of(2021, 11, 1)),
+                                "104", createUnitDetails(18, READY, 1100, 1000, LocalDate.of(2040, 5, 20))
+                        ))
+                        .excessRentAdjustmentRate(BigDecimal.valueOf(.05))
+                        .forecastMonthData(forecastMonths)
+                        .build()
+        );
+        request.setClosingDate(LocalDate.of(2023, 6, 10));
+
+        var bigDecimalResponse = rentForecastService.forecastRents(request);
+        var primitiveResponse = createRentForecastService(ForecastEngine.PRIMITIVE).forecastRents(request);
+
+        assertWithinParityTolerance(objectMapper.valueToTree(bigDecimalResponse), objectMapper.valueToTree(primitiveResponse));
+    }
+
+    @Test
+    void identicalUnitsShareForecastAndWeighSummaries() {
+        var request = createMarketRentRequest(
+                UnitTypeForecast.builder()
+                        .unitType(UNIT_TYPE_1BR_1BATH)
+                        .unitDetails(Map.of(
+                                UNIT_101, createUnitDetails(6, READY, 1000, 700, LocalDate.of(2023, 8, 15)),
+                                UNIT_102, createUnitDetails(6, NOT_READY, 1000, 700, LocalDate.of(2023, 8, 15)),
+                                "103", createUnitDetails(6, READY, 1000, 700, LocalDate.of(2023, 8, 15))
+                        ))
+                        .excessRentAdjustmentRate(BigDecimal.valueOf(.15))
+                        .forecastMonthData(forecastMonthTestData())
+                        .build()
+        );
+        request.setClosingDate(LocalDate.of(2023, 6, 10));
+
+        for (ForecastEngine forecastEngine : List.of(ForecastEngine.BIG_DECIMAL, ForecastEngine.PRIMITIVE)) {
+            var response = createRentForecastService(forecastEngine).forecastRents(request);
+            var unitTypeMonthly = response.getUnitTypeForecastRentMonths().get(UNIT_TYPE_1BR_1BATH);
+            var unitForecast = unitTypeMonthly.getUnitForecasts().get(UNIT_101);
+            assertEquals(unitForecast, unitTypeMonthly.getUnitForecasts().get(UNIT_102));
+            for (int i = 0; i < unitForecast.size(); i++) {
+                assertEquals(0, unitForecast.get(i).getActualRent().multiply(BigDecimal.valueOf(3))
+                        .compareTo(unitTypeMonthly.getUnitTypeForecast().get(i).getActualRent()), forecastEngine + " month " + i);
+            }
+
+            var unitYearly = response.getUnitTypeForecastRentYears().get(UNIT_TYPE_1BR_1BATH).getUnitForecasts().get(UNIT_101);
+            var unitStatusYearly = response.getUnitTypeUnitStatusView().get(UNIT_TYPE_1BR_1BATH).getUnitForecasts();
+            for (int i = 0; i < unitYearly.size(); i++) {
+                assertEquals(0, unitYearly.get(i).getMarketRent().compareTo(unitStatusYearly.get(NOT_READY).get(i).getMarketRent()));
+                assertEquals(0, unitYearly.get(i).getMarketRent().multiply(BigDecimal.valueOf(2))
+                        .compareTo(unitStatusYearly.get(READY).get(i).getMarketRent()), forecastEngine + " year " + i);
+            }
+        }
+    }
+
+    @Test
+    void optionsOnlyBuildRequestedViews() {
+        var request = createMarketRentRequest(
+                UnitTypeForecast.builder()
+                        .unitType(UNIT_TYPE_1BR_1BATH)
+                        .unitDetails(Map.of(
+                                UNIT_101, createUnitDetails(6, READY, 1000, 700),
+                                UNIT_102, createUnitDetails(6, NOT_READY, 1100, 900)
+                        ))
+                        .excessRentAdjustmentRate(BigDecimal.valueOf(.15))
+                        .forecastMonthData(forecastMonthTestData())
+                        .build()
+        );
+        request.setClosingDate(LocalDate.of(2023, 6, 10));
+
+        for (ForecastEngine forecastEngine : List.of(ForecastEngine.BIG_DECIMAL, ForecastEngine.PRIMITIVE)) {
+            var service = createRentForecastService(forecastEngine);
+            var fullResponse = service.forecastRents(request);
+
+            var unitTypeOptions = new ForecastOptions();
+            unitTypeOptions.setSummarizeByUnitType(true);
+            unitTypeOptions.setUnitStatusView(false);
+            request.setOptions(unitTypeOptions);
+            var unitTypeResponse = service.forecastRents(request);
+            assertNull(unitTypeResponse.getUnitTypeUnitStatusView());
+            assertNull(unitTypeResponse.getUnitTypeForecastRentMonths().get(UNIT_TYPE_1BR_1BATH).getUnitForecasts());
+            assertNull(unitTypeResponse.getUnitTypeForecastRentYears().get(UNIT_TYPE_1BR_1BATH).getUnitForecasts());
+            assertEquals(fullResponse.getUnitTypeForecastRentMonths().get(ALL_UNITS), unitTypeResponse.getUnitTypeForecastRentMonths().get(ALL_UNITS));
+            assertEquals(fullResponse.getUnitTypeForecastRentYears().get(UNIT_TYPE_1BR_1BATH).getUnitTypeForecast(),
+                    unitTypeResponse.getUnitTypeForecastRentYears().get(UNIT_TYPE_1BR_1BATH).getUnitTypeForecast());
+
+            var allUnitsOptions = new ForecastOptions();
+            allUnitsOptions.setSummarizeByYear(true);
+            allUnitsOptions.setAllUnitsOnly(true);
+            request.setOptions(allUnitsOptions);
+            var allUnitsResponse = service.forecastRents(request);
+            assertNull(allUnitsResponse.getUnitTypeForecastRentMonths());
+            assertNull(allUnitsResponse.getUnitTypeUnitStatusView());
+            assertEquals(Map.of(ALL_UNITS, fullResponse.getUnitTypeForecastRentYears().get(ALL_UNITS)), allUnitsResponse.getUnitTypeForecastRentYears());
+            request.setOptions(null);
+        }
+    }
+
+    @Test
+    void unitTypeTotalsAreSummedWithoutUnitForecasts() {
+        Map<String, UnitDetails> unitDetails = new HashMap<>();
+        for (int unit = 0; unit < 12; unit++) {
+            // some units share a profile, so the totals are weighted
+            unitDetails.put(String.valueOf(100 + unit), createUnitDetails(6 + unit % 3, unit % 2 == 0 ? READY : NOT_READY, 1000 + 50 * (unit % 4), 700));
+        }
+        var unitTypeForecast = UnitTypeForecast.builder()
+                .unitType(UNIT_TYPE_1BR_1BATH)
+                .unitDetails(unitDetails)
+                .excessRentAdjustmentRate(BigDecimal.valueOf(.15))
+                .forecastMonthData(forecastMonthTestData())
+                .build();
+        LocalDate closingDate = LocalDate.of(2023, 6, 10);
+
+        var unitForecasts = rentForecastService.forecastUnitType(unitTypeForecast, closingDate, null, true, null);
+        var totals = rentForecastService.forecastUnitType(unitTypeForecast, closingDate, null, false, null);
+        assertNull(totals.getUnitForecasts());
+        assertEquals(unitForecasts.getUnitTypeForecast(), totals.getUnitTypeForecast());
+        // a later forecast of the units isn't served the cached totals
+        assertEquals(unitDetails.keySet(), rentForecastService.forecastUnitType(unitTypeForecast, closingDate, null, true, null).getUnitForecasts().keySet());
+    }
+
+    @Test
+    void windowOnlyReturnsItsMonths() {
+        var request = createWindowRequest();
+        var window = new ForecastWindow();
+        window.setStartYear(2);
+        window.setStartMonth(4);
+        window.setEndYear(3);
+        window.setEndMonth(8);
+
+        for (ForecastEngine forecastEngine : List.of(ForecastEngine.BIG_DECIMAL, ForecastEngine.PRIMITIVE)) {
+            var service = createRentForecastService(forecastEngine);
+            request.setOptions(null);
+            var fullResponse = service.forecastRents(request);
+            var options = new ForecastOptions();
+            options.setWindow(window);
+            request.setOptions(options);
+            var windowResponse = service.forecastRents(request);
+
+            for (String unitType : List.of(UNIT_TYPE_1BR_1BATH, ALL_UNITS)) {
+                assertEquals(inWindow(fullResponse.getUnitTypeForecastRentMonths().get(unitType).getUnitTypeForecast()),
+                        windowResponse.getUnitTypeForecastRentMonths().get(unitType).getUnitTypeForecast());
+            }
+            for (String unitId : List.of(UNIT_101, UNIT_102)) {
+                assertEquals(inWindow(fullResponse.getUnitTypeForecastRentMonths().get(UNIT_TYPE_1BR_1BATH).getUnitForecasts().get(unitId)),
+                        windowResponse.getUnitTypeForecastRentMonths().get(UNIT_TYPE_1BR_1BATH).getUnitForecasts().get(unitId));
+            }
+
+            List<RentForecastMonth> windowMonths = windowResponse.getUnitTypeForecastRentMonths().get(UNIT_TYPE_1BR_1BATH).getUnitTypeForecast();
+            List<RentForecastYear> fullYears = fullResponse.getUnitTypeForecastRentYears().get(UNIT_TYPE_1BR_1BATH).getUnitTypeForecast();
+            List<RentForecastYear> windowYears = windowResponse.getUnitTypeForecastRentYears().get(UNIT_TYPE_1BR_1BATH).getUnitTypeForecast();
+            assertEquals(List.of(2, 3), windowYears.stream().map(RentForecastYear::getYear).toList());
+            for (RentForecastYear windowYear : windowYears) {
+                assertClose(sumMarketRents(windowMonths, windowYear.getYear(), 1, 12), windowYear.getMarketRent());
+            }
+            // the fiscal year from year 2 month 7 is in the window, the one before it started too early
+            assertClose(fullYears.get(1).getFiscalMarketRent(), windowYears.get(0).getFiscalMarketRent());
+            assertClose(fullYears.get(1).getFiscalActualRent(), windowYears.get(0).getFiscalActualRent());
+            assertClose(sumMarketRents(windowMonths, 3, 7, 8), windowYears.get(1).getFiscalMarketRent());
+        }
+        request.setOptions(null);
+    }
+
+    @Test
+    void windowStartingAfterFiscalYearStartLeavesThatYearOut() {
+        var request = createWindowRequest();
+        // the fiscal year from year 2 month 7 started before the window
+        var window = new ForecastWindow();
+        window.setStartYear(2);
+        window.setStartMonth(9);
+        var options = new ForecastOptions();
+        options.setWindow(window);
+
+        for (ForecastEngine forecastEngine : List.of(ForecastEngine.BIG_DECIMAL, ForecastEngine.PRIMITIVE)) {
+            var service = createRentForecastService(forecastEngine);
+            request.setOptions(null);
+            var fullResponse = service.forecastRents(request);
+            request.setOptions(options);
+            var windowResponse = service.forecastRents(request);
+
+            List<RentForecastYear> fullYears = fullResponse.getUnitTypeForecastRentYears().get(UNIT_TYPE_1BR_1BATH).getUnitTypeForecast();
+            List<RentForecastYear> windowYears = windowResponse.getUnitTypeForecastRentYears().get(UNIT_TYPE_1BR_1BATH).getUnitTypeForecast();
+            assertEquals(List.of(2, 3), windowYears.stream().map(RentForecastYear::getYear).toList());
+            assertClose(BigDecimal.ZERO, windowYears.get(0).getFiscalMarketRent());
+            assertClose(BigDecimal.ZERO, windowYears.get(0).getFiscalActualRent());
+            assertClose(fullYears.get(2).getFiscalMarketRent(), windowYears.get(1).getFiscalMarketRent());
+            assertClose(fullYears.get(2).getFiscalActualRent(), windowYears.get(1).getFiscalActualRent());
+        }
+        request.setOptions(null);
+    }
+
+    @Test
+    void windowStartingAfterItEndsIsRejected() {
+        var request = createMarketRentRequest(
+                UnitTypeForecast.builder()
+                        .unitType(UNIT_TYPE_1BR_1BATH)
+                        .unitDetails(Map.of(UNIT_101, createUnitDetails(6, READY, 1000, 700)))
+                        .excessRentAdjustmentRate(BigDecimal.valueOf(.15))
+                        .forecastMonthData(forecastMonthTestData())
+                        .build()
+        );
+        var window = new ForecastWindow();
+        window.setStartYear(2);
+        window.setEndYear(1);
+        var options = new ForecastOptions();
+        options.setWindow(window);
+        request.setOptions(options);
+
+        assertThrows(IllegalArgumentException.class, () -> rentForecastService.forecastRents(request));
+    }
+
+    /**
+     * @return - three years of forecast months for a unit type closing in year 1 month 6
+     */
+    private RentForecastRequest createWindowRequest() {
+        List<ForecastMonth> forecastMonths = new ArrayList<>();
+        for (int year = 1; year <= 3; year++) {
+            for (int month = 1; month <= 12; month++) {
+                forecastMonths.add(createForecastMonth(year, month, month % 4 == 0 ? BigDecimal.valueOf(.05) : BigDecimal.ZERO,
+                        month % 3 == 0 ? BigDecimal.valueOf(.03) : BigDecimal.ZERO));
+            }
+        }
+        var request = createMarketRentRequest(
+                UnitTypeForecast.builder()
+                        .unitType(UNIT_TYPE_1BR_1BATH)
+                        .unitDetails(Map.of(
+                                UNIT_101, createUnitDetails(6, READY, 1000, 700, LocalDate.of(2023, 8, 1)),
+                                UNIT_102, createUnitDetails(12, NOT_READY, 1100, 900)
+                        ))
+                        .excessRentAdjustmentRate(BigDecimal.valueOf(.15))
+                        .forecastMonthData(forecastMonths)
+                        .build()
+        );
+        request.setClosingDate(LocalDate.of(2023, 6, 10));
+        return request;
+    }
+
+    private static List<RentForecastMonth> inWindow(List<RentForecastMonth> rentForecastMonths) {
+        return rentForecastMonths.stream()
+                .filter(rentForecastMonth -> rentForecastMonth.getYear() * 12 + rentForecastMonth.getMonth() >= 2 * 12 + 4
+                        && rentForecastMonth.getYear() * 12 + rentForecastMonth.getMonth() <= 3 * 12 + 8)
+                .toList();
+    }
+
+    private static BigDecimal sumMarketRents(List<RentForecastMonth> rentForecastMonths, int year, int fromMonth, int toMonth) {
+        return rentForecastMonths.stream()
+                .filter(rentForecastMonth -> rentForecastMonth.getYear() == year
+                        && rentForecastMonth.getMonth() >= fromMonth && rentForecastMonth.getMonth() <= toMonth)
+                .map(RentForecastMonth::getMarketRent)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static void assertClose(BigDecimal expected, BigDecimal actual) {
+        assertTrue(expected.subtract(actual).abs().compareTo(BigDecimal.valueOf(1e-6)) < 0, expected + " vs " + actual);
+    }
+
+    private void assertWithinParityTolerance(JsonNode expected, JsonNode actual) {
+        if (expected.isNumber()) {
+            assertEquals(expected.doubleValue(), actual.doubleValue(), PrimitiveRentForecastKernel.PARITY_TOLERANCE);
+        } else if (expected.isContainerNode()) {
+            assertEquals(expected.size(), actual.size());
+            if (expected.isArray()) {
+                for (int i = 0; i < expected.size(); i++) {
+                    assertWithinParityTolerance(expected.get(i), actual.get(i));
+                }
+            } else {
+                expected.fieldNames().forEachRemaining(fieldName -> assertWithinParityTolerance(expected.get(fieldName), actual.get(fieldName)));
+            }
+        } else {
+            assertEquals(expected, actual);
+        }
+    }
+
     private RentForecastRequest createMarketRentRequest(UnitTypeForecast... unitTypeForecastList) {
         var request = new RentForecastRequest();
         request.setUnitTypeForecastList(List.of(unitTypeForecastList));
         return request;
     }
 
-    private ForecastMonth createForecastMonth(int year, int month, BigDecimal marketEscalationRate, BigDecimal actualEscalationRate) {
-        return ForecastMonth.builder().month(month).year(year).marketEscalationRate(marketEscalationRate).actualEscalationRate(actualEscalationRate).build();
-    }
 
     private UnitDetails createUnitDetails(int contractTerm, String unitStatus, int startingMarketRent, int startingActualRent, LocalDate startDate) {
         var unitDetails = createUnitDetails(contractTerm, unitStatus, startingMarketRent, startingActualRent);
@@ -0,0 +1,131 @@
+package com.methodicalplatforms.rentforecast;
+
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Requests shared by the test suites. Everything returned is mutable and new on each call, tests change what they need.
+ */
+public final class RentForecastTestRequests {
+
+    public static final LocalDate CLOSING_DATE = LocalDate.of(2023, 6, 10);
+    public static final String UNIT_TYPE_1BR_1BATH = "1 BR 1 BATH";
+    public static final String UNIT_TYPE_2BR_2BATH = "2 BR 2 BATH";
+
+    private RentForecastTestRequests() {
+    }
+
+    /**
+     * Two unit types over two years: units 101 and 102, one ready and one not, and unit 201
+     *
+     * @return - a small portfolio request closing on {@link #CLOSING_DATE}
+     */
+    public static RentForecastRequest createRequest() {
+        return createRequest(
+                createUnitTypeForecast(UNIT_TYPE_1BR_1BATH, Map.of(
+                        "101", createUnitDetails("READY", 1000, 700),
+                        "102", createUnitDetails("NOT READY", 1100, 900))),
+                createUnitTypeForecast(UNIT_TYPE_2BR_2BATH, Map.of(
+                        "201", createUnitDetails("READY", 2000, 1800))));
+    }
+
+    /**
+     * @param unitTypeForecasts - unit types to forecast
+     * @return - a request for the unit types closing on {@link #CLOSING_DATE}
+     */
+    public static RentForecastRequest createRequest(UnitTypeForecast... unitTypeForecasts) {
+        var request = new RentForecastRequest();
+        request.setClosingDate(CLOSING_DATE);
+        request.setUnitTypeForecastList(new ArrayList<>(List.of(unitTypeForecasts)));
+        return request;
+    }
+
+    /**
+     * @param unitTypes        - number of unit types
+     * @param unitsPerUnitType - units of each unit type, with a mix of statuses, rents and contract terms
+     * @param years            - number of forecast years
+     * @return - a request large enough to be split across threads
+     */
+    public static RentForecastRequest createPortfolioRequest(int unitTypes, int unitsPerUnitType, int years) {
+        List<UnitTypeForecast> unitTypeForecasts = new ArrayList<>();
+        for (int unitType = 0; unitType < unitTypes; unitType++) {
+            Map<String, UnitDetails> unitDetails = new LinkedHashMap<>();
+            for (int unit = 0; unit < unitsPerUnitType; unit++) {
+                unitDetails.put(unitType + "-" + unit, createUnitDetails(unit % 3 == 0 ? "NOT READY" : "READY",
+                        1000 + 10 * unit, 800 + 5 * unit, 3 + unit % 12));
+            }
+            unitTypeForecasts.add(createUnitTypeForecast("UNIT TYPE " + unitType, unitDetails, years));
+        }
+        return createRequest(unitTypeForecasts.toArray(UnitTypeForecast[]::new));
+    }
+
+    /**
+     * @return - the unit type forecast over two years
+     */
+    public static UnitTypeForecast createUnitTypeForecast(String unitType, Map<String, UnitDetails> unitDetails) {
+        return createUnitTypeForecast(unitType, unitDetails, 2);
+    }
+
+    /**
+     * @param unitType    - name of the unit type
+     * @param unitDetails - units of the unit type
+     * @param years       - number of forecast years, see {@link #createForecastMonths(int)}
+     * @return - the unit type forecast with an excess rent adjustment rate of 15%
+     */
+    public static UnitTypeForecast createUnitTypeForecast(String unitType, Map<String, UnitDetails> unitDetails, int years) {
+        return UnitTypeForecast.builder()
+                .unitType(unitType)
+                .unitDetails(new LinkedHashMap<>(unitDetails))
+                .excessRentAdjustmentRate(BigDecimal.valueOf(.15))
+                .forecastMonthData(createForecastMonths(years))
+                .build();
+    }
+
+    /**
+     * @param years - number of forecast years
+     * @return - every month of the years, escalating market rent by 5% and actual rent by 3% every fourth month
+     */
+    public static List<ForecastMonth> createForecastMonths(int years) {
+        List<ForecastMonth> forecastMonths = new ArrayList<>();
+        for (int year = 1; year <= years; year++) {
+            for (int month = 1; month <= 12; month++) {
+                forecastMonths.add(createForecastMonth(year, month,
+                        month % 4 == 0 ? BigDecimal.valueOf(.05) : BigDecimal.ZERO,
+                        month % 4 == 0 ? BigDecimal.valueOf(.03) : BigDecimal.ZERO));
+            }
+        }
+        return forecastMonths;
+    }
+
+    public static ForecastMonth createForecastMonth(int year, int month, BigDecimal marketEscalationRate, BigDecimal actualEscalationRate) {
+        return ForecastMonth.builder().year(year).month(month)
+                .marketEscalationRate(marketEscalationRate)
+                .actualEscalationRate(actualEscalationRate)
+                .build();
+    }
+
+    /**
+     * @return - a unit on a 6 month contract
+     */
+    public static UnitDetails createUnitDetails(String unitStatus, int startingMarketRent, int startingActualRent) {
+        return createUnitDetails(unitStatus, startingMarketRent, startingActualRent, 6);
+    }
+
+    public static UnitDetails createUnitDetails(String unitStatus, int startingMarketRent, int startingActualRent, int contractTerm) {
+        var unitDetails = new UnitDetails();
+        unitDetails.setUnitStatus(unitStatus);
+        unitDetails.setContractTerm(contractTerm);
+        unitDetails.setStartingMarketRent(BigDecimal.valueOf(startingMarketRent));
+        unitDetails.setStartingActualRent(BigDecimal.valueOf(startingActualRent));
+        return unitDetails;
+    }
+}
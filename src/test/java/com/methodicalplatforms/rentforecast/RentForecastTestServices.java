@@ -0,0 +1,108 @@
+package com.methodicalplatforms.rentforecast;
+
+import com.methodicalplatforms.rentforecast.actual.ActualRentForecastService;
+import com.methodicalplatforms.rentforecast.cache.UnitCheckpointCache;
+import com.methodicalplatforms.rentforecast.cache.UnitTypeForecastCache;
+import com.methodicalplatforms.rentforecast.config.RentForecastCacheProperties;
+import com.methodicalplatforms.rentforecast.config.RentForecastCheckpointProperties;
+import com.methodicalplatforms.rentforecast.config.RentForecastExecutorProperties;
+import com.methodicalplatforms.rentforecast.config.RentForecastProperties;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.kernel.PrimitiveRentForecastKernel;
+import com.methodicalplatforms.rentforecast.market.MarketRentForecastService;
+import com.methodicalplatforms.rentforecast.metrics.ForecastMetrics;
+import com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Rent forecast services wired the way the application wires them, without a Spring context. Everything not set
+ * gets the application defaults, so a new collaborator of RentForecastService is only wired here.
+ */
+public final class RentForecastTestServices {
+
+    private RentForecastProperties rentForecastProperties = new RentForecastProperties();
+    private RentForecastCacheProperties cacheProperties = new RentForecastCacheProperties();
+    private RentForecastSummaryService rentForecastSummaryService;
+    private ForecastExecutor forecastExecutor;
+    private ForecastMetrics forecastMetrics;
+    private UnitCheckpointCache unitCheckpointCache;
+
+    private RentForecastTestServices() {
+    }
+
+    public static RentForecastTestServices builder() {
+        return new RentForecastTestServices();
+    }
+
+    /**
+     * @return - a rent forecast service with the application defaults
+     */
+    public static RentForecastService rentForecastService() {
+        return builder().build();
+    }
+
+    /**
+     * @param forecastEngine - engine to forecast with
+     * @return - a rent forecast service with the application defaults besides the engine
+     */
+    public static RentForecastService rentForecastService(ForecastEngine forecastEngine) {
+        return builder().engine(forecastEngine).build();
+    }
+
+    /**
+     * @return - an executor splitting even the smallest forecasts across threads
+     */
+    public static ForecastExecutor splittingForecastExecutor() {
+        RentForecastExecutorProperties executorProperties = new RentForecastExecutorProperties();
+        executorProperties.setMinUnitMonthsPerTask(1);
+        return new ForecastExecutor(executorProperties, new SimpleMeterRegistry());
+    }
+
+    public RentForecastTestServices engine(ForecastEngine forecastEngine) {
+        rentForecastProperties.setEngine(forecastEngine);
+        return this;
+    }
+
+    /**
+     * @param rentForecastProperties - properties the test keeps changing, replaces any engine set before
+     */
+    public RentForecastTestServices rentForecastProperties(RentForecastProperties rentForecastProperties) {
+        this.rentForecastProperties = rentForecastProperties;
+        return this;
+    }
+
+    public RentForecastTestServices cacheEnabled(boolean enabled) {
+        cacheProperties.setEnabled(enabled);
+        return this;
+    }
+
+    public RentForecastTestServices rentForecastSummaryService(RentForecastSummaryService rentForecastSummaryService) {
+        this.rentForecastSummaryService = rentForecastSummaryService;
+        return this;
+    }
+
+    public RentForecastTestServices forecastExecutor(ForecastExecutor forecastExecutor) {
+        this.forecastExecutor = forecastExecutor;
+        return this;
+    }
+
+    public RentForecastTestServices forecastMetrics(ForecastMetrics forecastMetrics) {
+        this.forecastMetrics = forecastMetrics;
+        return this;
+    }
+
+    public RentForecastTestServices unitCheckpointCache(UnitCheckpointCache unitCheckpointCache) {
+        this.unitCheckpointCache = unitCheckpointCache;
+        return this;
+    }
+
+    public RentForecastService build() {
+        return new RentForecastService(new ActualRentForecastService(), new MarketRentForecastService(),
+                rentForecastSummaryService != null ? rentForecastSummaryService : new RentForecastSummaryService(),
+                new PrimitiveRentForecastKernel(), rentForecastProperties, new UnitTypeForecastCache(cacheProperties),
+                forecastExecutor != null ? forecastExecutor : new ForecastExecutor(new RentForecastExecutorProperties(), new SimpleMeterRegistry()),
+                forecastMetrics != null ? forecastMetrics : new ForecastMetrics(new SimpleMeterRegistry()),
+                unitCheckpointCache != null ? unitCheckpointCache : new UnitCheckpointCache(new RentForecastCheckpointProperties()));
+    }
+}
@@ -0,0 +1,142 @@
+package com.methodicalplatforms.rentforecast.admission;
+
+import com.methodicalplatforms.rentforecast.config.RentForecastAdmissionProperties;
+import com.methodicalplatforms.rentforecast.metrics.ForecastMetrics;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.ForecastOptions;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ForecastAdmissionTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RentForecastAdmissionProperties admissionProperties;
+    private ForecastAdmission forecastAdmission;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        admissionProperties = new RentForecastAdmissionProperties();
+        admissionProperties.setBudget(1000);
+        admissionProperties.setMaxRequestCost(600);
+        admissionProperties.setQueueTimeout(Duration.ofMillis(50));
+        forecastAdmission = new ForecastAdmission(admissionProperties, new ForecastMetrics(meterRegistry));
+    }
+
+    @Test
+    void costIsUnitMonthsPerView() {
+        var request = createRequest(5, 12);
+        assertEquals(180, ForecastAdmission.estimateCost(request));
+
+        var options = new ForecastOptions();
+        options.setSummarizeByUnitType(true);
+        options.setUnitStatusView(false);
+        request.setOptions(options);
+        assertEquals(60, ForecastAdmission.estimateCost(request));
+    }
+
+    @Test
+    void requestOverTheLimitIsTooLarge() {
+        var rejection = assertThrows(ForecastRejectedException.class, () -> forecastAdmission.admit(createRequest(20, 12)));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, rejection.getStatus());
+        assertNull(rejection.getRetryAfter());
+        assertEquals(1d, meterRegistry.get(ForecastMetrics.REJECTED).tag("status", "413").counter().count());
+    }
+
+    @Test
+    void shardedRequestIsOnlyLimitedByTheBudget() {
+        // 900, over the request limit but within the budget
+        try (ForecastPermit forecastPermit = forecastAdmission.admitSharded(createRequest(25, 12))) {
+            assertEquals(900, forecastPermit.getReservedCost());
+            var rejection = assertThrows(ForecastRejectedException.class, () -> forecastAdmission.admit(createRequest(5, 12)));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejection.getStatus());
+        }
+
+        var rejection = assertThrows(ForecastRejectedException.class, () -> forecastAdmission.admitSharded(createRequest(30, 12)));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, rejection.getStatus());
+    }
+
+    @Test
+    void requestWaitingOnAFullBudgetIsRetriedLater() {
+        // 540 of the 1000 budget each
+        var request = createRequest(15, 12);
+        ForecastPermit forecastPermit = forecastAdmission.admit(request);
+
+        var rejection = assertThrows(ForecastRejectedException.class, () -> forecastAdmission.admit(request));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejection.getStatus());
+        assertEquals(admissionProperties.getRetryAfter(), rejection.getRetryAfter());
+
+        forecastPermit.close();
+        forecastPermit.close();
+        assertEquals(0, forecastAdmission.getInFlightCost());
+        try (ForecastPermit admitted = forecastAdmission.admit(request)) {
+            assertEquals(540, admitted.getReservedCost());
+        }
+        assertEquals(2, meterRegistry.get(ForecastMetrics.ESTIMATED_COST).summary().count());
+        assertEquals(1080d, meterRegistry.get(ForecastMetrics.ESTIMATED_COST).summary().totalAmount());
+    }
+
+    @Test
+    void jobWaitsForTheBudget() throws Exception {
+        ForecastPermit forecastPermit = forecastAdmission.admit(createRequest(15, 12));
+        // over the request limit but within the budget
+        var jobRequest = createRequest(25, 12);
+        forecastAdmission.checkJob(jobRequest);
+
+        CompletableFuture<ForecastPermit> jobPermit = CompletableFuture.supplyAsync(() -> {
+            try {
+                return forecastAdmission.admitJob(jobRequest);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(jobPermit.isDone());
+
+        forecastPermit.close();
+        try (ForecastPermit admitted = jobPermit.get(5, TimeUnit.SECONDS)) {
+            assertEquals(900, admitted.getReservedCost());
+        }
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE,
+                assertThrows(ForecastRejectedException.class, () -> forecastAdmission.checkJob(createRequest(30, 12))).getStatus());
+    }
+
+    private RentForecastRequest createRequest(int units, int months) {
+        List<ForecastMonth> forecastMonths = new ArrayList<>();
+        for (int month = 1; month <= months; month++) {
+            forecastMonths.add(ForecastMonth.builder().year(1 + (month - 1) / 12).month(1 + (month - 1) % 12)
+                    .marketEscalationRate(BigDecimal.ZERO).actualEscalationRate(BigDecimal.ZERO).build());
+        }
+        Map<String, UnitDetails> unitDetails = new HashMap<>();
+        for (int unit = 0; unit < units; unit++) {
+            unitDetails.put(String.valueOf(unit), new UnitDetails());
+        }
+        var request = new RentForecastRequest();
+        request.setUnitTypeForecastList(List.of(UnitTypeForecast.builder()
+                .unitType("1 BR 1 BATH")
+                .unitDetails(unitDetails)
+                .forecastMonthData(forecastMonths)
+                .build()));
+        return request;
+    }
+}
@@ -0,0 +1,94 @@
+package com.methodicalplatforms.rentforecast.arena;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.config.RentForecastArenaProperties;
+import com.methodicalplatforms.rentforecast.format.ColumnarForecastModule;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createPortfolioRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForecastBufferPoolTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper columnarObjectMapper = new ObjectMapper().registerModule(new ColumnarForecastModule());
+
+    @Test
+    void arenaForecastMatchesHeapForecast() throws Exception {
+        var forecastBufferPool = createPool(64L * 1024 * 1024);
+        var rentForecastService = RentForecastTestServices.builder().engine(ForecastEngine.PRIMITIVE).cacheEnabled(false).build();
+        var heapResponse = rentForecastService.forecastRents(createPortfolioRequest(3, 40, 3));
+
+        List<Long> reservedBytes = new ArrayList<>();
+        for (int request = 0; request < 2; request++) {
+            try (ForecastArena ignored = forecastBufferPool.openArena()) {
+                var arenaResponse = rentForecastService.forecastRents(createPortfolioRequest(3, 40, 3));
+
+                assertTrue(forecastBufferPool.getStats().getInUseBytes() > 0);
+                assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(heapResponse)),
+                        objectMapper.readTree(objectMapper.writeValueAsBytes(arenaResponse)));
+                assertEquals(columnarObjectMapper.readTree(columnarObjectMapper.writeValueAsBytes(heapResponse)),
+                        columnarObjectMapper.readTree(columnarObjectMapper.writeValueAsBytes(arenaResponse)));
+            }
+            assertNull(ForecastArena.current());
+            reservedBytes.add(forecastBufferPool.getStats().getReservedBytes());
+        }
+
+        var stats = forecastBufferPool.getStats();
+        assertEquals(0, stats.getInUseBytes());
+        assertEquals(0, stats.getOpenArenas());
+        // the second request reused the first one's buffers
+        assertEquals(reservedBytes.get(0), reservedBytes.get(1));
+        assertEquals(0, stats.getHeapFallbacks());
+    }
+
+    @Test
+    void cachedForecastsStayOnTheHeap() {
+        var forecastBufferPool = createPool(64L * 1024 * 1024);
+
+        try (ForecastArena ignored = forecastBufferPool.openArena()) {
+            RentForecastTestServices.builder().engine(ForecastEngine.PRIMITIVE).cacheEnabled(true).build()
+                    .forecastRents(createPortfolioRequest(3, 40, 3));
+        }
+
+        assertEquals(0, forecastBufferPool.getStats().getAcquisitions());
+    }
+
+    @Test
+    void columnsThatDoNotFitGoOnTheHeap() {
+        var forecastBufferPool = createPool(4096);
+
+        DoubleBuffer pooled;
+        DoubleBuffer fallback;
+        try (ForecastArena forecastArena = forecastBufferPool.openArena()) {
+            pooled = forecastArena.allocateDoubles(300);
+            fallback = forecastArena.allocateDoubles(300);
+            assertEquals(0d, pooled.get(299));
+        }
+
+        assertTrue(pooled.isDirect());
+        assertFalse(fallback.isDirect());
+        var stats = forecastBufferPool.getStats();
+        assertEquals(1, stats.getAcquisitions());
+        assertEquals(1, stats.getHeapFallbacks());
+        assertEquals(4096, stats.getReservedBytes());
+        assertEquals(0, stats.getInUseBytes());
+    }
+
+    private ForecastBufferPool createPool(long maxBytes) {
+        var arenaProperties = new RentForecastArenaProperties();
+        arenaProperties.setMaxBytes(maxBytes);
+        arenaProperties.setMinBufferBytes(0);
+        return new ForecastBufferPool(arenaProperties, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,102 @@
+package com.methodicalplatforms.rentforecast.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.request.ForecastScenario;
+import com.methodicalplatforms.rentforecast.request.RentForecastBatchRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createForecastMonth;
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ForecastBatchServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RentForecastService rentForecastService;
+    private ForecastBatchService forecastBatchService;
+
+    @BeforeEach
+    public void setup() {
+        var forecastExecutor = RentForecastTestServices.splittingForecastExecutor();
+        rentForecastService = RentForecastTestServices.builder().forecastExecutor(forecastExecutor).build();
+        forecastBatchService = new ForecastBatchService(rentForecastService, forecastExecutor, objectMapper);
+    }
+
+    @Test
+    void scenariosMatchSeparateForecasts() throws Exception {
+        var higherRates = new ForecastScenario();
+        higherRates.setScenarioId("higher rates");
+        higherRates.setExcessRentAdjustmentRate(BigDecimal.valueOf(.2));
+        higherRates.setForecastMonthData(List.of(createForecastMonth(1, 8, BigDecimal.valueOf(.07), BigDecimal.valueOf(.04))));
+        var laterClosing = new ForecastScenario();
+        laterClosing.setScenarioId("later closing");
+        laterClosing.setClosingDate(LocalDate.of(2023, 9, 1));
+        var batchRequest = new RentForecastBatchRequest();
+        batchRequest.setBaseRequest(createRequest());
+        batchRequest.setScenarios(List.of(higherRates, laterClosing));
+
+        var outputStream = new ByteArrayOutputStream();
+        forecastBatchService.writeBatch(forecastBatchService.prepareBatch(batchRequest), outputStream);
+        var scenarioForecasts = objectMapper.readTree(outputStream.toByteArray());
+
+        var higherRatesRequest = createRequest();
+        higherRatesRequest.getUnitTypeForecastList().forEach(unitTypeForecast -> {
+            unitTypeForecast.setExcessRentAdjustmentRate(BigDecimal.valueOf(.2));
+            unitTypeForecast.getForecastMonthData().set(7, createForecastMonth(1, 8, BigDecimal.valueOf(.07), BigDecimal.valueOf(.04)));
+        });
+        var laterClosingRequest = createRequest();
+        laterClosingRequest.setClosingDate(LocalDate.of(2023, 9, 1));
+        assertEquals(2, scenarioForecasts.size());
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(rentForecastService.forecastRents(higherRatesRequest))),
+                scenarioForecasts.get("higher rates"));
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(rentForecastService.forecastRents(laterClosingRequest))),
+                scenarioForecasts.get("later closing"));
+    }
+
+    @Test
+    void scenarioChangingUnknownMonthIsRejected() {
+        var scenario = new ForecastScenario();
+        scenario.setScenarioId("year 3");
+        scenario.setForecastMonthData(List.of(createForecastMonth(3, 1, BigDecimal.valueOf(.07), BigDecimal.valueOf(.04))));
+        var batchRequest = new RentForecastBatchRequest();
+        batchRequest.setBaseRequest(createRequest());
+        batchRequest.setScenarios(List.of(scenario));
+
+        assertThrows(IllegalArgumentException.class, () -> forecastBatchService.prepareBatch(batchRequest));
+    }
+
+    @Test
+    void scenarioMissingRateIsRejected() {
+        var scenario = new ForecastScenario();
+        scenario.setScenarioId("no actual rate");
+        scenario.setForecastMonthData(List.of(createForecastMonth(1, 1, BigDecimal.valueOf(.07), null)));
+        var batchRequest = new RentForecastBatchRequest();
+        batchRequest.setBaseRequest(createRequest());
+        batchRequest.setScenarios(List.of(scenario));
+
+        assertThrows(IllegalArgumentException.class, () -> forecastBatchService.prepareBatch(batchRequest));
+    }
+
+    @Test
+    void batchCostCoversEveryScenario() {
+        var first = new ForecastScenario();
+        first.setScenarioId("first");
+        var second = new ForecastScenario();
+        second.setScenarioId("second");
+        var batchRequest = new RentForecastBatchRequest();
+        batchRequest.setBaseRequest(createRequest());
+        batchRequest.setScenarios(List.of(first, second));
+
+        assertEquals(2 * ForecastAdmission.estimateCost(createRequest()), forecastBatchService.prepareBatch(batchRequest).estimateCost());
+    }
+}
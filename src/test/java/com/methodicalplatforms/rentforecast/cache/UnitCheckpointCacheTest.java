@@ -0,0 +1,147 @@
+package com.methodicalplatforms.rentforecast.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.config.RentForecastCheckpointProperties;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.ForecastOptions;
+import com.methodicalplatforms.rentforecast.request.ForecastWindow;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnitCheckpointCacheTest {
+
+    private static final int UNIT_COUNT = 12;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void resumedForecastsMatchForecastsFromTheFirstMonth() throws Exception {
+        for (ForecastEngine forecastEngine : List.of(ForecastEngine.BIG_DECIMAL, ForecastEngine.PRIMITIVE)) {
+            var unitCheckpointCache = new UnitCheckpointCache(enabledProperties());
+            var rentForecastService = createRentForecastService(forecastEngine, unitCheckpointCache);
+            var uncheckpointedService = createRentForecastService(forecastEngine, new UnitCheckpointCache(new RentForecastCheckpointProperties()));
+            rentForecastService.forecastRents(createRequest(3, 4, null));
+            assertEquals(0, unitCheckpointCache.getStats().getHits());
+
+            // rates changed from year 3 on, only year 3 returned
+            var changedRequest = createRequest(3, 3, window(3));
+            assertEquals(json(uncheckpointedService.forecastRents(changedRequest)), json(rentForecastService.forecastRents(changedRequest)));
+            assertEquals(UNIT_COUNT, unitCheckpointCache.getStats().getHits());
+
+            // the horizon extended by a year, only the new year returned
+            var extendedRequest = createRequest(4, 3, window(4));
+            assertEquals(json(uncheckpointedService.forecastRents(extendedRequest)), json(rentForecastService.forecastRents(extendedRequest)));
+            assertEquals(2 * UNIT_COUNT, unitCheckpointCache.getStats().getHits());
+
+            // rates changed in year 2 resume from year 2 instead of year 3
+            var earlyChangeRequest = createRequest(4, 2, window(3));
+            assertEquals(json(uncheckpointedService.forecastRents(earlyChangeRequest)), json(rentForecastService.forecastRents(earlyChangeRequest)));
+            assertEquals(3 * UNIT_COUNT, unitCheckpointCache.getStats().getHits());
+            assertEquals(json(uncheckpointedService.forecastRents(extendedRequest)), json(rentForecastService.forecastRents(extendedRequest)));
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedProfiles() {
+        var checkpointProperties = enabledProperties();
+        checkpointProperties.setMaxCheckpoints(2L * UNIT_COUNT);
+        var unitCheckpointCache = new UnitCheckpointCache(checkpointProperties);
+        var rentForecastService = createRentForecastService(ForecastEngine.BIG_DECIMAL, unitCheckpointCache);
+
+        // two checkpoints for each unit profile, years 2 and 3
+        rentForecastService.forecastRents(createRequest(3, 4, null));
+        assertEquals(UNIT_COUNT, unitCheckpointCache.getStats().getEntries());
+        assertEquals(2L * UNIT_COUNT, unitCheckpointCache.getStats().getWeight());
+
+        // three checkpoints for each, only the most recent profiles fit
+        rentForecastService.forecastRents(createRequest(4, 5, null));
+        var stats = unitCheckpointCache.getStats();
+        assertEquals(2L * UNIT_COUNT / 3, stats.getEntries());
+        assertEquals(2L * UNIT_COUNT, stats.getWeight());
+        assertTrue(stats.getEvictions() >= UNIT_COUNT - stats.getEntries());
+    }
+
+    private static RentForecastCheckpointProperties enabledProperties() {
+        var checkpointProperties = new RentForecastCheckpointProperties();
+        checkpointProperties.setEnabled(true);
+        return checkpointProperties;
+    }
+
+    private String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(objectMapper.readTree(objectMapper.writeValueAsBytes(value)));
+    }
+
+    private static ForecastWindow window(int year) {
+        var window = new ForecastWindow();
+        window.setStartYear(year);
+        window.setEndYear(year);
+        return window;
+    }
+
+    private RentForecastService createRentForecastService(ForecastEngine forecastEngine, UnitCheckpointCache unitCheckpointCache) {
+        return RentForecastTestServices.builder()
+                .engine(forecastEngine)
+                .cacheEnabled(false)
+                .unitCheckpointCache(unitCheckpointCache)
+                .build();
+    }
+
+    /**
+     * @param years       - number of forecast years
+     * @param changedYear - first year with the higher market escalation rate
+     * @param window      - months to return, every month when null
+     */
+    private RentForecastRequest createRequest(int years, int changedYear, ForecastWindow window) {
+        List<ForecastMonth> forecastMonths = new ArrayList<>();
+        for (int year = 1; year <= years; year++) {
+            for (int month = 1; month <= 12; month++) {
+                double marketEscalationRate = month % 4 == 0 ? (year >= changedYear ? .07 : .05) : 0;
+                forecastMonths.add(ForecastMonth.builder().year(year).month(month)
+                        .marketEscalationRate(BigDecimal.valueOf(marketEscalationRate))
+                        .actualEscalationRate(month % 3 == 0 ? BigDecimal.valueOf(.03) : BigDecimal.ZERO)
+                        .build());
+            }
+        }
+        Map<String, UnitDetails> unitDetails = new HashMap<>();
+        for (int unit = 0; unit < UNIT_COUNT; unit++) {
+            var details = new UnitDetails();
+            details.setUnitStatus(unit % 3 == 0 ? "NOT READY" : "READY");
+            details.setContractTerm(3 + unit % 10);
+            details.setStartingMarketRent(BigDecimal.valueOf(1000 + 10 * unit));
+            details.setStartingActualRent(BigDecimal.valueOf(800 + 15 * unit));
+            if (unit % 4 == 0) {
+                details.setStartDate(LocalDate.of(2023, 8 + unit % 5, 1));
+            }
+            unitDetails.put(String.valueOf(100 + unit), details);
+        }
+
+        var request = new RentForecastRequest();
+        request.setClosingDate(LocalDate.of(2023, 6, 10));
+        request.setUnitTypeForecastList(List.of(UnitTypeForecast.builder()
+                .unitType("1 BR 1 BATH")
+                .unitDetails(unitDetails)
+                .excessRentAdjustmentRate(BigDecimal.valueOf(.15))
+                .forecastMonthData(forecastMonths)
+                .build()));
+        if (window != null) {
+            var options = new ForecastOptions();
+            options.setWindow(window);
+            request.setOptions(options);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,85 @@
+package com.methodicalplatforms.rentforecast.cache;
+
+import com.methodicalplatforms.rentforecast.config.RentForecastCacheProperties;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.UnitTypeForecastMonthly;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UnitTypeForecastCacheTest {
+
+    private static final LocalDate CLOSING_DATE = LocalDate.of(2023, 6, 10);
+
+    @Test
+    void keyIgnoresInputOrder() {
+        var forecastMonths = List.of(createForecastMonth(1, 1), createForecastMonth(1, 2));
+        var unitDetails = new LinkedHashMap<String, UnitDetails>();
+        unitDetails.put("101", createUnitDetails(1000));
+        unitDetails.put("102", createUnitDetails(1100));
+        var reversedUnitDetails = new LinkedHashMap<String, UnitDetails>();
+        reversedUnitDetails.put("102", createUnitDetails(1100));
+        reversedUnitDetails.put("101", createUnitDetails(1000));
+
+        var key = UnitTypeForecastKey.of(createUnitTypeForecast(forecastMonths, unitDetails), CLOSING_DATE, ForecastEngine.BIG_DECIMAL);
+
+        assertEquals(key, UnitTypeForecastKey.of(createUnitTypeForecast(List.of(forecastMonths.get(1), forecastMonths.get(0)), reversedUnitDetails),
+                CLOSING_DATE, ForecastEngine.BIG_DECIMAL));
+        assertNotEquals(key, UnitTypeForecastKey.of(createUnitTypeForecast(forecastMonths, Map.of("101", createUnitDetails(1000))),
+                CLOSING_DATE, ForecastEngine.BIG_DECIMAL));
+        assertNotEquals(key, UnitTypeForecastKey.of(createUnitTypeForecast(forecastMonths, unitDetails), null, ForecastEngine.BIG_DECIMAL));
+        assertNotEquals(key, UnitTypeForecastKey.of(createUnitTypeForecast(forecastMonths, unitDetails), CLOSING_DATE, ForecastEngine.PRIMITIVE));
+    }
+
+    @Test
+    void countsHitsMissesAndEvictions() {
+        var cacheProperties = new RentForecastCacheProperties();
+        cacheProperties.setMaxWeight(100);
+        var cache = new UnitTypeForecastCache(cacheProperties);
+        var firstKey = UnitTypeForecastKey.of(createUnitTypeForecast(List.of(createForecastMonth(1, 1)), Map.of("101", createUnitDetails(1000))),
+                CLOSING_DATE, ForecastEngine.BIG_DECIMAL);
+        var secondKey = UnitTypeForecastKey.of(createUnitTypeForecast(List.of(createForecastMonth(1, 1)), Map.of("101", createUnitDetails(2000))),
+                CLOSING_DATE, ForecastEngine.BIG_DECIMAL);
+
+        var firstForecast = cache.get(firstKey, 60, () -> UnitTypeForecastMonthly.builder().build());
+        assertSame(firstForecast, cache.get(firstKey, 60, () -> UnitTypeForecastMonthly.builder().build()));
+        // over the weight limit with both, the least recently used is evicted
+        cache.get(secondKey, 60, () -> UnitTypeForecastMonthly.builder().build());
+
+        assertEquals(ForecastCacheStats.builder().hits(1).misses(2).evictions(1).entries(1).weight(60).build(), cache.getStats());
+    }
+
+    private UnitTypeForecast createUnitTypeForecast(List<ForecastMonth> forecastMonths, Map<String, UnitDetails> unitDetails) {
+        return UnitTypeForecast.builder()
+                .unitType("1 BR 1 BATH")
+                .forecastMonthData(forecastMonths)
+                .excessRentAdjustmentRate(BigDecimal.valueOf(.15))
+                .unitDetails(new HashMap<>(unitDetails))
+                .build();
+    }
+
+    private ForecastMonth createForecastMonth(int year, int month) {
+        return ForecastMonth.builder().year(year).month(month)
+                .marketEscalationRate(BigDecimal.valueOf(.05)).actualEscalationRate(BigDecimal.ZERO).build();
+    }
+
+    private UnitDetails createUnitDetails(int startingRent) {
+        var unitDetails = new UnitDetails();
+        unitDetails.setStartingMarketRent(BigDecimal.valueOf(startingRent));
+        unitDetails.setStartingActualRent(BigDecimal.valueOf(startingRent));
+        unitDetails.setContractTerm(12);
+        return unitDetails;
+    }
+}
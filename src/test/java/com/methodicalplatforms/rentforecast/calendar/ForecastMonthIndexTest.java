@@ -0,0 +1,93 @@
+package com.methodicalplatforms.rentforecast.calendar;
+
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForecastMonthIndexTest {
+
+    private static final LocalDate CLOSING_DATE = LocalDate.of(2023, 3, 15);
+
+    @Test
+    void propertyStartsTheMonthAfterClosing() {
+        var monthIndex = new ForecastMonthIndex(forecastMonths(2), CLOSING_DATE);
+
+        // year 1 month 4 is April 2023
+        assertEquals(3, monthIndex.getPropertyStartIndex());
+        assertEquals(24, monthIndex.size());
+    }
+
+    @Test
+    void unitStartsAndEscalatesOnContractTerm() {
+        var monthIndex = new ForecastMonthIndex(forecastMonths(2), CLOSING_DATE);
+        var unitDetails = new UnitDetails();
+        unitDetails.setStartDate(LocalDate.of(2023, 6, 1));
+        unitDetails.setContractTerm(6);
+
+        UnitMonthSchedule unitSchedule = monthIndex.unitSchedule(unitDetails);
+
+        // starts in June 2023, started from July 2023
+        assertTrue(unitSchedule.isStartMonth(5));
+        assertEquals(6, unitSchedule.getStartedIndex());
+        for (int i = 0; i < monthIndex.size(); i++) {
+            assertEquals(i >= 5 && (i - 5) % 6 == 0, unitSchedule.isEscalationMonthForActual(i), "month " + i);
+        }
+    }
+
+    @Test
+    void unitWithoutStartDateEscalatesOnMonthNumber() {
+        var monthIndex = new ForecastMonthIndex(forecastMonths(1), null);
+        var unitDetails = new UnitDetails();
+        unitDetails.setContractTerm(6);
+
+        UnitMonthSchedule unitSchedule = monthIndex.unitSchedule(unitDetails);
+
+        assertEquals(0, monthIndex.getPropertyStartIndex());
+        assertEquals(0, unitSchedule.getStartedIndex());
+        assertFalse(unitSchedule.isStartMonth(0));
+        assertTrue(unitSchedule.isEscalationMonthForActual(5));
+        assertTrue(unitSchedule.isEscalationMonthForActual(11));
+        assertFalse(unitSchedule.isEscalationMonthForActual(6));
+    }
+
+    @Test
+    void nextActualRentChangeSkipsMonthsBetweenEscalations() {
+        var monthIndex = new ForecastMonthIndex(forecastMonths(3), CLOSING_DATE);
+        var unitDetails = new UnitDetails();
+        unitDetails.setStartDate(LocalDate.of(2023, 6, 1));
+        unitDetails.setContractTerm(12);
+
+        UnitMonthSchedule unitSchedule = monthIndex.unitSchedule(unitDetails);
+
+        // starts in June 2023, started from July 2023, escalates every June after
+        assertEquals(5, unitSchedule.nextActualRentChange(0));
+        assertEquals(6, unitSchedule.nextActualRentChange(6));
+        assertEquals(17, unitSchedule.nextActualRentChange(7));
+        assertEquals(29, unitSchedule.nextActualRentChange(18));
+        assertEquals(36, unitSchedule.nextActualRentChange(30));
+        for (int i = 7; i < monthIndex.size(); i++) {
+            int nextChange = unitSchedule.nextActualRentChange(i);
+            for (int month = i; month < nextChange; month++) {
+                assertFalse(unitSchedule.isEscalationMonthForActual(month) || unitSchedule.isStartMonth(month), "month " + month);
+            }
+        }
+    }
+
+    private List<ForecastMonth> forecastMonths(int years) {
+        List<ForecastMonth> forecastMonths = new ArrayList<>();
+        for (int year = 1; year <= years; year++) {
+            for (int month = 1; month <= 12; month++) {
+                forecastMonths.add(ForecastMonth.builder().year(year).month(month).build());
+            }
+        }
+        return forecastMonths;
+    }
+}
@@ -0,0 +1,188 @@
+package com.methodicalplatforms.rentforecast.executor;
+
+import com.methodicalplatforms.rentforecast.arena.ForecastArena;
+import com.methodicalplatforms.rentforecast.arena.ForecastBufferPool;
+import com.methodicalplatforms.rentforecast.config.RentForecastArenaProperties;
+import com.methodicalplatforms.rentforecast.config.RentForecastExecutorProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForecastExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ForecastExecutor forecastExecutor;
+
+    @BeforeEach
+    public void setup() {
+        // a small pool and queue, every index is worth splitting
+        var executorProperties = new RentForecastExecutorProperties();
+        executorProperties.setPoolSize(2);
+        executorProperties.setQueueCapacity(1);
+        executorProperties.setMaxRequestParallelism(2);
+        executorProperties.setMinUnitMonthsPerTask(1);
+        meterRegistry = new SimpleMeterRegistry();
+        forecastExecutor = new ForecastExecutor(executorProperties, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        forecastExecutor.shutdown();
+    }
+
+    @Test
+    void nestedMapKeepsIndexOrder() {
+        List<List<Integer>> results = forecastExecutor.map(8, 8 * 50, unitType ->
+                forecastExecutor.map(50, 50, unit -> unitType * 100 + unit));
+
+        for (int unitType = 0; unitType < 8; unitType++) {
+            int expectedUnitType = unitType;
+            assertEquals(IntStream.range(0, 50).mapToObj(unit -> expectedUnitType * 100 + unit).collect(Collectors.toList()), results.get(unitType));
+        }
+        assertEquals(0, forecastExecutor.getStats().getActiveRequests());
+    }
+
+    @Test
+    void collectCombinesEveryContainer() {
+        long[] sum = forecastExecutor.collect(1000, 1000, () -> new long[1], (partialSum, index) -> partialSum[0] += index,
+                (partialSum, other) -> partialSum[0] += other[0]);
+
+        assertEquals(999 * 1000 / 2, sum[0]);
+    }
+
+    @Test
+    void forEachCompletedConsumesOnCallingThread() throws InterruptedException {
+        List<Integer> consumed = new ArrayList<>();
+        Set<Thread> consumerThreads = new HashSet<>();
+
+        forecastExecutor.forEachCompleted(20, 20, index -> index, result -> {
+            consumed.add(result);
+            consumerThreads.add(Thread.currentThread());
+        });
+
+        assertEquals(IntStream.range(0, 20).boxed().collect(Collectors.toSet()), new HashSet<>(consumed));
+        assertEquals(Set.of(Thread.currentThread()), consumerThreads);
+    }
+
+    @Test
+    void taskGroupRunsTasksWhileCallerContinues() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        List<Integer> results;
+        try (ForecastExecutor.TaskGroup<Integer> taskGroup = forecastExecutor.taskGroup()) {
+            taskGroup.submit(1, () -> {
+                started.countDown();
+                return 0;
+            });
+            // started on a helper before the caller joins
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            for (int index = 1; index < 10; index++) {
+                int result = index;
+                taskGroup.submit(1, () -> result);
+            }
+            results = taskGroup.join();
+        }
+
+        assertEquals(IntStream.range(0, 10).boxed().collect(Collectors.toList()), results);
+        assertEquals(0, forecastExecutor.getStats().getActiveRequests());
+    }
+
+    @Test
+    void gaugesReportPoolLoad() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ForecastExecutor.TaskGroup<Integer> taskGroup = forecastExecutor.taskGroup()) {
+            taskGroup.submit(1, () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 0;
+            });
+            try {
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+                assertEquals(1d, meterRegistry.get(ForecastExecutor.ACTIVE_HELPERS).gauge().value());
+                assertEquals(0.5, meterRegistry.get(ForecastExecutor.UTILIZATION).gauge().value());
+                assertEquals(1d, meterRegistry.get(ForecastExecutor.ACTIVE_REQUESTS).gauge().value());
+            } finally {
+                release.countDown();
+            }
+            taskGroup.join();
+        }
+
+        assertEquals(0d, meterRegistry.get(ForecastExecutor.ACTIVE_REQUESTS).gauge().value());
+        assertEquals(0d, meterRegistry.get(ForecastExecutor.QUEUE_DEPTH).gauge().value());
+    }
+
+    @Test
+    void failureIsRethrownOnCallingThread() {
+        assertThrows(IllegalArgumentException.class, () -> forecastExecutor.map(100, 100, index -> {
+            if (index == 73) {
+                throw new IllegalArgumentException("bad unit");
+            }
+            return index;
+        }));
+        assertEquals(0, forecastExecutor.getStats().getActiveRequests());
+    }
+
+    @Test
+    void failureWaitsForHelpersWritingToTheArena() {
+        var arenaProperties = new RentForecastArenaProperties();
+        arenaProperties.setMinBufferBytes(0);
+        var bufferPool = new ForecastBufferPool(arenaProperties, new SimpleMeterRegistry());
+        Thread callingThread = Thread.currentThread();
+        CountDownLatch helperWriting = new CountDownLatch(1);
+        AtomicBoolean written = new AtomicBoolean();
+
+        try (ForecastArena arena = bufferPool.openArena()) {
+            DoubleBuffer rents = arena.allocateDoubles(2);
+            assertThrows(IllegalArgumentException.class, () -> forecastExecutor.map(2, 2, index -> {
+                if (Thread.currentThread() == callingThread) {
+                    awaitQuietly(helperWriting);
+                    throw new IllegalArgumentException("bad unit");
+                }
+                helperWriting.countDown();
+                sleepQuietly(200);
+                rents.put(index, 1000);
+                written.set(true);
+                return index;
+            }));
+            // the helper's column write lands before the arena hands its buffers back to the pool
+            assertTrue(written.get());
+        }
+        assertEquals(0, bufferPool.getStats().getInUseBytes());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
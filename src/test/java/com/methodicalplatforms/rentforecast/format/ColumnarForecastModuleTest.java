@@ -0,0 +1,96 @@
+package com.methodicalplatforms.rentforecast.format;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarForecastModuleTest {
+
+    private static final double TOLERANCE = 1e-9;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper columnarObjectMapper = new ObjectMapper().registerModule(new ColumnarForecastModule());
+
+    @Test
+    void columnarMonthsMatchJson() throws Exception {
+        for (ForecastEngine forecastEngine : List.of(ForecastEngine.BIG_DECIMAL, ForecastEngine.PRIMITIVE)) {
+            var rentResponse = RentForecastTestServices.rentForecastService(forecastEngine).forecastRents(createRequest());
+
+            var jsonResponse = objectMapper.readTree(objectMapper.writeValueAsBytes(rentResponse));
+            var columnarResponse = columnarObjectMapper.readTree(columnarObjectMapper.writeValueAsBytes(rentResponse));
+
+            assertEquals(jsonResponse.get("unitTypeForecastRentYears"), columnarResponse.get("unitTypeForecastRentYears"));
+            var jsonMonths = jsonResponse.get("unitTypeForecastRentMonths");
+            var columnarMonths = columnarResponse.get("unitTypeForecastRentMonths");
+            assertEquals(3, columnarMonths.size());
+            jsonMonths.fields().forEachRemaining(unitType -> {
+                assertMonthsEqual(unitType.getValue().get("unitTypeForecast"), columnarMonths.get(unitType.getKey()).get("unitTypeForecast"));
+                if (unitType.getValue().has("unitForecasts")) {
+                    unitType.getValue().get("unitForecasts").fields().forEachRemaining(unit -> assertMonthsEqual(unit.getValue(),
+                            columnarMonths.get(unitType.getKey()).get("unitForecasts").get(unit.getKey())));
+                }
+            });
+        }
+    }
+
+    @Test
+    void forecastMonthsAreDeltaEncoded() throws Exception {
+        var unitTypeForecast = createRequest().getUnitTypeForecastList().get(0);
+
+        var forecastMonthData = columnarObjectMapper.readTree(columnarObjectMapper.writeValueAsBytes(unitTypeForecast)).get("forecastMonthData");
+
+        var months = forecastMonthData.get("months");
+        assertEquals(MonthAxis.monthNumber(1, 1), months.get(0).asInt());
+        for (int i = 1; i < months.size(); i++) {
+            assertEquals(1, months.get(i).asInt());
+        }
+        assertEquals(0, new BigDecimal("0.05").compareTo(forecastMonthData.get("marketEscalationRate").get(3).decimalValue()));
+    }
+
+    @Test
+    void columnarForecastMonthsRoundTrip() throws Exception {
+        var unitTypeForecast = createRequest().getUnitTypeForecastList().get(0);
+
+        var forecastMonths = objectMapper.readValue(columnarObjectMapper.writeValueAsBytes(unitTypeForecast), ForecastMonths.class).forecastMonthData;
+
+        assertEquals(unitTypeForecast.getForecastMonthData().size(), forecastMonths.size());
+        for (int i = 0; i < forecastMonths.size(); i++) {
+            ForecastMonth expected = unitTypeForecast.getForecastMonthData().get(i);
+            assertEquals(expected.getYear(), forecastMonths.get(i).getYear());
+            assertEquals(expected.getMonth(), forecastMonths.get(i).getMonth());
+            assertEquals(0, expected.getMarketEscalationRate().compareTo(forecastMonths.get(i).getMarketEscalationRate()));
+            assertEquals(0, expected.getActualEscalationRate().compareTo(forecastMonths.get(i).getActualEscalationRate()));
+        }
+        assertTrue(columnarObjectMapper.writeValueAsBytes(unitTypeForecast).length < objectMapper.writeValueAsBytes(unitTypeForecast).length);
+    }
+
+    private void assertMonthsEqual(JsonNode jsonMonths, JsonNode columnarMonths) {
+        var months = columnarMonths.get("months");
+        assertEquals(jsonMonths.size(), months.size());
+        int monthNumber = 0;
+        for (int i = 0; i < jsonMonths.size(); i++) {
+            monthNumber += months.get(i).asInt();
+            assertEquals(jsonMonths.get(i).get("year").asInt(), MonthAxis.year(monthNumber));
+            assertEquals(jsonMonths.get(i).get("month").asInt(), MonthAxis.month(monthNumber));
+            assertEquals(jsonMonths.get(i).get("marketRent").asDouble(), columnarMonths.get("marketRent").get(i).asDouble(), TOLERANCE);
+            assertEquals(jsonMonths.get(i).get("actualRent").asDouble(), columnarMonths.get("actualRent").get(i).asDouble(), TOLERANCE);
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class ForecastMonths {
+        @JsonDeserialize(using = ForecastMonthsDeserializer.class)
+        public List<ForecastMonth> forecastMonthData;
+    }
+}
@@ -0,0 +1,149 @@
+package com.methodicalplatforms.rentforecast.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.RentForecastTestRequests;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.admission.ForecastPermit;
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.config.RentForecastAdmissionProperties;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.metrics.ForecastMetrics;
+import com.methodicalplatforms.rentforecast.request.ForecastOptions;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.UNIT_TYPE_1BR_1BATH;
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.UNIT_TYPE_2BR_2BATH;
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createUnitDetails;
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createUnitTypeForecast;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamingRentForecastReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private RentForecastService rentForecastService;
+    private ForecastAdmission forecastAdmission;
+    private StreamingRentForecastReader streamingRentForecastReader;
+
+    private void setupEngine(ForecastEngine forecastEngine) {
+        setupEngine(forecastEngine, new RentForecastAdmissionProperties());
+    }
+
+    private void setupEngine(ForecastEngine forecastEngine, RentForecastAdmissionProperties admissionProperties) {
+        ForecastMetrics forecastMetrics = new ForecastMetrics(new SimpleMeterRegistry());
+        // split so unit types are forecast on helpers while the body is read
+        var forecastExecutor = RentForecastTestServices.splittingForecastExecutor();
+        rentForecastService = RentForecastTestServices.builder()
+                .engine(forecastEngine)
+                .forecastMetrics(forecastMetrics)
+                .forecastExecutor(forecastExecutor)
+                .build();
+        forecastAdmission = new ForecastAdmission(admissionProperties, forecastMetrics);
+        streamingRentForecastReader = new StreamingRentForecastReader(rentForecastService, forecastAdmission, forecastExecutor, objectMapper);
+    }
+
+    @Test
+    void permitsAreHeldUntilTheCallerClosesThem() throws Exception {
+        setupEngine(ForecastEngine.PRIMITIVE);
+        var request = createRequest();
+        List<ForecastPermit> forecastPermits = new ArrayList<>();
+
+        streamingRentForecastReader.forecastRents(new ByteArrayInputStream(objectMapper.writeValueAsBytes(request)), forecastPermits::add);
+
+        assertEquals(request.getUnitTypeForecastList().size(), forecastPermits.size());
+        assertEquals(ForecastAdmission.estimateCost(request), forecastAdmission.getInFlightCost());
+        forecastPermits.forEach(ForecastPermit::close);
+        assertEquals(0, forecastAdmission.getInFlightCost());
+    }
+
+    @Test
+    void streamedRequestMatchesBoundRequest() throws Exception {
+        var summarizeByYear = new ForecastOptions();
+        summarizeByYear.setSummarizeByYear(true);
+        for (ForecastEngine forecastEngine : List.of(ForecastEngine.BIG_DECIMAL, ForecastEngine.PRIMITIVE)) {
+            setupEngine(forecastEngine);
+            for (ForecastOptions options : new ForecastOptions[]{null, summarizeByYear}) {
+                var request = createRequest();
+                request.setOptions(options);
+
+                var rentResponse = streamingRentForecastReader.forecastRents(new ByteArrayInputStream(objectMapper.writeValueAsBytes(request)));
+
+                assertEquals(objectMapper.valueToTree(rentForecastService.forecastRents(request)), objectMapper.valueToTree(rentResponse));
+            }
+        }
+    }
+
+    @Test
+    void unitTypesBeforeClosingDateWaitForIt() throws Exception {
+        setupEngine(ForecastEngine.BIG_DECIMAL);
+        var request = createRequest();
+        ObjectNode requestNode = objectMapper.valueToTree(request);
+        var reordered = objectMapper.createObjectNode();
+        reordered.set("unitTypeForecastList", requestNode.get("unitTypeForecastList"));
+        reordered.set("closingDate", requestNode.get("closingDate"));
+
+        var rentResponse = streamingRentForecastReader.forecastRents(new ByteArrayInputStream(objectMapper.writeValueAsBytes(reordered)));
+
+        assertEquals(objectMapper.valueToTree(rentForecastService.forecastRents(request)), objectMapper.valueToTree(rentResponse));
+    }
+
+    @Test
+    void duplicateUnitTypeIsRejected() {
+        setupEngine(ForecastEngine.BIG_DECIMAL);
+        ObjectNode requestNode = objectMapper.valueToTree(createRequest());
+        ArrayNode unitTypes = (ArrayNode) requestNode.get("unitTypeForecastList");
+        unitTypes.add(unitTypes.get(0).deepCopy());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> streamingRentForecastReader.forecastRents(new ByteArrayInputStream(objectMapper.writeValueAsBytes(requestNode))));
+    }
+
+    @Test
+    void requestOverTheLimitIsTooLargeOnceItsUnitTypesAddUp() {
+        var request = createRequest();
+        long requestCost = ForecastAdmission.estimateCost(request);
+        // every unit type fits on its own, and the budget has room for all but the whole request
+        var admissionProperties = new RentForecastAdmissionProperties();
+        admissionProperties.setMaxRequestCost(requestCost - 1);
+        admissionProperties.setBudget(requestCost - 1);
+        admissionProperties.setQueueTimeout(Duration.ofSeconds(30));
+        setupEngine(ForecastEngine.PRIMITIVE, admissionProperties);
+
+        var rejection = assertThrows(ForecastRejectedException.class,
+                () -> streamingRentForecastReader.forecastRents(new ByteArrayInputStream(objectMapper.writeValueAsBytes(request))));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, rejection.getStatus());
+        assertEquals(0, forecastAdmission.getInFlightCost());
+    }
+
+    /**
+     * @return - the shared request with a third unit in 1 BR 1 BATH, every unit with a start date to read
+     */
+    private RentForecastRequest createRequest() {
+        var request = RentForecastTestRequests.createRequest(
+                createUnitTypeForecast(UNIT_TYPE_1BR_1BATH, Map.of(
+                        "101", createUnitDetails("READY", 1000, 700),
+                        "102", createUnitDetails("NOT READY", 1100, 900),
+                        "103", createUnitDetails("READY", 1000, 700))),
+                createUnitTypeForecast(UNIT_TYPE_2BR_2BATH, Map.of(
+                        "201", createUnitDetails("READY", 2000, 1800))));
+        request.getUnitTypeForecastList().forEach(unitTypeForecast ->
+                unitTypeForecast.getUnitDetails().values().forEach(unitDetails -> unitDetails.setStartDate(LocalDate.of(2023, 3, 1))));
+        return request;
+    }
+}
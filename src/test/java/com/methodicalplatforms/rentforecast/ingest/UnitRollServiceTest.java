@@ -0,0 +1,166 @@
+package com.methodicalplatforms.rentforecast.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.config.RentForecastExecutorProperties;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.metrics.ForecastMetrics;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.UnitRollRequest;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.RentForecastMonth;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.CLOSING_DATE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UnitRollServiceTest {
+
+    private static final String CSV_ROLL = "\uFEFFunitType,unit_id,building,startingMarketRent,startingActualRent,startDate,contractTerm,unitStatus\r\n"
+            + "1 BR 1 BATH,101,A,1000,700,03/01/2023,6,READY\r\n"
+            + "1 BR 1 BATH,102,A,1100.50,900,,6,NOT READY\r\n"
+            + "\r\n"
+            + "\"2 BR, 2 BATH\",201,\"B \"\"north\"\"\",2000,1800,3/1/2023,12,READY\r\n"
+            + "1 BR 1 BATH,103,A,1000,700,03/01/2023,6,READY";
+    private static final String NDJSON_ROLL = """
+            {"unitType":"1 BR 1 BATH","unitId":"101","startingMarketRent":1000,"startingActualRent":700,"startDate":"03/01/2023","contractTerm":6,"unitStatus":"READY"}
+            {"unitType":"1 BR 1 BATH","unitId":"102","startingMarketRent":1100.50,"startingActualRent":900,"contractTerm":6,"unitStatus":"NOT READY"}
+            {"unitType":"2 BR, 2 BATH","unitId":"201","startingMarketRent":2000,"startingActualRent":1800,"startDate":"03/01/2023","contractTerm":12,"unitStatus":"READY"}
+            {"unitType":"1 BR 1 BATH","unitId":"103","building":"A","startingMarketRent":1000,"startingActualRent":700,"startDate":"03/01/2023","contractTerm":6,"unitStatus":"READY"}
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Path> files = new ArrayList<>();
+    private RentForecastService rentForecastService;
+    private UnitRollService unitRollService;
+
+    @BeforeEach
+    void setUp() {
+        ForecastMetrics forecastMetrics = new ForecastMetrics(new SimpleMeterRegistry());
+        ForecastExecutor forecastExecutor = new ForecastExecutor(new RentForecastExecutorProperties(), new SimpleMeterRegistry());
+        rentForecastService = RentForecastTestServices.builder()
+                .forecastExecutor(forecastExecutor)
+                .forecastMetrics(forecastMetrics)
+                .build();
+        unitRollService = new UnitRollService(rentForecastService, forecastExecutor, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void csvAndNdjsonRollsReadTheSameUnits() throws Exception {
+        var csvUnitTypes = unitRollService.readUnitRoll(createRequest(), write(CSV_ROLL, ".csv"), UnitRollFormat.CSV);
+        var ndjsonUnitTypes = unitRollService.readUnitRoll(createRequest(), write(NDJSON_ROLL, ".ndjson"), UnitRollFormat.NDJSON);
+
+        assertEquals(ndjsonUnitTypes, csvUnitTypes);
+        assertEquals(List.of("1 BR 1 BATH", "2 BR, 2 BATH"), csvUnitTypes.stream().map(UnitTypeForecast::getUnitType).toList());
+        assertEquals(0, new BigDecimal("1100.50").compareTo(csvUnitTypes.get(0).getUnitDetails().get("102").getStartingMarketRent()));
+        assertEquals(BigDecimal.valueOf(.2), csvUnitTypes.get(1).getExcessRentAdjustmentRate());
+        // identical units share their details
+        assertSame(csvUnitTypes.get(0).getUnitDetails().get("101"), csvUnitTypes.get(0).getUnitDetails().get("103"));
+    }
+
+    @Test
+    void csvForecastHasARowPerUnitMonth() throws Exception {
+        var unitTypeForecastList = unitRollService.readUnitRoll(createRequest(), write(CSV_ROLL, ".csv"), UnitRollFormat.CSV);
+        var outputStream = new ByteArrayOutputStream();
+
+        unitRollService.writeForecasts(unitTypeForecastList, CLOSING_DATE, outputStream, UnitRollFormat.CSV);
+
+        var rows = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("unitType,unitId,year,month,marketRent,actualRent", rows[0]);
+        // 4 units and 2 unit type totals of 24 months
+        assertEquals(1 + 6 * 24, rows.length);
+        RentForecastMonth expected = rentForecastService.forecastUnitType(unitTypeForecastList.get(1), CLOSING_DATE).getUnitForecasts().get("201").get(5);
+        String expectedRow = "\"2 BR, 2 BATH\",201," + expected.getYear() + "," + expected.getMonth() + ","
+                + expected.getMarketRent().toPlainString() + "," + expected.getActualRent().toPlainString();
+        assertEquals(1, List.of(rows).stream().filter(expectedRow::equals).count());
+    }
+
+    @Test
+    void ndjsonForecastHasALinePerUnitAndUnitType() throws Exception {
+        var unitTypeForecastList = unitRollService.readUnitRoll(createRequest(), write(NDJSON_ROLL, ".ndjson"), UnitRollFormat.NDJSON);
+        var outputStream = new ByteArrayOutputStream();
+
+        unitRollService.writeForecasts(unitTypeForecastList, CLOSING_DATE, outputStream, UnitRollFormat.NDJSON);
+
+        var lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(6, lines.length);
+        long unitLines = 0;
+        for (String line : lines) {
+            var forecastLine = objectMapper.readTree(line);
+            assertEquals(24, forecastLine.get("forecast").get("marketRent").size());
+            if (forecastLine.has("unitId")) {
+                unitLines++;
+            }
+        }
+        assertEquals(4, unitLines);
+    }
+
+    @Test
+    void unreadableRollsAreRejected() throws Exception {
+        var withoutDefaults = createRequest();
+        withoutDefaults.setForecastMonthData(null);
+        Path csvRoll = write(CSV_ROLL, ".csv");
+        assertThrows(IllegalArgumentException.class, () -> unitRollService.readUnitRoll(withoutDefaults, csvRoll, UnitRollFormat.CSV));
+
+        Path badRent = write("unitId,unitType,startingMarketRent\n101,1 BR 1 BATH,$1000\n", ".csv");
+        var badRentRejection = assertThrows(IllegalArgumentException.class, () -> unitRollService.readUnitRoll(createRequest(), badRent, UnitRollFormat.CSV));
+        assertEquals("Unit roll line 2: Not a number: $1000", badRentRejection.getMessage());
+
+        Path duplicateUnit = write("unitId,unitType\n101,1 BR\n101,1 BR\n", ".csv");
+        assertThrows(IllegalArgumentException.class, () -> unitRollService.readUnitRoll(createRequest(), duplicateUnit, UnitRollFormat.CSV));
+    }
+
+    private Path write(String unitRoll, String extension) throws Exception {
+        Path file = Files.createTempFile("unit-roll-test-", extension);
+        files.add(file);
+        Files.writeString(file, unitRoll, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private UnitRollRequest createRequest() {
+        var request = new UnitRollRequest();
+        request.setClosingDate(CLOSING_DATE);
+        request.setForecastMonthData(createForecastMonths(.03));
+        request.setExcessRentAdjustmentRate(BigDecimal.valueOf(.15));
+        // the 2 BR units have their own rate and fall back to the default months
+        request.setUnitTypeForecastList(List.of(UnitTypeForecast.builder()
+                .unitType("2 BR, 2 BATH")
+                .excessRentAdjustmentRate(BigDecimal.valueOf(.2))
+                .build()));
+        return request;
+    }
+
+    private List<ForecastMonth> createForecastMonths(double actualEscalationRate) {
+        List<ForecastMonth> forecastMonths = new ArrayList<>();
+        for (int year = 2023; year <= 2024; year++) {
+            for (int month = 1; month <= 12; month++) {
+                forecastMonths.add(ForecastMonth.builder().year(year).month(month)
+                        .marketEscalationRate(month % 4 == 0 ? BigDecimal.valueOf(.05) : BigDecimal.ZERO)
+                        .actualEscalationRate(month % 4 == 0 ? BigDecimal.valueOf(actualEscalationRate) : BigDecimal.ZERO)
+                        .build());
+            }
+        }
+        return forecastMonths;
+    }
+}
@@ -0,0 +1,84 @@
+package com.methodicalplatforms.rentforecast.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.config.RentForecastAdmissionProperties;
+import com.methodicalplatforms.rentforecast.config.RentForecastJobProperties;
+import com.methodicalplatforms.rentforecast.metrics.ForecastMetrics;
+import com.methodicalplatforms.rentforecast.response.ForecastJobResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForecastJobServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RentForecastService rentForecastService;
+    private ForecastJobService forecastJobService;
+
+    @BeforeEach
+    public void setup() {
+        var forecastExecutor = RentForecastTestServices.splittingForecastExecutor();
+        var forecastMetrics = new ForecastMetrics(new SimpleMeterRegistry());
+        rentForecastService = RentForecastTestServices.builder().forecastExecutor(forecastExecutor).forecastMetrics(forecastMetrics).build();
+        forecastJobService = new ForecastJobService(rentForecastService, forecastExecutor, new RentForecastJobProperties(),
+                new ForecastAdmission(new RentForecastAdmissionProperties(), forecastMetrics));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        forecastJobService.shutdown();
+    }
+
+    @Test
+    void finishedJobHasTheSynchronousForecast() throws InterruptedException {
+        var request = createRequest();
+        var jobId = forecastJobService.submitJob(request).getJobId();
+
+        ForecastJobResponse forecastJob = awaitJob(jobId);
+
+        assertEquals(ForecastJobStatus.SUCCEEDED, forecastJob.getStatus());
+        assertEquals(1.0, forecastJob.getProgress());
+        assertEquals(objectMapper.valueToTree(rentForecastService.forecastRents(request)), objectMapper.valueToTree(forecastJob.getForecast()));
+    }
+
+    @Test
+    void failedJobKeepsTheError() throws InterruptedException {
+        var request = createRequest();
+        request.setUnitTypeForecastList(List.of(request.getUnitTypeForecastList().get(0), request.getUnitTypeForecastList().get(0)));
+        var jobId = forecastJobService.submitJob(request).getJobId();
+
+        ForecastJobResponse forecastJob = awaitJob(jobId);
+
+        assertEquals(ForecastJobStatus.FAILED, forecastJob.getStatus());
+        assertEquals("Duplicate unit type 1 BR 1 BATH", forecastJob.getError());
+        assertNull(forecastJob.getForecast());
+    }
+
+    @Test
+    void deletedJobIsGone() {
+        var jobId = forecastJobService.submitJob(createRequest()).getJobId();
+
+        assertTrue(forecastJobService.deleteJob(jobId));
+        assertTrue(forecastJobService.getJob(jobId).isEmpty());
+    }
+
+    private ForecastJobResponse awaitJob(String jobId) throws InterruptedException {
+        ForecastJobResponse forecastJob = forecastJobService.getJob(jobId).orElseThrow();
+        for (int i = 0; i < 500 && (forecastJob.getStatus() == ForecastJobStatus.QUEUED || forecastJob.getStatus() == ForecastJobStatus.RUNNING); i++) {
+            Thread.sleep(10);
+            forecastJob = forecastJobService.getJob(jobId).orElseThrow();
+        }
+        return forecastJob;
+    }
+}
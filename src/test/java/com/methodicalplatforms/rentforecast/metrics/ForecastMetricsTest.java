@@ -0,0 +1,65 @@
+package com.methodicalplatforms.rentforecast.metrics;
+
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForecastMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ForecastMetrics forecastMetrics;
+    private RentForecastService rentForecastService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        forecastMetrics = new ForecastMetrics(meterRegistry);
+        rentForecastService = RentForecastTestServices.builder().forecastMetrics(forecastMetrics).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        forecastMetrics.endRequest();
+    }
+
+    @Test
+    void forecastRecordsEachStageAndRequestSize() {
+        ForecastTimings requestTimings = forecastMetrics.startRequest();
+
+        rentForecastService.forecastRents(createRequest());
+
+        for (ForecastStage stage : List.of(ForecastStage.FORECAST, ForecastStage.SUMMARY_YEARS, ForecastStage.SUMMARY_FISCAL_YEARS,
+                ForecastStage.SUMMARY_UNIT_TYPES, ForecastStage.SUMMARY_UNIT_STATUSES, ForecastStage.SUMMARY_MONTHS)) {
+            assertEquals(1, meterRegistry.get(ForecastMetrics.STAGE_TIMER).tag("stage", stage.getMetricName()).timer().count(), stage.name());
+            assertTrue(requestTimings.getNanos(stage) > 0, stage.name());
+        }
+        assertEquals(0, meterRegistry.get(ForecastMetrics.STAGE_TIMER).tag("stage", ForecastStage.DESERIALIZE.getMetricName()).timer().count());
+        assertEquals(3d, meterRegistry.get(ForecastMetrics.UNITS_PER_REQUEST).summary().totalAmount());
+        assertEquals(2, meterRegistry.get(ForecastMetrics.MONTHS_PER_UNIT).summary().count());
+        assertEquals(48d, meterRegistry.get(ForecastMetrics.MONTHS_PER_UNIT).summary().totalAmount());
+    }
+
+    @Test
+    void serverTimingListsRecordedStagesInOrder() {
+        ForecastTimings requestTimings = forecastMetrics.startRequest();
+        forecastMetrics.record(ForecastStage.FORECAST, 2_500_000);
+        forecastMetrics.record(ForecastStage.DESERIALIZE, 1_000_000);
+        forecastMetrics.record(ForecastStage.FORECAST, 500_000);
+        forecastMetrics.endRequest();
+        forecastMetrics.record(ForecastStage.SUMMARY_MONTHS, 1_000_000);
+
+        assertEquals("deserialize;dur=1.000, forecast;dur=3.000", requestTimings.toServerTiming());
+        assertNull(forecastMetrics.currentTimings());
+        assertEquals(2, meterRegistry.get(ForecastMetrics.STAGE_TIMER).tag("stage", ForecastStage.FORECAST.getMetricName()).timer().count());
+    }
+}
@@ -0,0 +1,158 @@
+package com.methodicalplatforms.rentforecast.session;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.RentForecastTestRequests;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.config.RentForecastSessionProperties;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.kernel.PrimitiveRentForecastKernel;
+import com.methodicalplatforms.rentforecast.request.ForecastSessionPatch;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.UNIT_TYPE_1BR_1BATH;
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.UNIT_TYPE_2BR_2BATH;
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createForecastMonth;
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createUnitDetails;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForecastSessionServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RentForecastService rentForecastService;
+    private ForecastSessionService forecastSessionService;
+
+    @BeforeEach
+    public void setup() {
+        var rentForecastSummaryService = new RentForecastSummaryService();
+        rentForecastService = RentForecastTestServices.builder()
+                .engine(ForecastEngine.PRIMITIVE)
+                .rentForecastSummaryService(rentForecastSummaryService)
+                .build();
+        forecastSessionService = new ForecastSessionService(rentForecastService, rentForecastSummaryService,
+                new PrimitiveRentForecastKernel(), new RentForecastSessionProperties());
+    }
+
+    @Test
+    void patchedSessionMatchesFullForecast() {
+        var forecastId = forecastSessionService.createSession(createRequest(createUnitDetails("NOT READY", 1100, 900))).getForecastId();
+
+        var patch = new ForecastSessionPatch();
+        patch.setUnitType(UNIT_TYPE_1BR_1BATH);
+        // the only NOT READY unit changes status
+        patch.setUnitDetails(Map.of("102", createUnitDetails("READY", 1150, 1000)));
+        patch.setForecastMonthData(List.of(createForecastMonth(1, 8, BigDecimal.valueOf(.07), BigDecimal.valueOf(.02))));
+        var patched = forecastSessionService.patchSession(forecastId, patch).orElseThrow().getForecast();
+
+        var request = createRequest(createUnitDetails("READY", 1150, 1000));
+        request.getUnitTypeForecastList().get(0).getForecastMonthData()
+                .set(7, createForecastMonth(1, 8, BigDecimal.valueOf(.07), BigDecimal.valueOf(.02)));
+        assertWithinParityTolerance(objectMapper.valueToTree(rentForecastService.forecastRents(request)), objectMapper.valueToTree(patched));
+        assertFalse(patched.getUnitTypeUnitStatusView().get(UNIT_TYPE_1BR_1BATH).getUnitForecasts().containsKey("NOT READY"));
+    }
+
+    @Test
+    void patchAddingUnitForecastsUnitTypeAgain() {
+        var forecastId = forecastSessionService.createSession(createRequest(createUnitDetails("NOT READY", 1100, 900))).getForecastId();
+
+        var patch = new ForecastSessionPatch();
+        patch.setUnitType(UNIT_TYPE_2BR_2BATH);
+        patch.setUnitDetails(Map.of("202", createUnitDetails("READY", 2100, 2000)));
+        var patched = forecastSessionService.patchSession(forecastId, patch).orElseThrow().getForecast();
+
+        var request = createRequest(createUnitDetails("NOT READY", 1100, 900));
+        request.getUnitTypeForecastList().get(1).getUnitDetails().put("202", createUnitDetails("READY", 2100, 2000));
+        assertWithinParityTolerance(objectMapper.valueToTree(rentForecastService.forecastRents(request)), objectMapper.valueToTree(patched));
+        assertEquals(patched, forecastSessionService.getSession(forecastId).orElseThrow().getForecast());
+    }
+
+    @Test
+    void failedPatchLeavesSessionUnchanged() {
+        var forecastId = forecastSessionService.createSession(createRequest(createUnitDetails("NOT READY", 1100, 900))).getForecastId();
+        var before = forecastSessionService.getSession(forecastId).orElseThrow().getForecast();
+
+        // a unit with a start date escalates by its contract term, it can't be forecast without one
+        var unit101 = createUnitDetails("READY", 1200, 1000);
+        unit101.setStartDate(LocalDate.of(2023, 9, 1));
+        unit101.setContractTerm(null);
+        for (String unitId : List.of("101", "199")) {
+            var patch = new ForecastSessionPatch();
+            patch.setUnitType(UNIT_TYPE_1BR_1BATH);
+            patch.setUnitDetails(Map.of(unitId, unit101));
+            patch.setForecastMonthData(List.of(createForecastMonth(1, 8, BigDecimal.valueOf(.07), BigDecimal.valueOf(.02))));
+            assertThrows(RuntimeException.class, () -> forecastSessionService.patchSession(forecastId, patch));
+            assertEquals(before, forecastSessionService.getSession(forecastId).orElseThrow().getForecast());
+        }
+
+        var patch = new ForecastSessionPatch();
+        patch.setUnitType(UNIT_TYPE_1BR_1BATH);
+        patch.setUnitDetails(Map.of("102", createUnitDetails("READY", 1150, 1000)));
+        var patched = forecastSessionService.patchSession(forecastId, patch).orElseThrow().getForecast();
+        var request = createRequest(createUnitDetails("READY", 1150, 1000));
+        assertWithinParityTolerance(objectMapper.valueToTree(rentForecastService.forecastRents(request)), objectMapper.valueToTree(patched));
+    }
+
+    @Test
+    void deletedSessionIsGone() {
+        var forecastId = forecastSessionService.createSession(createRequest(createUnitDetails("NOT READY", 1100, 900))).getForecastId();
+
+        assertTrue(forecastSessionService.deleteSession(forecastId));
+        assertTrue(forecastSessionService.getSession(forecastId).isEmpty());
+        assertTrue(forecastSessionService.patchSession(forecastId, new ForecastSessionPatch()).isEmpty());
+    }
+
+    @Test
+    void leastRecentlyUsedSessionIsDroppedAtTheLimit() {
+        var sessionProperties = new RentForecastSessionProperties();
+        sessionProperties.setMaxSessions(0);
+        var rentForecastSummaryService = new RentForecastSummaryService();
+        var forecastSessionService = new ForecastSessionService(rentForecastService, rentForecastSummaryService,
+                new PrimitiveRentForecastKernel(), sessionProperties);
+
+        var first = forecastSessionService.createSession(createRequest(createUnitDetails("NOT READY", 1100, 900))).getForecastId();
+        var second = forecastSessionService.createSession(createRequest(createUnitDetails("NOT READY", 1100, 900))).getForecastId();
+
+        assertTrue(forecastSessionService.getSession(first).isEmpty());
+        assertTrue(forecastSessionService.getSession(second).isPresent());
+    }
+
+    private void assertWithinParityTolerance(JsonNode expected, JsonNode actual) {
+        if (expected.isNumber()) {
+            assertEquals(expected.doubleValue(), actual.doubleValue(), PrimitiveRentForecastKernel.PARITY_TOLERANCE);
+        } else if (expected.isContainerNode()) {
+            assertEquals(expected.size(), actual.size());
+            if (expected.isArray()) {
+                for (int i = 0; i < expected.size(); i++) {
+                    assertWithinParityTolerance(expected.get(i), actual.get(i));
+                }
+            } else {
+                expected.fieldNames().forEachRemaining(fieldName -> assertWithinParityTolerance(expected.get(fieldName), actual.get(fieldName)));
+            }
+        } else {
+            assertEquals(expected, actual);
+        }
+    }
+
+    /**
+     * @param unit102 - unit 102 of 1 BR 1 BATH
+     * @return - the shared request with unit 102 replaced
+     */
+    private RentForecastRequest createRequest(UnitDetails unit102) {
+        var request = RentForecastTestRequests.createRequest();
+        request.getUnitTypeForecastList().get(0).getUnitDetails().put("102", unit102);
+        return request;
+    }
+}
@@ -0,0 +1,241 @@
+package com.methodicalplatforms.rentforecast.shard;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.config.RentForecastAdmissionProperties;
+import com.methodicalplatforms.rentforecast.config.RentForecastShardProperties;
+import com.methodicalplatforms.rentforecast.ingest.StreamingRentForecastReader;
+import com.methodicalplatforms.rentforecast.metrics.ForecastMetrics;
+import com.methodicalplatforms.rentforecast.request.ForecastMonth;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import com.methodicalplatforms.rentforecast.request.UnitTypeForecast;
+import com.methodicalplatforms.rentforecast.response.RentResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedForecastServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    private final List<HttpServer> workers = new ArrayList<>();
+    private final List<ShardedForecastService> shardedForecastServices = new ArrayList<>();
+
+    @AfterEach
+    void stopWorkers() {
+        shardedForecastServices.forEach(ShardedForecastService::shutdown);
+        workers.forEach(worker -> worker.stop(0));
+    }
+
+    @Test
+    void shardedForecastMatchesOneInstance() throws Exception {
+        List<AtomicInteger> shardsReceived = new ArrayList<>();
+        List<String> workerUrls = new ArrayList<>();
+        for (int worker = 0; worker < 3; worker++) {
+            AtomicInteger received = new AtomicInteger();
+            shardsReceived.add(received);
+            workerUrls.add(startWorker(received, 0));
+        }
+        // small enough to split the larger unit types by unit
+        var shardedForecastService = createShardedForecastService(workerUrls, 1_000);
+
+        var request = createRequest();
+        assertEquals(json(createRentForecastService().forecastRents(request)), json(shardedForecastService.forecastRents(request)));
+        shardsReceived.forEach(received -> assertTrue(received.get() > 0));
+    }
+
+    @Test
+    void shardedResponseIsInRequestOrder() throws Exception {
+        List<String> workerUrls = new ArrayList<>();
+        for (int worker = 0; worker < 3; worker++) {
+            workerUrls.add(startWorker(new AtomicInteger(), 0));
+        }
+        var shardedForecastService = createShardedForecastService(workerUrls, 1_000);
+
+        var request = createRequest();
+        RentResponse rentResponse = shardedForecastService.forecastRents(request);
+        List<String> unitTypes = request.getUnitTypeForecastList().stream().map(UnitTypeForecast::getUnitType).toList();
+        assertEquals(unitTypes, List.copyOf(rentResponse.getUnitTypeForecastRentMonths().keySet()).subList(0, unitTypes.size()));
+        assertEquals(unitTypes, List.copyOf(rentResponse.getUnitTypeForecastRentYears().keySet()).subList(0, unitTypes.size()));
+        for (UnitTypeForecast unitTypeForecast : request.getUnitTypeForecastList()) {
+            List<String> unitIds = List.copyOf(unitTypeForecast.getUnitDetails().keySet());
+            assertEquals(unitIds, List.copyOf(rentResponse.getUnitTypeForecastRentMonths().get(unitTypeForecast.getUnitType()).getUnitForecasts().keySet()));
+            assertEquals(unitIds, List.copyOf(rentResponse.getUnitTypeForecastRentYears().get(unitTypeForecast.getUnitType()).getUnitForecasts().keySet()));
+        }
+    }
+
+    @Test
+    void shardsCoverEveryUnitOnce() {
+        var request = createRequest();
+        List<RentForecastRequest> shards = ForecastShards.partition(request, 4, 1_000);
+
+        Set<String> unitTypes = new HashSet<>();
+        Map<String, Set<String>> unitsByUnitType = new HashMap<>();
+        for (RentForecastRequest shard : shards) {
+            assertEquals(request.getClosingDate(), shard.getClosingDate());
+            assertTrue(RentForecastService.unitMonths(shard.getUnitTypeForecastList()) <= 1_000);
+            for (UnitTypeForecast unitTypeForecast : shard.getUnitTypeForecastList()) {
+                unitTypes.add(unitTypeForecast.getUnitType());
+                for (String unit : unitTypeForecast.getUnitDetails().keySet()) {
+                    assertTrue(unitsByUnitType.computeIfAbsent(unitTypeForecast.getUnitType(), unitType -> new HashSet<>()).add(unit));
+                }
+            }
+        }
+        for (UnitTypeForecast unitTypeForecast : request.getUnitTypeForecastList()) {
+            assertTrue(unitTypes.contains(unitTypeForecast.getUnitType()));
+            assertEquals(unitTypeForecast.getUnitDetails().keySet(), unitsByUnitType.getOrDefault(unitTypeForecast.getUnitType(), Set.of()));
+        }
+    }
+
+    @Test
+    void mergingIsAssociativeAndCommutative() throws Exception {
+        var rentForecastService = createRentForecastService();
+        List<RentForecastRequest> shards = ForecastShards.partition(createRequest(), 3, 1_000);
+        assertEquals(3, shards.size());
+        RentResponse first = rentForecastService.forecastRents(shards.get(0));
+        RentResponse second = rentForecastService.forecastRents(shards.get(1));
+        RentResponse third = rentForecastService.forecastRents(shards.get(2));
+
+        JsonNode merged = json(RentResponseMerger.merge(RentResponseMerger.merge(first, second), third));
+        assertEquals(merged, json(RentResponseMerger.merge(first, RentResponseMerger.merge(second, third))));
+        assertEquals(merged, json(RentResponseMerger.merge(third, RentResponseMerger.merge(second, first))));
+        assertEquals(json(rentForecastService.forecastRents(createRequest())), merged);
+    }
+
+    @Test
+    void unreachableAndBusyWorkersAreSkipped() throws Exception {
+        // nothing listens on a stopped worker's port
+        String stoppedWorker = startWorker(new AtomicInteger(), 0);
+        workers.remove(workers.size() - 1).stop(0);
+        AtomicInteger busyReceived = new AtomicInteger();
+        String busyWorker = startWorker(busyReceived, 429);
+        String worker = startWorker(new AtomicInteger(), 0);
+        var shardedForecastService = createShardedForecastService(List.of(stoppedWorker, busyWorker, worker), 1_000);
+
+        var request = createRequest();
+        assertEquals(json(createRentForecastService().forecastRents(request)), json(shardedForecastService.forecastRents(request)));
+        assertTrue(busyReceived.get() > 0);
+    }
+
+    /**
+     * @param received - counts the shards the worker is sent
+     * @param status   - status to answer with instead of forecasting, 0 to forecast
+     * @return - base url of a worker serving POST /rent-forecast?ingest=stream like the controller
+     */
+    private String startWorker(AtomicInteger received, int status) throws IOException {
+        var streamingRentForecastReader = new StreamingRentForecastReader(createRentForecastService(),
+                new ForecastAdmission(new RentForecastAdmissionProperties(), new ForecastMetrics(new SimpleMeterRegistry())),
+                RentForecastTestServices.splittingForecastExecutor(), objectMapper);
+        HttpServer worker = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        worker.createContext("/rent-forecast", exchange -> {
+            try {
+                received.incrementAndGet();
+                if (status != 0) {
+                    exchange.getResponseHeaders().add("Retry-After", "0");
+                    exchange.sendResponseHeaders(status, -1);
+                    return;
+                }
+                respond(exchange, objectMapper.writeValueAsBytes(streamingRentForecastReader.forecastRents(exchange.getRequestBody())));
+            } catch (RuntimeException | IOException e) {
+                exchange.sendResponseHeaders(500, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        worker.start();
+        workers.add(worker);
+        return "http://" + worker.getAddress().getHostString() + ":" + worker.getAddress().getPort();
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private ShardedForecastService createShardedForecastService(List<String> workerUrls, long maxUnitMonthsPerShard) {
+        var shardProperties = new RentForecastShardProperties();
+        shardProperties.setWorkers(workerUrls);
+        shardProperties.setMaxUnitMonthsPerShard(maxUnitMonthsPerShard);
+        var shardedForecastService = new ShardedForecastService(shardProperties, objectMapper);
+        shardedForecastServices.add(shardedForecastService);
+        return shardedForecastService;
+    }
+
+    private JsonNode json(RentResponse rentResponse) throws IOException {
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(rentResponse));
+    }
+
+    private static RentForecastService createRentForecastService() {
+        return RentForecastTestServices.builder().cacheEnabled(false).build();
+    }
+
+    /**
+     * Unit types of 1 to 40 units over two years, the largest too large for one shard
+     */
+    private static RentForecastRequest createRequest() {
+        List<ForecastMonth> forecastMonths = new ArrayList<>();
+        for (int year = 1; year <= 2; year++) {
+            for (int month = 1; month <= 12; month++) {
+                forecastMonths.add(ForecastMonth.builder().year(year).month(month)
+                        .marketEscalationRate(month % 4 == 0 ? BigDecimal.valueOf(.05) : BigDecimal.ZERO)
+                        .actualEscalationRate(month % 3 == 0 ? BigDecimal.valueOf(.03) : BigDecimal.ZERO)
+                        .build());
+            }
+        }
+
+        List<UnitTypeForecast> unitTypeForecastList = new ArrayList<>();
+        int[] unitCounts = {1, 5, 17, 40, 12, 3};
+        for (int unitType = 0; unitType < unitCounts.length; unitType++) {
+            Map<String, UnitDetails> unitDetails = new HashMap<>();
+            for (int unit = 0; unit < unitCounts[unitType]; unit++) {
+                var details = new UnitDetails();
+                details.setUnitStatus(unit % 3 == 0 ? "NOT READY" : "READY");
+                details.setContractTerm(3 + unit % 10);
+                details.setStartingMarketRent(BigDecimal.valueOf(1000 + 10 * unit + 100 * unitType));
+                details.setStartingActualRent(BigDecimal.valueOf(800 + 15 * unit + 90 * unitType));
+                if (unit % 4 == 0) {
+                    details.setStartDate(LocalDate.of(2023, 8 + unit % 5, 1));
+                }
+                unitDetails.put(unitType + "-" + unit, details);
+            }
+            unitTypeForecastList.add(UnitTypeForecast.builder()
+                    .unitType((unitType + 1) + " BR")
+                    .unitDetails(unitDetails)
+                    .excessRentAdjustmentRate(BigDecimal.valueOf(.15))
+                    .forecastMonthData(forecastMonths)
+                    .build());
+        }
+
+        var request = new RentForecastRequest();
+        request.setClosingDate(LocalDate.of(2023, 6, 10));
+        request.setUnitTypeForecastList(unitTypeForecastList);
+        return request;
+    }
+}
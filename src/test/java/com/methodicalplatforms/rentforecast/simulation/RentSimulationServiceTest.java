@@ -0,0 +1,139 @@
+package com.methodicalplatforms.rentforecast.simulation;
+
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.RentForecastTestRequests;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.admission.ForecastRejectedException;
+import com.methodicalplatforms.rentforecast.config.RentForecastAdmissionProperties;
+import com.methodicalplatforms.rentforecast.config.RentSimulationProperties;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.kernel.PrimitiveRentForecastKernel;
+import com.methodicalplatforms.rentforecast.metrics.ForecastMetrics;
+import com.methodicalplatforms.rentforecast.request.RentForecastRequest;
+import com.methodicalplatforms.rentforecast.request.RentSimulationRequest;
+import com.methodicalplatforms.rentforecast.response.RentForecastYear;
+import com.methodicalplatforms.rentforecast.response.RentSimulationResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.UNIT_TYPE_1BR_1BATH;
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.UNIT_TYPE_2BR_2BATH;
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createUnitDetails;
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createUnitTypeForecast;
+import static com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService.ALL_UNITS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RentSimulationServiceTest {
+
+    private static final double TOLERANCE = 1e-6;
+    private RentForecastService rentForecastService;
+    private RentSimulationService rentSimulationService;
+
+    @BeforeEach
+    public void setup() {
+        var forecastExecutor = RentForecastTestServices.splittingForecastExecutor();
+        rentForecastService = RentForecastTestServices.builder()
+                .engine(ForecastEngine.PRIMITIVE)
+                .forecastExecutor(forecastExecutor)
+                .build();
+        rentSimulationService = new RentSimulationService(new PrimitiveRentForecastKernel(), forecastExecutor, new RentSimulationProperties(),
+                new ForecastAdmission(new RentForecastAdmissionProperties(), new ForecastMetrics(new SimpleMeterRegistry())));
+    }
+
+    @Test
+    void certainRatesMatchForecast() {
+        var simulationRequest = new RentSimulationRequest();
+        simulationRequest.setBaseRequest(createRequest());
+        simulationRequest.setPaths(20);
+
+        var simulationResponse = rentSimulationService.simulate(simulationRequest);
+
+        var forecastYears = rentForecastService.forecastRents(createRequest()).getUnitTypeForecastRentYears();
+        assertEquals(forecastYears.keySet(), simulationResponse.getUnitTypeSimulationYears().keySet());
+        forecastYears.forEach((unitType, unitTypeForecastYearly) ->
+                simulationResponse.getUnitTypeSimulationYears().get(unitType).values().forEach(percentileYears ->
+                        assertYearsEqual(unitTypeForecastYearly.getUnitTypeForecast(), percentileYears, !ALL_UNITS.equals(unitType))));
+    }
+
+    @Test
+    void uncertainRatesAreReproducibleAndOrdered() {
+        var simulationRequest = new RentSimulationRequest();
+        simulationRequest.setBaseRequest(createRequest());
+        simulationRequest.setPaths(500);
+        simulationRequest.setSeed(42);
+        simulationRequest.setMarketEscalationRateStdDev(BigDecimal.valueOf(.02));
+        simulationRequest.setActualEscalationRateStdDev(BigDecimal.valueOf(.01));
+
+        RentSimulationResponse simulationResponse = rentSimulationService.simulate(simulationRequest);
+
+        assertEquals(simulationResponse, rentSimulationService.simulate(simulationRequest));
+        var allUnitsYears = simulationResponse.getUnitTypeSimulationYears().get(ALL_UNITS);
+        assertEquals(List.of("P10", "P50", "P90"), List.copyOf(allUnitsYears.keySet()));
+        // year 2 follows three escalations with uncertain rates
+        RentForecastYear p10 = allUnitsYears.get("P10").get(1);
+        RentForecastYear p50 = allUnitsYears.get("P50").get(1);
+        RentForecastYear p90 = allUnitsYears.get("P90").get(1);
+        assertTrue(p10.getMarketRent().compareTo(p50.getMarketRent()) < 0);
+        assertTrue(p50.getMarketRent().compareTo(p90.getMarketRent()) < 0);
+        assertTrue(p10.getActualRent().compareTo(p90.getActualRent()) < 0);
+    }
+
+    @Test
+    void tooManyPathsAreRejected() {
+        var simulationRequest = new RentSimulationRequest();
+        simulationRequest.setBaseRequest(createRequest());
+        simulationRequest.setPaths(new RentSimulationProperties().getMaxPaths() + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> rentSimulationService.simulate(simulationRequest));
+    }
+
+    @Test
+    void pathsOverRequestCostAreRejected() {
+        var admissionProperties = new RentForecastAdmissionProperties();
+        admissionProperties.setMaxRequestCost(1_000);
+        var rentSimulationService = new RentSimulationService(new PrimitiveRentForecastKernel(), RentForecastTestServices.splittingForecastExecutor(),
+                new RentSimulationProperties(), new ForecastAdmission(admissionProperties, new ForecastMetrics(new SimpleMeterRegistry())));
+        var simulationRequest = new RentSimulationRequest();
+        simulationRequest.setBaseRequest(createRequest());
+        simulationRequest.setPaths(1_000);
+
+        var rejected = assertThrows(ForecastRejectedException.class, () -> rentSimulationService.simulate(simulationRequest));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, rejected.getStatus());
+    }
+
+    private void assertYearsEqual(List<RentForecastYear> expectedYears, List<RentForecastYear> actualYears, boolean fiscal) {
+        assertEquals(expectedYears.size(), actualYears.size());
+        for (int i = 0; i < expectedYears.size(); i++) {
+            assertEquals(expectedYears.get(i).getYear(), actualYears.get(i).getYear());
+            assertEquals(expectedYears.get(i).getMarketRent().doubleValue(), actualYears.get(i).getMarketRent().doubleValue(), TOLERANCE);
+            assertEquals(expectedYears.get(i).getActualRent().doubleValue(), actualYears.get(i).getActualRent().doubleValue(), TOLERANCE);
+            // the forecast doesn't total fiscal years for ALL UNITS yet, the simulation does
+            if (fiscal) {
+                assertEquals(expectedYears.get(i).getFiscalMarketRent().doubleValue(), actualYears.get(i).getFiscalMarketRent().doubleValue(), TOLERANCE);
+                assertEquals(expectedYears.get(i).getFiscalActualRent().doubleValue(), actualYears.get(i).getFiscalActualRent().doubleValue(), TOLERANCE);
+            }
+        }
+    }
+
+    /**
+     * @return - the shared request with a third unit in 1 BR 1 BATH
+     */
+    private RentForecastRequest createRequest() {
+        return RentForecastTestRequests.createRequest(
+                createUnitTypeForecast(UNIT_TYPE_1BR_1BATH, Map.of(
+                        "101", createUnitDetails("READY", 1000, 700),
+                        "102", createUnitDetails("NOT READY", 1100, 900),
+                        "103", createUnitDetails("READY", 1000, 700))),
+                createUnitTypeForecast(UNIT_TYPE_2BR_2BATH, Map.of(
+                        "201", createUnitDetails("READY", 2000, 1800))));
+    }
+}
@@ -0,0 +1,151 @@
+package com.methodicalplatforms.rentforecast.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.admission.ForecastAdmission;
+import com.methodicalplatforms.rentforecast.config.RentForecastAdmissionProperties;
+import com.methodicalplatforms.rentforecast.config.RentForecastProperties;
+import com.methodicalplatforms.rentforecast.config.RentForecastSnapshotProperties;
+import com.methodicalplatforms.rentforecast.format.ColumnarForecastModule;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.metrics.ForecastMetrics;
+import com.methodicalplatforms.rentforecast.request.ForecastOptions;
+import com.methodicalplatforms.rentforecast.request.UnitDetails;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createRequest;
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createUnitDetails;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForecastSnapshotServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MappingJackson2CborHttpMessageConverter cborHttpMessageConverter =
+            new MappingJackson2CborHttpMessageConverter(new ObjectMapper().registerModule(new ColumnarForecastModule()));
+    private Path directory;
+    private RentForecastSnapshotProperties snapshotProperties;
+    private RentForecastProperties rentForecastProperties;
+    private RentForecastService rentForecastService;
+    private ForecastSnapshotStore forecastSnapshotStore;
+    private ForecastSnapshotService forecastSnapshotService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        directory = Files.createTempDirectory("forecast-snapshots-");
+        snapshotProperties = new RentForecastSnapshotProperties();
+        snapshotProperties.setEnabled(true);
+        snapshotProperties.setDirectory(directory);
+        rentForecastProperties = new RentForecastProperties();
+        ForecastMetrics forecastMetrics = new ForecastMetrics(new SimpleMeterRegistry());
+        rentForecastService = RentForecastTestServices.builder()
+                .rentForecastProperties(rentForecastProperties)
+                .forecastMetrics(forecastMetrics)
+                .build();
+        forecastSnapshotStore = new ForecastSnapshotStore(snapshotProperties);
+        forecastSnapshotService = new ForecastSnapshotService(rentForecastService, new ForecastAdmission(new RentForecastAdmissionProperties(), forecastMetrics),
+                forecastSnapshotStore, rentForecastProperties, objectMapper, cborHttpMessageConverter);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void snapshotIsTheForecastResponse() throws Exception {
+        var request = createRequest();
+
+        var forecastSnapshot = forecastSnapshotService.snapshot(request, ForecastSnapshotFormat.JSON).orElseThrow();
+
+        var outputStream = new ByteArrayOutputStream();
+        forecastSnapshot.writeTo(outputStream);
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(rentForecastService.forecastRents(request))), objectMapper.readTree(outputStream.toByteArray()));
+        assertEquals(outputStream.size(), forecastSnapshot.size());
+    }
+
+    @Test
+    void savedSnapshotIsReopenedWithoutForecasting() throws Exception {
+        var request = createRequest();
+        var savedSnapshot = forecastSnapshotService.snapshot(request, ForecastSnapshotFormat.CBOR).orElseThrow();
+
+        // as after a restart, with nothing to forecast with
+        var restartedService = new ForecastSnapshotService(null, null, new ForecastSnapshotStore(snapshotProperties), rentForecastProperties,
+                objectMapper, cborHttpMessageConverter);
+        var reopenedSnapshot = restartedService.snapshot(request, ForecastSnapshotFormat.CBOR).orElseThrow();
+
+        assertEquals(savedSnapshot.getSnapshotId(), reopenedSnapshot.getSnapshotId());
+        assertEquals(savedSnapshot.getContent(), reopenedSnapshot.getContent());
+        assertTrue(restartedService.getSnapshot(savedSnapshot.getSnapshotId(), ForecastSnapshotFormat.CBOR).isPresent());
+        assertFalse(restartedService.getSnapshot(savedSnapshot.getSnapshotId(), ForecastSnapshotFormat.JSON).isPresent());
+    }
+
+    @Test
+    void disabledSnapshotsAreNeitherForecastNorWritten() throws Exception {
+        snapshotProperties.setEnabled(false);
+
+        assertTrue(forecastSnapshotService.snapshot(createRequest(), ForecastSnapshotFormat.JSON).isEmpty());
+        assertThrows(IllegalStateException.class, () -> forecastSnapshotStore.save("a".repeat(64), ForecastSnapshotFormat.JSON, outputStream -> outputStream.write('1')));
+        try (Stream<Path> paths = Files.list(directory)) {
+            assertEquals(0, paths.count());
+        }
+    }
+
+    @Test
+    void snapshotIdFollowsForecastInputs() {
+        var request = createRequest();
+        String snapshotId = forecastSnapshotService.snapshotId(request);
+
+        // unit order doesn't change the forecast
+        var reordered = createRequest();
+        var unitDetails = new LinkedHashMap<String, UnitDetails>();
+        unitDetails.put("102", createUnitDetails("NOT READY", 1100, 900));
+        unitDetails.put("101", createUnitDetails("READY", 1000, 700));
+        reordered.getUnitTypeForecastList().get(0).setUnitDetails(unitDetails);
+        assertEquals(snapshotId, forecastSnapshotService.snapshotId(reordered));
+
+        var summarizeByYear = new ForecastOptions();
+        summarizeByYear.setSummarizeByYear(true);
+        request.setOptions(summarizeByYear);
+        assertNotEquals(snapshotId, forecastSnapshotService.snapshotId(request));
+
+        rentForecastProperties.setEngine(ForecastEngine.PRIMITIVE);
+        assertNotEquals(snapshotId, forecastSnapshotService.snapshotId(createRequest()));
+    }
+
+    @Test
+    void oldestSnapshotsAreDeleted() throws Exception {
+        snapshotProperties.setMaxSnapshots(2);
+        List<String> snapshotIds = List.of("a".repeat(64), "b".repeat(64), "c".repeat(64));
+        for (int i = 0; i < snapshotIds.size(); i++) {
+            forecastSnapshotStore.save(snapshotIds.get(i), ForecastSnapshotFormat.JSON, outputStream -> outputStream.write('1'));
+            Files.setLastModifiedTime(directory.resolve(snapshotIds.get(i) + ".json"), FileTime.fromMillis(1000L * (i + 1)));
+        }
+
+        assertFalse(forecastSnapshotStore.find(snapshotIds.get(0), ForecastSnapshotFormat.JSON).isPresent());
+        assertTrue(forecastSnapshotStore.find(snapshotIds.get(1), ForecastSnapshotFormat.JSON).isPresent());
+        assertTrue(forecastSnapshotStore.find(snapshotIds.get(2), ForecastSnapshotFormat.JSON).isPresent());
+        assertFalse(forecastSnapshotStore.find("../" + snapshotIds.get(2), ForecastSnapshotFormat.JSON).isPresent());
+    }
+}
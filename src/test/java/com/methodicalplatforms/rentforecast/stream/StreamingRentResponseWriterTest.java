@@ -0,0 +1,85 @@
+package com.methodicalplatforms.rentforecast.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.methodicalplatforms.rentforecast.RentForecastService;
+import com.methodicalplatforms.rentforecast.RentForecastTestServices;
+import com.methodicalplatforms.rentforecast.executor.ForecastExecutor;
+import com.methodicalplatforms.rentforecast.kernel.ForecastEngine;
+import com.methodicalplatforms.rentforecast.request.ForecastOptions;
+import com.methodicalplatforms.rentforecast.summary.RentForecastSummaryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static com.methodicalplatforms.rentforecast.RentForecastTestRequests.createRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingRentResponseWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RentForecastService rentForecastService;
+    private StreamingRentResponseWriter streamingRentResponseWriter;
+
+    @BeforeEach
+    public void setup() {
+        setupEngine(ForecastEngine.BIG_DECIMAL);
+    }
+
+    private void setupEngine(ForecastEngine forecastEngine) {
+        RentForecastSummaryService rentForecastSummaryService = new RentForecastSummaryService();
+        ForecastExecutor forecastExecutor = RentForecastTestServices.splittingForecastExecutor();
+        // both responses are calculated from scratch
+        rentForecastService = RentForecastTestServices.builder()
+                .engine(forecastEngine)
+                .cacheEnabled(false)
+                .rentForecastSummaryService(rentForecastSummaryService)
+                .forecastExecutor(forecastExecutor)
+                .build();
+        streamingRentResponseWriter = new StreamingRentResponseWriter(rentForecastService, rentForecastSummaryService, objectMapper, forecastExecutor);
+    }
+
+    @Test
+    void streamedResponseMatchesRentResponse() throws Exception {
+        assertStreamedResponseMatchesRentResponse();
+    }
+
+    @Test
+    void streamedResponseMatchesRentResponsePrimitiveEngine() throws Exception {
+        setupEngine(ForecastEngine.PRIMITIVE);
+        assertStreamedResponseMatchesRentResponse();
+    }
+
+    @Test
+    void streamedResponseMatchesRentResponseWithOptions() throws Exception {
+        for (ForecastEngine forecastEngine : List.of(ForecastEngine.BIG_DECIMAL, ForecastEngine.PRIMITIVE)) {
+            setupEngine(forecastEngine);
+            var summarizeByYear = new ForecastOptions();
+            summarizeByYear.setSummarizeByYear(true);
+            var summarizeByUnitType = new ForecastOptions();
+            summarizeByUnitType.setSummarizeByUnitType(true);
+            var allUnitsOnly = new ForecastOptions();
+            allUnitsOnly.setAllUnitsOnly(true);
+            allUnitsOnly.setSummarizeByYear(true);
+            for (ForecastOptions options : List.of(summarizeByYear, summarizeByUnitType, allUnitsOnly)) {
+                assertStreamedResponseMatchesRentResponse(options);
+            }
+        }
+    }
+
+    private void assertStreamedResponseMatchesRentResponse() throws Exception {
+        assertStreamedResponseMatchesRentResponse(null);
+    }
+
+    private void assertStreamedResponseMatchesRentResponse(ForecastOptions options) throws Exception {
+        var request = createRequest();
+        request.setOptions(options);
+
+        var outputStream = new ByteArrayOutputStream();
+        streamingRentResponseWriter.writeRentForecasts(request, outputStream);
+
+        var expected = objectMapper.readTree(objectMapper.writeValueAsString(rentForecastService.forecastRents(request)));
+        assertEquals(expected, objectMapper.readTree(outputStream.toByteArray()));
+    }
+}